@@ -0,0 +1,151 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.web.BulkheadProperties;
+import com.damienwesterman.defensedrill.rest_api.web.TrafficClass;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Splits the database connections into one pool per {@link TrafficClass}, next to the default
+ * pool configured through spring.datasource.*.
+ * <br><br>
+ * Each partition pool copies the default pool settings, but is sized to the number of slots of
+ * its bulkhead and applies the statement timeout of its partition. A request that holds a
+ * bulkhead slot is therefore always able to get a connection without waiting.
+ * <br><br>
+ * When read replicas are enabled, see {@link ReplicaConfig}, read-only transactions are routed to
+ * a replica instead, and all other work to the partition pools as before.
+ */
+@Configuration
+@ServletStack
+public class DataSourceConfig {
+    /**
+     * Default pool, used by everything that does not run inside a bulkhead.
+     *
+     * @param properties Spring datasource properties.
+     * @return Default connection pool.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource defaultDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Data source of the primary, routing each connection to the pool of the current traffic class.
+     *
+     * @param defaultDataSource Default pool.
+     * @param bulkheadProperties Partition configuration.
+     * @param meterRegistryProvider Registry for the pool metrics of the partitions.
+     * @return Routing data source.
+     */
+    @Bean
+    public TrafficClassRoutingDataSource partitionedDataSource(HikariDataSource defaultDataSource,
+            BulkheadProperties bulkheadProperties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        Map<Object, Object> partitions = new HashMap<>();
+
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            BulkheadProperties.Partition partition = bulkheadProperties.get(trafficClass);
+            HikariConfig poolConfig = new HikariConfig();
+            defaultDataSource.copyStateTo(poolConfig);
+            poolConfig.setPoolName("rest-api-" + trafficClass.name().toLowerCase().replace('_', '-'));
+            poolConfig.setMaximumPoolSize(partition.getMaxConcurrent());
+            poolConfig.setMinimumIdle(0);
+            if (null != meterRegistry) {
+                poolConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            }
+            /*
+             * Start the pool now instead of on first use. Lazy start-up opens the first connection
+             * while holding a monitor, which would pin the virtual thread of the first request.
+             */
+            HikariDataSource pool = new HikariDataSource(poolConfig);
+
+            // JDBC timeouts are in whole seconds, so round up rather than disabling short ones
+            long timeoutMillis = partition.getStatementTimeout().toMillis();
+            int timeoutSeconds = (int) ((timeoutMillis + 999) / 1000);
+            partitions.put(trafficClass, new StatementTimeoutDataSource(pool, timeoutSeconds));
+        }
+
+        TrafficClassRoutingDataSource routingDataSource = new TrafficClassRoutingDataSource();
+        routingDataSource.setTargetDataSources(partitions);
+        routingDataSource.setDefaultTargetDataSource(defaultDataSource);
+        return routingDataSource;
+    }
+
+    /**
+     * Data source used by JPA.
+     * <br><br>
+     * Connections are only taken from the pools once the first statement runs. By then the
+     * read-only flag of the transaction is known for replica routing, and transactions that never
+     * reach the database, such as reads that share the result of an identical read in flight,
+     * never hold a connection at all.
+     *
+     * <br><br>
+     * Prepared statements are counted against a statement cache when metrics are available, see
+     * {@link StatementCacheMetricsDataSource}.
+     *
+     * @param partitionedDataSource Data source of the primary.
+     * @param replicaMonitorProvider Replica monitor, only present when replicas are enabled.
+     * @param meterRegistryProvider Registry for the statement cache metrics.
+     * @return Lazy data source.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(TrafficClassRoutingDataSource partitionedDataSource,
+            ObjectProvider<ReplicaMonitor> replicaMonitorProvider,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        ReplicaMonitor replicaMonitor = replicaMonitorProvider.getIfAvailable();
+        DataSource targetDataSource = null == replicaMonitor
+            ? partitionedDataSource
+            : new ReplicaRoutingDataSource(partitionedDataSource, replicaMonitor);
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (null != meterRegistry) {
+            targetDataSource = new StatementCacheMetricsDataSource(targetDataSource, meterRegistry);
+        }
+        return new LazyConnectionDataSourceProxy(targetDataSource);
+    }
+}
@@ -0,0 +1,84 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Conversions for PostgreSQL write-ahead log positions (LSNs), which PostgreSQL prints as two
+ * hexadecimal numbers separated by a slash, ex. 16/B374D848.
+ */
+public final class Lsn {
+    private Lsn() { }
+
+    /**
+     * Parse an LSN as printed by PostgreSQL.
+     *
+     * @param lsn LSN text, ex. 16/B374D848.
+     * @return LSN as an unsigned 64 bit position.
+     * @throws IllegalArgumentException If the text is not a valid LSN.
+     */
+    public static long parse(@NonNull String lsn) {
+        int slash = lsn.indexOf('/');
+        if (0 >= slash || lsn.length() - 1 == slash) {
+            throw new IllegalArgumentException("Invalid LSN: " + lsn);
+        }
+
+        try {
+            long high = Long.parseLong(lsn, 0, slash, 16);
+            long low = Long.parseLong(lsn, slash + 1, lsn.length(), 16);
+            if (0 > high || 0xFFFFFFFFL < high || 0 > low || 0xFFFFFFFFL < low) {
+                throw new IllegalArgumentException("Invalid LSN: " + lsn);
+            }
+            return (high << 32) | low;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid LSN: " + lsn, e);
+        }
+    }
+
+    /**
+     * Print an LSN the way PostgreSQL does.
+     *
+     * @param lsn LSN as an unsigned 64 bit position.
+     * @return LSN text, ex. 16/B374D848.
+     */
+    @NonNull
+    public static String format(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+
+    /**
+     * Compare two LSNs.
+     *
+     * @param a First LSN.
+     * @param b Second LSN.
+     * @return Negative, zero, or positive if a is before, equal to, or after b.
+     */
+    public static int compare(long a, long b) {
+        return Long.compareUnsigned(a, b);
+    }
+}
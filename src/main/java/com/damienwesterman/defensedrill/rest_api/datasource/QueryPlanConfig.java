@@ -0,0 +1,91 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+
+/**
+ * Keeps the number of distinct SQL statements small, so that query plans and prepared statements
+ * are reused, and exposes how often they are.
+ * <br><br>
+ * IN lists are padded to the next power of two parameters, so a list of 5 IDs and a list of 7 IDs
+ * share the same SQL text. The JPA lookups are derived and JPQL queries, which cannot bind a SQL
+ * array, so padding is what keeps them stable without rewriting them as native = ANY(?) queries.
+ * The native JSON path in DrillJsonRepo binds one array instead. Longer lists are split into
+ * chunks of a fixed size, see
+ * {@link com.damienwesterman.defensedrill.rest_api.service.IdLists}. Prepared statement reuse is
+ * measured by {@link StatementCacheMetricsDataSource}.
+ */
+@Configuration
+@ServletStack
+public class QueryPlanConfig {
+    public static final String QUERY_PLAN_CACHE_METRIC = "hibernate.query.plan.cache";
+
+    /**
+     * Hibernate settings for IN list padding and the statistics behind the query plan cache
+     * metrics. Explicitly configured values in spring.jpa.properties.* take precedence.
+     *
+     * @return Customizer of the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryPlanHibernatePropertiesCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, true);
+            properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    /**
+     * Hit and miss counters of the Hibernate query plan cache.
+     *
+     * @param entityManagerFactory JPA entity manager factory.
+     * @return Binder of the query plan cache metrics.
+     */
+    @Bean
+    public MeterBinder queryPlanCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            FunctionCounter.builder(QUERY_PLAN_CACHE_METRIC, statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit")
+                .register(registry);
+            FunctionCounter.builder(QUERY_PLAN_CACHE_METRIC, statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        };
+    }
+}
@@ -0,0 +1,84 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Holds the position in the primary's write-ahead log that reads of the request being processed
+ * by the current thread must see, so that a client always reads its own writes.
+ * <br><br>
+ * A replica is only used for the request once it has replayed at least this far.
+ */
+public final class ReadConsistencyContext {
+    /** No replica can ever reach the largest possible LSN */
+    private static final long PRIMARY_ONLY = -1L;
+    private static final ThreadLocal<Long> MINIMUM_LSN = new ThreadLocal<>();
+
+    private ReadConsistencyContext() { }
+
+    /**
+     * @return LSN that reads of the current thread must see, null if any replica will do.
+     */
+    @Nullable
+    public static Long getMinimumLsn() {
+        return MINIMUM_LSN.get();
+    }
+
+    /**
+     * Set the LSN that reads of the current thread must see.
+     *
+     * @param lsn LSN of the client's last write.
+     */
+    public static void setMinimumLsn(long lsn) {
+        if (!isPrimaryRequired()) {
+            MINIMUM_LSN.set(lsn);
+        }
+    }
+
+    /**
+     * Send all reads of the current thread to the primary.
+     */
+    public static void requirePrimary() {
+        MINIMUM_LSN.set(PRIMARY_ONLY);
+    }
+
+    /**
+     * @return True if reads of the current thread must go to the primary.
+     */
+    public static boolean isPrimaryRequired() {
+        Long minimumLsn = MINIMUM_LSN.get();
+        return null != minimumLsn && PRIMARY_ONLY == minimumLsn;
+    }
+
+    /**
+     * Clear the LSN of the current thread.
+     */
+    public static void clear() {
+        MINIMUM_LSN.remove();
+    }
+}
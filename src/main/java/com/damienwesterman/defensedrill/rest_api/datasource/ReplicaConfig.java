@@ -0,0 +1,126 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.web.BatchController;
+import com.damienwesterman.defensedrill.rest_api.web.ConsistencyTokenInterceptor;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Read replica set-up, only active with rest-api.replica.enabled=true.
+ * <br><br>
+ * Each replica gets a read-only pool that copies the default pool settings. The
+ * {@link DataSourceConfig} picks up the {@link ReplicaMonitor} and routes read-only transactions
+ * through it, and the {@link ConsistencyTokenInterceptor} keeps those reads consistent with the
+ * client's own writes.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rest-api.replica", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ServletStack
+public class ReplicaConfig implements WebMvcConfigurer {
+    private final ObjectProvider<ConsistencyTokenInterceptor> consistencyTokenInterceptor;
+
+    public ReplicaConfig(ObjectProvider<ConsistencyTokenInterceptor> consistencyTokenInterceptor) {
+        this.consistencyTokenInterceptor = consistencyTokenInterceptor;
+    }
+
+    /**
+     * Replica pools and their lag monitor.
+     *
+     * @param defaultDataSource Default pool, on the primary.
+     * @param properties Replica configuration.
+     * @param meterRegistryProvider Registry for the pool and lag metrics.
+     * @return Started replica monitor.
+     */
+    @Bean
+    public ReplicaMonitor replicaMonitor(HikariDataSource defaultDataSource, ReplicaProperties properties,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<String> urls = properties.getUrls();
+
+        for (int i = 0; i < urls.size(); i++) {
+            String key = "replica-" + (i + 1);
+            HikariConfig poolConfig = new HikariConfig();
+            defaultDataSource.copyStateTo(poolConfig);
+            poolConfig.setPoolName("rest-api-" + key);
+            poolConfig.setJdbcUrl(urls.get(i));
+            if (null != properties.getUsername()) {
+                poolConfig.setUsername(properties.getUsername());
+            }
+            if (null != properties.getPassword()) {
+                poolConfig.setPassword(properties.getPassword());
+            }
+            poolConfig.setMaximumPoolSize(properties.getMaxPoolSize());
+            poolConfig.setMinimumIdle(0);
+            poolConfig.setReadOnly(true);
+            // A replica that is down at start-up is kept out of rotation instead of failing start-up
+            poolConfig.setInitializationFailTimeout(-1);
+            poolConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(key, new HikariDataSource(poolConfig));
+        }
+
+        ReplicaMonitor replicaMonitor = new ReplicaMonitor(defaultDataSource, replicas,
+            properties.getMaxLag(), properties.getCheckInterval(), meterRegistry);
+        replicaMonitor.start();
+        return replicaMonitor;
+    }
+
+    @Bean
+    public ConsistencyTokenInterceptor consistencyTokenInterceptor(ReplicaMonitor replicaMonitor) {
+        return new ConsistencyTokenInterceptor(replicaMonitor);
+    }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // Each sub-request of a batch passes through the interceptor on its own
+        registry.addInterceptor(consistencyTokenInterceptor.getObject())
+            .excludePathPatterns(BatchController.ENDPOINT);
+    }
+}
@@ -0,0 +1,281 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of how far behind the primary each read replica is, and picks the replica that
+ * serves each read-only transaction.
+ * <br><br>
+ * A background thread compares the replay position of every replica with the current position
+ * of the primary at a fixed interval. The lag of a replica is how long it has been behind a
+ * position that the primary had already reached, so it is measured on this host's clock alone
+ * and an idle primary never makes a replica look behind. Replicas that lag more than the
+ * configured maximum, or that cannot be reached, are taken out of rotation until they catch up,
+ * and their reads fall back to the primary. Replicas start out of rotation until their first
+ * successful check.
+ * <br><br>
+ * The monitor owns the replica data sources and closes them when it is closed.
+ */
+@Slf4j
+public class ReplicaMonitor implements AutoCloseable {
+    public static final String LAG_METRIC = "datasource.replica.lag";
+    public static final String HEALTHY_METRIC = "datasource.replica.healthy";
+    public static final String FALLBACKS_METRIC = "datasource.replica.fallbacks";
+    public static final String REASON_UNAVAILABLE = "unavailable";
+    public static final String REASON_READ_YOUR_WRITES = "read.your.writes";
+
+    private static final String PRIMARY_QUERY = "SELECT pg_current_wal_lsn()::text";
+    private static final String REPLICA_QUERY = "SELECT pg_last_wal_replay_lsn()::text";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final Duration checkInterval;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter unavailableFallbacks;
+    private final Counter readYourWritesFallbacks;
+    private final ScheduledExecutorService scheduler;
+    private volatile long primaryLsn;
+    private volatile long primaryCheckedAt = System.nanoTime();
+
+    /**
+     * @param primary Data source of the primary, used to read its current LSN.
+     * @param replicas Data source of each replica by its lookup key, in rotation order.
+     * @param maxLag Maximum replication lag of a replica in rotation.
+     * @param checkInterval Interval between lag checks.
+     * @param meterRegistry Registry for the lag and fallback metrics.
+     */
+    public ReplicaMonitor(@NonNull DataSource primary, @NonNull Map<String, DataSource> replicas,
+            @NonNull Duration maxLag, @NonNull Duration checkInterval, @NonNull MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagMillis = maxLag.toMillis();
+        this.checkInterval = checkInterval;
+
+        replicas.forEach((key, dataSource) -> {
+            Replica replica = new Replica(key, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder(LAG_METRIC, replica, r -> r.lagMillis / 1000.0)
+                .tag("replica", key)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+            Gauge.builder(HEALTHY_METRIC, replica, r -> r.healthy ? 1 : 0)
+                .tag("replica", key)
+                .register(meterRegistry);
+        });
+        this.unavailableFallbacks = Counter.builder(FALLBACKS_METRIC)
+            .tag("reason", REASON_UNAVAILABLE)
+            .register(meterRegistry);
+        this.readYourWritesFallbacks = Counter.builder(FALLBACKS_METRIC)
+            .tag("reason", REASON_READ_YOUR_WRITES)
+            .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start checking the replicas in the background.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Data source of each replica by its lookup key.
+     */
+    @NonNull
+    public Map<String, DataSource> getReplicaDataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.key, replica.dataSource));
+        return dataSources;
+    }
+
+    @Override
+    public void close() throws Exception {
+        scheduler.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * Pick a replica for a read-only transaction. Replicas are used in turn.
+     *
+     * @param minimumLsn LSN the replica must have replayed, null if any replica will do.
+     * @return Lookup key of the replica, or null if none is usable and the primary must be used.
+     */
+    @Nullable
+    public String chooseReplica(@Nullable Long minimumLsn) {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        boolean anyHealthy = false;
+
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            anyHealthy = true;
+            if (null == minimumLsn || 0 <= Lsn.compare(replica.replayedLsn, minimumLsn)) {
+                return replica.key;
+            }
+        }
+
+        (anyHealthy ? readYourWritesFallbacks : unavailableFallbacks).increment();
+        return null;
+    }
+
+    /**
+     * Read the current LSN of the primary.
+     *
+     * @return Current LSN of the primary.
+     * @throws SQLException If the primary could not be queried.
+     */
+    public long currentPrimaryLsn() throws SQLException {
+        try (Connection connection = primary.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(PRIMARY_QUERY)) {
+            resultSet.next();
+            return Lsn.parse(resultSet.getString(1));
+        }
+    }
+
+    /**
+     * Check the lag of every replica against the primary. Normally run by the monitor thread.
+     */
+    public void check() {
+        try {
+            primaryLsn = currentPrimaryLsn();
+            primaryCheckedAt = System.nanoTime();
+        } catch (SQLException | RuntimeException e) {
+            // Judge the replicas against the last known position, they may still be serving reads
+            log.warn("Could not read the WAL position of the primary: {}", e.getMessage());
+        }
+
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(Replica replica) {
+        boolean wasHealthy = replica.healthy;
+        try (Connection connection = replica.dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(1, checkInterval.toSeconds()));
+            try (ResultSet resultSet = statement.executeQuery(REPLICA_QUERY)) {
+                resultSet.next();
+                String replayedLsn = resultSet.getString(1);
+                if (null == replayedLsn) {
+                    throw new SQLException("Not a replica, pg_last_wal_replay_lsn() is null");
+                }
+                replica.replayedLsn = Lsn.parse(replayedLsn);
+                updateLag(replica);
+            }
+        } catch (SQLException | RuntimeException e) {
+            replica.healthy = false;
+            if (wasHealthy) {
+                log.warn("Replica {} is unavailable: {}", replica.key, e.getMessage());
+            }
+            return;
+        }
+
+        if (wasHealthy && !replica.healthy) {
+            log.warn("Replica {} is {} ms behind the primary, falling back to the primary", replica.key,
+                replica.lagMillis);
+        } else if (!wasHealthy && replica.healthy) {
+            log.info("Replica {} is back in rotation", replica.key);
+        }
+    }
+
+    /**
+     * Track how long the replica has been behind a position the primary had reached, within the
+     * resolution of the check interval.
+     */
+    private void updateLag(Replica replica) {
+        if (0 <= Lsn.compare(replica.replayedLsn, primaryLsn)) {
+            replica.targetLsn = null;
+            replica.lagMillis = 0;
+        } else if (null == replica.targetLsn || 0 <= Lsn.compare(replica.replayedLsn, replica.targetLsn)) {
+            // Caught up with the previous target but the primary has moved on, start over from here
+            replica.targetLsn = primaryLsn;
+            replica.targetSince = primaryCheckedAt;
+            replica.lagMillis = 0;
+        } else {
+            replica.lagMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replica.targetSince);
+        }
+        replica.healthy = replica.lagMillis <= maxLagMillis;
+    }
+
+    /**
+     * Last observed state of a replica.
+     */
+    private static class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = false;
+        private volatile long replayedLsn;
+        private volatile long lagMillis;
+        /** Primary position the replica is catching up to, null when caught up */
+        private Long targetLsn;
+        /** When the primary was seen at the target position, in System.nanoTime() */
+        private long targetSince;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration of the PostgreSQL read replicas, bound from rest-api.replica.*.
+ * <br><br>
+ * Replicas are disabled by default, in which case all traffic goes to the primary.
+ */
+@Data
+@ConfigurationProperties("rest-api.replica")
+public class ReplicaProperties {
+    /** Whether read-only transactions may be routed to the replicas */
+    private boolean enabled = false;
+
+    /** JDBC URLs of the replicas, ex. jdbc:postgresql://replica-1:5432/defense_drill */
+    private List<String> urls = new ArrayList<>();
+
+    /** Replica user name, defaults to the primary's */
+    private String username;
+
+    /** Replica password, defaults to the primary's */
+    private String password;
+
+    /** Maximum number of connections to each replica */
+    private int maxPoolSize = 10;
+
+    /** Replicas that lag further behind the primary than this are not used */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /** How often the replication lag of each replica is checked */
+    private Duration checkInterval = Duration.ofSeconds(1);
+}
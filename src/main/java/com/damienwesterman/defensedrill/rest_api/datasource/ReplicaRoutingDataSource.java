@@ -0,0 +1,77 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to a read replica and everything else to the primary.
+ * <br><br>
+ * The replica is picked by the {@link ReplicaMonitor}, which only hands out replicas that are
+ * within the allowed lag and have replayed the client's own writes, see
+ * {@link ReadConsistencyContext}. The read-only flag of a transaction is only known once it has
+ * begun, so this must sit behind a LazyConnectionDataSourceProxy, which waits for the first
+ * statement before asking for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaMonitor replicaMonitor;
+
+    /**
+     * @param primary Data source of the primary.
+     * @param replicaMonitor Monitor of the replicas, which picks the replica of each read-only transaction.
+     */
+    public ReplicaRoutingDataSource(@NonNull DataSource primary, @NonNull ReplicaMonitor replicaMonitor) {
+        this.replicaMonitor = replicaMonitor;
+        Map<Object, Object> targets = new HashMap<>(replicaMonitor.getReplicaDataSources());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // Fail loudly rather than silently sending a read to the primary under a wrong key
+        setLenientFallback(false);
+        initialize();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReadConsistencyContext.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+
+        String replica = replicaMonitor.chooseReplica(ReadConsistencyContext.getMinimumLsn());
+        return null == replica ? PRIMARY : replica;
+    }
+}
@@ -0,0 +1,150 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Data source that measures how often prepared statements could be reused from a statement cache.
+ * <br><br>
+ * Drivers such as PostgreSQL's only keep a server side prepared statement for SQL text they have
+ * seen recently, so SQL that differs on every call, such as an IN list with one parameter per ID,
+ * is planned again every time. This counts each prepared SQL string against a bounded cache of
+ * recently prepared SQL the same size as the driver's default, which approximates the hit rate of
+ * the driver's cache without depending on driver internals.
+ */
+public class StatementCacheMetricsDataSource extends DelegatingDataSource {
+    public static final String STATEMENT_CACHE_METRIC = "datasource.statement.cache";
+    /** Same as the preparedStatementCacheQueries default of the PostgreSQL driver. */
+    public static final int CACHE_SIZE = 256;
+
+    private final Cache<String, Boolean> preparedSql = Caffeine.newBuilder()
+        .maximumSize(CACHE_SIZE)
+        .build();
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Constructor.
+     *
+     * @param targetDataSource Data source to wrap.
+     * @param meterRegistry Registry for the hit and miss counters.
+     */
+    public StatementCacheMetricsDataSource(@NonNull DataSource targetDataSource,
+            @NonNull MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        this.hits = Counter.builder(STATEMENT_CACHE_METRIC)
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.misses = Counter.builder(STATEMENT_CACHE_METRIC)
+            .tag("result", "miss")
+            .register(meterRegistry);
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Count a prepared SQL string as a hit or a miss.
+     *
+     * @param sql SQL being prepared.
+     */
+    void record(@NonNull String sql) {
+        if (null == preparedSql.asMap().putIfAbsent(sql, Boolean.TRUE)) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { Connection.class }, new PrepareInvocationHandler(connection));
+    }
+
+    /**
+     * Passes every call through to the connection, recording the SQL of prepared statements.
+     */
+    private class PrepareInvocationHandler implements InvocationHandler {
+        private final Connection target;
+
+        private PrepareInvocationHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "prepareStatement", "prepareCall":
+                    record((String) args[0]);
+                    break;
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
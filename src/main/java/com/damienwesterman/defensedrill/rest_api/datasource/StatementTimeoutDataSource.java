@@ -0,0 +1,122 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+
+/**
+ * Data source that applies a query timeout to every statement created on its connections.
+ * <br><br>
+ * This is done with the standard {@link Statement#setQueryTimeout(int)} rather than a database
+ * specific session setting, so it behaves the same on every driver. Timeouts that are set
+ * explicitly on a statement afterwards, such as JPA query hints, still take precedence.
+ */
+public class StatementTimeoutDataSource extends DelegatingDataSource {
+    private final int timeoutSeconds;
+
+    /**
+     * Constructor.
+     *
+     * @param targetDataSource Data source to wrap.
+     * @param timeoutSeconds Statement timeout in seconds, 0 for none.
+     */
+    public StatementTimeoutDataSource(@NonNull DataSource targetDataSource, int timeoutSeconds) {
+        super(targetDataSource);
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        if (0 >= timeoutSeconds) {
+            return connection;
+        }
+
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { Connection.class }, new TimeoutInvocationHandler(connection));
+    }
+
+    /**
+     * Passes every call through to the connection, setting the timeout on created statements.
+     */
+    private class TimeoutInvocationHandler implements InvocationHandler {
+        private final Connection target;
+
+        private TimeoutInvocationHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+
+            if (result instanceof Statement statement) {
+                statement.setQueryTimeout(timeoutSeconds);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.datasource;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.damienwesterman.defensedrill.rest_api.web.TrafficClassContext;
+
+/**
+ * Hands out connections from the pool of the {@link TrafficClassContext current traffic class}.
+ * <br><br>
+ * Work that is not part of a REST request, such as migrations, gRPC and GraphQL calls or
+ * long-poll re-checks, falls back to the default pool.
+ */
+public class TrafficClassRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TrafficClassContext.get();
+    }
+
+    /**
+     * Close the partition pools. The default pool is a bean of its own and is closed by Spring.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof DelegatingDataSource delegatingDataSource) {
+                dataSource = delegatingDataSource.getTargetDataSource();
+            }
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
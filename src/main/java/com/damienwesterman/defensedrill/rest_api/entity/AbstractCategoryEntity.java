@@ -34,6 +34,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -64,6 +65,11 @@ public abstract class AbstractCategoryEntity {
     // @NotNull -> This can (and should) be null when  used as a DTO
     protected Long updateTimestamp;
 
+    /** Optimistic locking version, returned to clients as the ETag */
+    @JsonIgnore // Do not include this in the DTO
+    @Version
+    protected Long version;
+
     @Schema(
         description = "Consice category name.",
         example = "Strikes"
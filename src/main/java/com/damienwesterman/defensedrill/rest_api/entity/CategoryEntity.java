@@ -26,6 +26,8 @@
 
 package com.damienwesterman.defensedrill.rest_api.entity;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
@@ -44,6 +46,7 @@ import lombok.experimental.SuperBuilder;
     description = "Overarching category of a Drill, such as a Martial Arts Discipline."
 )
 @Entity
+@DynamicUpdate
 @Data
 @Table(name = "categories")
 @EqualsAndHashCode(callSuper = true)
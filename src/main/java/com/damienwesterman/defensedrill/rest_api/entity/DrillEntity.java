@@ -28,6 +28,7 @@ package com.damienwesterman.defensedrill.rest_api.entity;
 
 import java.util.List;
 
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.lang.Nullable;
 
 import jakarta.persistence.CascadeType;
@@ -43,7 +44,9 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -54,8 +57,11 @@ import lombok.NoArgsConstructor;
 
 /**
  * Database Entity to contain all the information for a Drill.
+ * <br><br>
+ * Updates only write the columns that changed, see {@link DynamicUpdate}.
  */
 @Entity
+@DynamicUpdate
 @Table(name = "drills")
 @Data
 @AllArgsConstructor
@@ -71,6 +77,10 @@ public class DrillEntity {
     @NotNull
     private Long updateTimestamp;
 
+    /** Optimistic locking version, returned to clients as the ETag */
+    @Version
+    private Long version;
+
     @Column(unique = true)
     @NotEmpty
     @Size(min = 1, max = 255)
@@ -110,5 +120,7 @@ public class DrillEntity {
         fetch = FetchType.EAGER,
         orphanRemoval = true
     )
+    // Rows are renumbered in place, so their physical order says nothing
+    @OrderBy("number ASC")
     private List<InstructionsEntity> instructions;
 }
@@ -30,6 +30,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.lang.NonNull;
 
 import jakarta.annotation.Nullable;
@@ -55,6 +56,7 @@ import lombok.ToString;
  * Database Entity to contain all the information for a single set of Instructions for a drill.
  */
 @Entity
+@DynamicUpdate
 @Table(name = "instructions")
 @IdClass(InstructionsEntity.InstructionId.class)
 @Data
@@ -26,6 +26,8 @@
 
 package com.damienwesterman.defensedrill.rest_api.entity;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
@@ -45,6 +47,7 @@ import lombok.experimental.SuperBuilder;
     description = "More specific type of category for a Drill, such as a Strike or Kick."
 )
 @Entity
+@DynamicUpdate
 @Data
 @Table(name = "sub_categories")
 @EqualsAndHashCode(callSuper = true)
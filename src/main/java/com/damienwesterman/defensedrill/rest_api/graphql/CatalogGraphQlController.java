@@ -0,0 +1,276 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.graphql;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.dataloader.DataLoader;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Controller;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
+import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
+
+import graphql.schema.DataFetchingEnvironment;
+import reactor.core.publisher.Mono;
+
+/**
+ * GraphQL controller for reading the drill graph in a single round trip.
+ * <br><br>
+ * Drills are fetched as {@link DrillSummary} objects, and each of their associations is resolved
+ * through a per-request DataLoader. All drills at the same level of a query are batched together,
+ * so each association costs one SQL query per level regardless of the number of drills.
+ */
+@Controller
+@ServletStack
+public class CatalogGraphQlController {
+    public static final String DRILL_LOADER = "drill";
+    public static final String CATEGORIES_LOADER = "drillCategories";
+    public static final String SUB_CATEGORIES_LOADER = "drillSubCategories";
+    public static final String RELATED_DRILL_IDS_LOADER = "drillRelatedDrillIds";
+    public static final String INSTRUCTIONS_LOADER = "drillInstructions";
+
+    private final DrillService drillService;
+    private final CategorySerivce categorySerivce;
+    private final SubCategorySerivce subCategorySerivce;
+    private final IdLists idLists;
+
+    public CatalogGraphQlController(DrillService drillService, CategorySerivce categorySerivce,
+            SubCategorySerivce subCategorySerivce, IdLists idLists, BatchLoaderRegistry registry) {
+        this.drillService = drillService;
+        this.categorySerivce = categorySerivce;
+        this.subCategorySerivce = subCategorySerivce;
+        this.idLists = idLists;
+
+        registry.<Long, DrillSummary>forName(DRILL_LOADER)
+            .registerMappedBatchLoader((drillIds, env) -> Mono.fromCallable(() ->
+                drillService.findAllSummaries(drillIds).stream()
+                    .collect(Collectors.toMap(DrillSummary::getId, Function.identity()))));
+        registry.<Long, List<CategoryEntity>>forName(CATEGORIES_LOADER)
+            .registerMappedBatchLoader((drillIds, env) -> Mono.fromCallable(() ->
+                withEmptyLists(drillIds, drillService.findCategoriesByDrill(drillIds))));
+        registry.<Long, List<SubCategoryEntity>>forName(SUB_CATEGORIES_LOADER)
+            .registerMappedBatchLoader((drillIds, env) -> Mono.fromCallable(() ->
+                withEmptyLists(drillIds, drillService.findSubCategoriesByDrill(drillIds))));
+        registry.<Long, List<Long>>forName(RELATED_DRILL_IDS_LOADER)
+            .registerMappedBatchLoader((drillIds, env) -> Mono.fromCallable(() ->
+                withEmptyLists(drillIds, drillService.findRelatedDrillIdsByDrill(drillIds))));
+        registry.<Long, List<InstructionsEntity>>forName(INSTRUCTIONS_LOADER)
+            .registerMappedBatchLoader((drillIds, env) -> Mono.fromCallable(() ->
+                withEmptyLists(drillIds, drillService.findInstructionsByDrill(drillIds))));
+    }
+
+    /**
+     * Find a drill by its ID or name.
+     *
+     * @param id ID of the drill.
+     * @param name Name of the drill, case insensitive.
+     * @param env Environment, used to cache the drill for any related drill lookups.
+     * @return The drill, or null if it does not exist.
+     */
+    @QueryMapping
+    @Nullable
+    public DrillSummary drill(@Argument Long id, @Argument String name, DataFetchingEnvironment env) {
+        Optional<DrillSummary> drill = null != id
+            ? drillService.findSummary(requireOnlyOne(id, name))
+            : drillService.findSummary(requireOnlyOne(name, id));
+        drill.ifPresent(found -> prime(env, List.of(found)));
+        return drill.orElse(null);
+    }
+
+    /**
+     * Find all drills, optionally filtered.
+     *
+     * @param ids Only return drills with these IDs.
+     * @param categoryIds Only return drills that have any of these categories.
+     * @param subCategoryIds Only return drills that have any of these sub-categories.
+     * @param updatedAfter Only return drills updated after this UTC time in milliseconds.
+     * @param env Environment, used to cache the drills for any related drill lookups.
+     * @return List of drills sorted by name.
+     */
+    @QueryMapping
+    @NonNull
+    public List<DrillSummary> drills(@Argument List<Long> ids, @Argument List<Long> categoryIds,
+            @Argument List<Long> subCategoryIds, @Argument Long updatedAfter, DataFetchingEnvironment env) {
+        long filterCount = Stream.of(ids, categoryIds, subCategoryIds, updatedAfter)
+            .filter(filter -> null != filter)
+            .count();
+        if (1 < filterCount) {
+            throw new InvalidRequestParameterException("At most one filter may be set.");
+        }
+
+        List<DrillSummary> drills;
+        if (null != ids) {
+            idLists.checkSize(ids);
+            drills = drillService.findAllSummaries(ids);
+        } else if (null != categoryIds) {
+            drills = drillService.findAllSummariesByCategory(categoryIds);
+        } else if (null != subCategoryIds) {
+            drills = drillService.findAllSummariesBySubCategory(subCategoryIds);
+        } else if (null != updatedAfter) {
+            drills = drillService.findAllSummaries(updatedAfter);
+        } else {
+            drills = drillService.findAllSummaries();
+        }
+
+        prime(env, drills);
+        return drills;
+    }
+
+    @SchemaMapping(typeName = "Drill")
+    public CompletableFuture<List<CategoryEntity>> categories(DrillSummary drill, DataFetchingEnvironment env) {
+        DataLoader<Long, List<CategoryEntity>> loader = env.getDataLoader(CATEGORIES_LOADER);
+        return loader.load(drill.getId());
+    }
+
+    @SchemaMapping(typeName = "Drill")
+    public CompletableFuture<List<SubCategoryEntity>> subCategories(DrillSummary drill,
+            DataFetchingEnvironment env) {
+        DataLoader<Long, List<SubCategoryEntity>> loader = env.getDataLoader(SUB_CATEGORIES_LOADER);
+        return loader.load(drill.getId());
+    }
+
+    @SchemaMapping(typeName = "Drill")
+    public CompletableFuture<List<InstructionsEntity>> instructions(DrillSummary drill,
+            DataFetchingEnvironment env) {
+        DataLoader<Long, List<InstructionsEntity>> loader = env.getDataLoader(INSTRUCTIONS_LOADER);
+        return loader.load(drill.getId());
+    }
+
+    /**
+     * Resolve related drills in two batches: first the related IDs of every drill at this level,
+     * then the summaries of all of those related drills at once.
+     */
+    @SchemaMapping(typeName = "Drill")
+    public CompletableFuture<List<DrillSummary>> relatedDrills(DrillSummary drill, DataFetchingEnvironment env) {
+        DataLoader<Long, List<Long>> relatedIdsLoader = env.getDataLoader(RELATED_DRILL_IDS_LOADER);
+        DataLoader<Long, DrillSummary> drillLoader = env.getDataLoader(DRILL_LOADER);
+        return relatedIdsLoader.load(drill.getId())
+            .thenCompose(drillLoader::loadMany)
+            .thenApply(relatedDrills -> relatedDrills.stream()
+                // A related drill may have been deleted in between the two queries
+                .filter(relatedDrill -> null != relatedDrill)
+                .toList());
+    }
+
+    @SchemaMapping(typeName = "Instructions")
+    public List<String> steps(InstructionsEntity instructions) {
+        return instructions.getStepsAsList();
+    }
+
+    @QueryMapping
+    @Nullable
+    public CategoryEntity category(@Argument Long id, @Argument String name) {
+        return null != id
+            ? categorySerivce.find(requireOnlyOne(id, name)).orElse(null)
+            : categorySerivce.find(requireOnlyOne(name, id)).orElse(null);
+    }
+
+    @QueryMapping
+    @NonNull
+    public List<CategoryEntity> categories(@Argument List<Long> ids) {
+        return null == ids ? categorySerivce.findAll() : categorySerivce.findAll(ids);
+    }
+
+    @QueryMapping
+    @Nullable
+    public SubCategoryEntity subCategory(@Argument Long id, @Argument String name) {
+        return null != id
+            ? subCategorySerivce.find(requireOnlyOne(id, name)).orElse(null)
+            : subCategorySerivce.find(requireOnlyOne(name, id)).orElse(null);
+    }
+
+    @QueryMapping
+    @NonNull
+    public List<SubCategoryEntity> subCategories(@Argument List<Long> ids) {
+        return null == ids ? subCategorySerivce.findAll() : subCategorySerivce.findAll(ids);
+    }
+
+    /**
+     * Make sure that exactly one of an ID or name lookup argument was given.
+     *
+     * @param <T> Type of the given argument.
+     * @param given Argument that should be set.
+     * @param other Argument that should not be set.
+     * @return The given argument.
+     */
+    @NonNull
+    private static <T> T requireOnlyOne(@Nullable T given, @Nullable Object other) {
+        if (null == given || null != other) {
+            throw new InvalidRequestParameterException("Exactly one of id or name must be set.");
+        }
+        return given;
+    }
+
+    /**
+     * Cache already loaded drills in the drill DataLoader, so that related drills which are
+     * already part of the result are not queried for again.
+     *
+     * @param env Environment containing the DataLoaders.
+     * @param drills Loaded drills.
+     */
+    private static void prime(@NonNull DataFetchingEnvironment env, @NonNull List<DrillSummary> drills) {
+        DataLoader<Long, DrillSummary> drillLoader = env.getDataLoader(DRILL_LOADER);
+        drills.forEach(drill -> drillLoader.prime(drill.getId(), drill));
+    }
+
+    /**
+     * Drills without any entries for an association are missing from the batch results, but
+     * should resolve to an empty list rather than null.
+     *
+     * @param <V> List element type.
+     * @param drillIds All requested drill IDs.
+     * @param results Results of the batch query.
+     * @return Map containing a list for every requested drill ID.
+     */
+    @NonNull
+    private static <V> Map<Long, List<V>> withEmptyLists(@NonNull Collection<Long> drillIds,
+            @NonNull Map<Long, List<V>> results) {
+        return drillIds.stream()
+            .collect(Collectors.toMap(Function.identity(), drillId -> results.getOrDefault(drillId, List.of())));
+    }
+}
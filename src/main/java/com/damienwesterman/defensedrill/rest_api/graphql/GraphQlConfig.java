@@ -0,0 +1,83 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.graphql;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.scalars.ExtendedScalars;
+
+/**
+ * GraphQL configuration.
+ * <br><br>
+ * Queries are limited in both depth and complexity (one point per requested field) so that a
+ * single request cannot walk the related drill graph indefinitely. Queries over either limit are
+ * rejected before any data is fetched.
+ */
+@Configuration
+@ServletStack
+public class GraphQlConfig {
+    /**
+     * Register the scalars used by the schema. Timestamps do not fit in a GraphQL Int.
+     *
+     * @return RuntimeWiringConfigurer.
+     */
+    @Bean
+    public RuntimeWiringConfigurer scalarWiringConfigurer() {
+        return wiringBuilder -> wiringBuilder.scalar(ExtendedScalars.GraphQLLong);
+    }
+
+    /**
+     * Reject queries nested deeper than the configured maximum.
+     *
+     * @param maxDepth Maximum query depth.
+     * @return MaxQueryDepthInstrumentation.
+     */
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${rest-api.graphql.max-depth:8}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    /**
+     * Reject queries that request more fields than the configured maximum.
+     *
+     * @param maxComplexity Maximum query complexity.
+     * @return MaxQueryComplexityInstrumentation.
+     */
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${rest-api.graphql.max-complexity:200}") int maxComplexity) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity);
+    }
+}
@@ -0,0 +1,297 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.grpc;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.BatchGetRequest;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.CatalogServiceGrpc;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.Category;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.CategoryList;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.Drill;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.DrillList;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.EntityType;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.GetRequest;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ListCategoriesRequest;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ListDrillsRequest;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.WatchChangesRequest;
+import com.damienwesterman.defensedrill.rest_api.repository.AbstractCategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.service.AbstractCategoryService;
+import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * gRPC service for internal service-to-service access to the catalog.
+ * <br><br>
+ * Offers the same read operations as the REST controllers over the services, but with protobuf
+ * messages and a server-streaming change feed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ServletStack
+public class CatalogGrpcService extends CatalogServiceGrpc.CatalogServiceImplBase {
+    private final DrillService drillService;
+    private final CategorySerivce categorySerivce;
+    private final SubCategorySerivce subCategorySerivce;
+    private final GrpcChangeFeed changeFeed;
+
+    @Override
+    public void getDrill(GetRequest request, StreamObserver<Drill> responseObserver) {
+        respond(responseObserver, () -> {
+            DrillEntity drill = find(request, drillService::find, drillService::find, "Drill");
+            return toDrillList(List.of(drill)).getDrills(0);
+        });
+    }
+
+    @Override
+    public void batchGetDrills(BatchGetRequest request, StreamObserver<DrillList> responseObserver) {
+        respond(responseObserver, () -> toDrillList(drillService.findAll(request.getIdsList())));
+    }
+
+    @Override
+    public void listDrills(ListDrillsRequest request, StreamObserver<DrillList> responseObserver) {
+        respond(responseObserver, () -> {
+            int filterCount = (request.hasUpdatedAfter() ? 1 : 0)
+                + (0 < request.getCategoryIdsCount() ? 1 : 0)
+                + (0 < request.getSubCategoryIdsCount() ? 1 : 0);
+            if (1 < filterCount) {
+                throw new InvalidRequestParameterException("At most one filter may be set.");
+            }
+
+            List<DrillEntity> drills;
+            if (request.hasUpdatedAfter()) {
+                drills = drillService.findAll(request.getUpdatedAfter());
+            } else if (0 < request.getCategoryIdsCount()) {
+                drills = drillService.findAllByCategory(request.getCategoryIdsList());
+            } else if (0 < request.getSubCategoryIdsCount()) {
+                drills = drillService.findAllBySubCategory(request.getSubCategoryIdsList());
+            } else {
+                drills = drillService.findAll();
+            }
+            return toDrillList(drills);
+        });
+    }
+
+    @Override
+    public void getCategory(GetRequest request, StreamObserver<Category> responseObserver) {
+        respond(responseObserver, () -> getAbstractCategory(request, categorySerivce, "Category"));
+    }
+
+    @Override
+    public void batchGetCategories(BatchGetRequest request, StreamObserver<CategoryList> responseObserver) {
+        respond(responseObserver, () -> toCategoryList(categorySerivce.findAll(request.getIdsList())));
+    }
+
+    @Override
+    public void listCategories(ListCategoriesRequest request, StreamObserver<CategoryList> responseObserver) {
+        respond(responseObserver, () -> listAbstractCategories(request, categorySerivce));
+    }
+
+    @Override
+    public void getSubCategory(GetRequest request, StreamObserver<Category> responseObserver) {
+        respond(responseObserver, () -> getAbstractCategory(request, subCategorySerivce, "Sub-Category"));
+    }
+
+    @Override
+    public void batchGetSubCategories(BatchGetRequest request, StreamObserver<CategoryList> responseObserver) {
+        respond(responseObserver, () -> toCategoryList(subCategorySerivce.findAll(request.getIdsList())));
+    }
+
+    @Override
+    public void listSubCategories(ListCategoriesRequest request, StreamObserver<CategoryList> responseObserver) {
+        respond(responseObserver, () -> listAbstractCategories(request, subCategorySerivce));
+    }
+
+    @Override
+    public void watchChanges(WatchChangesRequest request, StreamObserver<ChangeEvent> responseObserver) {
+        Set<EntityType> entityTypes = EnumSet.noneOf(EntityType.class);
+        for (EntityType entityType : request.getEntityTypesList()) {
+            if (EntityType.ENTITY_TYPE_UNSPECIFIED != entityType && EntityType.UNRECOGNIZED != entityType) {
+                entityTypes.add(entityType);
+            }
+        }
+
+        changeFeed.watch((ServerCallStreamObserver<ChangeEvent>) responseObserver, entityTypes);
+    }
+
+    /**
+     * Find an entity by the ID or name in the request.
+     *
+     * @param <E> Entity type.
+     * @param request Request containing the ID or name.
+     * @param findById Lookup by ID.
+     * @param findByName Lookup by name.
+     * @param entityName Name of the entity type for error messages.
+     * @return The found entity.
+     */
+    @NonNull
+    private <E> E find(GetRequest request, Function<Long, Optional<E>> findById,
+            Function<String, Optional<E>> findByName, String entityName) {
+        Optional<E> entity;
+        switch (request.getKeyCase()) {
+            case ID:
+                entity = findById.apply(request.getId());
+                break;
+            case NAME:
+                entity = findByName.apply(request.getName());
+                break;
+            case KEY_NOT_SET:
+            default:
+                throw new InvalidRequestParameterException("An id or name is required.");
+        }
+
+        return entity.orElseThrow(() -> Status.NOT_FOUND
+            .withDescription(entityName + " does not exist")
+            .asRuntimeException());
+    }
+
+    /**
+     * Find a CategoryEntity or SubCategoryEntity by the ID or name in the request.
+     *
+     * @param <E> Entity type.
+     * @param request Request containing the ID or name.
+     * @param service Service for the entity type.
+     * @param entityName Name of the entity type for error messages.
+     * @return Category message.
+     */
+    @NonNull
+    private <E extends AbstractCategoryEntity> Category getAbstractCategory(GetRequest request,
+            AbstractCategoryService<E, ? extends AbstractCategoryRepo<E>> service, String entityName) {
+        E abstractCategory = find(request, service::find, service::find, entityName);
+        return GrpcMapper.toProto(abstractCategory);
+    }
+
+    /**
+     * List all CategoryEntity or SubCategoryEntity objects, optionally only those updated after a
+     * given time.
+     *
+     * @param <E> Entity type.
+     * @param request Request containing the optional timestamp.
+     * @param service Service for the entity type.
+     * @return CategoryList message.
+     */
+    @NonNull
+    private <E extends AbstractCategoryEntity> CategoryList listAbstractCategories(ListCategoriesRequest request,
+            AbstractCategoryService<E, ? extends AbstractCategoryRepo<E>> service) {
+        if (request.hasUpdatedAfter()) {
+            return toCategoryList(service.findAll(request.getUpdatedAfter()));
+        }
+        return toCategoryList(service.findAll());
+    }
+
+    /**
+     * @param categories CategoryEntity or SubCategoryEntity objects.
+     * @return CategoryList message.
+     */
+    @NonNull
+    private CategoryList toCategoryList(List<? extends AbstractCategoryEntity> categories) {
+        return CategoryList.newBuilder()
+            .addAllCategories(GrpcMapper.toProto(categories))
+            .build();
+    }
+
+    /**
+     * Map drills to their messages, looking up the names of all related drills at once.
+     *
+     * @param drills Drills to map.
+     * @return DrillList message.
+     */
+    @NonNull
+    private DrillList toDrillList(List<DrillEntity> drills) {
+        /*
+         * Compiler is generating a warning for each call to drill.getRelatedDrills().
+         * We can safely ignore this because of this first null check here.
+         */
+        Set<Long> relatedIds = drills.stream()
+            .filter(drill -> null != drill.getRelatedDrills())
+            .flatMap(drill -> drill.getRelatedDrills().stream())
+            .collect(Collectors.toSet());
+        Map<Long, String> relatedDrillNames = drillService.findAllSummaries(relatedIds).stream()
+            .collect(Collectors.toMap(DrillSummary::getId, DrillSummary::getName));
+
+        DrillList.Builder builder = DrillList.newBuilder();
+        drills.forEach(drill -> builder.addDrills(GrpcMapper.toProto(drill, relatedDrillNames)));
+        return builder.build();
+    }
+
+    /**
+     * Complete a unary call, translating exceptions into gRPC statuses the same way
+     * GlobalExceptionHandler translates them into HTTP statuses.
+     *
+     * @param <T> Response type.
+     * @param responseObserver Caller's response observer.
+     * @param response Supplier of the response.
+     */
+    private <T> void respond(StreamObserver<T> responseObserver, Supplier<T> response) {
+        T value;
+        try {
+            value = response.get();
+        } catch (StatusRuntimeException e) {
+            responseObserver.onError(e);
+            return;
+        } catch (InvalidRequestParameterException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                .withDescription(e.getMessage())
+                .asRuntimeException());
+            return;
+        } catch (RuntimeException e) {
+            log.error("Unexpected error in gRPC call", e);
+            responseObserver.onError(Status.INTERNAL
+                .withDescription("An unexpected error has occurred.")
+                .asRuntimeException());
+            return;
+        }
+
+        responseObserver.onNext(value);
+        responseObserver.onCompleted();
+    }
+}
@@ -0,0 +1,203 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.grpc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.EntityType;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of open WatchChanges streams.
+ * <br><br>
+ * Every committed {@link DatabaseChangeEvent} is forwarded to each stream watching its entity
+ * type. Streams are removed once the caller cancels.
+ * <br><br>
+ * Changes are only sent while a stream is ready, so a slow watcher cannot make gRPC buffer without
+ * limit. Until it is ready again, only the latest change of each entity is held for it. A watcher
+ * that falls more than {@value #MAX_PENDING_CHANGES} entities behind is cancelled with
+ * RESOURCE_EXHAUSTED, and has to reconnect and catch up through the update endpoints.
+ */
+@Component
+@Slf4j
+@ServletStack
+public class GrpcChangeFeed {
+    private static final Map<Class<?>, EntityType> ENTITY_TYPES = Map.of(
+        DrillEntity.class,          EntityType.DRILL,
+        CategoryEntity.class,       EntityType.CATEGORY,
+        SubCategoryEntity.class,    EntityType.SUB_CATEGORY
+    );
+
+    /** Most entities with changes held for a stream that is not ready */
+    public static final int MAX_PENDING_CHANGES = 1024;
+
+    /** Open streams mapped to the entity types they watch */
+    private final Map<ServerCallStreamObserver<ChangeEvent>, Watch> watchers = new ConcurrentHashMap<>();
+
+    /**
+     * Register a new stream.
+     *
+     * @param observer Stream to send events to.
+     * @param entityTypes Entity types to watch, empty to watch everything.
+     */
+    public void watch(@NonNull ServerCallStreamObserver<ChangeEvent> observer, @NonNull Set<EntityType> entityTypes) {
+        Watch watch = new Watch(entityTypes, new ReentrantLock(), new LinkedHashMap<>());
+        observer.setOnCancelHandler(() -> watchers.remove(observer));
+        observer.setOnReadyHandler(() -> sendPending(observer, watch));
+        watchers.put(observer, watch);
+    }
+
+    /**
+     * @return Number of open streams.
+     */
+    public int getWatcherCount() {
+        return watchers.size();
+    }
+
+    /**
+     * Complete every open stream, so callers know to reconnect elsewhere. Used on shutdown.
+     */
+    public void completeAll() {
+        watchers.forEach((observer, watch) -> {
+            watch.lock().lock();
+            try {
+                if (!observer.isCancelled()) {
+                    observer.onCompleted();
+                }
+            } catch (RuntimeException e) {
+                // Already closed, nothing to do
+            } finally {
+                watch.lock().unlock();
+            }
+        });
+        watchers.clear();
+    }
+
+    /**
+     * Forward a committed change to every stream watching its entity type.
+     *
+     * @param event Database change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatabaseChange(DatabaseChangeEvent event) {
+        EntityType entityType = ENTITY_TYPES.get(event.getEntityType());
+        if (null == entityType || watchers.isEmpty()) {
+            return;
+        }
+
+        ChangeEvent changeEvent = ChangeEvent.newBuilder()
+            .setEntityType(entityType)
+            .setChangeType(DatabaseChangeEvent.ChangeType.SAVE == event.getChangeType()
+                ? ChangeType.SAVE : ChangeType.DELETE)
+            .setId(event.getId())
+            .build();
+
+        watchers.forEach((observer, watch) -> {
+            if (!watch.entityTypes().isEmpty() && !watch.entityTypes().contains(entityType)) {
+                return;
+            }
+
+            // Stream observers are not thread safe, and writes can be committed concurrently
+            watch.lock().lock();
+            try {
+                if (observer.isCancelled()) {
+                    return;
+                }
+
+                EntityKey key = new EntityKey(entityType, event.getId());
+                if (watch.pending().isEmpty() && observer.isReady()) {
+                    observer.onNext(changeEvent);
+                } else if (watch.pending().size() < MAX_PENDING_CHANGES || watch.pending().containsKey(key)) {
+                    // Only the latest change of an entity matters, keep it in the order it happened
+                    watch.pending().remove(key);
+                    watch.pending().put(key, changeEvent);
+                } else {
+                    log.warn("Cancelling change feed stream that is too slow to keep up");
+                    watchers.remove(observer);
+                    observer.onError(Status.RESOURCE_EXHAUSTED
+                        .withDescription("Too many pending changes, reconnect and catch up")
+                        .asRuntimeException());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Dropping change feed stream", e);
+                watchers.remove(observer);
+            } finally {
+                watch.lock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Send the changes held for a stream, for as long as it stays ready.
+     *
+     * @param observer Stream that became ready.
+     * @param watch Its watch.
+     */
+    private void sendPending(ServerCallStreamObserver<ChangeEvent> observer, Watch watch) {
+        watch.lock().lock();
+        try {
+            Iterator<ChangeEvent> pending = watch.pending().values().iterator();
+            while (pending.hasNext() && observer.isReady() && !observer.isCancelled()) {
+                observer.onNext(pending.next());
+                pending.remove();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Dropping change feed stream", e);
+            watchers.remove(observer);
+        } finally {
+            watch.lock().unlock();
+        }
+    }
+
+    /**
+     * Entity types watched by a stream, the lock that serializes writes to it, and the changes
+     * held while it is not ready. A lock is used instead of synchronizing on the stream so that
+     * committing threads that wait for it do not pin a virtual thread to its carrier.
+     */
+    private record Watch(Set<EntityType> entityTypes, ReentrantLock lock, Map<EntityKey, ChangeEvent> pending) { }
+
+    private record EntityKey(EntityType entityType, long id) { }
+}
@@ -0,0 +1,126 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.grpc;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.NonNull;
+
+import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.Category;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.Drill;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.Instructions;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.RelatedDrill;
+
+/**
+ * Maps entities to their protobuf messages. Mirrors the mapping done by the REST DTOs.
+ */
+final class GrpcMapper {
+    private GrpcMapper() { }
+
+    /**
+     * @param category CategoryEntity or SubCategoryEntity.
+     * @return Category message.
+     */
+    @NonNull
+    static Category toProto(@NonNull AbstractCategoryEntity category) {
+        Category.Builder builder = Category.newBuilder()
+            .setId(category.getId())
+            .setName(category.getName());
+        // Protobuf does not allow null values
+        if (null != category.getDescription()) {
+            builder.setDescription(category.getDescription());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param instructions InstructionsEntity.
+     * @return Instructions message.
+     */
+    @NonNull
+    static Instructions toProto(@NonNull InstructionsEntity instructions) {
+        Instructions.Builder builder = Instructions.newBuilder()
+            .setDescription(instructions.getDescription())
+            .addAllSteps(instructions.getStepsAsList());
+        if (null != instructions.getVideoId()) {
+            builder.setVideoId(instructions.getVideoId());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param drill DrillEntity.
+     * @param relatedDrillNames Names of the related drills by ID, related drills not in here are
+     *                          left out.
+     * @return Drill message.
+     */
+    @NonNull
+    static Drill toProto(@NonNull DrillEntity drill, @NonNull Map<Long, String> relatedDrillNames) {
+        Drill.Builder builder = Drill.newBuilder()
+            .setId(drill.getId())
+            .setName(drill.getName());
+
+        /*
+         * Compiler is generating a warning for each call to drill.get*(). We can safely ignore
+         * these because of the null checks here.
+         */
+        if (null != drill.getCategories()) {
+            drill.getCategories().forEach(category -> builder.addCategories(toProto(category)));
+        }
+        if (null != drill.getSubCategories()) {
+            drill.getSubCategories().forEach(subCategory -> builder.addSubCategories(toProto(subCategory)));
+        }
+        if (null != drill.getRelatedDrills()) {
+            for (Long relatedId : drill.getRelatedDrills()) {
+                String relatedName = relatedDrillNames.get(relatedId);
+                if (null != relatedName) {
+                    builder.addRelatedDrills(RelatedDrill.newBuilder().setId(relatedId).setName(relatedName));
+                }
+            }
+        }
+        if (null != drill.getInstructions()) {
+            drill.getInstructions().forEach(instructions -> builder.addInstructions(toProto(instructions)));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param categories CategoryEntity or SubCategoryEntity objects.
+     * @return Category messages.
+     */
+    @NonNull
+    static List<Category> toProto(@NonNull List<? extends AbstractCategoryEntity> categories) {
+        return categories.stream()
+            .map(GrpcMapper::toProto)
+            .toList();
+    }
+}
@@ -0,0 +1,144 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.grpc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the gRPC server next to the servlet container, for internal service-to-service calls.
+ * <br><br>
+ * The port is configured with rest-api.grpc.port (0 picks a free port) and is published in this
+ * instance's Eureka metadata as {@value #GRPC_PORT_METADATA_KEY}, so callers discover it the same
+ * way they discover the HTTP port.
+ */
+@Component
+@Slf4j
+@ServletStack
+public class GrpcServerLifecycle implements SmartLifecycle {
+    public static final String GRPC_PORT_METADATA_KEY = "grpc-port";
+
+    private final CatalogGrpcService catalogGrpcService;
+    private final GrpcChangeFeed changeFeed;
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+    private final Executor taskExecutor;
+    private final boolean virtualThreads;
+    private final int port;
+    private final long shutdownGraceSeconds;
+    private Server server;
+
+    public GrpcServerLifecycle(CatalogGrpcService catalogGrpcService, GrpcChangeFeed changeFeed,
+            ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+            @Qualifier("applicationTaskExecutor") Executor taskExecutor, Environment environment,
+            @Value("${rest-api.grpc.port:9090}") int port,
+            @Value("${rest-api.grpc.shutdown-grace-seconds:10}") long shutdownGraceSeconds) {
+        this.catalogGrpcService = catalogGrpcService;
+        this.changeFeed = changeFeed;
+        this.applicationInfoManager = applicationInfoManager;
+        this.taskExecutor = taskExecutor;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.port = port;
+        this.shutdownGraceSeconds = shutdownGraceSeconds;
+    }
+
+    @Override
+    public synchronized void start() {
+        ServerBuilder<?> serverBuilder = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+            .addService(catalogGrpcService);
+        if (virtualThreads) {
+            // Calls block on JDBC just like HTTP requests, so run them on virtual threads as well
+            serverBuilder.executor(taskExecutor);
+        }
+        server = serverBuilder.build();
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start gRPC server on port " + port, e);
+        }
+        log.info("gRPC server started on port {}", server.getPort());
+
+        applicationInfoManager.ifAvailable(infoManager -> {
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put(GRPC_PORT_METADATA_KEY, String.valueOf(server.getPort()));
+            infoManager.registerAppMetadata(metadata);
+        });
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (null == server) {
+            return;
+        }
+
+        // Let in flight calls finish, change feed streams would otherwise never finish on their own
+        server.shutdown();
+        changeFeed.completeAll();
+        try {
+            if (!server.awaitTermination(shutdownGraceSeconds, TimeUnit.SECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return null != server && !server.isShutdown();
+    }
+
+    /**
+     * @return The port the server is listening on, or -1 if it is not running.
+     */
+    public synchronized int getPort() {
+        return null == server ? -1 : server.getPort();
+    }
+}
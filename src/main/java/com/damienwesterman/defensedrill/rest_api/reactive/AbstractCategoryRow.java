@@ -0,0 +1,40 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
+
+/**
+ * Common interface of {@link CategoryRow} and {@link SubCategoryRow}.
+ *
+ * @param <E> Entity the row is returned as, so responses look exactly like the servlet ones.
+ */
+public interface AbstractCategoryRow<E extends AbstractCategoryEntity> {
+    /**
+     * @return The row as its JPA entity, used only as a response body.
+     */
+    E toEntity();
+}
@@ -0,0 +1,115 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.web.AbstractCategoryController;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Abstract superclass for {@link ReactiveCategoryController} and
+ * {@link ReactiveSubCategoryController}.
+ * <br><br>
+ * Reactive counterpart of the read endpoints of {@link AbstractCategoryController}, responding
+ * with the same entities.
+ */
+@RequiredArgsConstructor
+public abstract class AbstractReactiveCategoryController
+        <E extends AbstractCategoryEntity, R extends AbstractCategoryRow<E>> {
+    protected final ReactiveAbstractCategoryRepo<R> repo;
+
+    /**
+     * Endpoint to return all AbstractCategoryEntity objects.
+     *
+     * @return Mono of the response streaming all entities.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<E>>> getAll() {
+        return ReactiveResponses.okOrNoContent(repo.findAllByOrderByName().map(R::toEntity));
+    }
+
+    /**
+     * Endpoint to return all AbstractCategoryEntity objects that were updated after the given UTC time.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @return Mono of the response streaming the entities.
+     */
+    @GetMapping(value = "/update",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<E>>> getAllAfterTimestamp(@RequestParam Long updateTimestamp) {
+        return ReactiveResponses.okOrNoContent(
+            repo.findByUpdateTimestampGreaterThanOrderByName(updateTimestamp).map(R::toEntity));
+    }
+
+    /**
+     * Retrieve a list of AbstractCategoryEntity objects using a list of IDs.
+     *
+     * @param ids List of IDs.
+     * @return Mono of the response streaming the entities.
+     */
+    @GetMapping(value = "/id",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<E>>> getAbstractCategoriesByIds(@RequestParam List<Long> ids) {
+        return ReactiveResponses.okOrNoContent(repo.findByIdInOrderByName(ids).map(R::toEntity));
+    }
+
+    /**
+     * Endpoint to find an AbstractCategoryEntity by its ID.
+     *
+     * @param id ID of the AbstractCategoryEntity.
+     * @return Mono of the response containing the found entity.
+     */
+    @GetMapping("/id/{id}")
+    public Mono<ResponseEntity<E>> getAbstractCategoryById(@PathVariable Long id) {
+        return repo.findById(id)
+            .map(row -> ResponseEntity.ok(row.toEntity()))
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint to find an AbstractCategoryEntity by its name. Case insensitive.
+     *
+     * @param name Name of the AbstractCategoryEntity.
+     * @return Mono of the response containing the found entity.
+     */
+    @GetMapping("/name/{name}")
+    public Mono<ResponseEntity<E>> getAbstractCategoryByName(@PathVariable String name) {
+        return repo.findByNameIgnoreCase(name)
+            .map(row -> ResponseEntity.ok(row.toEntity()))
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,65 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+/**
+ * Rows returned when loading one association for many drills at once, each tagged with the ID of
+ * the drill it belongs to.
+ */
+public final class DrillAssociationRows {
+    private DrillAssociationRows() { }
+
+    /**
+     * Category or SubCategory of a drill.
+     *
+     * @param drillId ID of the drill.
+     * @param id Category or SubCategory ID.
+     * @param name Category or SubCategory name.
+     * @param description Category or SubCategory description.
+     */
+    public record CategoryOfDrill(Long drillId, Long id, String name, String description) { }
+
+    /**
+     * Drill related to a drill.
+     *
+     * @param drillId ID of the drill.
+     * @param id ID of the related drill.
+     * @param name Name of the related drill.
+     */
+    public record RelatedDrill(Long drillId, Long id, String name) { }
+
+    /**
+     * Instructions of a drill.
+     *
+     * @param drillId ID of the drill.
+     * @param number Number of the instructions within the drill.
+     * @param description Description of the instructions.
+     * @param steps Pipe delimited string of steps.
+     * @param videoId Jellyfin Item ID, may be null.
+     */
+    public record InstructionsOfDrill(Long drillId, Long number, String description, String steps,
+        String videoId) { }
+}
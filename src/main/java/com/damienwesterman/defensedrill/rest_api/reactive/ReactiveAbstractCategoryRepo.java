@@ -0,0 +1,47 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import java.util.Collection;
+
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Common reactive repository of {@link ReactiveCategoryRepo} and {@link ReactiveSubCategoryRepo}.
+ *
+ * @param <R> Row type.
+ */
+@NoRepositoryBean
+public interface ReactiveAbstractCategoryRepo<R extends AbstractCategoryRow<?>> extends ReactiveCrudRepository<R, Long> {
+    Mono<R> findByNameIgnoreCase(String name);
+    Flux<R> findAllByOrderByName();
+    Flux<R> findByIdInOrderByName(Collection<Long> ids);
+    Flux<R> findByUpdateTimestampGreaterThanOrderByName(Long updateTimestamp);
+}
@@ -0,0 +1,98 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.lang.NonNull;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Alternative non-blocking stack for the read side of the REST API, selected with the
+ * {@value #PROFILE} profile.
+ * <br><br>
+ * The profile switches the application to WebFlux on Netty and serves the read endpoints of the
+ * drills, categories, and sub-categories from R2DBC repositories, with the same paths, DTOs and
+ * response shapes as the servlet controllers. List results are streamed as they are read, so a
+ * slow client slows down the database reads instead of the results piling up in memory.
+ * <br><br>
+ * The reactive dependencies and this package are only built with mvn -Preactive. None of the
+ * {@link ServletStack} beans are created in this profile, and application-reactive.properties
+ * turns off JPA, Flyway and GraphQL, so the servlet stack's connection pools are never opened.
+ * <br><br>
+ * R2DBC is excluded from auto-configuration, which would otherwise require a connection URL on
+ * the servlet stack as well, so it is configured here from the usual spring.r2dbc.* properties.
+ * No R2DBC transaction manager is created, everything here is a single read.
+ */
+@Configuration
+@Profile(ReactiveConfig.PROFILE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+@EnableR2dbcRepositories
+@RequiredArgsConstructor
+public class ReactiveConfig extends AbstractR2dbcConfiguration {
+    public static final String PROFILE = ServletStack.REACTIVE_PROFILE;
+
+    private final R2dbcProperties properties;
+
+    /**
+     * Pooled connection factory. The pool bounds how many streams read from the database at
+     * once, and each stream only reads as fast as its client consumes.
+     *
+     * @return Connection factory of the reactive repositories.
+     */
+    @Override
+    @Bean
+    @NonNull
+    public ConnectionFactory connectionFactory() {
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder.withUrl(properties.getUrl());
+        if (null != properties.getUsername()) {
+            builder.username(properties.getUsername());
+        }
+        if (null != properties.getPassword()) {
+            builder.password(properties.getPassword());
+        }
+        ConnectionFactory connectionFactory = builder.build();
+        R2dbcProperties.Pool pool = properties.getPool();
+
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+            .initialSize(pool.getInitialSize())
+            .maxSize(pool.getMaxSize())
+            .maxIdleTime(pool.getMaxIdleTime())
+            .build());
+    }
+}
@@ -0,0 +1,199 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.damienwesterman.defensedrill.rest_api.web.DrillController;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsDTO;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the read endpoints of {@link DrillController}.
+ * <br><br>
+ * List endpoints stream their results as a JSON array, or as newline delimited JSON when asked
+ * for {@value MediaType#APPLICATION_NDJSON_VALUE}.
+ */
+@RestController
+@RequestMapping(DrillController.ENDPOINT)
+@Profile(ReactiveConfig.PROFILE)
+@RequiredArgsConstructor
+public class ReactiveDrillController {
+    private final ReactiveDrillService drillService;
+
+    /**
+     * Endpoint to return all drills.
+     *
+     * @return Mono of the response streaming all drills.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<DrillResponseDTO>>> getAll() {
+        return ReactiveResponses.okOrNoContent(drillService.findAll());
+    }
+
+    /**
+     * Endpoint to return all drills that contain any of the given Category IDs.
+     *
+     * @param categoryIds List of Category IDs.
+     * @return Mono of the response streaming the drills.
+     */
+    @GetMapping(value = "/by_category",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<DrillResponseDTO>>> getAllByCategoryIds(
+            @RequestParam List<Long> categoryIds) {
+        return ReactiveResponses.okOrNoContent(drillService.findAllByCategory(categoryIds));
+    }
+
+    /**
+     * Endpoint to return all drills that contain any of the given SubCategory IDs.
+     *
+     * @param subCategoryIds List of SubCategory IDs.
+     * @return Mono of the response streaming the drills.
+     */
+    @GetMapping(value = "/by_sub_category",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<DrillResponseDTO>>> getAllBySubCategoryIds(
+            @RequestParam List<Long> subCategoryIds) {
+        return ReactiveResponses.okOrNoContent(drillService.findAllBySubCategory(subCategoryIds));
+    }
+
+    /**
+     * Endpoint to return all drills that were updated after the given UTC time.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @return Mono of the response streaming the drills.
+     */
+    @GetMapping(value = "/update",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<DrillResponseDTO>>> getAllDrillAfterTimestamp(
+            @RequestParam Long updateTimestamp) {
+        return ReactiveResponses.okOrNoContent(drillService.findAll(updateTimestamp));
+    }
+
+    /**
+     * Retrieve a list of drills using a list of drill IDs.
+     *
+     * @param ids List of Drill IDs.
+     * @return Mono of the response streaming the drills.
+     */
+    @GetMapping(value = "/id",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<DrillResponseDTO>>> getDrillsByIds(@RequestParam List<Long> ids) {
+        return ReactiveResponses.okOrNoContent(drillService.findAll(ids));
+    }
+
+    /**
+     * Endpoint to find a drill by its ID.
+     *
+     * @param id ID of the drill.
+     * @return Mono of the response containing the found drill.
+     */
+    @GetMapping("/id/{id}")
+    public Mono<ResponseEntity<DrillResponseDTO>> getDrillById(@PathVariable Long id) {
+        return drillService.find(id)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint to find a drill by its name. Case insensitive.
+     *
+     * @param name Name of the drill.
+     * @return Mono of the response containing the found drill.
+     */
+    @GetMapping("/name/{name}")
+    public Mono<ResponseEntity<DrillResponseDTO>> getDrillByName(@PathVariable String name) {
+        return drillService.find(name)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint to retrieve a list of instruction descriptions of a drill.
+     *
+     * @param id ID of the drill.
+     * @return Mono of the response containing the list of descriptions.
+     */
+    @GetMapping("/id/{id}/how-to")
+    public Mono<ResponseEntity<List<String>>> getInstructionsByDrillId(@PathVariable Long id) {
+        return drillService.find(id)
+            .map(drill -> {
+                if (drill.getInstructions().isEmpty()) {
+                    return ResponseEntity.noContent().<List<String>>build();
+                }
+
+                return ResponseEntity.ok(
+                    drill.getInstructions().stream()
+                        .map(InstructionsDTO::getDescription)
+                        .collect(Collectors.toList())
+                );
+            })
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint to retrieve instruction details of a drill by their number.
+     *
+     * @param id ID of the drill.
+     * @param number The number of the instructions relative to the drill's instructions list.
+     * @return Mono of the response containing the instruction details.
+     */
+    @GetMapping("/id/{id}/how-to/{number}")
+    public Mono<ResponseEntity<Object>> getInstructionDetails(
+            @PathVariable Long id, @PathVariable Long number) {
+        return drillService.find(id)
+            .map(drill -> {
+                if (number >= drill.getInstructions().size()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).<Object>body(ErrorMessageDTO.builder()
+                        .error("Instructions not found")
+                        .message("Instructions number " + number + " does not exist")
+                        .build());
+                }
+
+                return ResponseEntity.<Object>ok(drill.getInstructions().get(number.intValue()));
+            })
+            .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorMessageDTO.builder()
+                .error("Drill not found")
+                .message("Drill ID " + id + " does not exist")
+                .build()));
+    }
+}
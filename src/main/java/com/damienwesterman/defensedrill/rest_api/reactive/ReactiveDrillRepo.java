@@ -0,0 +1,79 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import java.util.Collection;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.damienwesterman.defensedrill.rest_api.reactive.DrillAssociationRows.CategoryOfDrill;
+import com.damienwesterman.defensedrill.rest_api.reactive.DrillAssociationRows.InstructionsOfDrill;
+import com.damienwesterman.defensedrill.rest_api.reactive.DrillAssociationRows.RelatedDrill;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive database repository for {@link DrillRow}, and the associations of drills.
+ */
+@Repository
+public interface ReactiveDrillRepo extends ReactiveCrudRepository<DrillRow, Long> {
+    Mono<DrillRow> findByNameIgnoreCase(String name);
+    Flux<DrillRow> findAllByOrderByName();
+    Flux<DrillRow> findByIdInOrderByName(Collection<Long> ids);
+    Flux<DrillRow> findByUpdateTimestampGreaterThanOrderByName(Long updateTimestamp);
+
+    @Query("SELECT DISTINCT d.* FROM drills d JOIN drill_category_join j ON j.drill_id = d.id "
+        + "WHERE j.category_id IN (:categoryIds) ORDER BY d.name")
+    Flux<DrillRow> findByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds);
+
+    @Query("SELECT DISTINCT d.* FROM drills d JOIN drill_sub_category_join j ON j.drill_id = d.id "
+        + "WHERE j.sub_category_id IN (:subCategoryIds) ORDER BY d.name")
+    Flux<DrillRow> findBySubCategoryIdIn(@Param("subCategoryIds") Collection<Long> subCategoryIds);
+
+    /*
+     * Load a single association for many drills at once.
+     */
+    @Query("SELECT j.drill_id, c.id, c.name, c.description FROM categories c "
+        + "JOIN drill_category_join j ON j.category_id = c.id WHERE j.drill_id IN (:drillIds) ORDER BY c.name")
+    Flux<CategoryOfDrill> findCategoriesByDrillIdIn(@Param("drillIds") Collection<Long> drillIds);
+
+    @Query("SELECT j.drill_id, s.id, s.name, s.description FROM sub_categories s "
+        + "JOIN drill_sub_category_join j ON j.sub_category_id = s.id WHERE j.drill_id IN (:drillIds) "
+        + "ORDER BY s.name")
+    Flux<CategoryOfDrill> findSubCategoriesByDrillIdIn(@Param("drillIds") Collection<Long> drillIds);
+
+    @Query("SELECT r.primary_drill_id AS drill_id, d.id, d.name FROM related_drills r "
+        + "JOIN drills d ON d.id = r.related_drill_id WHERE r.primary_drill_id IN (:drillIds) ORDER BY d.name")
+    Flux<RelatedDrill> findRelatedDrillsByDrillIdIn(@Param("drillIds") Collection<Long> drillIds);
+
+    @Query("SELECT drill_id, number, description, steps, video_id FROM instructions "
+        + "WHERE drill_id IN (:drillIds) ORDER BY drill_id, number")
+    Flux<InstructionsOfDrill> findInstructionsByDrillIdIn(@Param("drillIds") Collection<Long> drillIds);
+}
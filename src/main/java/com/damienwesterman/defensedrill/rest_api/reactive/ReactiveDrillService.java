@@ -0,0 +1,190 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.reactive.DrillAssociationRows.CategoryOfDrill;
+import com.damienwesterman.defensedrill.rest_api.reactive.DrillAssociationRows.InstructionsOfDrill;
+import com.damienwesterman.defensedrill.rest_api.reactive.DrillAssociationRows.RelatedDrill;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsDTO;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive read-only counterpart of the DrillService, returning the same DrillResponseDTO objects
+ * as the servlet controllers.
+ * <br><br>
+ * The drill rows themselves are read first, which releases their connection. Their associations
+ * are then loaded a batch of drills at a time, only as fast as the caller requests results. This
+ * way a query never holds a connection while waiting for another one, which would deadlock once
+ * the pool is exhausted.
+ */
+@Service
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveDrillService {
+    private final ReactiveDrillRepo repo;
+    private final int batchSize;
+
+    public ReactiveDrillService(ReactiveDrillRepo repo,
+            @Value("${rest-api.reactive.batch-size:64}") int batchSize) {
+        this.repo = repo;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Find a drill by its ID.
+     *
+     * @param id Drill ID.
+     * @return Mono of the drill, empty if it does not exist.
+     */
+    @NonNull
+    public Mono<DrillResponseDTO> find(@NonNull Long id) {
+        return toResponses(repo.findById(id).flux()).next();
+    }
+
+    /**
+     * Find a drill by its name, case insensitive.
+     *
+     * @param name Drill name.
+     * @return Mono of the drill, empty if it does not exist.
+     */
+    @NonNull
+    public Mono<DrillResponseDTO> find(@NonNull String name) {
+        return toResponses(repo.findByNameIgnoreCase(name).flux()).next();
+    }
+
+    /**
+     * @return All drills sorted by name.
+     */
+    @NonNull
+    public Flux<DrillResponseDTO> findAll() {
+        return toResponses(repo.findAllByOrderByName());
+    }
+
+    /**
+     * @param ids Drill IDs.
+     * @return Drills with the given IDs sorted by name.
+     */
+    @NonNull
+    public Flux<DrillResponseDTO> findAll(@NonNull Collection<Long> ids) {
+        return toResponses(repo.findByIdInOrderByName(ids));
+    }
+
+    /**
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @return Drills updated after the given time sorted by name.
+     */
+    @NonNull
+    public Flux<DrillResponseDTO> findAll(@NonNull Long updateTimestamp) {
+        return toResponses(repo.findByUpdateTimestampGreaterThanOrderByName(updateTimestamp));
+    }
+
+    /**
+     * @param categoryIds Category IDs.
+     * @return Drills in any of the given Categories sorted by name.
+     */
+    @NonNull
+    public Flux<DrillResponseDTO> findAllByCategory(@NonNull Collection<Long> categoryIds) {
+        return toResponses(repo.findByCategoryIdIn(categoryIds));
+    }
+
+    /**
+     * @param subCategoryIds SubCategory IDs.
+     * @return Drills in any of the given SubCategories sorted by name.
+     */
+    @NonNull
+    public Flux<DrillResponseDTO> findAllBySubCategory(@NonNull Collection<Long> subCategoryIds) {
+        return toResponses(repo.findBySubCategoryIdIn(subCategoryIds));
+    }
+
+    private Flux<DrillResponseDTO> toResponses(Flux<DrillRow> drills) {
+        return drills.collectList()
+            .flatMapMany(rows -> Flux.fromIterable(rows)
+                .buffer(batchSize)
+                // Load the next batch only once the previous one has been requested downstream
+                .concatMap(this::toResponses, 1));
+    }
+
+    private Flux<DrillResponseDTO> toResponses(List<DrillRow> drills) {
+        List<Long> drillIds = drills.stream().map(DrillRow::id).toList();
+
+        return Mono.zip(
+                repo.findCategoriesByDrillIdIn(drillIds).collectMultimap(CategoryOfDrill::drillId),
+                repo.findSubCategoriesByDrillIdIn(drillIds).collectMultimap(CategoryOfDrill::drillId),
+                repo.findRelatedDrillsByDrillIdIn(drillIds).collectMultimap(RelatedDrill::drillId),
+                repo.findInstructionsByDrillIdIn(drillIds).collectMultimap(InstructionsOfDrill::drillId))
+            .flatMapIterable(associations -> drills.stream()
+                .map(drill -> new DrillResponseDTO(
+                    drill.id(),
+                    drill.name(),
+                    map(associations.getT1(), drill, category -> CategoryEntity.builder()
+                        .id(category.id())
+                        .name(category.name())
+                        .description(category.description())
+                        .build()),
+                    map(associations.getT2(), drill, subCategory -> SubCategoryEntity.builder()
+                        .id(subCategory.id())
+                        .name(subCategory.name())
+                        .description(subCategory.description())
+                        .build()),
+                    map(associations.getT3(), drill, related -> new DrillRelatedDTO(related.id(), related.name())),
+                    map(associations.getT4(), drill, instructions -> new InstructionsDTO(InstructionsEntity.builder()
+                        .drillId(instructions.drillId())
+                        .number(instructions.number())
+                        .description(instructions.description())
+                        .steps(instructions.steps())
+                        .videoId(instructions.videoId())
+                        .build()))))
+                .toList());
+    }
+
+    private static <T, R> List<R> map(Map<Long, Collection<T>> rowsByDrill, DrillRow drill,
+            Function<T, R> mapper) {
+        Collection<T> rows = rowsByDrill.get(drill.id());
+        if (null == rows) {
+            return new ArrayList<>();
+        }
+
+        return rows.stream().map(mapper).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,73 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.damienwesterman.defensedrill.rest_api.web.GlobalExceptionHandler;
+import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
+
+/**
+ * Error handling for the reactive controllers, responding with the same errors as
+ * {@link GlobalExceptionHandler}.
+ */
+@RestControllerAdvice(basePackageClasses = ReactiveExceptionHandler.class)
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveExceptionHandler {
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorMessageDTO> handleServerWebInputException(ServerWebInputException swie) {
+        // Ex. user provides a String for a Long path ID variable
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body(ErrorMessageDTO.builder()
+                    .error("Type Mismatch")
+                    .message(swie.getReason())
+                    .build());
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorMessageDTO> handleResponseStatusException(ResponseStatusException rse) {
+        return ResponseEntity.status(rse.getStatusCode())
+            .body(ErrorMessageDTO.builder()
+                    .error(rse.getStatusCode().toString())
+                    .message(rse.getReason())
+                    .build());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorMessageDTO> handleGenericException(Exception e) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(ErrorMessageDTO.builder()
+                    .error("Unknown Error")
+                    .message("An unexpected error has occurred.")
+                    .build());
+    }
+}
@@ -0,0 +1,59 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Helpers to build responses shaped like the servlet ones from reactive results.
+ */
+final class ReactiveResponses {
+    private ReactiveResponses() { }
+
+    /**
+     * Respond with 200 and stream the results, or with 204 No Content if there are none.
+     * <br><br>
+     * Only the first result is waited for before the status is decided, the rest are streamed to
+     * the client as they arrive.
+     *
+     * @param <T> Result type.
+     * @param results Results to stream.
+     * @return Mono of the response.
+     */
+    @NonNull
+    static <T> Mono<ResponseEntity<Flux<T>>> okOrNoContent(@NonNull Flux<T> results) {
+        return results
+            .switchOnFirst((first, all) -> first.hasValue()
+                ? Mono.just(ResponseEntity.ok(all))
+                : all.then(Mono.just(ResponseEntity.noContent().<Flux<T>>build())),
+                false)
+            .singleOrEmpty();
+    }
+}
@@ -0,0 +1,53 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+
+/**
+ * Row of the sub_categories table.
+ *
+ * @param id SubCategory ID.
+ * @param name SubCategory name.
+ * @param description SubCategory description.
+ * @param updateTimestamp UTC timestamp of last update in milliseconds since epoch.
+ */
+@Table("sub_categories")
+public record SubCategoryRow(@Id Long id, String name, String description, Long updateTimestamp)
+        implements AbstractCategoryRow<SubCategoryEntity> {
+    @Override
+    public SubCategoryEntity toEntity() {
+        return SubCategoryEntity.builder()
+            .id(id)
+            .name(name)
+            .description(description)
+            .updateTimestamp(updateTimestamp)
+            .build();
+    }
+}
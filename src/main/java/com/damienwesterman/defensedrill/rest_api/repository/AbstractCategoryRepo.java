@@ -31,7 +31,10 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
 
 import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
 
@@ -42,4 +45,42 @@ import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
 public interface AbstractCategoryRepo<E extends AbstractCategoryEntity> extends JpaRepository<E, Long> {
     Optional<E> findByNameIgnoreCase(String name);
     List<E> findByUpdateTimestampGreaterThan(Long updateTimestamp, Sort sort);
+
+    /*
+     * Projected variants, for use with NameSummary to avoid loading descriptions.
+     */
+    <T> Optional<T> findById(Long id, Class<T> type);
+    <T> List<T> findAllBy(Sort sort, Class<T> type);
+
+    /*
+     * Load a category only while it is still at the given version.
+     */
+    Optional<E> findByIdAndVersion(Long id, Long version);
+
+    /*
+     * Overwrite a category without reading it first. The version check is part of the same
+     * UPDATE, so a stale write changes no rows.
+     */
+    @Modifying
+    @Query("UPDATE #{#entityName} c SET c.name = :name, c.description = :description, "
+        + "c.updateTimestamp = :updateTimestamp, c.version = c.version + 1 WHERE c.id = :id")
+    int updateById(@Param("id") Long id, @Param("name") String name, @Param("description") String description,
+        @Param("updateTimestamp") Long updateTimestamp);
+
+    @Modifying
+    @Query("UPDATE #{#entityName} c SET c.name = :name, c.description = :description, "
+        + "c.updateTimestamp = :updateTimestamp, c.version = c.version + 1 WHERE c.id = :id AND c.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+        @Param("description") String description, @Param("updateTimestamp") Long updateTimestamp);
+
+    /*
+     * Delete a category only while it is still at the given version. Its drill join table rows are
+     * removed by ON DELETE CASCADE.
+     */
+    @Modifying
+    @Query("DELETE FROM #{#entityName} c WHERE c.id = :id AND c.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Query("SELECT c.version FROM #{#entityName} c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
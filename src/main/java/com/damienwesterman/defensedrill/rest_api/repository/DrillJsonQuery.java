@@ -0,0 +1,55 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.repository;
+
+/**
+ * Selection of drills for {@link DrillJsonRepo}, one per drill list endpoint.
+ * <br><br>
+ * ID lists are bound as a single array parameter, so the SQL text is the same no matter how many
+ * IDs are requested and the server side prepared statement can be reused.
+ */
+public enum DrillJsonQuery {
+    /** All drills, no value. */
+    ALL("TRUE", "d.name"),
+    /** Drills by ID, value is a Collection of drill IDs. */
+    BY_ID("d.id = ANY(:value)", "LOWER(d.name)"),
+    /** Drills in any of the categories, value is a Collection of category IDs. */
+    BY_CATEGORY("d.id IN (SELECT drill_id FROM drill_category_join WHERE category_id = ANY(:value))", "d.name"),
+    /** Drills in any of the sub-categories, value is a Collection of sub-category IDs. */
+    BY_SUB_CATEGORY("d.id IN (SELECT drill_id FROM drill_sub_category_join WHERE sub_category_id = ANY(:value))",
+        "d.name"),
+    /** Drills updated after a time, value is UTC milliseconds since epoch. */
+    UPDATED_AFTER("d.update_timestamp > :value", "d.name");
+
+    final String where;
+    final String orderBy;
+
+    DrillJsonQuery(String where, String orderBy) {
+        this.where = where;
+        this.orderBy = orderBy;
+    }
+}
@@ -0,0 +1,199 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.DatabaseMetaData;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.function.ThrowingSupplier;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads drills as JSON built entirely by PostgreSQL, in the same shape as DrillResponseDTO.
+ * <br><br>
+ * Each row is one drill, with its categories, sub-categories, related drills, and instructions
+ * aggregated with json_agg. The rows are fetched with a cursor and their bytes copied straight
+ * to the output, so no {@link DrillEntity} or DTO objects are created. json_build_object is used
+ * rather than jsonb_build_object because jsonb does not keep the order of the keys.
+ * <br><br>
+ * Only supported on PostgreSQL, check {@link #isSupported()} first.
+ */
+@Repository
+@Slf4j
+@ServletStack
+public class DrillJsonRepo {
+    private static final int FETCH_SIZE = 100;
+    private static final String SELECT = """
+        SELECT json_build_object(
+            'id', d.id,
+            'name', d.name,
+            'categories', COALESCE((
+                SELECT json_agg(json_build_object('id', c.id, 'name', c.name, 'description', c.description)
+                    ORDER BY c.name)
+                FROM drill_category_join dc JOIN categories c ON c.id = dc.category_id
+                WHERE dc.drill_id = d.id), '[]'::json),
+            'sub_categories', COALESCE((
+                SELECT json_agg(json_build_object('id', s.id, 'name', s.name, 'description', s.description)
+                    ORDER BY s.name)
+                FROM drill_sub_category_join ds JOIN sub_categories s ON s.id = ds.sub_category_id
+                WHERE ds.drill_id = d.id), '[]'::json),
+            'related_drills', COALESCE((
+                SELECT json_agg(json_build_object('id', r.id, 'name', r.name)
+                    ORDER BY LOWER(r.name))
+                FROM related_drills rd JOIN drills r ON r.id = rd.related_drill_id
+                WHERE rd.primary_drill_id = d.id), '[]'::json),
+            'instructions', COALESCE((
+                SELECT json_agg(json_build_object(
+                        'description', i.description,
+                        'steps', string_to_array(i.steps, '|'),
+                        'video_id', i.video_id)
+                    ORDER BY i.number)
+                FROM instructions i
+                WHERE i.drill_id = d.id), '[]'::json)
+        )::text
+        FROM drills d
+        """;
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_SEPARATOR = {','};
+    private static final byte[] ARRAY_END = {']'};
+
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private volatile Boolean supported;
+
+    public DrillJsonRepo(DataSource dataSource) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(FETCH_SIZE);
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    /**
+     * Whether the database supports the JSON aggregation query. Checked once.
+     *
+     * @return true if the database is PostgreSQL.
+     */
+    public boolean isSupported() {
+        if (null == supported) {
+            try {
+                supported = "PostgreSQL".equals(
+                    JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                log.warn("Could not determine the database type, JSON aggregation disabled", e);
+                supported = false;
+            }
+        }
+        return supported;
+    }
+
+    /**
+     * Write the selected drills as a JSON array, sorted the same as the matching DrillService
+     * method.
+     * <br><br>
+     * Nothing is written, and the output is never opened, if no drills match. The rows are fetched
+     * with a cursor, so this must run within a transaction.
+     *
+     * @param query Drills to select.
+     * @param value Value for the query, see {@link DrillJsonQuery}.
+     * @param output Opens the output on the first drill.
+     * @return true if any drills were written.
+     */
+    public boolean write(@NonNull DrillJsonQuery query, @Nullable Object value,
+            @NonNull ThrowingSupplier<OutputStream> output) {
+        if (value instanceof Collection<?> values && values.isEmpty()) {
+            return false;
+        }
+
+        OutputStream[] out = new OutputStream[1];
+        jdbcTemplate.query(SELECT + "WHERE " + query.where + " ORDER BY " + query.orderBy,
+            Map.of("value", toParameter(value)),
+            rs -> {
+                try {
+                    if (null == out[0]) {
+                        out[0] = output.get();
+                        out[0].write(ARRAY_START);
+                    } else {
+                        out[0].write(ARRAY_SEPARATOR);
+                    }
+                    // Copy the bytes as sent by the driver, no String is needed
+                    out[0].write(rs.getBytes(1));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+        if (null == out[0]) {
+            return false;
+        }
+
+        try {
+            out[0].write(ARRAY_END);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Convert a query value into its JDBC parameter, ID collections become a bigint array.
+     *
+     * @param value Value for the query, see {@link DrillJsonQuery}.
+     * @return Parameter value.
+     */
+    @NonNull
+    private static Object toParameter(@Nullable Object value) {
+        if (null == value) {
+            return "";
+        }
+        if (value instanceof Collection<?> values) {
+            return new SqlParameterValue(Types.ARRAY, values.stream()
+                .map(Long.class::cast)
+                .distinct()
+                .toArray(Long[]::new));
+        }
+        return value;
+    }
+}
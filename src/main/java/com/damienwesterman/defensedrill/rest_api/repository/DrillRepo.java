@@ -26,14 +26,21 @@
 
 package com.damienwesterman.defensedrill.rest_api.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
 
 /**
  * Database repository for {@link DrillEntity}.
@@ -44,4 +51,236 @@ public interface DrillRepo extends JpaRepository<DrillEntity, Long> {
     List<DrillEntity> findByUpdateTimestampGreaterThan(Long updateTimestamp, Sort sort);
     List<DrillEntity> findByCategoriesIdIn(List<Long> categoryIds, Sort sort);
     List<DrillEntity> findBySubCategoriesIdIn(List<Long> subCategoryIds, Sort sort);
+
+    /*
+     * Projected variants of the above, for use with DrillSummary to avoid loading associations.
+     */
+    <T> Optional<T> findById(Long id, Class<T> type);
+    <T> Optional<T> findByNameIgnoreCase(String name, Class<T> type);
+    <T> List<T> findAllBy(Sort sort, Class<T> type);
+    <T> List<T> findByIdIn(Collection<Long> ids, Sort sort, Class<T> type);
+    <T> List<T> findByUpdateTimestampGreaterThan(Long updateTimestamp, Sort sort, Class<T> type);
+    <T> List<T> findDistinctByCategoriesIdIn(List<Long> categoryIds, Sort sort, Class<T> type);
+    <T> List<T> findDistinctBySubCategoriesIdIn(List<Long> subCategoryIds, Sort sort, Class<T> type);
+
+    /*
+     * Bump the update timestamp and version without loading the drill, when only its instructions
+     * or associations changed.
+     */
+    @Modifying
+    @Query("UPDATE DrillEntity d SET d.updateTimestamp = :updateTimestamp, d.version = d.version + 1 "
+        + "WHERE d.id = :id")
+    int updateTimestamp(@Param("id") Long id, @Param("updateTimestamp") Long updateTimestamp);
+
+    @Modifying
+    @Query("UPDATE DrillEntity d SET d.updateTimestamp = :updateTimestamp, d.version = d.version + 1 "
+        + "WHERE d.id = :id AND d.version = :version")
+    int updateTimestampByIdAndVersion(@Param("id") Long id, @Param("version") Long version,
+        @Param("updateTimestamp") Long updateTimestamp);
+
+    /*
+     * Overwrite the columns of a drill without reading it first. The version check is part of the
+     * same UPDATE, so a stale write changes no rows.
+     */
+    @Modifying
+    @Query("UPDATE DrillEntity d SET d.name = :name, d.updateTimestamp = :updateTimestamp, d.version = d.version + 1 "
+        + "WHERE d.id = :id")
+    int updateById(@Param("id") Long id, @Param("name") String name, @Param("updateTimestamp") Long updateTimestamp);
+
+    @Modifying
+    @Query("UPDATE DrillEntity d SET d.name = :name, d.updateTimestamp = :updateTimestamp, d.version = d.version + 1 "
+        + "WHERE d.id = :id AND d.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+        @Param("updateTimestamp") Long updateTimestamp);
+
+    @Query("SELECT d.version FROM DrillEntity d WHERE d.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /*
+     * Load a drill only while it is still at the given version.
+     */
+    Optional<DrillEntity> findByIdAndVersion(Long id, Long version);
+
+    /*
+     * Delete a drill only while it is still at the given version. Its join table rows and
+     * instructions are removed by ON DELETE CASCADE.
+     */
+    @Modifying
+    @Query("DELETE FROM DrillEntity d WHERE d.id = :id AND d.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    /*
+     * Single row edits of the join tables, without loading the drill. Adding a row that already
+     * exists changes nothing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO drill_category_join (drill_id, category_id) VALUES (:drillId, :categoryId) "
+        + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addCategory(@Param("drillId") Long drillId, @Param("categoryId") Long categoryId);
+
+    @Modifying
+    @Query(value = "DELETE FROM drill_category_join WHERE drill_id = :drillId AND category_id = :categoryId",
+        nativeQuery = true)
+    int removeCategory(@Param("drillId") Long drillId, @Param("categoryId") Long categoryId);
+
+    @Modifying
+    @Query(value = "INSERT INTO drill_sub_category_join (drill_id, sub_category_id) "
+        + "VALUES (:drillId, :subCategoryId) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addSubCategory(@Param("drillId") Long drillId, @Param("subCategoryId") Long subCategoryId);
+
+    @Modifying
+    @Query(value = "DELETE FROM drill_sub_category_join WHERE drill_id = :drillId "
+        + "AND sub_category_id = :subCategoryId", nativeQuery = true)
+    int removeSubCategory(@Param("drillId") Long drillId, @Param("subCategoryId") Long subCategoryId);
+
+    @Modifying
+    @Query(value = "INSERT INTO related_drills (primary_drill_id, related_drill_id) "
+        + "VALUES (:drillId, :relatedDrillId) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addRelatedDrill(@Param("drillId") Long drillId, @Param("relatedDrillId") Long relatedDrillId);
+
+    @Modifying
+    @Query(value = "DELETE FROM related_drills WHERE primary_drill_id = :drillId "
+        + "AND related_drill_id = :relatedDrillId", nativeQuery = true)
+    int removeRelatedDrill(@Param("drillId") Long drillId, @Param("relatedDrillId") Long relatedDrillId);
+
+    /*
+     * Remove all of a drill's rows from a join table, before writing its new ones.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM drill_category_join WHERE drill_id = :drillId", nativeQuery = true)
+    int removeAllCategories(@Param("drillId") Long drillId);
+
+    @Modifying
+    @Query(value = "DELETE FROM drill_sub_category_join WHERE drill_id = :drillId", nativeQuery = true)
+    int removeAllSubCategories(@Param("drillId") Long drillId);
+
+    @Modifying
+    @Query(value = "DELETE FROM related_drills WHERE primary_drill_id = :drillId", nativeQuery = true)
+    int removeAllRelatedDrills(@Param("drillId") Long drillId);
+
+    /*
+     * Constructor projection straight into the response DTO, no entities are created.
+     */
+    @Query("SELECT new com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO(d.id, d.name) "
+        + "FROM DrillEntity d WHERE d.id IN :ids")
+    List<DrillRelatedDTO> findRelatedByIdIn(@Param("ids") Collection<Long> ids);
+
+    /*
+     * Load a single association for many drills at once.
+     */
+    @Query("SELECT d.id AS drillId, c AS category FROM DrillEntity d JOIN d.categories c "
+        + "WHERE d.id IN :drillIds ORDER BY c.name")
+    List<DrillCategoryRow> findCategoriesByDrillIdIn(@Param("drillIds") Collection<Long> drillIds);
+
+    @Query("SELECT d.id AS drillId, s AS subCategory FROM DrillEntity d JOIN d.subCategories s "
+        + "WHERE d.id IN :drillIds ORDER BY s.name")
+    List<DrillSubCategoryRow> findSubCategoriesByDrillIdIn(@Param("drillIds") Collection<Long> drillIds);
+
+    @Query("SELECT d.id AS drillId, r AS relatedDrillId FROM DrillEntity d JOIN d.relatedDrills r "
+        + "WHERE d.id IN :drillIds")
+    List<RelatedDrillRow> findRelatedDrillIdsByDrillIdIn(@Param("drillIds") Collection<Long> drillIds);
+
+    /*
+     * Join tables by ID only, to build the in-memory index used for random sampling.
+     */
+    @Query("SELECT d.id AS drillId, c.id AS associatedId FROM DrillEntity d JOIN d.categories c ORDER BY d.id")
+    List<DrillIdRow> findAllCategoryIds();
+
+    @Query("SELECT d.id AS drillId, s.id AS associatedId FROM DrillEntity d JOIN d.subCategories s ORDER BY d.id")
+    List<DrillIdRow> findAllSubCategoryIds();
+
+    /*
+     * Drill counts grouped over the join tables, for drill statistics.
+     */
+    @Query(value = "SELECT c.id AS id, c.name AS name, COUNT(j.drill_id) AS drills FROM categories c "
+        + "LEFT JOIN drill_category_join j ON j.category_id = c.id GROUP BY c.id, c.name ORDER BY c.id",
+        nativeQuery = true)
+    List<AssociationCountRow> countByCategory();
+
+    @Query(value = "SELECT s.id AS id, s.name AS name, COUNT(j.drill_id) AS drills FROM sub_categories s "
+        + "LEFT JOIN drill_sub_category_join j ON j.sub_category_id = s.id GROUP BY s.id, s.name ORDER BY s.id",
+        nativeQuery = true)
+    List<AssociationCountRow> countBySubCategory();
+
+    @Query(value = "SELECT dc.category_id AS \"categoryId\", ds.sub_category_id AS \"subCategoryId\", "
+        + "COUNT(*) AS drills FROM drill_category_join dc "
+        + "JOIN drill_sub_category_join ds ON ds.drill_id = dc.drill_id "
+        + "GROUP BY dc.category_id, ds.sub_category_id ORDER BY dc.category_id, ds.sub_category_id",
+        nativeQuery = true)
+    List<MatrixCountRow> countByCategoryAndSubCategory();
+
+    @Query(value = "SELECT (SELECT COUNT(*) FROM drills) AS drills, "
+        + "(SELECT COUNT(*) FROM drills d WHERE NOT EXISTS "
+        + "(SELECT 1 FROM drill_category_join j WHERE j.drill_id = d.id)) AS \"withoutCategories\", "
+        + "(SELECT COUNT(*) FROM drills d WHERE NOT EXISTS "
+        + "(SELECT 1 FROM drill_sub_category_join j WHERE j.drill_id = d.id)) AS \"withoutSubCategories\", "
+        + "(SELECT COUNT(DISTINCT i.drill_id) FROM instructions i) AS \"withInstructions\", "
+        + "(SELECT COUNT(DISTINCT i.drill_id) FROM instructions i WHERE i.video_id IS NOT NULL) AS \"withVideos\", "
+        + "(SELECT COUNT(*) FROM instructions) AS instructions, "
+        + "(SELECT COUNT(i.video_id) FROM instructions i) AS \"instructionsWithVideos\"",
+        nativeQuery = true)
+    CoverageRow countCoverage();
+
+    /**
+     * Row of the drill_category_join table.
+     */
+    interface DrillCategoryRow {
+        Long getDrillId();
+        CategoryEntity getCategory();
+    }
+
+    /**
+     * Row of the drill_sub_category_join table.
+     */
+    interface DrillSubCategoryRow {
+        Long getDrillId();
+        SubCategoryEntity getSubCategory();
+    }
+
+    /**
+     * Row of the related_drills table.
+     */
+    interface RelatedDrillRow {
+        Long getDrillId();
+        Long getRelatedDrillId();
+    }
+
+    /**
+     * Row of a join table, by ID only.
+     */
+    interface DrillIdRow {
+        Long getDrillId();
+        Long getAssociatedId();
+    }
+
+    /**
+     * Number of drills in a category or sub-category.
+     */
+    interface AssociationCountRow {
+        Long getId();
+        String getName();
+        Long getDrills();
+    }
+
+    /**
+     * Number of drills in both a category and a sub-category.
+     */
+    interface MatrixCountRow {
+        Long getCategoryId();
+        Long getSubCategoryId();
+        Long getDrills();
+    }
+
+    /**
+     * Number of drills and instructions without categories, with videos, etc.
+     */
+    interface CoverageRow {
+        Long getDrills();
+        Long getWithoutCategories();
+        Long getWithoutSubCategories();
+        Long getWithInstructions();
+        Long getWithVideos();
+        Long getInstructions();
+        Long getInstructionsWithVideos();
+    }
 }
@@ -26,7 +26,14 @@
 
 package com.damienwesterman.defensedrill.rest_api.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
@@ -34,8 +41,42 @@ import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
 /**
  * Database repository for {@link InstructionsEntity}.
  * <br><br>
- * Currently unused, Instructions updates mostly go through {@link DrillRepo}.
+ * Instructions updates mostly go through {@link DrillRepo}, this is used to load the
+ * instructions of many drills at once and to edit a single drill's instructions one at a time.
  */
 @Repository
 public interface InstructionsRepo extends JpaRepository<InstructionsEntity, InstructionsEntity.InstructionId> {
+    List<InstructionsEntity> findByDrillIdIn(Collection<Long> drillIds, Sort sort);
+    long countByDrillId(Long drillId);
+
+    /*
+     * Single statement edits of one drill's instructions, without loading the drill.
+     */
+    @Modifying
+    @Query("DELETE FROM InstructionsEntity i WHERE i.drillId = :drillId AND i.number = :number")
+    int deleteByDrillIdAndNumber(@Param("drillId") Long drillId, @Param("number") Long number);
+
+    @Modifying
+    @Query("DELETE FROM InstructionsEntity i WHERE i.drillId = :drillId")
+    int deleteByDrillId(@Param("drillId") Long drillId);
+
+    @Modifying
+    @Query("UPDATE InstructionsEntity i SET i.number = :newNumber WHERE i.drillId = :drillId AND i.number = :number")
+    int renumber(@Param("drillId") Long drillId, @Param("number") Long number, @Param("newNumber") Long newNumber);
+
+    /*
+     * Shifting a range of numbers with a single UPDATE could briefly duplicate a primary key, as
+     * the rows are updated in no particular order. So the range is first moved to unique negative
+     * numbers below -1, then moved back by the given offset.
+     */
+    @Modifying
+    @Query("UPDATE InstructionsEntity i SET i.number = -i.number - 2 "
+        + "WHERE i.drillId = :drillId AND i.number BETWEEN :fromNumber AND :toNumber")
+    int negateNumbers(@Param("drillId") Long drillId, @Param("fromNumber") Long fromNumber,
+        @Param("toNumber") Long toNumber);
+
+    @Modifying
+    @Query("UPDATE InstructionsEntity i SET i.number = -i.number - 2 + :offset "
+        + "WHERE i.drillId = :drillId AND i.number < -1")
+    int restoreNumbers(@Param("drillId") Long drillId, @Param("offset") Long offset);
 }
@@ -26,24 +26,51 @@
 
 package com.damienwesterman.defensedrill.rest_api.service;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
 import com.damienwesterman.defensedrill.rest_api.repository.AbstractCategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
 
 /**
  * Abstract service superclass for interacting with {@link AbstractCategoryEntity} objects in the database.
  */
 public abstract class AbstractCategoryService<E extends AbstractCategoryEntity, R extends AbstractCategoryRepo<E>> {
     protected final R repo;
+    protected final Class<E> entityType;
+    protected final ApplicationEventPublisher eventPublisher;
+    protected final SingleFlight singleFlight;
+    protected final IdLists idLists;
 
-    public AbstractCategoryService(R repo) {
+    public AbstractCategoryService(R repo, Class<E> entityType, ApplicationEventPublisher eventPublisher,
+            SingleFlight singleFlight, IdLists idLists) {
         this.repo = repo;
+        this.entityType = entityType;
+        this.eventPublisher = eventPublisher;
+        this.singleFlight = singleFlight;
+        this.idLists = idLists;
+    }
+
+    /**
+     * Retrieve the concrete AbstractCategoryEntity class this service is responsible for.
+     *
+     * @return Entity class.
+     */
+    @NonNull
+    public Class<E> getEntityType() {
+        return entityType;
     }
 
     /**
@@ -57,7 +84,80 @@ public abstract class AbstractCategoryService<E extends AbstractCategoryEntity,
      */
     @NonNull
     public E save(@NonNull E abstractCategory) throws DatabaseInsertException {
-        return ErrorMessageUtils.trySave(abstractCategory, repo);
+        E savedAbstractCategory = ErrorMessageUtils.trySave(abstractCategory, repo);
+        eventPublisher.publishEvent(
+            new DatabaseChangeEvent(entityType, ChangeType.SAVE, savedAbstractCategory.getId()));
+        return savedAbstractCategory;
+    }
+
+    /**
+     * Change some fields of an existing AbstractCategoryEntity.
+     * <br><br>
+     * The changes are applied to the managed entity, so only the columns that actually changed
+     * are written.
+     *
+     * @param id ID of the AbstractCategoryEntity.
+     * @param expectedVersion Version the entity must still be at, null for any version.
+     * @param changes Changes to apply to the entity.
+     * @return The updated entity.
+     * @throws NoSuchElementException Thrown when the entity does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the entity is at another version.
+     * @throws DatabaseInsertException Thrown when there is any issue saving the entity.
+     */
+    @NonNull
+    @Transactional
+    public E update(@NonNull Long id, @Nullable Long expectedVersion, @NonNull Consumer<E> changes)
+            throws DatabaseInsertException {
+        Optional<E> found = null == expectedVersion ? repo.findById(id) : repo.findByIdAndVersion(id, expectedVersion);
+        E abstractCategory = found.orElseThrow(() -> null == expectedVersion || !repo.existsById(id)
+                ? notFound(id)
+                : new ObjectOptimisticLockingFailureException(entityType, id));
+        // The flush only updates the row WHERE version still is the loaded one, in case it changed in between
+        changes.accept(abstractCategory);
+        abstractCategory.setUpdateTimestamp(Instant.now().toEpochMilli());
+
+        E savedAbstractCategory = ErrorMessageUtils.trySaveAndFlush(abstractCategory, repo);
+        eventPublisher.publishEvent(
+            new DatabaseChangeEvent(entityType, ChangeType.SAVE, savedAbstractCategory.getId()));
+        return savedAbstractCategory;
+    }
+
+    /**
+     * Overwrite an existing AbstractCategoryEntity without reading it first.
+     * <br><br>
+     * The entity is written in a single UPDATE, which also checks the expected version.
+     *
+     * @param abstractCategory Entity to write, its ID must be set.
+     * @param expectedVersion Version the entity must still be at, null for any version.
+     * @return The new version of the entity.
+     * @throws NoSuchElementException Thrown when the entity does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the entity is at another version.
+     * @throws DatabaseInsertException Thrown when there is any issue saving the entity.
+     */
+    @NonNull
+    @Transactional
+    public Long replace(@NonNull E abstractCategory, @Nullable Long expectedVersion)
+            throws DatabaseInsertException {
+        Long id = abstractCategory.getId();
+        abstractCategory.setUpdateTimestamp(Instant.now().toEpochMilli());
+        int updated = ErrorMessageUtils.tryWrite(() -> null == expectedVersion
+            ? repo.updateById(id, abstractCategory.getName(), abstractCategory.getDescription(),
+                abstractCategory.getUpdateTimestamp())
+            : repo.updateByIdAndVersion(id, expectedVersion, abstractCategory.getName(),
+                abstractCategory.getDescription(), abstractCategory.getUpdateTimestamp()));
+
+        if (0 == updated) {
+            // Only now is it worth finding out why nothing was written
+            if (null == expectedVersion || !repo.existsById(id)) {
+                throw notFound(id);
+            }
+            throw new ObjectOptimisticLockingFailureException(entityType, id);
+        }
+
+        eventPublisher.publishEvent(new DatabaseChangeEvent(entityType, ChangeType.SAVE, id));
+        return null == expectedVersion
+            ? repo.findVersionById(id).orElseThrow(() -> notFound(id))
+            : expectedVersion + 1;
     }
 
     /**
@@ -66,6 +166,7 @@ public abstract class AbstractCategoryService<E extends AbstractCategoryEntity,
      * @param id ID of the AbstractCategoryEntity.
      * @return Optional containing the returned entity - if it exists.
      */
+    @Transactional(readOnly = true)
     public Optional<E> find(@NonNull Long id) {
         return repo.findById(id);
     }
@@ -76,6 +177,7 @@ public abstract class AbstractCategoryService<E extends AbstractCategoryEntity,
      * @param name Name of the AbstractCategoryEntity.
      * @return Optional containing the returned entity - if it exists.
      */
+    @Transactional(readOnly = true)
     public Optional<E> find(@NonNull String name) {
         return repo.findByNameIgnoreCase(name);
     }
@@ -86,8 +188,10 @@ public abstract class AbstractCategoryService<E extends AbstractCategoryEntity,
      * @return List of AbstractCategoryEntity objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<E> findAll() {
-        return repo.findAll(Sort.by(Sort.Direction.ASC, "name"));
+        return singleFlight.executeList(entityType.getSimpleName() + ".findAll", null,
+            () -> repo.findAll(Sort.by(Sort.Direction.ASC, "name")));
     }
 
     /**
@@ -98,12 +202,16 @@ public abstract class AbstractCategoryService<E extends AbstractCategoryEntity,
      * @return List of AbstractCategoryEntity objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<E> findAll(@NonNull List<Long> ids) {
-        List<E> ret = repo.findAllById(ids);
-        ret.sort(
-            (category1, category2) -> category1.getName().compareToIgnoreCase(category2.getName())
-        );
-        return ret;
+        idLists.checkSize(ids);
+        return singleFlight.executeList(entityType.getSimpleName() + ".findAllById", List.copyOf(ids), () -> {
+            List<E> ret = idLists.query(ids, repo::findAllById);
+            ret.sort(
+                (category1, category2) -> category1.getName().compareToIgnoreCase(category2.getName())
+            );
+            return ret;
+        });
     }
 
     /**
@@ -113,16 +221,32 @@ public abstract class AbstractCategoryService<E extends AbstractCategoryEntity,
      * @return List of AbstractCategoryEntity objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<E> findAll(Long timestamp) {
-        return repo.findByUpdateTimestampGreaterThan(timestamp, Sort.by(Sort.Direction.ASC, "name"));
+        return singleFlight.executeList(entityType.getSimpleName() + ".findByUpdateTimestampGreaterThan",
+            timestamp, () -> repo.findByUpdateTimestampGreaterThan(timestamp, Sort.by(Sort.Direction.ASC, "name")));
     }
 
     /**
      * Delete an entity from the database by its ID - if it exists.
      *
      * @param id ID of the AbstractCategoryEntity.
+     * @param expectedVersion Version the entity must still be at, null for any version.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the entity exists at another version.
      */
-    public void delete(@NonNull Long id) {
-        repo.deleteById(id);
+    @Transactional
+    public void delete(@NonNull Long id, @Nullable Long expectedVersion) {
+        if (null == expectedVersion) {
+            repo.deleteById(id);
+        } else if (0 == repo.deleteByIdAndVersion(id, expectedVersion) && repo.existsById(id)) {
+            throw new ObjectOptimisticLockingFailureException(entityType, id);
+        }
+        eventPublisher.publishEvent(new DatabaseChangeEvent(entityType, ChangeType.DELETE, id));
+    }
+
+    @NonNull
+    private NoSuchElementException notFound(@NonNull Long id) {
+        return new NoSuchElementException(
+            entityType.getSimpleName().replace("Entity", "") + " ID " + id + " does not exist");
     }
 }
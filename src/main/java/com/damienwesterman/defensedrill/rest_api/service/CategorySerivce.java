@@ -26,8 +26,10 @@
 
 package com.damienwesterman.defensedrill.rest_api.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
 
@@ -36,8 +38,10 @@ import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
  * Service class for interacting with {@link CategoryEntity} objects in the database.
  */
 @Service
+@ServletStack
 public class CategorySerivce extends AbstractCategoryService<CategoryEntity, CategoryRepo> {
-    public CategorySerivce(CategoryRepo repo) {
-        super(repo);
+    public CategorySerivce(CategoryRepo repo, ApplicationEventPublisher eventPublisher, SingleFlight singleFlight,
+            IdLists idLists) {
+        super(repo, CategoryEntity.class, eventPublisher, singleFlight, idLists);
     }
 }
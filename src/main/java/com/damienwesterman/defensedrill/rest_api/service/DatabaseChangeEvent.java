@@ -0,0 +1,60 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.service;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Event published by the service layer whenever an entity is saved to or deleted from the database.
+ * <br><br>
+ * Listeners should use {@link TransactionalEventListener} with {@code fallbackExecution = true}
+ * so that they are only notified once the write has actually been committed.
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class DatabaseChangeEvent {
+    /**
+     * Type of write that caused the event.
+     */
+    public enum ChangeType {
+        SAVE,
+        DELETE
+    }
+
+    /** Entity class that was written, such as DrillEntity or CategoryEntity */
+    private final Class<?> entityType;
+
+    private final ChangeType changeType;
+
+    /** ID of the written entity */
+    private final Long id;
+}
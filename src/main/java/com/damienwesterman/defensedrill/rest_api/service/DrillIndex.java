@@ -0,0 +1,365 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of drill IDs and names by category and sub-category, used to draw random drills
+ * without going to the database.
+ * <br><br>
+ * The index is loaded once the application is ready, or on first use if that failed. After that
+ * it is kept up to date incrementally: each drill write only reloads the associations of that
+ * drill and replaces the arrays of the categories it joined or left. Every change creates a new
+ * immutable {@link Snapshot}, so readers never lock.
+ * <br><br>
+ * Reads run in their own read-write transaction so that they always go to the primary. Otherwise
+ * a load on first use would join the caller's read-only transaction and read from a replica, and
+ * the stale index would be kept until those drills are written again.
+ */
+@Service
+@Slf4j
+@ServletStack
+public class DrillIndex {
+    private final DrillRepo repo;
+    private final TransactionTemplate primaryTransaction;
+    /* Held while loading or changing the index, so no change is applied to an outdated load */
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public DrillIndex(DrillRepo repo, PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get the current index, loading it from the database if needed.
+     *
+     * @return Current snapshot of the index.
+     */
+    @NonNull
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (null != current) {
+            return current;
+        }
+
+        lock.lock();
+        try {
+            current = snapshot;
+            if (null == current) {
+                current = primaryTransaction.execute(status -> load());
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Load the index when the application starts, so that no request has to wait for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            snapshot();
+        } catch (DataAccessException e) {
+            log.warn("Could not load the drill index, it will be loaded on first use", e);
+        }
+    }
+
+    /**
+     * Apply a committed change to the index.
+     * <br><br>
+     * Only the written drill is reloaded. Saved categories and sub-categories never change which
+     * drills they contain, so only their deletion matters.
+     *
+     * @param event Database change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatabaseChange(DatabaseChangeEvent event) {
+        Class<?> entityType = event.getEntityType();
+        boolean delete = ChangeType.DELETE == event.getChangeType();
+        if (!DrillEntity.class.equals(entityType)
+                && !(delete && (CategoryEntity.class.equals(entityType)
+                    || SubCategoryEntity.class.equals(entityType)))) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (null == current) {
+                // Not loaded yet, the load will include this change
+                return;
+            }
+
+            long id = event.getId();
+            if (CategoryEntity.class.equals(entityType)) {
+                snapshot = current.withoutCategory(id);
+            } else if (SubCategoryEntity.class.equals(entityType)) {
+                snapshot = current.withoutSubCategory(id);
+            } else if (delete) {
+                snapshot = current.withDrill(id, null, Set.of(), Set.of());
+            } else {
+                snapshot = primaryTransaction.execute(status -> current.withDrill(id,
+                    repo.findById(id, DrillSummary.class).map(DrillSummary::getName).orElse(null),
+                    repo.findCategoriesByDrillIdIn(List.of(id)).stream()
+                        .map(row -> row.getCategory().getId())
+                        .collect(Collectors.toSet()),
+                    repo.findSubCategoriesByDrillIdIn(List.of(id)).stream()
+                        .map(row -> row.getSubCategory().getId())
+                        .collect(Collectors.toSet())));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not update the drill index for {}, it will be reloaded on next use", event, e);
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Snapshot load() {
+        Map<Long, String> names = new HashMap<>();
+        for (DrillSummary drill : repo.findAllBy(Sort.by("id"), DrillSummary.class)) {
+            names.put(drill.getId(), drill.getName());
+        }
+        return new Snapshot(names.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), names,
+            groupByAssociatedId(repo.findAllCategoryIds()), groupByAssociatedId(repo.findAllSubCategoryIds()));
+    }
+
+    private static Map<Long, long[]> groupByAssociatedId(List<DrillRepo.DrillIdRow> rows) {
+        return rows.stream()
+            .collect(Collectors.groupingBy(DrillRepo.DrillIdRow::getAssociatedId,
+                Collectors.collectingAndThen(Collectors.toList(), associatedRows -> associatedRows.stream()
+                    .mapToLong(DrillRepo.DrillIdRow::getDrillId)
+                    .sorted()
+                    .toArray())));
+    }
+
+    /**
+     * Immutable state of the index. All drill ID arrays are sorted and must not be modified.
+     */
+    public static final class Snapshot {
+        private static final long[] NO_IDS = new long[0];
+
+        private final long[] allIds;
+        private final Map<Long, String> names;
+        private final Map<Long, long[]> byCategory;
+        private final Map<Long, long[]> bySubCategory;
+
+        private Snapshot(long[] allIds, Map<Long, String> names, Map<Long, long[]> byCategory,
+                Map<Long, long[]> bySubCategory) {
+            this.allIds = allIds;
+            this.names = names;
+            this.byCategory = byCategory;
+            this.bySubCategory = bySubCategory;
+        }
+
+        /**
+         * Get the IDs of the drills matching the filters.
+         * <br><br>
+         * Category and sub-category filters match drills in any of the given IDs, and when both
+         * are given a drill must match both.
+         *
+         * @param categoryIds Category IDs, null or empty for all.
+         * @param subCategoryIds Sub-category IDs, null or empty for all.
+         * @return Sorted drill IDs, must not be modified.
+         */
+        @NonNull
+        public long[] candidates(@Nullable Collection<Long> categoryIds, @Nullable Collection<Long> subCategoryIds) {
+            boolean filterCategories = null != categoryIds && !categoryIds.isEmpty();
+            boolean filterSubCategories = null != subCategoryIds && !subCategoryIds.isEmpty();
+            if (filterCategories && filterSubCategories) {
+                return intersection(union(byCategory, categoryIds), union(bySubCategory, subCategoryIds));
+            } else if (filterCategories) {
+                return union(byCategory, categoryIds);
+            } else if (filterSubCategories) {
+                return union(bySubCategory, subCategoryIds);
+            }
+            return allIds;
+        }
+
+        /**
+         * Get the name of a drill.
+         *
+         * @param id Drill ID.
+         * @return Name of the drill, null if it does not exist.
+         */
+        @Nullable
+        public String name(long id) {
+            return names.get(id);
+        }
+
+        /**
+         * Copy of this snapshot with the drill replaced.
+         *
+         * @param id Drill ID.
+         * @param name Drill name, null if the drill no longer exists.
+         * @param categoryIds Categories of the drill.
+         * @param subCategoryIds Sub-categories of the drill.
+         * @return New snapshot.
+         */
+        private Snapshot withDrill(long id, @Nullable String name, Set<Long> categoryIds, Set<Long> subCategoryIds) {
+            Map<Long, String> newNames = new HashMap<>(names);
+            if (null == name) {
+                newNames.remove(id);
+                categoryIds = Set.of();
+                subCategoryIds = Set.of();
+            } else {
+                newNames.put(id, name);
+            }
+
+            return new Snapshot(update(allIds, id, null != name), newNames,
+                update(byCategory, id, categoryIds), update(bySubCategory, id, subCategoryIds));
+        }
+
+        private Snapshot withoutCategory(long categoryId) {
+            Map<Long, long[]> newByCategory = new HashMap<>(byCategory);
+            newByCategory.remove(categoryId);
+            return new Snapshot(allIds, names, newByCategory, bySubCategory);
+        }
+
+        private Snapshot withoutSubCategory(long subCategoryId) {
+            Map<Long, long[]> newBySubCategory = new HashMap<>(bySubCategory);
+            newBySubCategory.remove(subCategoryId);
+            return new Snapshot(allIds, names, byCategory, newBySubCategory);
+        }
+
+        /**
+         * Add or remove the drill from every array as needed. Arrays that do not change are
+         * shared with the previous snapshot.
+         */
+        private static Map<Long, long[]> update(Map<Long, long[]> drillIds, long id, Set<Long> associatedIds) {
+            Map<Long, long[]> ret = new HashMap<>(drillIds);
+            drillIds.forEach((associatedId, ids) -> {
+                if (!associatedIds.contains(associatedId)) {
+                    ret.put(associatedId, update(ids, id, false));
+                }
+            });
+            for (Long associatedId : associatedIds) {
+                ret.put(associatedId, update(drillIds.getOrDefault(associatedId, NO_IDS), id, true));
+            }
+            ret.values().removeIf(ids -> 0 == ids.length);
+            return ret;
+        }
+
+        private static long[] update(long[] sortedIds, long id, boolean present) {
+            int index = Arrays.binarySearch(sortedIds, id);
+            if (present == (0 <= index)) {
+                return sortedIds;
+            }
+
+            if (present) {
+                int insertAt = -(index + 1);
+                long[] ret = new long[sortedIds.length + 1];
+                System.arraycopy(sortedIds, 0, ret, 0, insertAt);
+                ret[insertAt] = id;
+                System.arraycopy(sortedIds, insertAt, ret, insertAt + 1, sortedIds.length - insertAt);
+                return ret;
+            }
+
+            long[] ret = new long[sortedIds.length - 1];
+            System.arraycopy(sortedIds, 0, ret, 0, index);
+            System.arraycopy(sortedIds, index + 1, ret, index, sortedIds.length - index - 1);
+            return ret;
+        }
+
+        private static long[] union(Map<Long, long[]> drillIds, Collection<Long> associatedIds) {
+            if (1 == associatedIds.size()) {
+                return drillIds.getOrDefault(associatedIds.iterator().next(), NO_IDS);
+            }
+
+            long[] ret = associatedIds.stream()
+                .distinct()
+                .map(drillIds::get)
+                .filter(ids -> null != ids)
+                .flatMapToLong(LongStream::of)
+                .toArray();
+            // Sort and remove duplicates in place, LongStream.distinct() would box every ID
+            Arrays.sort(ret);
+            int size = 0;
+            for (long id : ret) {
+                if (0 == size || ret[size - 1] != id) {
+                    ret[size++] = id;
+                }
+            }
+            return Arrays.copyOf(ret, size);
+        }
+
+        private static long[] intersection(long[] sorted1, long[] sorted2) {
+            long[] ret = new long[Math.min(sorted1.length, sorted2.length)];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < sorted1.length && j < sorted2.length) {
+                if (sorted1[i] < sorted2[j]) {
+                    i++;
+                } else if (sorted1[i] > sorted2[j]) {
+                    j++;
+                } else {
+                    ret[size++] = sorted1[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(ret, size);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.LongStream;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Draws random drills without replacement, optionally filtered by category and sub-category and
+ * weighted per drill.
+ * <br><br>
+ * Sampling works on the {@link DrillIndex} of drill IDs by category and sub-category rather than
+ * on the drills themselves, so drawing needs no database access.
+ * <br><br>
+ * Unweighted samples pick random positions in the candidate IDs, which is O(n) as long as the
+ * sample and the excluded IDs are small compared to the candidates. Weighted samples must look at
+ * every candidate once, see {@link #sample(int, Collection, Collection, Collection, Map, Long)}.
+ * <br><br>
+ * Unseeded samples use {@link ThreadLocalRandom}, so there is no random generator shared between
+ * threads. Seeded samples use their own generator and return the same drills for the same seed
+ * and parameters, as long as the drills have not changed.
+ */
+@Service
+@RequiredArgsConstructor
+@ServletStack
+public class DrillSampler {
+    private final DrillIndex index;
+
+    /**
+     * Number of drills to draw from the drills matching the filters of a session part.
+     *
+     * @param count Number of drills to draw.
+     * @param categoryIds Only draw drills in any of these categories, null or empty for all.
+     * @param subCategoryIds Only draw drills in any of these sub-categories, null or empty for all.
+     */
+    public record Quota(int count, @Nullable Collection<Long> categoryIds,
+            @Nullable Collection<Long> subCategoryIds) { }
+
+    /**
+     * Draw random drill IDs without replacement.
+     * <br><br>
+     * Category and sub-category filters match drills in any of the given IDs, and when both are
+     * given a drill must match both. Drills without a weight have a weight of 1, and drills with a
+     * weight of 0 are never drawn. Weighted draws use the Efraimidis-Spirakis method: each
+     * candidate gets the key u^(1/weight) for a uniform random u, and the n largest keys win.
+     *
+     * @param n Number of drills to draw.
+     * @param categoryIds Only draw drills in any of these categories, null or empty for all.
+     * @param subCategoryIds Only draw drills in any of these sub-categories, null or empty for all.
+     * @param excludeIds Never draw these drills.
+     * @param weights Weight of each drill by ID, null or empty for all equal.
+     * @param seed Seed for a reproducible draw, null for a random one.
+     * @return Up to n drill IDs in the order they were drawn, fewer if not enough drills match.
+     */
+    @NonNull
+    public List<Long> sample(int n, @Nullable Collection<Long> categoryIds, @Nullable Collection<Long> subCategoryIds,
+            @Nullable Collection<Long> excludeIds, @Nullable Map<Long, Double> weights, @Nullable Long seed) {
+        checkCount(n);
+        if (null != weights) {
+            weights.forEach((id, weight) -> {
+                if (!Double.isFinite(weight) || 0 > weight) {
+                    throw new InvalidRequestParameterException(
+                        "Weight of drill " + id + " must be a non-negative number, got " + weight + ".");
+                }
+            });
+        }
+
+        long[] candidates = index.snapshot().candidates(categoryIds, subCategoryIds);
+        RandomGenerator random = randomGenerator(seed);
+        Set<Long> excluded = null == excludeIds ? Set.of() : new HashSet<>(excludeIds);
+        if (null != weights && !weights.isEmpty()) {
+            return sampleWeighted(n, candidates, excluded, weights, random);
+        }
+        return sampleUniform(n, candidates, excluded, random);
+    }
+
+    /**
+     * Draw a session: random drills for each quota in turn, never drawing a drill twice.
+     * <br><br>
+     * Everything is drawn from a single snapshot of the {@link DrillIndex}, without any database
+     * access. A quota that matches too few drills is filled as far as possible.
+     *
+     * @param quotas Drills to draw, in order.
+     * @param excludeIds Never draw these drills, ex. those of recent sessions.
+     * @param seed Seed for a reproducible session, null for a random one.
+     * @return Drawn drills of each quota, in the same order as the quotas.
+     */
+    @NonNull
+    public List<List<DrillRelatedDTO>> sampleSession(@NonNull List<Quota> quotas,
+            @Nullable Collection<Long> excludeIds, @Nullable Long seed) {
+        quotas.forEach(quota -> checkCount(quota.count()));
+
+        DrillIndex.Snapshot current = index.snapshot();
+        RandomGenerator random = randomGenerator(seed);
+        Set<Long> excluded = null == excludeIds ? new HashSet<>() : new HashSet<>(excludeIds);
+        List<List<DrillRelatedDTO>> ret = new ArrayList<>(quotas.size());
+        for (Quota quota : quotas) {
+            List<Long> drawnIds = sampleUniform(quota.count(),
+                current.candidates(quota.categoryIds(), quota.subCategoryIds()), excluded, random);
+            excluded.addAll(drawnIds);
+            ret.add(drawnIds.stream()
+                .map(id -> new DrillRelatedDTO(id, current.name(id)))
+                .toList());
+        }
+        return ret;
+    }
+
+    private static void checkCount(int n) {
+        if (0 >= n) {
+            throw new InvalidRequestParameterException("Number of drills must be positive, got " + n + ".");
+        }
+    }
+
+    private static RandomGenerator randomGenerator(@Nullable Long seed) {
+        return null == seed ? ThreadLocalRandom.current() : new SplittableRandom(seed);
+    }
+
+    private List<Long> sampleUniform(int n, long[] candidates, Set<Long> excluded, RandomGenerator random) {
+        if ((long) n + excluded.size() <= candidates.length / 2) {
+            /*
+             * At least half of the candidates can still be drawn at every step, so this takes
+             * fewer than two tries per drill on average without copying the candidates.
+             */
+            Set<Long> drawn = new LinkedHashSet<>();
+            while (drawn.size() < n) {
+                long id = candidates[random.nextInt(candidates.length)];
+                if (!excluded.contains(id)) {
+                    drawn.add(id);
+                }
+            }
+            return new ArrayList<>(drawn);
+        }
+
+        // Partial Fisher-Yates shuffle of the drills that can be drawn
+        long[] eligible = LongStream.of(candidates)
+            .filter(id -> !excluded.contains(id))
+            .toArray();
+        int count = Math.min(n, eligible.length);
+        List<Long> drawn = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(eligible.length - i);
+            long id = eligible[j];
+            eligible[j] = eligible[i];
+            eligible[i] = id;
+            drawn.add(id);
+        }
+        return drawn;
+    }
+
+    private List<Long> sampleWeighted(int n, long[] candidates, Set<Long> excluded, Map<Long, Double> weights,
+            RandomGenerator random) {
+        // Smallest key first, so the head is the one to replace
+        PriorityQueue<WeightedId> heap = new PriorityQueue<>(Comparator.comparingDouble(WeightedId::key));
+        for (long id : candidates) {
+            double weight = weights.getOrDefault(id, 1.0);
+            if (0 == weight || excluded.contains(id)) {
+                continue;
+            }
+
+            // log(u^(1/weight)), which keeps the order of the keys without underflowing
+            double key = Math.log(random.nextDouble()) / weight;
+            if (heap.size() < n) {
+                heap.add(new WeightedId(id, key));
+            } else if (key > heap.peek().key()) {
+                heap.poll();
+                heap.add(new WeightedId(id, key));
+            }
+        }
+
+        // Largest key first is the order in which the drills would have been drawn one at a time
+        return heap.stream()
+            .sorted(Comparator.comparingDouble(WeightedId::key).reversed())
+            .map(WeightedId::id)
+            .toList();
+    }
+
+    private record WeightedId(long id, double key) { }
+}
@@ -26,18 +26,42 @@
 
 package com.damienwesterman.defensedrill.rest_api.service;
 
+import java.io.OutputStream;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.function.ThrowingSupplier;
 
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonQuery;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonRepo;
 import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.repository.InstructionsRepo;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
 
 import lombok.RequiredArgsConstructor;
 
@@ -46,8 +70,14 @@ import lombok.RequiredArgsConstructor;
  */
 @Service
 @RequiredArgsConstructor
+@ServletStack
 public class DrillService {
     private final DrillRepo repo;
+    private final InstructionsRepo instructionsRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight singleFlight;
+    private final DrillJsonRepo jsonRepo;
+    private final IdLists idLists;
 
     /**
      * Save a DrillEntity into the database.
@@ -60,26 +90,14 @@ public class DrillService {
      */
     @NonNull
     public DrillEntity save(@NonNull DrillEntity drill) throws DatabaseInsertException {
-        // Saving null lists in the database can cause issues
-        if(null == drill.getCategories()) {
-            drill.setCategories(List.of());
-        }
-        if (null == drill.getSubCategories()) {
-            drill.setSubCategories(List.of());
-        }
-        if (null == drill.getRelatedDrills()) {
-            drill.setRelatedDrills(List.of());
-        }
+        setMissingListsEmpty(drill);
+
         /*
          * Compiler is generating a warning for each call to drill.getInstructions(). We can safely
-         * ignore this because of this first null check here.
+         * ignore this because of the null check in setMissingListsEmpty().
          */
-        if (null == drill.getInstructions()) {
-            drill.setInstructions(List.of());
-        }
-
         if (drill.getInstructions().isEmpty()) {
-            return ErrorMessageUtils.trySave(drill, repo);
+            return publishSave(ErrorMessageUtils.trySave(drill, repo));
         }
 
         /*
@@ -97,7 +115,92 @@ public class DrillService {
         returnedDrill.getInstructions().addAll(instructions);
 
         // Update the existing drill with the instructions
-        return ErrorMessageUtils.trySave(returnedDrill, repo);
+        return publishSave(ErrorMessageUtils.trySave(returnedDrill, repo));
+    }
+
+    /**
+     * Overwrite an existing DrillEntity without reading it first.
+     * <br><br>
+     * The drill's columns are written in a single UPDATE, which also checks the expected version,
+     * and its join table rows and instructions are then rewritten. Without an expected version the
+     * last write wins.
+     *
+     * @param drill Entity to save, with the ID set.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @return The saved entity.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     * @throws DatabaseInsertException Thrown when there is any issue saving the entity.
+     */
+    @NonNull
+    @Transactional
+    public DrillEntity replace(@NonNull DrillEntity drill, @Nullable Long expectedVersion)
+            throws DatabaseInsertException {
+        Long id = drill.getId();
+        setMissingListsEmpty(drill);
+        drill.setUpdateTimestamp(Instant.now().toEpochMilli());
+        int updated = ErrorMessageUtils.tryWrite(() -> null == expectedVersion
+            ? repo.updateById(id, drill.getName(), drill.getUpdateTimestamp())
+            : repo.updateByIdAndVersion(id, expectedVersion, drill.getName(), drill.getUpdateTimestamp()));
+
+        if (0 == updated) {
+            // Only now is it worth finding out why nothing was written
+            if (null == expectedVersion || !repo.existsById(id)) {
+                throw notFound(id);
+            }
+            throw new ObjectOptimisticLockingFailureException(DrillEntity.class, id);
+        }
+
+        // The UPDATE holds the drill's row until the transaction ends, so no other write interleaves
+        ErrorMessageUtils.tryWrite(() -> {
+            repo.removeAllCategories(id);
+            drill.getCategories().forEach(category -> repo.addCategory(id, category.getId()));
+            repo.removeAllSubCategories(id);
+            drill.getSubCategories().forEach(subCategory -> repo.addSubCategory(id, subCategory.getId()));
+            repo.removeAllRelatedDrills(id);
+            drill.getRelatedDrills().forEach(relatedDrillId -> repo.addRelatedDrill(id, relatedDrillId));
+            instructionsRepo.deleteByDrillId(id);
+            drill.getInstructions().forEach(instructions -> instructions.setDrillId(id));
+            // Flushing here keeps the exceptions of invalid instructions convertible
+            return instructionsRepo.saveAllAndFlush(drill.getInstructions());
+        });
+
+        drill.setVersion(null == expectedVersion
+            ? repo.findVersionById(id).orElseThrow(() -> notFound(id))
+            : expectedVersion + 1);
+        return publishSave(drill);
+    }
+
+    /**
+     * Change some fields of an existing DrillEntity.
+     * <br><br>
+     * The changes are applied to the managed entity, so only the columns and collections that
+     * actually changed are written.
+     *
+     * @param id ID of the DrillEntity.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @param changes Changes to apply to the drill.
+     * @return The updated entity.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     * @throws DatabaseInsertException Thrown when there is any issue saving the entity.
+     */
+    @NonNull
+    @Transactional
+    public DrillEntity update(@NonNull Long id, @Nullable Long expectedVersion,
+            @NonNull Consumer<DrillEntity> changes) throws DatabaseInsertException {
+        // The current state is needed so that only what changed is written
+        Optional<DrillEntity> found = null == expectedVersion
+            ? repo.findById(id)
+            : repo.findByIdAndVersion(id, expectedVersion);
+        DrillEntity drill = found.orElseThrow(() -> null == expectedVersion || !repo.existsById(id)
+                ? notFound(id)
+                : new ObjectOptimisticLockingFailureException(DrillEntity.class, id));
+        // The flush only updates the row WHERE version still is the loaded one, in case it changed in between
+        changes.accept(drill);
+        drill.setUpdateTimestamp(Instant.now().toEpochMilli());
+
+        return publishSave(ErrorMessageUtils.trySaveAndFlush(drill, repo));
     }
 
     /**
@@ -106,6 +209,7 @@ public class DrillService {
      * @param id ID of the DrillEntity.
      * @return Optional containing the returned entity - if it exists.
      */
+    @Transactional(readOnly = true)
 	public Optional<DrillEntity> find(@NonNull Long id) {
         return repo.findById(id);
 	}
@@ -116,6 +220,7 @@ public class DrillService {
      * @param name Name of the DrillEntity.
      * @return Optional containing the returned entity - if it exists.
      */
+    @Transactional(readOnly = true)
     public Optional<DrillEntity> find(@NonNull String name) {
         return repo.findByNameIgnoreCase(name);
     }
@@ -126,8 +231,10 @@ public class DrillService {
      * @return List of DrillEntity objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<DrillEntity> findAll() {
-        return repo.findAll(Sort.by(Sort.Direction.ASC, "name"));
+        return singleFlight.executeList("DrillEntity.findAll", null,
+            () -> repo.findAll(Sort.by(Sort.Direction.ASC, "name")));
     }
 
     /**
@@ -138,12 +245,16 @@ public class DrillService {
      * @return List of Drill objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<DrillEntity> findAll(@NonNull List<Long> ids) {
-        List<DrillEntity> ret = repo.findAllById(ids);
-        ret.sort(
-            (drill1, drill2) -> drill1.getName().compareToIgnoreCase(drill2.getName())
-        );
-        return ret;
+        idLists.checkSize(ids);
+        return singleFlight.executeList("DrillEntity.findAllById", List.copyOf(ids), () -> {
+            List<DrillEntity> ret = idLists.query(ids, repo::findAllById);
+            ret.sort(
+                (drill1, drill2) -> drill1.getName().compareToIgnoreCase(drill2.getName())
+            );
+            return ret;
+        });
     }
 
     /**
@@ -153,8 +264,10 @@ public class DrillService {
      * @return List of Drill objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<DrillEntity> findAll(@NonNull Long timestamp) {
-        return repo.findByUpdateTimestampGreaterThan(timestamp, Sort.by(Sort.Direction.ASC, "name"));
+        return singleFlight.executeList("DrillEntity.findByUpdateTimestampGreaterThan", timestamp,
+            () -> repo.findByUpdateTimestampGreaterThan(timestamp, Sort.by(Sort.Direction.ASC, "name")));
     }
 
     /**
@@ -164,8 +277,11 @@ public class DrillService {
      * @return List of Drill objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<DrillEntity> findAllByCategory(@NonNull List<Long> categoryIds) {
-        return repo.findByCategoriesIdIn(categoryIds, Sort.by(Sort.Direction.ASC, "name"));
+        idLists.checkSize(categoryIds);
+        return singleFlight.executeList("DrillEntity.findByCategoriesIdIn", List.copyOf(categoryIds),
+            () -> repo.findByCategoriesIdIn(categoryIds, Sort.by(Sort.Direction.ASC, "name")));
     }
 
     /**
@@ -175,16 +291,586 @@ public class DrillService {
      * @return List of Drill objects.
      */
     @NonNull
+    @Transactional(readOnly = true)
     public List<DrillEntity> findAllBySubCategory(@NonNull List<Long> subCategoryIds) {
-        return repo.findBySubCategoriesIdIn(subCategoryIds, Sort.by(Sort.Direction.ASC, "name"));
+        idLists.checkSize(subCategoryIds);
+        return singleFlight.executeList("DrillEntity.findBySubCategoriesIdIn", List.copyOf(subCategoryIds),
+            () -> repo.findBySubCategoriesIdIn(subCategoryIds, Sort.by(Sort.Direction.ASC, "name")));
+    }
+
+    /**
+     * Find a drill summary by ID - if it exists. Does not load any associations.
+     *
+     * @param id ID of the DrillEntity.
+     * @return Optional containing the DrillSummary - if it exists.
+     */
+    @Transactional(readOnly = true)
+    public Optional<DrillSummary> findSummary(@NonNull Long id) {
+        return repo.findById(id, DrillSummary.class);
+    }
+
+    /**
+     * Find a drill summary by name (case insensitive) - if it exists. Does not load any associations.
+     *
+     * @param name Name of the DrillEntity.
+     * @return Optional containing the DrillSummary - if it exists.
+     */
+    @Transactional(readOnly = true)
+    public Optional<DrillSummary> findSummary(@NonNull String name) {
+        return repo.findByNameIgnoreCase(name, DrillSummary.class);
+    }
+
+    /**
+     * Return summaries of all drills in the database sorted alphabetically by name.
+     *
+     * @return List of DrillSummary objects.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public List<DrillSummary> findAllSummaries() {
+        return singleFlight.executeList("DrillSummary.findAll", null,
+            () -> repo.findAllBy(Sort.by(Sort.Direction.ASC, "name"), DrillSummary.class));
+    }
+
+    /**
+     * Return summaries of all drills that are in the collection of IDs sorted alphabetically
+     * by name.
+     *
+     * @param ids Collection of Drill IDs.
+     * @return List of DrillSummary objects.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public List<DrillSummary> findAllSummaries(@NonNull Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<DrillSummary> ret = idLists.query(ids,
+            chunk -> repo.findByIdIn(chunk, Sort.unsorted(), DrillSummary.class));
+        ret.sort(
+            (drill1, drill2) -> drill1.getName().compareToIgnoreCase(drill2.getName())
+        );
+        return ret;
+    }
+
+    /**
+     * Return the ID and name of all drills that are in the collection of IDs sorted
+     * alphabetically by name, for use as related drills.
+     * <br><br>
+     * Maps directly into DrillRelatedDTO objects so no entities are loaded into the session.
+     *
+     * @param ids Collection of Drill IDs.
+     * @return List of DrillRelatedDTO objects.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public List<DrillRelatedDTO> findAllRelated(@NonNull Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<DrillRelatedDTO> ret = idLists.query(ids, repo::findRelatedByIdIn);
+        ret.sort(
+            (drill1, drill2) -> drill1.getName().compareToIgnoreCase(drill2.getName())
+        );
+        return ret;
+    }
+
+    /**
+     * Return summaries of all drills that were updated after the given timestamp.
+     *
+     * @param timestamp UTC milliseconds since epoch.
+     * @return List of DrillSummary objects.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public List<DrillSummary> findAllSummaries(@NonNull Long timestamp) {
+        return singleFlight.executeList("DrillSummary.findByUpdateTimestampGreaterThan", timestamp,
+            () -> repo.findByUpdateTimestampGreaterThan(timestamp,
+                Sort.by(Sort.Direction.ASC, "name"), DrillSummary.class));
+    }
+
+    /**
+     * Return summaries of all drills that contain any of the given category IDs.
+     *
+     * @param categoryIds List of Category IDs.
+     * @return List of DrillSummary objects.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public List<DrillSummary> findAllSummariesByCategory(@NonNull List<Long> categoryIds) {
+        idLists.checkSize(categoryIds);
+        return repo.findDistinctByCategoriesIdIn(categoryIds,
+            Sort.by(Sort.Direction.ASC, "name"), DrillSummary.class);
+    }
+
+    /**
+     * Return summaries of all drills that contain any of the given sub-category IDs.
+     *
+     * @param subCategoryIds List of SubCategory IDs.
+     * @return List of DrillSummary objects.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public List<DrillSummary> findAllSummariesBySubCategory(@NonNull List<Long> subCategoryIds) {
+        idLists.checkSize(subCategoryIds);
+        return repo.findDistinctBySubCategoriesIdIn(subCategoryIds,
+            Sort.by(Sort.Direction.ASC, "name"), DrillSummary.class);
+    }
+
+    /**
+     * Build partial DrillEntity objects from drill summaries, loading only the requested
+     * associations.
+     * <br><br>
+     * Each requested association is loaded for all of the drills with a single query, rather
+     * than once per drill. Associations that were not requested are left null.
+     * <br><br>
+     * <b>NOTE:</b> The returned entities are read-only views and must never be saved.
+     *
+     * @param drills Drill summaries to build upon, order is preserved.
+     * @param associations Associations to load.
+     * @return List of partial DrillEntity objects.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public List<DrillEntity> findAllPartial(@NonNull List<DrillSummary> drills,
+            @NonNull Set<DrillAssociation> associations) {
+        if (drills.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> drillIds = drills.stream().map(DrillSummary::getId).toList();
+        Map<Long, DrillEntity> partialDrills = new HashMap<>();
+        for (DrillSummary drill : drills) {
+            partialDrills.put(drill.getId(), DrillEntity.builder()
+                .id(drill.getId())
+                .name(drill.getName())
+                .updateTimestamp(drill.getUpdateTimestamp())
+                .categories(associations.contains(DrillAssociation.CATEGORIES) ? new ArrayList<>() : null)
+                .subCategories(associations.contains(DrillAssociation.SUB_CATEGORIES) ? new ArrayList<>() : null)
+                .relatedDrills(associations.contains(DrillAssociation.RELATED_DRILLS) ? new ArrayList<>() : null)
+                .instructions(associations.contains(DrillAssociation.INSTRUCTIONS) ? new ArrayList<>() : null)
+                .build());
+        }
+
+        if (associations.contains(DrillAssociation.CATEGORIES)) {
+            findCategoriesByDrill(drillIds).forEach((drillId, categories) ->
+                partialDrills.get(drillId).setCategories(categories));
+        }
+
+        if (associations.contains(DrillAssociation.SUB_CATEGORIES)) {
+            findSubCategoriesByDrill(drillIds).forEach((drillId, subCategories) ->
+                partialDrills.get(drillId).setSubCategories(subCategories));
+        }
+
+        if (associations.contains(DrillAssociation.RELATED_DRILLS)) {
+            findRelatedDrillIdsByDrill(drillIds).forEach((drillId, relatedDrills) ->
+                partialDrills.get(drillId).setRelatedDrills(relatedDrills));
+        }
+
+        if (associations.contains(DrillAssociation.INSTRUCTIONS)) {
+            findInstructionsByDrill(drillIds).forEach((drillId, instructions) ->
+                partialDrills.get(drillId).setInstructions(instructions));
+        }
+
+        return drillIds.stream()
+            .map(partialDrills::get)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Load the categories of many drills with a single query.
+     *
+     * @param drillIds IDs of the drills.
+     * @return Map of drill ID to its categories sorted by name. Drills without any categories
+     *         are not present in the map.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public Map<Long, List<CategoryEntity>> findCategoriesByDrill(@NonNull Collection<Long> drillIds) {
+        if (drillIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, List<CategoryEntity>> ret = new HashMap<>();
+        for (DrillRepo.DrillCategoryRow row : idLists.query(drillIds, repo::findCategoriesByDrillIdIn)) {
+            ret.computeIfAbsent(row.getDrillId(), key -> new ArrayList<>()).add(row.getCategory());
+        }
+        return ret;
+    }
+
+    /**
+     * Load the sub-categories of many drills with a single query.
+     *
+     * @param drillIds IDs of the drills.
+     * @return Map of drill ID to its sub-categories sorted by name. Drills without any
+     *         sub-categories are not present in the map.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public Map<Long, List<SubCategoryEntity>> findSubCategoriesByDrill(@NonNull Collection<Long> drillIds) {
+        if (drillIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, List<SubCategoryEntity>> ret = new HashMap<>();
+        for (DrillRepo.DrillSubCategoryRow row : idLists.query(drillIds, repo::findSubCategoriesByDrillIdIn)) {
+            ret.computeIfAbsent(row.getDrillId(), key -> new ArrayList<>()).add(row.getSubCategory());
+        }
+        return ret;
+    }
+
+    /**
+     * Load the related drill IDs of many drills with a single query.
+     *
+     * @param drillIds IDs of the drills.
+     * @return Map of drill ID to its related drill IDs. Drills without any related drills are
+     *         not present in the map.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public Map<Long, List<Long>> findRelatedDrillIdsByDrill(@NonNull Collection<Long> drillIds) {
+        if (drillIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, List<Long>> ret = new HashMap<>();
+        for (DrillRepo.RelatedDrillRow row : idLists.query(drillIds, repo::findRelatedDrillIdsByDrillIdIn)) {
+            ret.computeIfAbsent(row.getDrillId(), key -> new ArrayList<>()).add(row.getRelatedDrillId());
+        }
+        return ret;
+    }
+
+    /**
+     * Load the instructions of many drills with a single query.
+     *
+     * @param drillIds IDs of the drills.
+     * @return Map of drill ID to its instructions sorted by number. Drills without any
+     *         instructions are not present in the map.
+     */
+    @NonNull
+    @Transactional(readOnly = true)
+    public Map<Long, List<InstructionsEntity>> findInstructionsByDrill(@NonNull Collection<Long> drillIds) {
+        if (drillIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, List<InstructionsEntity>> ret = new HashMap<>();
+        Sort instructionsSort = Sort.by(Sort.Direction.ASC, "drillId", "number");
+        for (InstructionsEntity instructions : idLists.query(drillIds,
+                chunk -> instructionsRepo.findByDrillIdIn(chunk, instructionsSort))) {
+            ret.computeIfAbsent(instructions.getDrillId(), key -> new ArrayList<>()).add(instructions);
+        }
+        return ret;
+    }
+
+    /**
+     * Whether {@link #writeAllAsJson(DrillJsonQuery, Object, ThrowingSupplier)} is supported by
+     * the database.
+     *
+     * @return true if the database can build the JSON itself.
+     */
+    public boolean isJsonAggregationSupported() {
+        return jsonRepo.isSupported();
+    }
+
+    /**
+     * Write the selected drills as a JSON array of DrillResponseDTO objects built by the database,
+     * without loading any entities.
+     *
+     * @param query Drills to select.
+     * @param value Value for the query, see {@link DrillJsonQuery}.
+     * @param output Opens the output on the first drill, never called if no drills match.
+     * @return true if any drills were written.
+     */
+    @Transactional(readOnly = true)
+    public boolean writeAllAsJson(@NonNull DrillJsonQuery query, @Nullable Object value,
+            @NonNull ThrowingSupplier<OutputStream> output) {
+        if (value instanceof Collection<?> ids) {
+            idLists.checkSize(ids);
+        }
+        return jsonRepo.write(query, value, output);
+    }
+
+    /**
+     * Replace a single set of instructions of a drill, or add it after the drill's last instructions.
+     * <br><br>
+     * Only the instructions row and the drill's update timestamp are written, the drill and its
+     * other associations are never loaded.
+     *
+     * @param instructions Instructions to save, with the drill ID and number set.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @return The saved instructions.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     * @throws IndexOutOfBoundsException Thrown when the number is past the drill's last instructions + 1.
+     * @throws DatabaseInsertException Thrown when there is any issue saving the instructions.
+     */
+    @Transactional
+    @NonNull
+    public InstructionsEntity saveInstructions(@NonNull InstructionsEntity instructions,
+            @Nullable Long expectedVersion) throws DatabaseInsertException {
+        Long drillId = instructions.getDrillId();
+        touch(drillId, expectedVersion);
+        if (instructions.getNumber() < 0 || instructionsRepo.countByDrillId(drillId) < instructions.getNumber()) {
+            throw instructionsNotFound(instructions.getNumber());
+        }
+
+        InstructionsEntity savedInstructions = ErrorMessageUtils.trySave(instructions, instructionsRepo);
+        publishSave(drillId);
+        return savedInstructions;
+    }
+
+    /**
+     * Change some fields of a single set of instructions of a drill.
+     *
+     * @param drillId ID of the drill.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @param number Number of the instructions.
+     * @param changes Changes to apply to the instructions.
+     * @return The updated instructions.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     * @throws IndexOutOfBoundsException Thrown when the instructions do not exist.
+     * @throws DatabaseInsertException Thrown when there is any issue saving the instructions.
+     */
+    @Transactional
+    @NonNull
+    public InstructionsEntity updateInstructions(@NonNull Long drillId, @Nullable Long expectedVersion,
+            @NonNull Long number, @NonNull Consumer<InstructionsEntity> changes) throws DatabaseInsertException {
+        touch(drillId, expectedVersion);
+        InstructionsEntity instructions = instructionsRepo.findById(new InstructionsEntity.InstructionId(drillId, number))
+            .orElseThrow(() -> instructionsNotFound(number));
+        changes.accept(instructions);
+
+        InstructionsEntity savedInstructions = ErrorMessageUtils.trySave(instructions, instructionsRepo);
+        publishSave(drillId);
+        return savedInstructions;
+    }
+
+    /**
+     * Delete a single set of instructions of a drill, the instructions after it move up by one.
+     *
+     * @param drillId ID of the drill.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @param number Number of the instructions.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     * @throws IndexOutOfBoundsException Thrown when the instructions do not exist.
+     */
+    @Transactional
+    public void deleteInstructions(@NonNull Long drillId, @Nullable Long expectedVersion, @NonNull Long number) {
+        touch(drillId, expectedVersion);
+        if (0 == instructionsRepo.deleteByDrillIdAndNumber(drillId, number)) {
+            throw instructionsNotFound(number);
+        }
+
+        shiftInstructions(drillId, number + 1, Long.MAX_VALUE, -1L);
+        publishSave(drillId);
+    }
+
+    /**
+     * Move a single set of instructions of a drill to another number, the instructions in
+     * between shift by one to make room.
+     *
+     * @param drillId ID of the drill.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @param number Current number of the instructions.
+     * @param newNumber New number of the instructions.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     * @throws IndexOutOfBoundsException Thrown when either number does not exist.
+     */
+    @Transactional
+    public void moveInstructions(@NonNull Long drillId, @Nullable Long expectedVersion, @NonNull Long number,
+            @NonNull Long newNumber) {
+        touch(drillId, expectedVersion);
+        long count = instructionsRepo.countByDrillId(drillId);
+        for (Long checkedNumber : List.of(number, newNumber)) {
+            if (checkedNumber < 0 || count <= checkedNumber) {
+                throw instructionsNotFound(checkedNumber);
+            }
+        }
+
+        // -1 is never a valid number, and shifting only uses numbers below it
+        instructionsRepo.renumber(drillId, number, -1L);
+        if (number < newNumber) {
+            shiftInstructions(drillId, number + 1, newNumber, -1L);
+        } else {
+            shiftInstructions(drillId, newNumber, number - 1, 1L);
+        }
+        instructionsRepo.renumber(drillId, -1L, newNumber);
+        publishSave(drillId);
+    }
+
+    /**
+     * Add a single category, sub-category, or related drill to a drill.
+     * <br><br>
+     * Only the one join table row and the drill's update timestamp are written, the drill and its
+     * other associations are never loaded. Adding an association the drill already has changes
+     * nothing but the timestamp.
+     *
+     * @param drillId ID of the drill.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @param association CATEGORIES, SUB_CATEGORIES, or RELATED_DRILLS.
+     * @param associatedId ID of the category, sub-category, or related drill.
+     * @throws NoSuchElementException Thrown when the drill or the associated entity does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     */
+    @Transactional
+    public void addAssociation(@NonNull Long drillId, @Nullable Long expectedVersion,
+            @NonNull DrillAssociation association, @NonNull Long associatedId) {
+        touch(drillId, expectedVersion);
+        try {
+            switch (association) {
+                case CATEGORIES -> repo.addCategory(drillId, associatedId);
+                case SUB_CATEGORIES -> repo.addSubCategory(drillId, associatedId);
+                case RELATED_DRILLS -> repo.addRelatedDrill(drillId, associatedId);
+                default -> throw new IllegalArgumentException(association + " cannot be added by ID");
+            }
+        } catch (DataIntegrityViolationException e) {
+            // The drill was just updated, so only the associated entity can be missing
+            String name = switch (association) {
+                case CATEGORIES -> "Category";
+                case SUB_CATEGORIES -> "SubCategory";
+                default -> "Drill";
+            };
+            throw new NoSuchElementException(name + " ID " + associatedId + " does not exist");
+        }
+        publishSave(drillId);
+    }
+
+    /**
+     * Remove a single category, sub-category, or related drill from a drill.
+     * <br><br>
+     * Only the one join table row and the drill's update timestamp are written.
+     *
+     * @param drillId ID of the drill.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @param association CATEGORIES, SUB_CATEGORIES, or RELATED_DRILLS.
+     * @param associatedId ID of the category, sub-category, or related drill.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     */
+    @Transactional
+    public void removeAssociation(@NonNull Long drillId, @Nullable Long expectedVersion,
+            @NonNull DrillAssociation association, @NonNull Long associatedId) {
+        touch(drillId, expectedVersion);
+        switch (association) {
+            case CATEGORIES -> repo.removeCategory(drillId, associatedId);
+            case SUB_CATEGORIES -> repo.removeSubCategory(drillId, associatedId);
+            case RELATED_DRILLS -> repo.removeRelatedDrill(drillId, associatedId);
+            default -> throw new IllegalArgumentException(association + " cannot be removed by ID");
+        }
+        publishSave(drillId);
     }
 
     /**
      * Delete an entity from the database by its ID - if it exists.
      *
-     * @param id ID of the AbstractCategoryEntity.
+     * @param id ID of the DrillEntity.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill exists at another version.
      */
-    public void delete(@NonNull Long id) {
-        repo.deleteById(id);
+    @Transactional
+    public void delete(@NonNull Long id, @Nullable Long expectedVersion) {
+        if (null == expectedVersion) {
+            repo.deleteById(id);
+        } else if (0 == repo.deleteByIdAndVersion(id, expectedVersion) && repo.existsById(id)) {
+            throw new ObjectOptimisticLockingFailureException(DrillEntity.class, id);
+        }
+        eventPublisher.publishEvent(new DatabaseChangeEvent(DrillEntity.class, ChangeType.DELETE, id));
+    }
+
+    /**
+     * Notify any listeners that a drill has been saved.
+     *
+     * @param savedDrill Drill returned from the database.
+     * @return The same saved drill, for convenience.
+     */
+    @NonNull
+    private DrillEntity publishSave(@NonNull DrillEntity savedDrill) {
+        publishSave(savedDrill.getId());
+        return savedDrill;
+    }
+
+    /**
+     * Notify any listeners that a drill has been saved.
+     *
+     * @param drillId ID of the saved drill.
+     */
+    private void publishSave(@NonNull Long drillId) {
+        eventPublisher.publishEvent(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, drillId));
+    }
+
+    /**
+     * Bump the update timestamp of a drill whose instructions are about to change.
+     * <br><br>
+     * This also locks the drill's row until the transaction ends, so concurrent edits of the same
+     * drill's instructions cannot interleave their renumbering.
+     *
+     * @param drillId ID of the drill.
+     * @param expectedVersion Version the drill must still be at, null for any version.
+     * @throws NoSuchElementException Thrown when the drill does not exist.
+     * @throws ObjectOptimisticLockingFailureException Thrown when the drill is at another version.
+     */
+    private void touch(@NonNull Long drillId, @Nullable Long expectedVersion) {
+        long updateTimestamp = Instant.now().toEpochMilli();
+        int updated = null == expectedVersion
+            ? repo.updateTimestamp(drillId, updateTimestamp)
+            : repo.updateTimestampByIdAndVersion(drillId, expectedVersion, updateTimestamp);
+
+        if (0 == updated) {
+            // Only now is it worth finding out why nothing was written
+            if (null == expectedVersion || !repo.existsById(drillId)) {
+                throw notFound(drillId);
+            }
+            throw new ObjectOptimisticLockingFailureException(DrillEntity.class, drillId);
+        }
+    }
+
+    /**
+     * Saving null lists in the database can cause issues, so replace them with empty ones.
+     *
+     * @param drill Entity about to be saved.
+     */
+    private static void setMissingListsEmpty(@NonNull DrillEntity drill) {
+        if (null == drill.getCategories()) {
+            drill.setCategories(List.of());
+        }
+        if (null == drill.getSubCategories()) {
+            drill.setSubCategories(List.of());
+        }
+        if (null == drill.getRelatedDrills()) {
+            drill.setRelatedDrills(List.of());
+        }
+        if (null == drill.getInstructions()) {
+            drill.setInstructions(List.of());
+        }
+    }
+
+    @NonNull
+    private static NoSuchElementException notFound(@NonNull Long id) {
+        return new NoSuchElementException("Drill ID " + id + " does not exist");
+    }
+
+    /**
+     * Shift the numbers of a range of a drill's instructions.
+     *
+     * @param drillId ID of the drill.
+     * @param fromNumber First number of the range.
+     * @param toNumber Last number of the range.
+     * @param offset Amount to add to each number.
+     */
+    private void shiftInstructions(@NonNull Long drillId, long fromNumber, long toNumber, @NonNull Long offset) {
+        if (fromNumber <= toNumber && 0 < instructionsRepo.negateNumbers(drillId, fromNumber, toNumber)) {
+            instructionsRepo.restoreNumbers(drillId, offset);
+        }
+    }
+
+    @NonNull
+    private static IndexOutOfBoundsException instructionsNotFound(@NonNull Long number) {
+        return new IndexOutOfBoundsException("Instructions number " + number + " does not exist");
     }
 }
@@ -0,0 +1,132 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo.AssociationCountRow;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo.CoverageRow;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillStatsDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillStatsDTO.AssociationCount;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillStatsDTO.MatrixCount;
+
+/**
+ * Drill counts by category and sub-category, computed with GROUP BY queries over the join tables
+ * and cached until the next write.
+ * <br><br>
+ * Every committed write starts a new generation, and a result is only used while its generation
+ * is current, so a load that raced with a write is never served after it. Loads run in their own
+ * read-write transaction so that they always go to the primary, even when called from a
+ * read-only one, as a stale read from a replica would otherwise be cached until the next write.
+ */
+@Service
+@ServletStack
+public class DrillStats {
+    private final DrillRepo repo;
+    private final SingleFlight singleFlight;
+    private final TransactionTemplate primaryTransaction;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Cached cached;
+
+    public DrillStats(DrillRepo repo, SingleFlight singleFlight, PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.singleFlight = singleFlight;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get the current drill statistics, loading them from the database if anything changed.
+     *
+     * @return Drill statistics, shared between callers and must not be modified.
+     */
+    @NonNull
+    public DrillStatsDTO get() {
+        long currentGeneration = generation.get();
+        Cached current = cached;
+        if (null != current && currentGeneration == current.generation()) {
+            return current.stats();
+        }
+
+        DrillStatsDTO stats = singleFlight.execute("DrillStats.get", null,
+            () -> primaryTransaction.execute(status -> load()));
+        if (currentGeneration == generation.get()) {
+            cached = new Cached(currentGeneration, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Invalidate the statistics once a write has been committed.
+     * <br><br>
+     * Any write can change them, including renaming a category.
+     *
+     * @param event Database change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatabaseChange(DatabaseChangeEvent event) {
+        generation.incrementAndGet();
+    }
+
+    private DrillStatsDTO load() {
+        CoverageRow coverage = repo.countCoverage();
+        List<MatrixCount> matrix = repo.countByCategoryAndSubCategory().stream()
+            .map(row -> new MatrixCount(row.getCategoryId(), row.getSubCategoryId(), row.getDrills()))
+            .toList();
+
+        return new DrillStatsDTO(coverage.getDrills(),
+            toAssociationCounts(repo.countByCategory()),
+            toAssociationCounts(repo.countBySubCategory()),
+            matrix,
+            coverage.getWithoutCategories(),
+            coverage.getWithoutSubCategories(),
+            coverage.getWithInstructions(),
+            coverage.getWithVideos(),
+            coverage.getInstructions(),
+            coverage.getInstructionsWithVideos());
+    }
+
+    private static List<AssociationCount> toAssociationCounts(List<AssociationCountRow> rows) {
+        return rows.stream()
+            .map(row -> new AssociationCount(row.getId(), row.getName(), row.getDrills()))
+            .toList();
+    }
+
+    /**
+     * Statistics loaded during a generation.
+     */
+    private record Cached(long generation, DrillStatsDTO stats) { }
+}
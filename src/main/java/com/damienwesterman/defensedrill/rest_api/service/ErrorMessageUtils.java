@@ -29,6 +29,7 @@ package com.damienwesterman.defensedrill.rest_api.service;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -83,10 +84,43 @@ import jakarta.validation.ConstraintViolationException;
      * @throws DatabaseInsertException Thrown when there is any issue saving the entity.
      */
     @NonNull
-    public static <E, R extends JpaRepository<E, Long>> E trySave(
+    public static <E, R extends JpaRepository<E, ?>> E trySave(
             @NonNull E entity, @NonNull R repo) throws DatabaseInsertException {
+        return tryWrite(() -> repo.save(entity));
+    }
+
+    /**
+     * Same as {@link #trySave(Object, JpaRepository)}, but flushes right away.
+     * <br><br>
+     * Inside of a transaction the changes of a managed entity are only written on flush, which
+     * would otherwise happen on commit where the exceptions can no longer be converted.
+     *
+     * @param <E> E - Database Entity.
+     * @param <R> R - {@link JpaRepository} for E entity.
+     * @param entity The entity to attempt to save.
+     * @param repo Repository to use for the save operation.
+     * @return The saved entity.
+     * @throws DatabaseInsertException Thrown when there is any issue saving the entity.
+     */
+    @NonNull
+    public static <E, R extends JpaRepository<E, ?>> E trySaveAndFlush(
+            @NonNull E entity, @NonNull R repo) throws DatabaseInsertException {
+        return tryWrite(() -> repo.saveAndFlush(entity));
+    }
+
+    /**
+     * Run any write, such as a modifying query, and convert the exceptions the database might
+     * throw the same way as {@link #trySave(Object, JpaRepository)}.
+     *
+     * @param <T> T - Result of the write.
+     * @param write The write to attempt.
+     * @return The result of the write.
+     * @throws DatabaseInsertException Thrown when there is any issue with the write.
+     */
+    @NonNull
+    public static <T> T tryWrite(@NonNull Supplier<T> write) throws DatabaseInsertException {
         try {
-            return repo.save(entity);
+            return write.get();
         } catch (ConstraintViolationException |
                     DataIntegrityViolationException |
                     InvalidDataAccessApiUsageException |
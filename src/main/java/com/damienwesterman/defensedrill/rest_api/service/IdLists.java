@@ -0,0 +1,122 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+
+/**
+ * Limits on the lists of IDs passed into IN queries.
+ * <br><br>
+ * Lists of IDs given by a client are capped, and every list is queried in chunks. Together with
+ * IN clause parameter padding, see {@link com.damienwesterman.defensedrill.rest_api.datasource.QueryPlanConfig},
+ * this keeps the number of distinct SQL strings small, so query plans and server-side prepared
+ * statements are reused no matter how many IDs are requested.
+ */
+@Component
+@ServletStack
+public class IdLists {
+    private final int maxSize;
+    private final int chunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize Maximum number of IDs a client may request at once.
+     * @param chunkSize Maximum number of IDs per query, best kept a power of two to match the
+     *                  IN clause padding.
+     */
+    public IdLists(@Value("${rest-api.id-lists.max-size:1000}") int maxSize,
+            @Value("${rest-api.id-lists.chunk-size:512}") int chunkSize) {
+        if (0 >= chunkSize) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.maxSize = maxSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Check the number of IDs requested by a client.
+     *
+     * @param ids IDs given by the client.
+     * @throws InvalidRequestParameterException If there are more than the maximum.
+     */
+    public void checkSize(@NonNull Collection<?> ids) {
+        checkSize(ids.size());
+    }
+
+    /**
+     * Check the number of entities requested by a client.
+     *
+     * @param size Number of entities requested.
+     * @throws InvalidRequestParameterException If there are more than the maximum.
+     */
+    public void checkSize(int size) {
+        if (maxSize < size) {
+            throw new InvalidRequestParameterException(
+                "At most " + maxSize + " IDs may be requested at once, got " + size + ".");
+        }
+    }
+
+    /**
+     * Run a query for each chunk of the distinct IDs and combine the results.
+     * <br><br>
+     * Results are in chunk order, so callers that need a specific order must sort them.
+     *
+     * @param <T> Result type.
+     * @param ids IDs to query, may contain duplicates.
+     * @param query Query for a single chunk of IDs.
+     * @return Combined results of every chunk, empty if there were no IDs.
+     */
+    @NonNull
+    public <T> List<T> query(@NonNull Collection<Long> ids, @NonNull Function<List<Long>, List<T>> query) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (chunkSize >= distinctIds.size()) {
+            return new ArrayList<>(query.apply(distinctIds));
+        }
+
+        List<T> ret = new ArrayList<>();
+        for (int start = 0; start < distinctIds.size(); start += chunkSize) {
+            ret.addAll(query.apply(distinctIds.subList(start, Math.min(start + chunkSize, distinctIds.size()))));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,322 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.NameSummary;
+import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.web.dto.AutocompleteDTO;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of drill, category, and sub-category names, used to autocomplete names without
+ * going to the database.
+ * <br><br>
+ * Each type is a sorted array of lower case names, so finding the names starting with a prefix is
+ * a binary search followed by a scan of only the matches. A type is loaded once the application
+ * is ready, or on first use if that failed. After that each write only reloads the name of the
+ * written entity and replaces the arrays of its type. The arrays are never modified once
+ * published, so readers never lock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ServletStack
+public class NameIndex {
+    /**
+     * Types of entities with indexed names.
+     */
+    public enum Type {
+        DRILL(DrillEntity.class),
+        CATEGORY(CategoryEntity.class),
+        SUB_CATEGORY(SubCategoryEntity.class);
+
+        private final Class<?> entityType;
+
+        Type(Class<?> entityType) {
+            this.entityType = entityType;
+        }
+
+        @Nullable
+        private static Type of(Class<?> entityType) {
+            for (Type type : values()) {
+                if (type.entityType.equals(entityType)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final DrillRepo drillRepo;
+    private final CategoryRepo categoryRepo;
+    private final SubCategoryRepo subCategoryRepo;
+    /* Held while loading or changing the index, so no change is applied to an outdated load */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Type, Names> names = new ConcurrentHashMap<>();
+
+    /**
+     * Find the names starting with a prefix, ignoring case.
+     *
+     * @param type Type of entity to search.
+     * @param prefix Prefix of the names.
+     * @param limit Maximum number of names to return.
+     * @return Up to limit matches, sorted by name.
+     */
+    @NonNull
+    public List<AutocompleteDTO.Match> startingWith(@NonNull Type type, @NonNull String prefix, int limit) {
+        return names(type).startingWith(fold(prefix), limit);
+    }
+
+    /**
+     * Load the index when the application starts, so that no request has to wait for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            for (Type type : Type.values()) {
+                names(type);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not load the name index, it will be loaded on first use", e);
+        }
+    }
+
+    /**
+     * Apply a committed change to the index, only the name of the written entity is reloaded.
+     *
+     * @param event Database change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatabaseChange(DatabaseChangeEvent event) {
+        Type type = Type.of(event.getEntityType());
+        if (null == type) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Names current = names.get(type);
+            if (null == current) {
+                // Not loaded yet, the load will include this change
+                return;
+            }
+
+            long id = event.getId();
+            String name = ChangeType.DELETE == event.getChangeType()
+                ? null
+                : findById(type, id).map(NameSummary::getName).orElse(null);
+            names.put(type, current.with(id, name));
+        } catch (DataAccessException e) {
+            log.warn("Could not update the name index for {}, it will be reloaded on next use", event, e);
+            names.remove(type);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Names names(Type type) {
+        Names current = names.get(type);
+        if (null != current) {
+            return current;
+        }
+
+        lock.lock();
+        try {
+            current = names.get(type);
+            if (null == current) {
+                current = Names.of(findAll(type));
+                names.put(type, current);
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<NameSummary> findAll(Type type) {
+        return switch (type) {
+            case DRILL -> drillRepo.findAllBy(Sort.by("id"), NameSummary.class);
+            case CATEGORY -> categoryRepo.findAllBy(Sort.by("id"), NameSummary.class);
+            case SUB_CATEGORY -> subCategoryRepo.findAllBy(Sort.by("id"), NameSummary.class);
+        };
+    }
+
+    private Optional<NameSummary> findById(Type type, long id) {
+        return switch (type) {
+            case DRILL -> drillRepo.findById(id, NameSummary.class);
+            case CATEGORY -> categoryRepo.findById(id, NameSummary.class);
+            case SUB_CATEGORY -> subCategoryRepo.findById(id, NameSummary.class);
+        };
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable names of a single type, sorted by lower case name and then ID.
+     */
+    private static final class Names {
+        private final String[] keys;
+        private final long[] ids;
+        private final String[] names;
+
+        private Names(String[] keys, long[] ids, String[] names) {
+            this.keys = keys;
+            this.ids = ids;
+            this.names = names;
+        }
+
+        private static Names of(List<NameSummary> entities) {
+            List<NameSummary> sorted = new ArrayList<>(entities);
+            sorted.sort(Comparator.comparing((NameSummary entity) -> fold(entity.getName()))
+                .thenComparing(NameSummary::getId));
+
+            String[] keys = new String[sorted.size()];
+            long[] ids = new long[sorted.size()];
+            String[] names = new String[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                keys[i] = fold(sorted.get(i).getName());
+                ids[i] = sorted.get(i).getId();
+                names[i] = sorted.get(i).getName();
+            }
+            return new Names(keys, ids, names);
+        }
+
+        private List<AutocompleteDTO.Match> startingWith(String foldedPrefix, int limit) {
+            List<AutocompleteDTO.Match> matches = new ArrayList<>(Math.min(limit, 16));
+            for (int i = lowerBound(foldedPrefix, Long.MIN_VALUE);
+                    i < keys.length && matches.size() < limit && keys[i].startsWith(foldedPrefix); i++) {
+                matches.add(new AutocompleteDTO.Match(ids[i], names[i]));
+            }
+            return matches;
+        }
+
+        /**
+         * Copy with the name of an entity replaced.
+         *
+         * @param id ID of the entity.
+         * @param name New name, null if the entity no longer exists.
+         * @return Updated copy.
+         */
+        private Names with(long id, @Nullable String name) {
+            String[] newKeys = keys;
+            long[] newIds = ids;
+            String[] newNames = names;
+
+            for (int i = 0; i < ids.length; i++) {
+                if (id == ids[i]) {
+                    newKeys = remove(keys, i);
+                    newIds = remove(ids, i);
+                    newNames = remove(names, i);
+                    break;
+                }
+            }
+            if (null == name) {
+                return new Names(newKeys, newIds, newNames);
+            }
+
+            Names removed = new Names(newKeys, newIds, newNames);
+            String key = fold(name);
+            int index = removed.lowerBound(key, id);
+            return new Names(insert(newKeys, index, key), insert(newIds, index, id), insert(newNames, index, name));
+        }
+
+        /**
+         * @return Index of the first entry not less than the given key and ID.
+         */
+        private int lowerBound(String key, long id) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int comparison = keys[mid].compareTo(key);
+                if (comparison < 0 || (0 == comparison && ids[mid] < id)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static String[] remove(String[] array, int index) {
+            String[] copy = Arrays.copyOf(array, array.length - 1);
+            System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+            return copy;
+        }
+
+        private static long[] remove(long[] array, int index) {
+            long[] copy = Arrays.copyOf(array, array.length - 1);
+            System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+            return copy;
+        }
+
+        private static String[] insert(String[] array, int index, String value) {
+            String[] copy = new String[array.length + 1];
+            System.arraycopy(array, 0, copy, 0, index);
+            copy[index] = value;
+            System.arraycopy(array, index, copy, index + 1, array.length - index);
+            return copy;
+        }
+
+        private static long[] insert(long[] array, int index, long value) {
+            long[] copy = new long[array.length + 1];
+            System.arraycopy(array, 0, copy, 0, index);
+            copy[index] = value;
+            System.arraycopy(array, index, copy, index + 1, array.length - index);
+            return copy;
+        }
+    }
+}
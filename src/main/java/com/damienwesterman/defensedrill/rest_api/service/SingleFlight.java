@@ -0,0 +1,172 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReadConsistencyContext;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces identical concurrent reads into a single database query.
+ * <br><br>
+ * The first caller for a given operation and arguments runs the query, and any identical call
+ * that arrives while it is still running waits for and shares that result instead of running
+ * the query again. Nothing is cached once the query completes.
+ * <br><br>
+ * Every committed write starts a new generation, so a call made after a write never joins a
+ * query that started before it, and calls that must see a given write on a read replica, see
+ * {@link ReadConsistencyContext}, only join queries with the same requirement. Calls made within
+ * a read-write transaction always run on their own, as the caller may modify the returned
+ * entities or rely on its own persistence context. Once the configured number of distinct
+ * queries are in flight, further calls also run on their own.
+ */
+@Component
+@ServletStack
+public class SingleFlight {
+    public static final String CALLS_METRIC = "single.flight.calls";
+    public static final String IN_FLIGHT_METRIC = "single.flight.in.flight";
+    public static final String OUTCOME_LEADER = "leader";
+    public static final String OUTCOME_SHARED = "shared";
+    public static final String OUTCOME_BYPASSED = "bypassed";
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final int maxKeys;
+
+    public SingleFlight(MeterRegistry meterRegistry,
+            @Value("${rest-api.single-flight.max-keys:1024}") int maxKeys) {
+        this.meterRegistry = meterRegistry;
+        this.maxKeys = maxKeys;
+        Gauge.builder(IN_FLIGHT_METRIC, inFlight, Map::size)
+            .description("Number of distinct queries currently in flight")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the query, or share the result of an identical query that is already running.
+     *
+     * @param <T> Query result type.
+     * @param operation Name of the query, ex. DrillEntity.findAll.
+     * @param arguments Query arguments, must implement equals() and hashCode(). Null if none.
+     * @param query The query.
+     * @return Query result, which may be shared with other callers and must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(@NonNull String operation, @Nullable Object arguments, @NonNull Supplier<T> query) {
+        if (maxKeys <= inFlight.size() || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            count(operation, OUTCOME_BYPASSED);
+            return query.get();
+        }
+
+        Key key = new Key(generation.get(), ReadConsistencyContext.getMinimumLsn(), operation, arguments);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existingFlight = inFlight.putIfAbsent(key, flight);
+        if (null != existingFlight) {
+            count(operation, OUTCOME_SHARED);
+            try {
+                return (T) existingFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
+        count(operation, OUTCOME_LEADER);
+        try {
+            T result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Same as {@link #execute(String, Object, Supplier)}, but every caller gets its own copy of
+     * the resulting list so it can be modified freely.
+     *
+     * @param <T> List element type.
+     * @param operation Name of the query, ex. DrillEntity.findAll.
+     * @param arguments Query arguments, must implement equals() and hashCode(). Null if none.
+     * @param query The query.
+     * @return Copy of the query result.
+     */
+    @NonNull
+    public <T> List<T> executeList(@NonNull String operation, @Nullable Object arguments,
+            @NonNull Supplier<List<T>> query) {
+        return new ArrayList<>(execute(operation, arguments, query));
+    }
+
+    /**
+     * Start a new generation once a write has been committed, so that later reads see it.
+     * <br><br>
+     * This runs before any other listener, which may re-run reads in response to the write.
+     *
+     * @param event Database change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDatabaseChange(DatabaseChangeEvent event) {
+        generation.incrementAndGet();
+    }
+
+    private void count(@NonNull String operation, @NonNull String outcome) {
+        meterRegistry.counter(CALLS_METRIC, "operation", operation, "outcome", outcome).increment();
+    }
+
+    /**
+     * Identity of an in-flight query.
+     */
+    private record Key(long generation, Long minimumLsn, String operation, Object arguments) { }
+}
@@ -26,8 +26,10 @@
 
 package com.damienwesterman.defensedrill.rest_api.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
@@ -37,8 +39,10 @@ import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
  * Service class for interacting with {@link CategoryEntity} objects in the database.
  */
 @Service
+@ServletStack
 public class SubCategorySerivce extends AbstractCategoryService<SubCategoryEntity, SubCategoryRepo> {
-    public SubCategorySerivce(SubCategoryRepo repo) {
-        super(repo);
+    public SubCategorySerivce(SubCategoryRepo repo, ApplicationEventPublisher eventPublisher, SingleFlight singleFlight,
+            IdLists idLists) {
+        super(repo, SubCategoryEntity.class, eventPublisher, singleFlight, idLists);
     }
 }
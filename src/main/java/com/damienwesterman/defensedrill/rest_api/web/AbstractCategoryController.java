@@ -30,19 +30,26 @@ import java.net.URI;
 import java.time.Instant;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.repository.AbstractCategoryRepo;
 import com.damienwesterman.defensedrill.rest_api.service.AbstractCategoryService;
+import com.damienwesterman.defensedrill.rest_api.web.dto.AbstractCategoryPatchDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -50,6 +57,7 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -57,12 +65,14 @@ import lombok.RequiredArgsConstructor;
  * Abstract superclass for {@link CategoryController} and {@link SubCategoryController}.
  * <br><br>
  * Responsible for CRUD operations for {@link AbstractCategoryEntity} objects with validation.
+ * Read endpoints run in a read-only transaction, see {@link DrillController}.
  */
 @RequiredArgsConstructor
 public abstract class AbstractCategoryController
         <E extends AbstractCategoryEntity,
         S extends AbstractCategoryService<E, ? extends AbstractCategoryRepo<E>>> {
     protected final S service;
+    protected final LongPollRegistry longPollRegistry;
 
     /**
      * Endpoint to return all AbstractCategoryEntity objects.
@@ -78,7 +88,9 @@ public abstract class AbstractCategoryController
         @ApiResponse(responseCode = "204", description = "No categories exist in the database.",
             content = @Content(/* No Content */))
     })
+    @Traffic(TrafficClass.BULK_READ)
     @GetMapping
+    @Transactional(readOnly = true)
     public ResponseEntity<List<E>> getAll() {
         List<E> abstractCategories = service.findAll();
 
@@ -105,7 +117,9 @@ public abstract class AbstractCategoryController
         @ApiResponse(responseCode = "204", description = "No categories have been updated since the given time.",
             content = @Content(/* No Content */))
     })
+    @Traffic(TrafficClass.BULK_READ)
     @GetMapping("/update")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<E>> getAllAfterTimestamp(
                 @RequestParam Long updateTimestamp) {
         List<E> abstractCategories = service.findAll(updateTimestamp);
@@ -117,28 +131,61 @@ public abstract class AbstractCategoryController
         return ResponseEntity.ok(abstractCategories);
     }
 
+    /**
+     * Long-polling variant of {@link #getAllAfterTimestamp(Long)}.
+     * <br><br>
+     * If no AbstractCategoryEntity objects were updated after the given UTC time, the request is
+     * held open until one is written or the wait time expires, without holding a servlet thread.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @param wait Maximum number of seconds to wait for an update.
+     * @return DeferredResult with a ResponseEntity containing a list of AbstractCategoryEntity objects.
+     */
+    @Operation(
+        summary = "Wait for categories updated after a specified time.",
+        description = "Long-polling version of /update. If no categories have been updated after "
+            + "the given timestamp, the request is held open for up to 'wait' seconds until one is."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Categories have been updated since the given time and were returned."),
+        @ApiResponse(responseCode = "204", description = "No categories were updated before the wait time expired.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/update", params = "wait")
+    public DeferredResult<ResponseEntity<List<E>>> waitForAllAfterTimestamp(
+                @RequestParam Long updateTimestamp, @RequestParam Long wait) {
+        return longPollRegistry.poll(service.getEntityType(), wait,
+            () -> getAllAfterTimestamp(updateTimestamp));
+    }
+
     /**
      * Endpoint to insert a new AbstractCategoryEntity into the database. With validation.
      *
      * @param abstractCategory Entity to create.
-     * @return ResponseEntity containing the created entity.
+     * @param prefer Optional Prefer header, return=minimal skips returning the created entity.
+     * @return ResponseEntity containing the created entity, or empty for return=minimal.
      */
     @Operation(
         summary = "Insert a new category.",
-        description = "Create a new category in the database. Returns the newly created category."
+        description = "Create a new category in the database. Returns the newly created category unless "
+            + "Prefer: return=minimal is given."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Category was created successfully."),
+        @ApiResponse(responseCode = "204", description = "Category was created successfully, return=minimal was "
+                + "preferred. The Location header points to the category.",
+            content = @Content(/* No Content */)),
         @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
             content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
     })
     @PostMapping
-    public ResponseEntity<E> insertNewAbstractCategory(@RequestBody @Valid E abstractCategory) {
+    public ResponseEntity<E> insertNewAbstractCategory(@RequestBody @Valid E abstractCategory,
+            @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
         abstractCategory.setUpdateTimestamp(Instant.now().toEpochMilli());
         E createdAbstractCategory = service.save(abstractCategory);
-        return ResponseEntity
-            .created(URI.create(getEndpoint() + "/" + createdAbstractCategory.getId()))
-            .body(createdAbstractCategory);
+        return ReturnPreference.of(prefer).created(URI.create(getEndpoint() + "/" + createdAbstractCategory.getId()),
+            VersionTag.headers(createdAbstractCategory.getVersion()), () -> createdAbstractCategory);
     }
 
     /**
@@ -156,7 +203,9 @@ public abstract class AbstractCategoryController
         @ApiResponse(responseCode = "204", description = "No categories have been found.",
             content = @Content(/* No Content */))
     })
+    @Traffic(TrafficClass.BULK_READ)
     @GetMapping("/id")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<E>> getAbstractCategoriesByIds(
             @RequestParam List<Long> ids) {
         List<E> abstractCategories = service.findAll(ids);
@@ -184,9 +233,10 @@ public abstract class AbstractCategoryController
             content = @Content(/* No Content */))
     })
     @GetMapping("/id/{id}")
-    public ResponseEntity<E> getAbstractCategoryById(@PathVariable Long id) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<E> getAbstractCategoryById(@PathVariable Long id, HttpServletRequest request) {
         return service.find(id)
-                .map(ResponseEntity::ok)
+                .map(found -> ResponseEntity.ok().headers(VersionTag.headers(found.getVersion(), request)).body(found))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -195,23 +245,35 @@ public abstract class AbstractCategoryController
      *
      * @param id ID of the entity to update.
      * @param abstractCategory Entity to udpate.
-     * @return ResponseEntity with the updated entity.
+     * @param ifMatch Optional ETag the category must still have.
+     * @param prefer Optional Prefer header, return=minimal skips returning the updated entity.
+     * @return ResponseEntity with the updated entity, or empty for return=minimal.
      */
     @Operation(
         summary = "Update a category by its ID",
         description = "Update a category. ID must equal the path ID or be left null in the object. "
-            + "Returns the newly updated category."
+            + "Returns the newly updated category unless Prefer: return=minimal is given. With If-Match, "
+            + "the update only succeeds if the category still has that ETag."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Category was updated successfully."),
+        @ApiResponse(responseCode = "204", description = "Category was updated successfully, return=minimal was "
+                + "preferred.",
+            content = @Content(/* No Content */)),
         @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
             content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
         @ApiResponse(responseCode = "404", description = "No category exists with the given ID.",
-            content = @Content(/* No Content */))
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Category was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Category no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
     })
     @PutMapping("/id/{id}")
     public ResponseEntity<Object> updateAbstractCategoryById(
-            @PathVariable Long id, @RequestBody @Valid E abstractCategory) {
+            @PathVariable Long id, @RequestBody @Valid E abstractCategory,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
         if (null != abstractCategory.getId() && !abstractCategory.getId().equals(id)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ErrorMessageDTO.builder()
                 .error("ID Mismatch")
@@ -219,37 +281,78 @@ public abstract class AbstractCategoryController
                 .build());
         }
 
-        if (service.find(id).isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
         if (null == abstractCategory.getId()) {
             abstractCategory.setId(id);
         }
 
-        abstractCategory.setUpdateTimestamp(Instant.now().toEpochMilli());
+        // The body already is the full representation, so nothing is read before or after
+        abstractCategory.setVersion(service.replace(abstractCategory, VersionTag.parse(ifMatch)));
+        return ReturnPreference.of(prefer)
+            .respond(VersionTag.headers(abstractCategory.getVersion()), () -> abstractCategory);
+    }
 
-        E updatedAbstractCategory = service.save(abstractCategory);
-        return ResponseEntity.ok(updatedAbstractCategory);
+    /**
+     * Endpoint to change some fields of an AbstractCategoryEntity by its ID, as a JSON Merge Patch.
+     *
+     * @param id ID of the entity to update.
+     * @param changes Fields to change.
+     * @param ifMatch Optional ETag the category must still have.
+     * @param prefer Optional Prefer header, return=minimal skips returning the updated entity.
+     * @return ResponseEntity with the updated entity, or empty for return=minimal.
+     */
+    @Operation(
+        summary = "Partially update a category by its ID",
+        description = "Change only the given fields of a category, only what changed is written. "
+            + "Returns the newly updated category unless Prefer: return=minimal is given. With If-Match, "
+            + "the update only succeeds if the category still has that ETag."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Category was updated successfully."),
+        @ApiResponse(responseCode = "204", description = "Category was updated successfully, return=minimal was "
+                + "preferred.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "404", description = "No category exists with the given ID.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Category was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Category no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PatchMapping(value = "/id/{id}",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<E> patchAbstractCategoryById(@PathVariable Long id,
+            @RequestBody @Valid AbstractCategoryPatchDTO changes,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
+        E updatedAbstractCategory = service.update(id, VersionTag.parse(ifMatch), changes::applyTo);
+        return ReturnPreference.of(prefer)
+            .respond(VersionTag.headers(updatedAbstractCategory.getVersion()), () -> updatedAbstractCategory);
     }
 
     /**
      * Endpoint to delete an AbstractCategoryEntity by its ID.
      *
      * @param id ID of the entity to delete.
+     * @param ifMatch Optional ETag the entity must still have.
      * @return Empty ResponseEntity.
      */
     @Operation(
         summary = "Delete a category by its ID.",
-        description = "Remove a category from the database using the category ID."
+        description = "Remove a category from the database using the category ID. With If-Match, the "
+            + "category is only removed if it still has that ETag."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Deletion was successful or ID did not exist anyway.",
-            content = @Content(/* No Content */))
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "412", description = "Category no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
     })
     @DeleteMapping("/id/{id}")
-    public ResponseEntity<String> deleteAbstractCategoryById(@PathVariable Long id) {
-        service.delete(id);
+    public ResponseEntity<String> deleteAbstractCategoryById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        service.delete(id, VersionTag.parse(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -269,6 +372,7 @@ public abstract class AbstractCategoryController
             content = @Content(/* No Content */))
     })
     @GetMapping("/name/{name}")
+    @Transactional(readOnly = true)
     public ResponseEntity<E> getAbstractCategoryByName(@PathVariable String name) {
         return service.find(name)
                 .map(ResponseEntity::ok)
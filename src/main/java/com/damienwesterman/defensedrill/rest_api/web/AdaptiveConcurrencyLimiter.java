@@ -0,0 +1,145 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to observed latency.
+ * <br><br>
+ * A short and a long term average of request latency are tracked. While recent latency stays
+ * close to the long term average the limit slowly grows, and once requests start to queue up
+ * somewhere (threads, database connections) recent latency rises and the limit is cut back in
+ * proportion. The limit only grows while at least half of it is actually in use.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double LATENCY_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // A lock rather than synchronized, which would pin virtual threads that contend for it
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile double limit;
+
+    // Guarded by sampleLock
+    private double shortLatency;
+    private double longLatency;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Start a request if the limit allows it. Every successful call must be followed by either
+     * {@link #release(long)} or {@link #releaseWithoutSample()}.
+     *
+     * @return true if the request may proceed.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finish a request and use its latency to adjust the limit.
+     *
+     * @param latencyNanos Time the request took in nanoseconds.
+     */
+    public void release(long latencyNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        sample(latencyNanos, inFlightAtCompletion);
+    }
+
+    /**
+     * Finish a request whose latency says nothing about the load, such as a long-polling request.
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void sample(long latencyNanos, int inFlightAtCompletion) {
+        sampleLock.lock();
+        try {
+            updateLimit(latencyNanos, inFlightAtCompletion);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    private void updateLimit(long latencyNanos, int inFlightAtCompletion) {
+        if (0 == longLatency) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+
+        shortLatency = average(shortLatency, latencyNanos, SHORT_WINDOW);
+        longLatency = average(longLatency, latencyNanos, LONG_WINDOW);
+
+        // After a long slow period, let the long term average recover quickly once things are fast again
+        if (longLatency > 2 * shortLatency) {
+            longLatency *= 0.95;
+        }
+
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, LATENCY_TOLERANCE * longLatency / shortLatency));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    private static double average(double average, double sample, double window) {
+        double factor = 2 / (window + 1);
+        return average * (1 - factor) + sample * factor;
+    }
+}
@@ -0,0 +1,132 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.service.NameIndex;
+import com.damienwesterman.defensedrill.rest_api.web.dto.AutocompleteDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * Controller for autocompleting drill, category, and sub-category names.
+ * <br><br>
+ * Names are looked up in the in-memory {@link NameIndex}, so a lookup does not touch the database.
+ */
+@Tag(
+    name = "Autocomplete Controller",
+    description = "Finds Drill, Category, and SubCategory names by prefix."
+)
+@RestController
+@RequestMapping(AutocompleteController.ENDPOINT)
+@ServletStack
+public class AutocompleteController {
+    public static final String ENDPOINT = "/autocomplete";
+    private final NameIndex nameIndex;
+    private final int maxLimit;
+
+    public AutocompleteController(NameIndex nameIndex,
+            @Value("${rest-api.autocomplete.max-limit:50}") int maxLimit) {
+        this.nameIndex = nameIndex;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Endpoint to find the names starting with a prefix.
+     *
+     * @param prefix Prefix of the names, case insensitive.
+     * @param types Types to search: drill, category, sub_category. All if not given.
+     * @param limit Maximum number of names to return of each type.
+     * @return ResponseEntity containing the matching names of each requested type.
+     */
+    @Operation(
+        summary = "Autocomplete names.",
+        description = "Returns the Drills, Categories, and SubCategories whose names start with the given prefix, "
+            + "ignoring case, sorted by name."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching names were returned, possibly none."),
+        @ApiResponse(responseCode = "400", description = "Unknown type or invalid limit.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @Traffic(TrafficClass.INTERACTIVE_READ)
+    @GetMapping
+    public ResponseEntity<AutocompleteDTO> autocomplete(@RequestParam String prefix,
+            @Parameter(description = "Comma separated types to search: drill, category, sub_category. Default all.")
+                @RequestParam(required = false) List<String> types,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || maxLimit < limit) {
+            throw new InvalidRequestParameterException("Limit must be between 1 and " + maxLimit + ".");
+        }
+        Set<NameIndex.Type> parsedTypes = parseTypes(types);
+
+        return ResponseEntity.ok(new AutocompleteDTO(
+            parsedTypes.contains(NameIndex.Type.DRILL)
+                ? nameIndex.startingWith(NameIndex.Type.DRILL, prefix, limit) : null,
+            parsedTypes.contains(NameIndex.Type.CATEGORY)
+                ? nameIndex.startingWith(NameIndex.Type.CATEGORY, prefix, limit) : null,
+            parsedTypes.contains(NameIndex.Type.SUB_CATEGORY)
+                ? nameIndex.startingWith(NameIndex.Type.SUB_CATEGORY, prefix, limit) : null));
+    }
+
+    private static Set<NameIndex.Type> parseTypes(@Nullable List<String> types) {
+        if (null == types || types.isEmpty()) {
+            return EnumSet.allOf(NameIndex.Type.class);
+        }
+
+        Set<NameIndex.Type> parsedTypes = EnumSet.noneOf(NameIndex.Type.class);
+        for (String type : types) {
+            try {
+                parsedTypes.add(NameIndex.Type.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestParameterException(
+                    "Unknown type '" + type + "'. Must be one of drill, category, sub_category.");
+            }
+        }
+        return parsedTypes;
+    }
+}
@@ -0,0 +1,335 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchRequestDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchSubRequestDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchSubResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller for executing several drill, category, and sub-category requests in one HTTP call.
+ * <br><br>
+ * Each sub-request is dispatched in-process through the {@link DispatcherServlet}, so it behaves
+ * exactly like the equivalent standalone request. Consecutive GET sub-requests share a single
+ * read-only transaction, and therefore a single persistence context, so an entity requested by
+ * several of them is only loaded from the database once. A read that fails ends that transaction
+ * without affecting the other sub-responses. Any other sub-request runs on its own,
+ * in the given order, and takes its own {@link TrafficClass#WRITE} slot.
+ * <br><br>
+ * Long-polling sub-requests (with a wait parameter) cannot be batched and are answered with a 400.
+ */
+@Tag(
+    name = "Batch Controller",
+    description = "Executes several Drill, Category, and SubCategory requests in a single call."
+)
+@RestController
+@RequestMapping(BatchController.ENDPOINT)
+@Traffic(TrafficClass.BULK_READ)
+@Slf4j
+@ServletStack
+public class BatchController {
+    public static final String ENDPOINT = "/batch";
+    private static final String WAIT_PARAM = "wait";
+    private static final List<String> BATCHABLE_ENDPOINTS =
+        List.of(DrillController.ENDPOINT, CategoryController.ENDPOINT, SubCategoryController.ENDPOINT);
+    private final ObjectProvider<DispatcherServlet> dispatcherServlet;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int maxRequests;
+
+    public BatchController(ObjectProvider<DispatcherServlet> dispatcherServlet,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${rest-api.batch.max-requests:50}") int maxRequests) {
+        this.dispatcherServlet = dispatcherServlet;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.maxRequests = maxRequests;
+    }
+
+    /**
+     * Endpoint to execute a list of sub-requests.
+     *
+     * @param batchRequest Sub-requests to execute.
+     * @param request The /batch request.
+     * @param response The /batch response.
+     * @return ResponseEntity containing a response for each sub-request, in order.
+     */
+    @Operation(
+        summary = "Execute several requests at once.",
+        description = "Executes a list of Drill, Category, and SubCategory requests in order and returns "
+            + "each of their responses. Long-polling requests cannot be batched."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "All sub-requests were executed, check each "
+            + "sub-response for its status."),
+        @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PostMapping
+    public ResponseEntity<BatchResponseDTO> executeBatch(@RequestBody @Valid BatchRequestDTO batchRequest,
+            HttpServletRequest request, HttpServletResponse response) {
+        List<BatchSubRequestDTO> subRequests = batchRequest.getRequests();
+        if (maxRequests < subRequests.size()) {
+            throw new InvalidRequestParameterException(
+                "A batch may contain at most " + maxRequests + " requests.");
+        }
+        subRequests.forEach(subRequest -> validatePath(subRequest.getPath()));
+
+        List<BatchSubResponseDTO> subResponses = new ArrayList<>(subRequests.size());
+        int index = 0;
+        while (index < subRequests.size()) {
+            if (!isRead(subRequests.get(index))) {
+                subResponses.add(dispatch(subRequests.get(index), request, response));
+                index++;
+                continue;
+            }
+
+            int readsEnd = index;
+            while (readsEnd < subRequests.size() && isRead(subRequests.get(readsEnd))) {
+                readsEnd++;
+            }
+            while (index < readsEnd) {
+                index += executeReads(subRequests.subList(index, readsEnd), subResponses, request, response);
+            }
+        }
+
+        return ResponseEntity.ok(new BatchResponseDTO(subResponses));
+    }
+
+    /**
+     * Execute consecutive GET sub-requests in one read-only transaction, until one of them fails.
+     * <br><br>
+     * The endpoints join the shared transaction, so a read that throws marks all of it rollback-only
+     * even though the DispatcherServlet answers it with an error response. Committing it would then
+     * fail and lose every sub-response, so it is rolled back right away instead, which discards
+     * nothing as nothing was written. The remaining reads continue in a new transaction.
+     *
+     * @param reads GET sub-requests to execute.
+     * @param subResponses Responses to add each sub-response to.
+     * @param request The /batch request.
+     * @param response The /batch response.
+     * @return Number of reads that were executed.
+     */
+    private int executeReads(@NonNull List<BatchSubRequestDTO> reads,
+            @NonNull List<BatchSubResponseDTO> subResponses, @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response) {
+        Integer executed = readOnlyTransaction.execute(status -> {
+            int count = 0;
+            while (count < reads.size()) {
+                subResponses.add(dispatch(reads.get(count++), request, response));
+                if (status.isRollbackOnly()) {
+                    // Only roll back locally, so the transaction ends without an UnexpectedRollbackException
+                    status.setRollbackOnly();
+                    break;
+                }
+            }
+            return count;
+        });
+        return null == executed ? reads.size() : executed;
+    }
+
+    /**
+     * Make sure the sub-request targets one of the batchable endpoints.
+     *
+     * @param path Sub-request path.
+     */
+    private void validatePath(@NonNull String path) {
+        if (path.contains("..")) {
+            throw new InvalidRequestParameterException("Invalid batch path: " + path);
+        }
+
+        for (String endpoint : BATCHABLE_ENDPOINTS) {
+            if (path.equals(endpoint) || path.startsWith(endpoint + "/") || path.startsWith(endpoint + "?")) {
+                return;
+            }
+        }
+
+        throw new InvalidRequestParameterException("Invalid batch path: " + path
+            + ". Only " + String.join(", ", BATCHABLE_ENDPOINTS) + " endpoints can be batched.");
+    }
+
+    private static boolean isRead(@NonNull BatchSubRequestDTO subRequest) {
+        return HttpMethod.GET.matches(subRequest.getMethod());
+    }
+
+    /**
+     * Long-polls are answered asynchronously, which a sub-request cannot be.
+     *
+     * @param subRequest Sub-request to check.
+     * @return true if the sub-request has a wait parameter.
+     */
+    private static boolean isLongPoll(@NonNull BatchSubRequestDTO subRequest) {
+        return UriComponentsBuilder.fromUriString(subRequest.getPath()).build()
+            .getQueryParams().containsKey(WAIT_PARAM);
+    }
+
+    /**
+     * Execute a single sub-request through the DispatcherServlet.
+     *
+     * @param subRequest Sub-request to execute.
+     * @param request The /batch request.
+     * @param response The /batch response.
+     * @return Response to the sub-request.
+     */
+    @NonNull
+    private BatchSubResponseDTO dispatch(@NonNull BatchSubRequestDTO subRequest,
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
+        if (isLongPoll(subRequest)) {
+            return BatchSubResponseDTO.builder()
+                .id(subRequest.getId())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .body(objectMapper.valueToTree(ErrorMessageDTO.builder()
+                    .error("Invalid Parameter")
+                    .message("Long-polling requests cannot be batched.")
+                    .build()))
+                .build();
+        }
+
+        try {
+            Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            if (null != subRequest.getHeaders()) {
+                headers.putAll(subRequest.getHeaders());
+            }
+            headers.putIfAbsent(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+
+            byte[] body = new byte[0];
+            if (null != subRequest.getBody()) {
+                body = objectMapper.writeValueAsBytes(subRequest.getBody());
+                headers.putIfAbsent(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            }
+
+            BatchServletRequest servletRequest =
+                new BatchServletRequest(request, subRequest.getMethod(), subRequest.getPath(), headers, body);
+            BatchServletResponse servletResponse = new BatchServletResponse(response);
+            dispatcherServlet.getObject().service(servletRequest, servletResponse);
+
+            Map<String, String> responseHeaders = new LinkedHashMap<>();
+            for (String name : servletResponse.getHeaderNames()) {
+                responseHeaders.put(name, String.join(", ", servletResponse.getHeaders(name)));
+            }
+
+            return BatchSubResponseDTO.builder()
+                .id(subRequest.getId())
+                .status(servletResponse.getStatus())
+                .headers(responseHeaders.isEmpty() ? null : responseHeaders)
+                .body(toJson(servletResponse.getBody(), servletResponse.getContentType()))
+                .build();
+        } catch (ServletException | IOException | RuntimeException e) {
+            log.error("Batch sub-request {} {} failed", subRequest.getMethod(), subRequest.getPath(), e);
+            return BatchSubResponseDTO.builder()
+                .id(subRequest.getId())
+                .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                .body(objectMapper.valueToTree(ErrorMessageDTO.builder()
+                    .error("Unknown Error")
+                    .message("An unexpected error has occurred.")
+                    .build()))
+                .build();
+        }
+    }
+
+    /**
+     * Convert a sub-response body into JSON to embed in the batch response.
+     *
+     * @param body Sub-response body.
+     * @param contentType Sub-response content type.
+     * @return JSON body as is, text as a string, anything else as base64, or null if empty.
+     * @throws IOException If a JSON body cannot be parsed.
+     */
+    @Nullable
+    private JsonNode toJson(@NonNull byte[] body, @Nullable String contentType) throws IOException {
+        if (0 == body.length) {
+            return null;
+        }
+
+        MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM;
+        try {
+            if (null != contentType) {
+                mediaType = MediaType.parseMediaType(contentType);
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Treat as binary
+        }
+
+        if (MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)
+                || (null != mediaType.getSubtypeSuffix() && "json".equals(mediaType.getSubtypeSuffix()))) {
+            return objectMapper.readTree(body);
+        }
+        if ("text".equals(mediaType.getType())) {
+            return TextNode.valueOf(new String(body, null == mediaType.getCharset()
+                ? StandardCharsets.UTF_8 : mediaType.getCharset()));
+        }
+        return BinaryNode.valueOf(body);
+    }
+}
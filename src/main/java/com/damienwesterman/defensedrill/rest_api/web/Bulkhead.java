@@ -0,0 +1,100 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Fixed number of request slots with a bounded wait queue in front of them.
+ * <br><br>
+ * Unlike the {@link AdaptiveConcurrencyLimiter}, the number of slots never changes, which is
+ * what lets each slot be backed by a dedicated database connection.
+ */
+public class Bulkhead {
+    private final Semaphore slots;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final AtomicInteger queued = new AtomicInteger(0);
+
+    public Bulkhead(@NonNull BulkheadProperties.Partition partition) {
+        this.maxConcurrent = partition.getMaxConcurrent();
+        this.maxQueue = partition.getMaxQueue();
+        this.queueTimeoutNanos = partition.getQueueTimeout().toNanos();
+        this.slots = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Take a slot, waiting in the queue for one if they are all in use.
+     *
+     * @return true if a slot was taken and must later be {@link #release() released},
+     *      false if the queue was full or the wait timed out.
+     */
+    public boolean tryAcquire() {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            return false;
+        }
+
+        try {
+            return slots.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Give back a slot taken by {@link #tryAcquire()}.
+     */
+    public void release() {
+        slots.release();
+    }
+
+    /**
+     * @return Number of slots currently taken.
+     */
+    public int getInUse() {
+        return maxConcurrent - slots.availablePermits();
+    }
+
+    /**
+     * @return Number of requests currently waiting for a slot.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+}
@@ -0,0 +1,161 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.exception.ConcurrencyLimitExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Runs each request inside the {@link Bulkhead} of its {@link TrafficClass}.
+ * <br><br>
+ * A request has to take a slot of its partition before its handler runs, and while it holds the
+ * slot its database work is routed to the connection pool of that partition through the
+ * {@link TrafficClassContext}. Bulk syncs and writes can therefore use up their own slots and
+ * connections, but never those of interactive reads.
+ * <br><br>
+ * Read sub-requests of a /batch run in the slot of their batch. Write sub-requests take a slot of
+ * their own, so they are limited and routed like any other write.
+ */
+@Component
+@ServletStack
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+    public static final String IN_USE_METRIC = "bulkhead.in.use";
+    public static final String QUEUED_METRIC = "bulkhead.queued";
+    public static final String REJECTIONS_METRIC = "bulkhead.rejections";
+    private static final String SLOT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".slot";
+
+    private final Map<TrafficClass, Bulkhead> bulkheads = new EnumMap<>(TrafficClass.class);
+    private final Map<TrafficClass, Counter> rejections = new EnumMap<>(TrafficClass.class);
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+
+    public BulkheadInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider,
+            BulkheadProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.retryAfterSeconds = properties.getRetryAfterSeconds();
+        // Sliced tests do not have a registry, the bulkheads work the same without one
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            Bulkhead bulkhead = new Bulkhead(properties.get(trafficClass));
+            bulkheads.put(trafficClass, bulkhead);
+            String tag = trafficClass.name().toLowerCase();
+            Gauge.builder(IN_USE_METRIC, bulkhead, Bulkhead::getInUse)
+                .tag("traffic.class", tag)
+                .register(meterRegistry);
+            Gauge.builder(QUEUED_METRIC, bulkhead, Bulkhead::getQueued)
+                .tag("traffic.class", tag)
+                .register(meterRegistry);
+            rejections.put(trafficClass, Counter.builder(REJECTIONS_METRIC)
+                .tag("traffic.class", tag)
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Retrieve the bulkhead of a traffic class.
+     *
+     * @param trafficClass Traffic class.
+     * @return The bulkhead.
+     */
+    @NonNull
+    public Bulkhead getBulkhead(@NonNull TrafficClass trafficClass) {
+        return bulkheads.get(trafficClass);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        if (!enabled || DispatcherType.REQUEST != request.getDispatcherType()) {
+            return true;
+        }
+
+        TrafficClass trafficClass = TrafficClass.of(handler, request);
+        if (request instanceof BatchServletRequest && TrafficClass.WRITE != trafficClass) {
+            return true;
+        }
+        if (!bulkheads.get(trafficClass).tryAcquire()) {
+            rejections.get(trafficClass).increment();
+            throw new ConcurrencyLimitExceededException(
+                "Too many " + trafficClass.name().toLowerCase().replace('_', ' ')
+                    + " requests are being processed, please retry later.",
+                retryAfterSeconds);
+        }
+
+        // A batch sub-request hands the thread back to its batch afterwards
+        request.setAttribute(SLOT_ATTRIBUTE, new Slot(trafficClass, TrafficClassContext.get()));
+        TrafficClassContext.set(trafficClass);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response, @NonNull Object handler) {
+        // A parked long-poll holds neither a thread nor a connection, so it does not need a slot
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler, @Nullable Exception ex) {
+        release(request);
+    }
+
+    private void release(@NonNull HttpServletRequest request) {
+        Slot slot = (Slot) request.getAttribute(SLOT_ATTRIBUTE);
+        if (null != slot) {
+            request.removeAttribute(SLOT_ATTRIBUTE);
+            bulkheads.get(slot.trafficClass()).release();
+            if (null == slot.previousTrafficClass()) {
+                TrafficClassContext.clear();
+            } else {
+                TrafficClassContext.set(slot.previousTrafficClass());
+            }
+        }
+    }
+
+    /**
+     * Slot held by a request, and the traffic class the thread had before it.
+     */
+    private record Slot(TrafficClass trafficClass, @Nullable TrafficClass previousTrafficClass) { }
+}
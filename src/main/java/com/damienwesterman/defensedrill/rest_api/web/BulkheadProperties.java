@@ -0,0 +1,86 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.NonNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration of the bulkhead partition of each {@link TrafficClass}, bound from
+ * rest-api.bulkhead.*.
+ * <br><br>
+ * Each partition gets its own request slots, wait queue and connection pool, so that one
+ * traffic class can never take the threads or connections of another.
+ */
+@Data
+@ConfigurationProperties("rest-api.bulkhead")
+public class BulkheadProperties {
+    /** Whether requests are limited and routed to their partition at all */
+    private boolean enabled = true;
+    /** Retry-After in seconds sent with a rejected request */
+    private long retryAfterSeconds = 1;
+    private Partition interactiveRead = new Partition(10, 20, Duration.ofMillis(500), Duration.ofSeconds(5));
+    private Partition bulkRead = new Partition(4, 8, Duration.ofSeconds(2), Duration.ofSeconds(30));
+    private Partition write = new Partition(4, 16, Duration.ofSeconds(1), Duration.ofSeconds(10));
+
+    /**
+     * Retrieve the partition of a traffic class.
+     *
+     * @param trafficClass Traffic class.
+     * @return Partition configuration.
+     */
+    @NonNull
+    public Partition get(@NonNull TrafficClass trafficClass) {
+        return switch (trafficClass) {
+            case INTERACTIVE_READ -> interactiveRead;
+            case BULK_READ -> bulkRead;
+            case WRITE -> write;
+        };
+    }
+
+    /**
+     * Limits of a single partition.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Partition {
+        /** Requests processed at once, which is also the size of the connection pool */
+        private int maxConcurrent;
+        /** Requests allowed to wait for a slot, any more are rejected straight away */
+        private int maxQueue;
+        /** How long a queued request waits for a slot before it is rejected */
+        private Duration queueTimeout;
+        /** Timeout of every SQL statement run through the partition, 0 for none */
+        private Duration statementTimeout;
+    }
+}
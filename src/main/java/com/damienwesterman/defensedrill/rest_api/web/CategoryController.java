@@ -29,6 +29,7 @@ package com.damienwesterman.defensedrill.rest_api.web;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
 
@@ -43,11 +44,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 )
 @RestController
 @RequestMapping(CategoryController.ENDPOINT)
+@ServletStack
 public class CategoryController extends AbstractCategoryController<CategoryEntity, CategorySerivce> {
     public final static String ENDPOINT = "/category";
 
-    public CategoryController(CategorySerivce categorySerivce) {
-        super(categorySerivce);
+    public CategoryController(CategorySerivce categorySerivce, LongPollRegistry longPollRegistry) {
+        super(categorySerivce, longPollRegistry);
     }
 
     @Override
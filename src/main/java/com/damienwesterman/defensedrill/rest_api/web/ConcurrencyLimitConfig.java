@@ -0,0 +1,70 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Applies the {@link ConcurrencyLimitInterceptor} and {@link BulkheadInterceptor} to the REST
+ * controllers. Actuator and documentation endpoints are never limited.
+ * <br><br>
+ * The adaptive limit is checked first, so that requests it sheds are turned away without
+ * waiting in a bulkhead queue.
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+@RequiredArgsConstructor
+@ServletStack
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+    private static final String[] LIMITED_PATHS = {
+        DrillController.ENDPOINT, DrillController.ENDPOINT + "/**",
+        CategoryController.ENDPOINT, CategoryController.ENDPOINT + "/**",
+        SubCategoryController.ENDPOINT, SubCategoryController.ENDPOINT + "/**",
+        BatchController.ENDPOINT,
+        SessionController.ENDPOINT + "/**",
+        AutocompleteController.ENDPOINT
+    };
+
+    private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+    private final BulkheadInterceptor bulkheadInterceptor;
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(concurrencyLimitInterceptor)
+            .addPathPatterns(LIMITED_PATHS);
+        registry.addInterceptor(bulkheadInterceptor)
+            .addPathPatterns(LIMITED_PATHS);
+    }
+}
@@ -0,0 +1,161 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.exception.ConcurrencyLimitExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load once a {@link TrafficClass} has more requests in flight than its
+ * {@link AdaptiveConcurrencyLimiter} allows.
+ * <br><br>
+ * Rejected requests fail fast with a {@link ConcurrencyLimitExceededException}, so requests that
+ * are let in keep a steady latency instead of everything queueing up for the database.
+ * Long-polling requests give their permit back once they start waiting. Read sub-requests of a
+ * /batch run under the permit of their batch, write sub-requests take a permit of their own.
+ */
+@Component
+@ServletStack
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+    public static final String LIMIT_METRIC = "concurrency.limit";
+    public static final String IN_FLIGHT_METRIC = "concurrency.in.flight";
+    public static final String REJECTIONS_METRIC = "concurrency.rejections";
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final Map<TrafficClass, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(TrafficClass.class);
+    private final Map<TrafficClass, Counter> rejections = new EnumMap<>(TrafficClass.class);
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider,
+            @Value("${rest-api.concurrency-limit.enabled:true}") boolean enabled,
+            @Value("${rest-api.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${rest-api.concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${rest-api.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${rest-api.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        // Sliced tests do not have a registry, the limits work the same without one
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+            limiters.put(trafficClass, limiter);
+            String tag = trafficClass.name().toLowerCase();
+            Gauge.builder(LIMIT_METRIC, limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("traffic.class", tag)
+                .register(meterRegistry);
+            Gauge.builder(IN_FLIGHT_METRIC, limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("traffic.class", tag)
+                .register(meterRegistry);
+            rejections.put(trafficClass, Counter.builder(REJECTIONS_METRIC)
+                .tag("traffic.class", tag)
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Retrieve the limiter of a traffic class.
+     *
+     * @param trafficClass Traffic class.
+     * @return The limiter.
+     */
+    @NonNull
+    public AdaptiveConcurrencyLimiter getLimiter(@NonNull TrafficClass trafficClass) {
+        return limiters.get(trafficClass);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        if (!enabled || DispatcherType.REQUEST != request.getDispatcherType()) {
+            return true;
+        }
+
+        TrafficClass trafficClass = TrafficClass.of(handler, request);
+        if (request instanceof BatchServletRequest && TrafficClass.WRITE != trafficClass) {
+            return true;
+        }
+        if (!limiters.get(trafficClass).tryAcquire()) {
+            rejections.get(trafficClass).increment();
+            throw new ConcurrencyLimitExceededException(
+                "Too many requests are being processed, please retry later.", retryAfterSeconds);
+        }
+
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(trafficClass, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response, @NonNull Object handler) {
+        // Waiting for a long-poll is not load, so do not count it against the limit
+        Permit permit = takePermit(request);
+        if (null != permit) {
+            limiters.get(permit.trafficClass()).releaseWithoutSample();
+        }
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler, @Nullable Exception ex) {
+        Permit permit = takePermit(request);
+        if (null != permit) {
+            limiters.get(permit.trafficClass()).release(System.nanoTime() - permit.startNanos());
+        }
+    }
+
+    @Nullable
+    private Permit takePermit(@NonNull HttpServletRequest request) {
+        Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        return permit;
+    }
+
+    /**
+     * Permit held by a request while it is being processed.
+     */
+    private record Permit(TrafficClass trafficClass, long startNanos) { }
+}
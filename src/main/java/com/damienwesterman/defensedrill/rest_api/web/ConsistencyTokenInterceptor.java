@@ -0,0 +1,126 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.sql.SQLException;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.damienwesterman.defensedrill.rest_api.datasource.Lsn;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReadConsistencyContext;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReplicaMonitor;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gives clients read-your-writes consistency while reads are served by replicas.
+ * <br><br>
+ * Once a request's write has been committed, the current WAL position (LSN) of the primary is
+ * returned to the client in the {@value #HEADER} response header. When the client sends that
+ * token back on later requests, their reads are only served by a replica that has replayed at
+ * least that far, and by the primary otherwise. The token is a plain LSN, so it holds across
+ * every instance of the service.
+ * <br><br>
+ * Reads made while handling a write request, such as checking that the entity to update exists,
+ * always go to the primary.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConsistencyTokenInterceptor implements AsyncHandlerInterceptor {
+    public static final String HEADER = "X-Consistency-Token";
+
+    private final ReplicaMonitor replicaMonitor;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            ReadConsistencyContext.requirePrimary();
+            return true;
+        }
+
+        String token = request.getHeader(HEADER);
+        if (null != token) {
+            try {
+                ReadConsistencyContext.setMinimumLsn(Lsn.parse(token.trim()));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestParameterException("Invalid " + HEADER + " header: " + token);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response, @NonNull Object handler) {
+        ReadConsistencyContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler, @Nullable Exception ex) {
+        ReadConsistencyContext.clear();
+    }
+
+    /**
+     * Hand the client a consistency token once its write has been committed.
+     * <br><br>
+     * Writes are committed before the controller returns, so the response has not been written
+     * yet. Later reads within the same request, such as in a batch, also see the write.
+     *
+     * @param event Database change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatabaseChange(DatabaseChangeEvent event) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)
+                || null == attributes.getResponse() || attributes.getResponse().isCommitted()) {
+            // Not written through a REST request, ex. gRPC
+            return;
+        }
+
+        try {
+            long lsn = replicaMonitor.currentPrimaryLsn();
+            attributes.getResponse().setHeader(HEADER, Lsn.format(lsn));
+            ReadConsistencyContext.setMinimumLsn(lsn);
+        } catch (SQLException e) {
+            // The client may read stale data, but the write itself succeeded
+            log.warn("Could not read the WAL position after a write: {}", e.getMessage());
+        }
+    }
+}
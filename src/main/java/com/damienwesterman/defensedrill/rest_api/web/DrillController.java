@@ -29,14 +29,24 @@ package com.damienwesterman.defensedrill.rest_api.web;
 import java.net.URI;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -44,37 +54,65 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonQuery;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
 import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DrillAssociation;
+import com.damienwesterman.defensedrill.rest_api.service.DrillSampler;
 import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.service.DrillStats;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
 import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillCreateDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillPatchDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillStatsDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillUpdateDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsPatchDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.NormalizedDrillListDTO;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.transaction.Transactional;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Controller responsible for CRUD operations for {@link DrillEntity} objects with validation.
  * Extends to control over {@link InstructionsEntity} held within the DrillEntity.
+ * <br><br>
+ * Read endpoints accept the optional {@code view} and {@code fields} parameters, see
+ * {@link DrillFieldSelection}. Only the associations needed for the selected fields are loaded.
+ * <br><br>
+ * List endpoints can also return a {@link NormalizedDrillListDTO} when it is requested by media
+ * type or with format=normalized, see {@link WebConfig}. The plain list endpoints explicitly
+ * list what they produce so that wildcard Accept headers (ex. application/*+json) never select
+ * the normalized format. The full JSON of the plain list endpoints can instead be built by the
+ * database, see {@link DrillJsonAggregation}.
+ * <br><br>
+ * Read endpoints run in a single read-only transaction, so Hibernate opens the session read-only
+ * with FlushMode.MANUAL and keeps no dirty checking snapshots of the loaded drills.
  */
 @Tag(
     name = "Drill Controller",
@@ -83,15 +121,27 @@ import lombok.RequiredArgsConstructor;
 @RestController
 @RequestMapping(DrillController.ENDPOINT)
 @RequiredArgsConstructor
+@ServletStack
 public class DrillController {
     public static final String ENDPOINT = "/drill";
+    private static final String VIEW_DESCRIPTION = "Preset field selection: summary (id and name), "
+        + "standard (no instructions or descriptions), or full (default).";
+    private static final String FIELDS_DESCRIPTION = "Comma separated list of fields to return, "
+        + "nested fields are selected with a dot. Ex. id,name,categories.name. Overrides view.";
     private final DrillService drillService;
     private final CategorySerivce categorySerivce;
     private final SubCategorySerivce subCategorySerivce;
+    private final LongPollRegistry longPollRegistry;
+    private final DrillJsonAggregation jsonAggregation;
+    private final IdLists idLists;
+    private final DrillSampler drillSampler;
+    private final DrillStats drillStats;
 
     /**
      * Endpoint to return all DrillEntity objects.
      *
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
      * @return ResponseEntity with List of the DrillEntity objects.
      */
     @Operation(
@@ -103,48 +153,53 @@ public class DrillController {
         @ApiResponse(responseCode = "204", description = "No Drills exist in the database.",
             content = @Content(/* No Content */))
     })
-    @GetMapping
-    public ResponseEntity<List<DrillResponseDTO>> getAll() {
-        List<DrillEntity> drills = drillService.findAll();
-
-        if (drills.isEmpty()) {
-            return ResponseEntity.noContent().build();
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<DrillResponseDTO>> getAll(
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        if (!selection.isFull()) {
+            return toPartialResponse(drillService.findAllSummaries(), selection);
+        }
+        if (jsonAggregation.isSelected(DrillJsonQuery.ALL)) {
+            return jsonAggregation.write(DrillJsonQuery.ALL, null);
         }
 
-        // Map of Drills by their ID for quick lookup
-        Map<Long, DrillEntity> drillMap = drills.stream()
-            .collect(Collectors.toMap(DrillEntity::getId, Function.identity()));
+        return toFullResponse(drillService.findAll());
+    }
 
-        return ResponseEntity.ok(
-            drills.stream()
-                // Extract the related drills from the map to create each DrillResponseDTO
-                .map(drill -> {
-                    List<DrillEntity> relatedDrills;
-
-                    /*
-                    * Compiler is generating a warning for each call to drill.getRelatedDrills().
-                    * We can safely ignore this because of this first null check here.
-                    */
-                    if (null == drill.getRelatedDrills()) {
-                        relatedDrills = List.of();
-                    } else {
-                        relatedDrills = new ArrayList<>(drill.getRelatedDrills().size());
-                        relatedDrills = drill.getRelatedDrills().stream()
-                            .map(relatedId -> {
-                                return drillMap.get(relatedId);
-                            })
-                            .collect(Collectors.toList());
-                    }
-                    return new DrillResponseDTO(drill, relatedDrills);
-                })
-                .collect(Collectors.toList())
-        );
+    /**
+     * Normalized variant of {@link #getAll(String, String)}.
+     *
+     * @return ResponseEntity with the normalized list of DrillEntity objects.
+     */
+    @Operation(
+        summary = "Retrieve all Drills, normalized.",
+        description = "Returns all Drills in the database with categories, sub-categories, and "
+            + "related drills listed once by ID. Request with format=normalized or the Accept "
+            + "header " + NormalizedDrillListDTO.MEDIA_TYPE + "."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills exist in the database and were returned."),
+        @ApiResponse(responseCode = "204", description = "No Drills exist in the database.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(produces = NormalizedDrillListDTO.MEDIA_TYPE)
+    @Transactional(readOnly = true)
+    public ResponseEntity<NormalizedDrillListDTO> getAllNormalized() {
+        return toNormalizedResponse(drillService.findAll());
     }
 
     /**
      * Endpoint to return all DrillEntity objects that contain any of the given Category IDs.
      *
      * @param categoryIds List of Category IDs.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
      * @return ResponseEntity with List of DrillEntity objects.
      */
     @Operation(
@@ -156,34 +211,55 @@ public class DrillController {
         @ApiResponse(responseCode = "204", description = "No Drills have been found for the given Category IDs.",
             content = @Content(/* No Content */))
     })
-    @GetMapping("/by_category")
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/by_category", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
     public ResponseEntity<List<DrillResponseDTO>> getAllByCategoryIds(
-            @RequestParam List<Long> categoryIds) {
-        List<DrillEntity> drills = drillService.findAllByCategory(categoryIds);
-
-        if (drills.isEmpty()) {
-            return ResponseEntity.noContent().build();
+            @RequestParam List<Long> categoryIds,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        if (!selection.isFull()) {
+            return toPartialResponse(drillService.findAllSummariesByCategory(categoryIds), selection);
+        }
+        if (jsonAggregation.isSelected(DrillJsonQuery.BY_CATEGORY)) {
+            return jsonAggregation.write(DrillJsonQuery.BY_CATEGORY, categoryIds);
         }
 
-        return ResponseEntity.ok(
-            drills.stream()
-                // Extract the related drills from the map to create each DrillResponseDTO
-                .map(drill -> {
-                    List<Long> relatedDrills = drill.getRelatedDrills();
-                    if (null == relatedDrills || relatedDrills.isEmpty()) {
-                        return new DrillResponseDTO(drill);
-                    } else {
-                        return new DrillResponseDTO(drill, drillService.findAll(relatedDrills));
-                    }
-                })
-                .collect(Collectors.toList())
-        );
+        return toFullResponse(drillService.findAllByCategory(categoryIds));
+    }
+
+    /**
+     * Normalized variant of {@link #getAllByCategoryIds(List, String, String)}.
+     *
+     * @param categoryIds List of Category IDs.
+     * @return ResponseEntity with the normalized list of DrillEntity objects.
+     */
+    @Operation(
+        summary = "Retrieve all Drills that are part of any given Categories, normalized.",
+        description = "Normalized version of /drill/by_category. Request with format=normalized "
+            + "or the Accept header " + NormalizedDrillListDTO.MEDIA_TYPE + "."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills have been found for the given Category IDs."),
+        @ApiResponse(responseCode = "204", description = "No Drills have been found for the given Category IDs.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/by_category", produces = NormalizedDrillListDTO.MEDIA_TYPE)
+    @Transactional(readOnly = true)
+    public ResponseEntity<NormalizedDrillListDTO> getAllByCategoryIdsNormalized(
+            @RequestParam List<Long> categoryIds) {
+        return toNormalizedResponse(drillService.findAllByCategory(categoryIds));
     }
 
     /**
      * Endpoint to return all DrillEntity objects that contain any of the given Sub-Category IDs.
      *
      * @param subCategoryIds List of Sub-Category IDs.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
      * @return ResponseEntity with List of DrillEntity objects.
      */
     @Operation(
@@ -195,34 +271,55 @@ public class DrillController {
         @ApiResponse(responseCode = "204", description = "No Drills have been found for the given Sub-Category IDs.",
             content = @Content(/* No Content */))
     })
-    @GetMapping("/by_sub_category")
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/by_sub_category", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
     public ResponseEntity<List<DrillResponseDTO>> getAllBySubCategoryIds(
-            @RequestParam List<Long> subCategoryIds) {
-        List<DrillEntity> drills = drillService.findAllBySubCategory(subCategoryIds);
-
-        if (drills.isEmpty()) {
-            return ResponseEntity.noContent().build();
+            @RequestParam List<Long> subCategoryIds,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        if (!selection.isFull()) {
+            return toPartialResponse(drillService.findAllSummariesBySubCategory(subCategoryIds), selection);
+        }
+        if (jsonAggregation.isSelected(DrillJsonQuery.BY_SUB_CATEGORY)) {
+            return jsonAggregation.write(DrillJsonQuery.BY_SUB_CATEGORY, subCategoryIds);
         }
 
-        return ResponseEntity.ok(
-            drills.stream()
-                // Extract the related drills from the map to create each DrillResponseDTO
-                .map(drill -> {
-                    List<Long> relatedDrills = drill.getRelatedDrills();
-                    if (null == relatedDrills || relatedDrills.isEmpty()) {
-                        return new DrillResponseDTO(drill);
-                    } else {
-                        return new DrillResponseDTO(drill, drillService.findAll(relatedDrills));
-                    }
-                })
-                .collect(Collectors.toList())
-        );
+        return toFullResponse(drillService.findAllBySubCategory(subCategoryIds));
+    }
+
+    /**
+     * Normalized variant of {@link #getAllBySubCategoryIds(List, String, String)}.
+     *
+     * @param subCategoryIds List of Sub-Category IDs.
+     * @return ResponseEntity with the normalized list of DrillEntity objects.
+     */
+    @Operation(
+        summary = "Retrieve all Drills that are part of any given Sub-Categories, normalized.",
+        description = "Normalized version of /drill/by_sub_category. Request with format=normalized "
+            + "or the Accept header " + NormalizedDrillListDTO.MEDIA_TYPE + "."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills have been found for the given Sub-Category IDs."),
+        @ApiResponse(responseCode = "204", description = "No Drills have been found for the given Sub-Category IDs.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/by_sub_category", produces = NormalizedDrillListDTO.MEDIA_TYPE)
+    @Transactional(readOnly = true)
+    public ResponseEntity<NormalizedDrillListDTO> getAllBySubCategoryIdsNormalized(
+            @RequestParam List<Long> subCategoryIds) {
+        return toNormalizedResponse(drillService.findAllBySubCategory(subCategoryIds));
     }
 
     /**
      * Endpoint to return all DrillEntity objects that were updated after the given UTC time.
      *
      * @param updateTimestamp UTC milliseconds since epoch.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
      * @return ResponseEntity with List of DrillEntity objects.
      */
     @Operation(
@@ -235,28 +332,104 @@ public class DrillController {
         @ApiResponse(responseCode = "204", description = "No Drills have been updated since the given time.",
             content = @Content(/* No Content */))
     })
-    @GetMapping("/update")
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/update", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
     public ResponseEntity<List<DrillResponseDTO>> getAllDrillAfterTimestamp(
-            @RequestParam Long updateTimestamp) {
-        List<DrillEntity> drills = drillService.findAll(updateTimestamp);
-
-        if (drills.isEmpty()) {
-            return ResponseEntity.noContent().build();
+            @RequestParam Long updateTimestamp,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (DrillFieldSelection.of(view, fields).isFull()
+                && jsonAggregation.isSelected(DrillJsonQuery.UPDATED_AFTER)) {
+            return jsonAggregation.write(DrillJsonQuery.UPDATED_AFTER, updateTimestamp);
         }
 
-        return ResponseEntity.ok(
-            drills.stream()
-                // Extract the related drills from the map to create each DrillResponseDTO
-                .map(drill -> {
-                    List<Long> relatedDrills = drill.getRelatedDrills();
-                    if (null == relatedDrills || relatedDrills.isEmpty()) {
-                        return new DrillResponseDTO(drill);
-                    } else {
-                        return new DrillResponseDTO(drill, drillService.findAll(relatedDrills));
-                    }
-                })
-                .collect(Collectors.toList())
-        );
+        return findAllDrillAfterTimestamp(updateTimestamp, view, fields);
+    }
+
+    /**
+     * Long-polling variant of {@link #getAllDrillAfterTimestamp(Long, String, String)}.
+     * <br><br>
+     * If no drills were updated after the given UTC time, the request is held open until a drill
+     * is written or the wait time expires, without holding a servlet thread.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @param wait Maximum number of seconds to wait for an update.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
+     * @return DeferredResult with a ResponseEntity containing a List of DrillEntity objects.
+     */
+    @Operation(
+        summary = "Wait for Drills updated after a specified time.",
+        description = "Long-polling version of /drill/update. If no drills have been updated after "
+            + "the given timestamp, the request is held open for up to 'wait' seconds until one is."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills have been updated since the given time and were returned."),
+        @ApiResponse(responseCode = "204", description = "No Drills were updated before the wait time expired.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/update", params = "wait", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    public DeferredResult<ResponseEntity<List<DrillResponseDTO>>> waitForAllDrillAfterTimestamp(
+            @RequestParam Long updateTimestamp, @RequestParam Long wait,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        // Validate the selection now rather than on the first change
+        DrillFieldSelection.of(view, fields);
+        return longPollRegistry.poll(DrillEntity.class, wait,
+            () -> findAllDrillAfterTimestamp(updateTimestamp, view, fields));
+    }
+
+    /**
+     * Normalized variant of {@link #getAllDrillAfterTimestamp(Long, String, String)}.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @return ResponseEntity with the normalized list of DrillEntity objects.
+     */
+    @Operation(
+        summary = "Retrieve all Drills updated after a specified time, normalized.",
+        description = "Normalized version of /drill/update. Request with format=normalized "
+            + "or the Accept header " + NormalizedDrillListDTO.MEDIA_TYPE + "."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills have been updated since the given time and were returned."),
+        @ApiResponse(responseCode = "204", description = "No Drills have been updated since the given time.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/update", produces = NormalizedDrillListDTO.MEDIA_TYPE)
+    @Transactional(readOnly = true)
+    public ResponseEntity<NormalizedDrillListDTO> getAllDrillAfterTimestampNormalized(
+            @RequestParam Long updateTimestamp) {
+        return findAllDrillAfterTimestampNormalized(updateTimestamp);
+    }
+
+    /**
+     * Normalized variant of {@link #waitForAllDrillAfterTimestamp(Long, Long, String, String)}.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @param wait Maximum number of seconds to wait for an update.
+     * @return DeferredResult with a ResponseEntity containing the normalized list of DrillEntity objects.
+     */
+    @Operation(
+        summary = "Wait for Drills updated after a specified time, normalized.",
+        description = "Normalized version of /drill/update with wait. Request with format=normalized "
+            + "or the Accept header " + NormalizedDrillListDTO.MEDIA_TYPE + "."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills have been updated since the given time and were returned."),
+        @ApiResponse(responseCode = "204", description = "No Drills were updated before the wait time expired.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/update", params = "wait", produces = NormalizedDrillListDTO.MEDIA_TYPE)
+    public DeferredResult<ResponseEntity<NormalizedDrillListDTO>> waitForAllDrillAfterTimestampNormalized(
+            @RequestParam Long updateTimestamp, @RequestParam Long wait) {
+        return longPollRegistry.poll(DrillEntity.class, wait,
+            () -> findAllDrillAfterTimestampNormalized(updateTimestamp));
     }
 
     /**
@@ -264,34 +437,41 @@ public class DrillController {
      * <br><br>
      * This essentially creates an empty drill with only a name. To include any related drills,
      * categories, subCategories, or instructions, see
-     * {@link #updateDrillById(Long, DrillUpdateDTO)}.
+     * {@link #updateDrillById(Long, DrillUpdateDTO, String, String)}.
      *
      * @param drill Drill to insert into the database.
-     * @return Response entity containing the created Drill.
+     * @param prefer Optional Prefer header, return=minimal skips returning the created entity.
+     * @return Response entity containing the created Drill, or empty for return=minimal.
      */
     @Operation(
         summary = "Insert a New Drill.",
         description = "Create a new Drill in the database with the given name. Returns the newly "
-            + "created Drill. To add categories, instructions, etc. use PUT /drill/id/{id} using "
-            + "the returned drill ID."
+            + "created Drill unless Prefer: return=minimal is given. To add categories, instructions, etc. "
+            + "use PUT /drill/id/{id} using the returned drill ID."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Drill was created successfully."),
+        @ApiResponse(responseCode = "204", description = "Drill was created successfully, return=minimal was "
+                + "preferred. The Location header points to the Drill.",
+            content = @Content(/* No Content */)),
         @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
             content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
     })
     @PostMapping
-    public ResponseEntity<DrillResponseDTO> insertNewDrill(@RequestBody @Valid DrillCreateDTO drill) {
+    public ResponseEntity<DrillResponseDTO> insertNewDrill(@RequestBody @Valid DrillCreateDTO drill,
+            @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
         DrillEntity createdDrill = drillService.save(drill.toEntity());
-        return ResponseEntity
-            .created(URI.create(ENDPOINT + "/" + createdDrill.getId()))
-            .body(new DrillResponseDTO(createdDrill));
+        return ReturnPreference.of(prefer).created(URI.create(ENDPOINT + "/" + createdDrill.getId()),
+            VersionTag.headers(createdDrill.getVersion()), () -> new DrillResponseDTO(createdDrill));
     }
 
     /**
      * Endpoint to find a DrillEntity by its name. Case insensitive.
      *
      * @param name Name of the DrillEntity
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
+     * @param request Request, which selects the variant of the response.
      * @return ResponseEntity containing the found entity;
      */
     @Operation(
@@ -303,22 +483,24 @@ public class DrillController {
         @ApiResponse(responseCode = "404", description = "No Drill exists with the given name.",
             content = @Content(/* No Content */))
     })
-    @GetMapping("/name/{name}")
-    @Transactional
-    public ResponseEntity<DrillResponseDTO> getDrillByName(@PathVariable String name) {
+    @GetMapping(value = "/name/{name}", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
+    public ResponseEntity<DrillResponseDTO> getDrillByName(@PathVariable String name,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields,
+            HttpServletRequest request) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        if (!selection.isFull()) {
+            return drillService.findSummary(name)
+                    .map(summary -> toVersionedResponse(summary.getVersion(),
+                        toPartialDTOs(List.of(summary), selection).get(0), request))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+
         return drillService.find(name)
-                    .map(foundDrill -> {
-                        List<Long> relatedDrills = foundDrill.getRelatedDrills();
-                        if (null == relatedDrills || relatedDrills.isEmpty()) {
-                            return ResponseEntity.ok(
-                                new DrillResponseDTO(foundDrill)
-                            );
-                        } else {
-                            return ResponseEntity.ok(new DrillResponseDTO(
-                                foundDrill,
-                                drillService.findAll(relatedDrills)));
-                        }
-                    })
+                    .map(foundDrill -> toVersionedResponse(foundDrill.getVersion(),
+                        toFullDTOs(List.of(foundDrill)).get(0), request))
                     .orElse(ResponseEntity.notFound().build());
     }
 
@@ -326,6 +508,8 @@ public class DrillController {
      * Retrieve a list of drills using a list of drill IDs.
      *
      * @param ids List of Drill IDs to return their drills.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
      * @return ResponseEntity containing a list of Drill objects.
      */
     @Operation(
@@ -337,34 +521,135 @@ public class DrillController {
         @ApiResponse(responseCode = "204", description = "No Drills have been found.",
             content = @Content(/* No Content */))
     })
-    @GetMapping("/id")
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/id", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
     public ResponseEntity<List<DrillResponseDTO>> getDrillsByIds(
+            @RequestParam List<Long> ids,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        if (!selection.isFull()) {
+            idLists.checkSize(ids);
+            return toPartialResponse(drillService.findAllSummaries(ids), selection);
+        }
+        if (jsonAggregation.isSelected(DrillJsonQuery.BY_ID)) {
+            return jsonAggregation.write(DrillJsonQuery.BY_ID, ids);
+        }
+
+        return toFullResponse(drillService.findAll(ids));
+    }
+
+    /**
+     * Normalized variant of {@link #getDrillsByIds(List, String, String)}.
+     *
+     * @param ids List of Drill IDs to return their drills.
+     * @return ResponseEntity with the normalized list of DrillEntity objects.
+     */
+    @Operation(
+        summary = "Retrieve all Drills from the list of IDs, normalized.",
+        description = "Normalized version of /drill/id. Request with format=normalized "
+            + "or the Accept header " + NormalizedDrillListDTO.MEDIA_TYPE + "."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills have been found and were returned."),
+        @ApiResponse(responseCode = "204", description = "No Drills have been found.",
+            content = @Content(/* No Content */))
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/id", produces = NormalizedDrillListDTO.MEDIA_TYPE)
+    @Transactional(readOnly = true)
+    public ResponseEntity<NormalizedDrillListDTO> getDrillsByIdsNormalized(
             @RequestParam List<Long> ids) {
-        List<DrillEntity> drills = drillService.findAll(ids);
+        return toNormalizedResponse(drillService.findAll(ids));
+    }
 
-        if (drills.isEmpty()) {
-            return ResponseEntity.noContent().build();
+    /**
+     * Draw random drills without replacement, for example to build a training session.
+     *
+     * @param n Number of drills to draw.
+     * @param categoryIds Only draw drills in any of these categories.
+     * @param subCategoryIds Only draw drills in any of these sub-categories.
+     * @param excludeIds Never draw these drills.
+     * @param weights Weights of drills as drillId:weight, drills without one have a weight of 1.
+     * @param seed Seed to draw the same drills again.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
+     * @return ResponseEntity containing the drills in the order they were drawn.
+     */
+    @Operation(
+        summary = "Draw random Drills.",
+        description = "Returns up to n random drills, drawn without replacement and optionally weighted. "
+            + "Category and sub-category filters match drills in any of the given IDs, and both must match "
+            + "when both are given. The same seed returns the same drills while the drills are unchanged."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drills were drawn and returned."),
+        @ApiResponse(responseCode = "204", description = "No Drills match the filters.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "400", description = "Invalid number of drills or weights.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @Traffic(TrafficClass.INTERACTIVE_READ)
+    @GetMapping(value = "/random", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<DrillResponseDTO>> getRandomDrills(
+            @RequestParam(defaultValue = "1") int n,
+            @RequestParam(required = false) List<Long> categoryIds,
+            @RequestParam(required = false) List<Long> subCategoryIds,
+            @RequestParam(required = false) List<Long> excludeIds,
+            @Parameter(description = "Weights as drillId:weight, ex. 12:2.5")
+                @RequestParam(required = false) List<String> weights,
+            @RequestParam(required = false) Long seed,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        idLists.checkSize(n);
+        Stream.of(categoryIds, subCategoryIds, excludeIds, weights)
+            .filter(ids -> null != ids)
+            .forEach(idLists::checkSize);
+
+        List<Long> drawnIds = drillSampler.sample(n, categoryIds, subCategoryIds, excludeIds,
+            parseWeights(weights), seed);
+        if (!selection.isFull()) {
+            return toPartialResponse(inDrawnOrder(drillService.findAllSummaries(drawnIds),
+                DrillSummary::getId, drawnIds), selection);
         }
 
-        return ResponseEntity.ok(
-            drills.stream()
-                // Extract the related drills from the map to create each DrillResponseDTO
-                .map(drill -> {
-                    List<Long> relatedDrills = drill.getRelatedDrills();
-                    if (null == relatedDrills || relatedDrills.isEmpty()) {
-                        return new DrillResponseDTO(drill);
-                    } else {
-                        return new DrillResponseDTO(drill, drillService.findAll(relatedDrills));
-                    }
-                })
-                .collect(Collectors.toList())
-        );
+        return toFullResponse(inDrawnOrder(drillService.findAll(drawnIds), DrillEntity::getId, drawnIds));
+    }
+
+    /**
+     * Endpoint to count drills by category and sub-category.
+     * <br><br>
+     * Not run in a read-only transaction, as the statistics are cached and always loaded from the
+     * primary, see {@link DrillStats}.
+     *
+     * @return ResponseEntity containing the drill statistics.
+     */
+    @Operation(
+        summary = "Count Drills by Category and SubCategory.",
+        description = "Returns the number of drills in each category, sub-category, and pair of both, along "
+            + "with the number of drills without categories and the coverage of instructions and videos."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drill statistics were returned.")
+    })
+    @Traffic(TrafficClass.BULK_READ)
+    @GetMapping(value = "/stats", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<DrillStatsDTO> getStats() {
+        return ResponseEntity.ok(drillStats.get());
     }
 
     /**
      * Endpoint to find a DrillEntity by its ID.
      *
      * @param id ID of the DrillEntity.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
      * @return ResponseEntity containing the found entity.
      */
     @Operation(
@@ -376,22 +661,24 @@ public class DrillController {
         @ApiResponse(responseCode = "404", description = "No Drill exists with the given ID.",
             content = @Content(/* No Content */))
     })
-    @GetMapping("/id/{id}")
-    @Transactional
-    public ResponseEntity<DrillResponseDTO> getDrillById(@PathVariable Long id) {
+    @GetMapping(value = "/id/{id}", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Transactional(readOnly = true)
+    public ResponseEntity<DrillResponseDTO> getDrillById(@PathVariable Long id,
+            @Parameter(description = VIEW_DESCRIPTION) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields,
+            HttpServletRequest request) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        if (!selection.isFull()) {
+            return drillService.findSummary(id)
+                    .map(summary -> toVersionedResponse(summary.getVersion(),
+                        toPartialDTOs(List.of(summary), selection).get(0), request))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+
         return drillService.find(id)
-                    .map(foundDrill -> {
-                        List<Long> relatedDrills = foundDrill.getRelatedDrills();
-                        if (null == relatedDrills || relatedDrills.isEmpty()) {
-                            return ResponseEntity.ok(
-                                new DrillResponseDTO(foundDrill)
-                            );
-                        } else {
-                            return ResponseEntity.ok(new DrillResponseDTO(
-                                foundDrill,
-                                drillService.findAll(relatedDrills)));
-                        }
-                    })
+                    .map(foundDrill -> toVersionedResponse(foundDrill.getVersion(),
+                        toFullDTOs(List.of(foundDrill)).get(0), request))
                     .orElse(ResponseEntity.notFound().build());
     }
 
@@ -400,35 +687,39 @@ public class DrillController {
      *
      * @param id ID of the entity to update.
      * @param drill Entity to update.
-     * @return ReponseEntity with the updated entity.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @param prefer Optional Prefer header, return=minimal skips returning the updated entity.
+     * @return ReponseEntity with the updated entity, or empty for return=minimal.
      */
     @Operation(
         summary = "Update a Drill by its ID.",
         description = "Update a drill's contents (category, instructions, etc.) by its ID. "
-            + "Returns the newly updated Drill."
+            + "Returns the newly updated Drill unless Prefer: return=minimal is given. With If-Match, "
+            + "the update only succeeds if the Drill still has that ETag."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Drill was updated successfully."),
+        @ApiResponse(responseCode = "204", description = "Drill was updated successfully, return=minimal was "
+                + "preferred.",
+            content = @Content(/* No Content */)),
         @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
             content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
         @ApiResponse(responseCode = "404", description = "No Drill exists with the given ID.",
-            content = @Content(/* No Content */))
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
     })
     @PutMapping("/id/{id}")
     public ResponseEntity<DrillResponseDTO> updateDrillById(
-        @PathVariable Long id, @RequestBody @Valid DrillUpdateDTO drill) {
-        if (drillService.find(id).isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        // Validate steps ('|' must not be used)
+        @PathVariable Long id, @RequestBody @Valid DrillUpdateDTO drill,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
+        Long expectedVersion = VersionTag.parse(ifMatch);
         if (null != drill.getInstructions() && !drill.getInstructions().isEmpty()) {
             for (InstructionsDTO instructions : drill.getInstructions()) {
-                for (String step : instructions.getSteps()) {
-                    if (step.contains("|")) {
-                        throw new DatabaseInsertException("Invalid character: '|'");
-                    }
-                }
+                checkSteps(instructions.getSteps());
             }
         }
 
@@ -446,39 +737,97 @@ public class DrillController {
             drillToUpdate.setSubCategories(subCategorySerivce.findAll(drill.getSubCategoryIds()));
         }
 
-        DrillEntity updatedDrill = drillService.save(drillToUpdate);
+        DrillEntity updatedDrill = drillService.replace(drillToUpdate, expectedVersion);
+
+        // The related drills are only looked up if the representation is returned
+        return ReturnPreference.of(prefer).respond(VersionTag.headers(updatedDrill.getVersion()), () -> {
+            // Null check here, ignore the warnings
+            if (null == updatedDrill.getRelatedDrills() || updatedDrill.getRelatedDrills().isEmpty()) {
+                return new DrillResponseDTO(updatedDrill);
+            }
 
-        // Null check here, ignore the warnings
-        if (null == updatedDrill.getRelatedDrills() || updatedDrill.getRelatedDrills().isEmpty()) {
-            return ResponseEntity.ok(
-                new DrillResponseDTO(updatedDrill)
-            );
-        } else {
-            return ResponseEntity.ok(
-                new DrillResponseDTO(
-                    updatedDrill,
-                    drillService.findAll(updatedDrill.getRelatedDrills())
-                ));
+            return new DrillResponseDTO(updatedDrill, drillService.findAll(updatedDrill.getRelatedDrills()));
+        });
+    }
+
+    /**
+     * Endpoint to change some fields of a DrillEntity by its ID, as a JSON Merge Patch.
+     *
+     * @param id ID of the entity to update.
+     * @param changes Fields to change.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @param prefer Optional Prefer header, return=minimal skips returning the updated entity.
+     * @return ResponseEntity with the updated entity, or empty for return=minimal.
+     */
+    @Operation(
+        summary = "Partially update a Drill by its ID.",
+        description = "Change only the given fields of a Drill, a null list removes everything in it. "
+            + "Only what changed is written. Returns the newly updated Drill unless Prefer: return=minimal is given. "
+            + "With If-Match, the update only succeeds if the Drill still has that ETag."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Drill was updated successfully."),
+        @ApiResponse(responseCode = "204", description = "Drill was updated successfully, return=minimal was "
+                + "preferred.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "404", description = "No Drill exists with the given ID.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PatchMapping(value = "/id/{id}",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<DrillResponseDTO> patchDrillById(@PathVariable Long id,
+            @RequestBody @Valid DrillPatchDTO changes,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
+        Long expectedVersion = VersionTag.parse(ifMatch);
+        if (null != changes.getInstructions()) {
+            for (InstructionsDTO instructions : changes.getInstructions()) {
+                checkSteps(instructions.getSteps());
+            }
         }
+
+        // IDs that are not in the database are ignored
+        List<CategoryEntity> categories =
+            null == changes.getCategoryIds() || changes.getCategoryIds().isEmpty()
+                ? List.of() : categorySerivce.findAll(changes.getCategoryIds());
+        List<SubCategoryEntity> subCategories =
+            null == changes.getSubCategoryIds() || changes.getSubCategoryIds().isEmpty()
+                ? List.of() : subCategorySerivce.findAll(changes.getSubCategoryIds());
+
+        DrillEntity updatedDrill = drillService.update(id, expectedVersion,
+            drill -> changes.applyTo(drill, categories, subCategories));
+        return ReturnPreference.of(prefer).respond(VersionTag.headers(updatedDrill.getVersion()),
+            () -> toFullDTOs(List.of(updatedDrill)).get(0));
     }
 
     /**
      * Endpoint to delete a DrillEntity by its ID.
      *
      * @param id ID of the entity to delete.
+     * @param ifMatch Optional ETag the drill must still have.
      * @return Empty ResponseEntity.
      */
     @Operation(
         summary = "Delete a Drill by its ID.",
-        description = "Remove a Drill from the database using the Drill ID."
+        description = "Remove a Drill from the database using the Drill ID. With If-Match, the Drill is "
+            + "only removed if it still has that ETag."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Deletion was successful or ID did not exist anyway.",
-            content = @Content(/* No Content */))
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
     })
     @DeleteMapping("/id/{id}")
-    public ResponseEntity<String> deleteDrillById(@PathVariable Long id) {
-        drillService.delete(id);
+    public ResponseEntity<String> deleteDrillById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.delete(id, VersionTag.parse(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -610,6 +959,7 @@ public class DrillController {
             content = @Content(/* No Content */))
     })
     @GetMapping("/id/{id}/how-to")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<String>> getInstructionsByDrillId(@PathVariable Long id) {
         Optional<DrillEntity> optDrill = drillService.find(id);
 
@@ -659,6 +1009,7 @@ public class DrillController {
             content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
     })
     @GetMapping("/id/{id}/how-to/{number}")
+    @Transactional(readOnly = true)
     public ResponseEntity<Object> getInstructionDetails(
             @PathVariable Long id, @PathVariable Long number) {
         Optional<DrillEntity> optDrill = drillService.find(id);
@@ -690,4 +1041,633 @@ public class DrillController {
             )
         );
     }
+
+    /**
+     * Endpoint to replace a single set of instructions of a DrillEntity, or add one after its last.
+     * <br><br>
+     * Only the instructions are written, unlike updating the whole drill with
+     * {@link #updateDrillById(Long, DrillUpdateDTO, String, String)}.
+     *
+     * @param id ID of the DrillEntity.
+     * @param number The number of the instructions relative to the drill's instructions list.
+     * @param instructions New instructions.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @param prefer Optional Prefer header, return=minimal skips returning the saved instructions.
+     * @return ResponseEntity containing the saved instructions, or empty for return=minimal.
+     */
+    @Operation(
+        summary = "Replace Instructions by Drill ID and Instruction number.",
+        description = "Replace a single Instruction of a Drill, or add a new one by using the number after "
+            + "the Drill's last Instruction. Only the Instruction is written. Returns the saved Instruction "
+            + "unless Prefer: return=minimal is given."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Instructions were saved.",
+            content = @Content(schema = @Schema(implementation = InstructionsDTO.class))),
+        @ApiResponse(responseCode = "204", description = "Instructions were saved, return=minimal was preferred.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "404", description = "Drill or Instructions number was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PutMapping("/id/{id}/how-to/{number}")
+    public ResponseEntity<InstructionsDTO> updateInstructions(@PathVariable Long id, @PathVariable Long number,
+            @RequestBody @Valid InstructionsDTO instructions,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
+        checkSteps(instructions.getSteps());
+
+        InstructionsEntity instructionsToSave = InstructionsEntity.builder()
+            .drillId(id)
+            .number(number)
+            .description(instructions.getDescription())
+            .videoId(instructions.getVideoId())
+            .build();
+        instructionsToSave.setStepsFromList(instructions.getSteps());
+
+        InstructionsEntity savedInstructions = drillService.saveInstructions(instructionsToSave,
+            VersionTag.parse(ifMatch));
+        return ReturnPreference.of(prefer).respond(() -> new InstructionsDTO(savedInstructions));
+    }
+
+    /**
+     * Endpoint to change some fields of a single set of instructions of a DrillEntity.
+     *
+     * @param id ID of the DrillEntity.
+     * @param number The number of the instructions relative to the drill's instructions list.
+     * @param changes Fields to change.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @param prefer Optional Prefer header, return=minimal skips returning the updated instructions.
+     * @return ResponseEntity containing the updated instructions, or empty for return=minimal.
+     */
+    @Operation(
+        summary = "Partially update Instructions by Drill ID and Instruction number.",
+        description = "Change only the given fields of a single Instruction of a Drill. A null video_id "
+            + "removes the video. Only the Instruction is written. Returns the updated Instruction unless "
+            + "Prefer: return=minimal is given."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Instructions were updated.",
+            content = @Content(schema = @Schema(implementation = InstructionsDTO.class))),
+        @ApiResponse(responseCode = "204", description = "Instructions were updated, return=minimal was preferred.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "404", description = "Drill or Instructions number was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PatchMapping(value = "/id/{id}/how-to/{number}",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<InstructionsDTO> patchInstructions(@PathVariable Long id, @PathVariable Long number,
+            @RequestBody @Valid InstructionsPatchDTO changes,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.HEADER, required = false) String prefer) {
+        Long expectedVersion = VersionTag.parse(ifMatch);
+        if (null != changes.getSteps()) {
+            checkSteps(changes.getSteps());
+        }
+
+        InstructionsEntity updatedInstructions = drillService.updateInstructions(id, expectedVersion, number,
+            changes::applyTo);
+        return ReturnPreference.of(prefer).respond(() -> new InstructionsDTO(updatedInstructions));
+    }
+
+    /**
+     * Endpoint to delete a single set of instructions of a DrillEntity.
+     * <br><br>
+     * The instructions after it move up by one number.
+     *
+     * @param id ID of the DrillEntity.
+     * @param number The number of the instructions relative to the drill's instructions list.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Delete Instructions by Drill ID and Instruction number.",
+        description = "Remove a single Instruction from a Drill, the following Instructions move up by one."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Instructions were deleted.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill or Instructions number was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @DeleteMapping("/id/{id}/how-to/{number}")
+    public ResponseEntity<String> deleteInstructions(@PathVariable Long id, @PathVariable Long number,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.deleteInstructions(id, VersionTag.parse(ifMatch), number);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to reorder the instructions of a DrillEntity by moving a single set of instructions.
+     *
+     * @param id ID of the DrillEntity.
+     * @param number The current number of the instructions.
+     * @param to The new number of the instructions.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Move Instructions to another number.",
+        description = "Reorder a Drill's Instructions by moving one Instruction to a new number, the "
+            + "Instructions in between shift by one to make room."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Instructions were moved.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill or Instructions number was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PostMapping("/id/{id}/how-to/{number}/move")
+    public ResponseEntity<String> moveInstructions(@PathVariable Long id, @PathVariable Long number,
+            @Parameter(description = "New number of the Instructions.") @RequestParam Long to,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.moveInstructions(id, VersionTag.parse(ifMatch), number, to);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to add a single Category to a DrillEntity.
+     * <br><br>
+     * Only the single join table row is written, the rest of the DrillEntity is never loaded.
+     *
+     * @param id ID of the DrillEntity.
+     * @param categoryId ID of the Category.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Add a Category to a Drill.",
+        description = "Add one Category to a Drill by ID. Adding a Category the Drill already has changes nothing."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Addition was successful.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill or Category was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PostMapping("/id/{id}/categories/{categoryId}")
+    public ResponseEntity<String> addCategoryToDrill(@PathVariable Long id, @PathVariable Long categoryId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.addAssociation(id, VersionTag.parse(ifMatch), DrillAssociation.CATEGORIES, categoryId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to remove a single Category from a DrillEntity.
+     * <br><br>
+     * Only the single join table row is written, the rest of the DrillEntity is never loaded.
+     *
+     * @param id ID of the DrillEntity.
+     * @param categoryId ID of the Category.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Remove a Category from a Drill.",
+        description = "Remove one Category from a Drill by ID. "
+            + "Removing a Category the Drill does not have changes nothing."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Removal was successful.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @DeleteMapping("/id/{id}/categories/{categoryId}")
+    public ResponseEntity<String> removeCategoryFromDrill(@PathVariable Long id, @PathVariable Long categoryId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.removeAssociation(id, VersionTag.parse(ifMatch), DrillAssociation.CATEGORIES, categoryId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to add a single Sub-Category to a DrillEntity.
+     * <br><br>
+     * Only the single join table row is written, the rest of the DrillEntity is never loaded.
+     *
+     * @param id ID of the DrillEntity.
+     * @param subCategoryId ID of the Sub-Category.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Add a Sub-Category to a Drill.",
+        description = "Add one Sub-Category to a Drill by ID. "
+            + "Adding a Sub-Category the Drill already has changes nothing."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Addition was successful.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill or Sub-Category was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PostMapping("/id/{id}/sub_categories/{subCategoryId}")
+    public ResponseEntity<String> addSubCategoryToDrill(@PathVariable Long id, @PathVariable Long subCategoryId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.addAssociation(id, VersionTag.parse(ifMatch), DrillAssociation.SUB_CATEGORIES, subCategoryId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to remove a single Sub-Category from a DrillEntity.
+     * <br><br>
+     * Only the single join table row is written, the rest of the DrillEntity is never loaded.
+     *
+     * @param id ID of the DrillEntity.
+     * @param subCategoryId ID of the Sub-Category.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Remove a Sub-Category from a Drill.",
+        description = "Remove one Sub-Category from a Drill by ID. "
+            + "Removing a Sub-Category the Drill does not have changes nothing."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Removal was successful.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @DeleteMapping("/id/{id}/sub_categories/{subCategoryId}")
+    public ResponseEntity<String> removeSubCategoryFromDrill(@PathVariable Long id, @PathVariable Long subCategoryId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.removeAssociation(id, VersionTag.parse(ifMatch), DrillAssociation.SUB_CATEGORIES, subCategoryId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to add a single related Drill to a DrillEntity.
+     * <br><br>
+     * Only the single join table row is written, the rest of the DrillEntity is never loaded.
+     *
+     * @param id ID of the DrillEntity.
+     * @param relatedDrillId ID of the related Drill.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Add a related Drill to a Drill.",
+        description = "Add one related Drill to a Drill by ID. "
+            + "Adding a related Drill the Drill already has changes nothing."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Addition was successful.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill or related Drill was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @PostMapping("/id/{id}/related_drills/{relatedDrillId}")
+    public ResponseEntity<String> addRelatedDrillToDrill(@PathVariable Long id, @PathVariable Long relatedDrillId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.addAssociation(id, VersionTag.parse(ifMatch), DrillAssociation.RELATED_DRILLS, relatedDrillId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to remove a single related Drill from a DrillEntity.
+     * <br><br>
+     * Only the single join table row is written, the rest of the DrillEntity is never loaded.
+     *
+     * @param id ID of the DrillEntity.
+     * @param relatedDrillId ID of the related Drill.
+     * @param ifMatch Optional ETag the drill must still have.
+     * @return Empty ResponseEntity.
+     */
+    @Operation(
+        summary = "Remove a related Drill from a Drill.",
+        description = "Remove one related Drill from a Drill by ID. "
+            + "Removing a related Drill the Drill does not have changes nothing."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Removal was successful.",
+            content = @Content(/* No Content */)),
+        @ApiResponse(responseCode = "404", description = "Drill was not found. Check error "
+                + "message for specifics on what went wrong.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "409", description = "Drill was changed by another request at the same time.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class))),
+        @ApiResponse(responseCode = "412", description = "Drill no longer matches the If-Match ETag.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @DeleteMapping("/id/{id}/related_drills/{relatedDrillId}")
+    public ResponseEntity<String> removeRelatedDrillFromDrill(@PathVariable Long id,
+            @PathVariable Long relatedDrillId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        drillService.removeAssociation(id, VersionTag.parse(ifMatch), DrillAssociation.RELATED_DRILLS, relatedDrillId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Validate steps, '|' must not be used as it separates the steps in the database.
+     *
+     * @param steps Steps of a set of instructions.
+     */
+    private static void checkSteps(@NonNull List<String> steps) {
+        for (String step : steps) {
+            if (step.contains("|")) {
+                throw new DatabaseInsertException("Invalid character: '|'");
+            }
+        }
+    }
+
+    /**
+     * Shared by {@link #getAllDrillAfterTimestamp(Long, String, String)} and its long-polling
+     * variant, which must never write the response directly with {@link DrillJsonAggregation}.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @param view Optional preset field selection: summary, standard, or full.
+     * @param fields Optional comma separated list of fields to return, overrides view.
+     * @return ResponseEntity with List of DrillEntity objects.
+     */
+    private ResponseEntity<List<DrillResponseDTO>> findAllDrillAfterTimestamp(Long updateTimestamp,
+            String view, String fields) {
+        DrillFieldSelection selection = DrillFieldSelection.of(view, fields);
+        if (!selection.isFull()) {
+            return toPartialResponse(drillService.findAllSummaries(updateTimestamp), selection);
+        }
+
+        return toFullResponse(drillService.findAll(updateTimestamp));
+    }
+
+    /**
+     * Shared by {@link #getAllDrillAfterTimestampNormalized(Long)} and its long-polling variant,
+     * which runs outside the request and so cannot rely on the endpoint's transaction.
+     *
+     * @param updateTimestamp UTC milliseconds since epoch.
+     * @return ResponseEntity with the normalized list of DrillEntity objects.
+     */
+    private ResponseEntity<NormalizedDrillListDTO> findAllDrillAfterTimestampNormalized(Long updateTimestamp) {
+        return toNormalizedResponse(drillService.findAll(updateTimestamp));
+    }
+
+    /**
+     * Parse drill weights given as drillId:weight.
+     *
+     * @param weights Weights from the request, may be null.
+     * @return Weight by drill ID, null if none were given.
+     */
+    @Nullable
+    private static Map<Long, Double> parseWeights(@Nullable List<String> weights) {
+        if (null == weights) {
+            return null;
+        }
+
+        Map<Long, Double> ret = new HashMap<>();
+        for (String weight : weights) {
+            int separator = weight.indexOf(':');
+            try {
+                ret.put(Long.valueOf(weight.substring(0, separator).trim()),
+                    Double.valueOf(weight.substring(separator + 1).trim()));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                throw new InvalidRequestParameterException(
+                    "Weights must be given as drillId:weight, got " + weight + ".");
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Put drills back into the order they were drawn in, dropping any that no longer exist.
+     *
+     * @param <T> Drill type.
+     * @param drills Drills as loaded.
+     * @param getId Getter of the drill ID.
+     * @param drawnIds IDs in the order they were drawn.
+     * @return Drills in the order they were drawn.
+     */
+    private static <T> List<T> inDrawnOrder(List<T> drills, Function<T, Long> getId, List<Long> drawnIds) {
+        Map<Long, T> drillsById = drills.stream()
+            .collect(Collectors.toMap(getId, Function.identity()));
+        return drawnIds.stream()
+            .map(drillsById::get)
+            .filter(drill -> null != drill)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Build the response for a list endpoint when all fields were selected.
+     *
+     * @param drills Drills to return.
+     * @return ResponseEntity with List of DrillResponseDTO objects.
+     */
+    private ResponseEntity<List<DrillResponseDTO>> toFullResponse(List<DrillEntity> drills) {
+        if (drills.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+
+        return ResponseEntity.ok(toFullDTOs(drills));
+    }
+
+    /**
+     * Create fully populated DrillResponseDTO objects.
+     * <br><br>
+     * Names of related drills that are not already part of the list are looked up at once and
+     * mapped directly into DrillRelatedDTO objects, rather than loading each drill's related
+     * drills as entities.
+     *
+     * @param drills Drills to return.
+     * @return List of DrillResponseDTO objects, in the same order.
+     */
+    private List<DrillResponseDTO> toFullDTOs(List<DrillEntity> drills) {
+        Set<Long> missingRelatedIds = new HashSet<>();
+        /*
+         * Compiler is generating a warning for each call to drill.getRelatedDrills().
+         * We can safely ignore this because of this first null check here.
+         */
+        for (DrillEntity drill : drills) {
+            if (null != drill.getRelatedDrills()) {
+                missingRelatedIds.addAll(drill.getRelatedDrills());
+            }
+        }
+
+        Map<Long, DrillRelatedDTO> relatedDrillMap = new HashMap<>();
+        for (DrillEntity drill : drills) {
+            if (missingRelatedIds.remove(drill.getId())) {
+                relatedDrillMap.put(drill.getId(), new DrillRelatedDTO(drill));
+            }
+        }
+        drillService.findAllRelated(missingRelatedIds)
+            .forEach(relatedDrill -> relatedDrillMap.put(relatedDrill.getId(), relatedDrill));
+
+        return drills.stream()
+            .map(drill -> {
+                DrillResponseDTO dto = new DrillResponseDTO(drill);
+                if (null != drill.getRelatedDrills()) {
+                    dto.setRelatedDrills(drill.getRelatedDrills().stream()
+                        .map(relatedDrillMap::get)
+                        // Skip any related drills that no longer exist
+                        .filter(relatedDrill -> null != relatedDrill)
+                        .sorted((drill1, drill2) -> drill1.getName().compareToIgnoreCase(drill2.getName()))
+                        .collect(Collectors.toList()));
+                }
+                return dto;
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Build the response for a list endpoint when only some fields were selected.
+     *
+     * @param drills Summaries of the drills to return.
+     * @param selection Selected fields.
+     * @return ResponseEntity with List of partially populated DrillResponseDTO objects.
+     */
+    private ResponseEntity<List<DrillResponseDTO>> toPartialResponse(List<DrillSummary> drills,
+            DrillFieldSelection selection) {
+        if (drills.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+
+        return ResponseEntity.ok(toPartialDTOs(drills, selection));
+    }
+
+    /**
+     * Create DrillResponseDTO objects loading only the associations needed for the selected
+     * fields. Unselected fields are removed later by {@link DrillFieldSelectionAdvice}.
+     *
+     * @param drills Summaries of the drills to return.
+     * @param selection Selected fields.
+     * @return List of partially populated DrillResponseDTO objects, in the same order.
+     */
+    private List<DrillResponseDTO> toPartialDTOs(List<DrillSummary> drills,
+            DrillFieldSelection selection) {
+        Set<DrillAssociation> associations = selection.getAssociations();
+        List<DrillEntity> partialDrills = drillService.findAllPartial(drills, associations);
+
+        if (!associations.contains(DrillAssociation.RELATED_DRILLS)) {
+            return partialDrills.stream()
+                .map(DrillResponseDTO::new)
+                .collect(Collectors.toList());
+        }
+
+        // Look up the names of every related drill at once
+        Map<Long, DrillRelatedDTO> relatedDrillMap = drillService.findAllSummaries(
+                partialDrills.stream()
+                    .flatMap(drill -> drill.getRelatedDrills().stream())
+                    .collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(DrillSummary::getId, DrillRelatedDTO::new));
+
+        return partialDrills.stream()
+            .map(drill -> {
+                DrillResponseDTO dto = new DrillResponseDTO(drill);
+                dto.setRelatedDrills(drill.getRelatedDrills().stream()
+                    .map(relatedDrillMap::get)
+                    // Skip any related drills that no longer exist
+                    .filter(relatedDrill -> null != relatedDrill)
+                    .collect(Collectors.toList()));
+                return dto;
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Build the response of a GET for a single drill, with an ETag that also changes when an
+     * associated category, sub-category, or related drill does.
+     *
+     * @param version Version of the drill.
+     * @param drill Drill to return.
+     * @param request Request, which selects the variant of the response.
+     * @return ResponseEntity with the drill and its ETag.
+     */
+    private static ResponseEntity<DrillResponseDTO> toVersionedResponse(Long version, DrillResponseDTO drill,
+            HttpServletRequest request) {
+        List<Object> associated = new ArrayList<>();
+        Stream.ofNullable(drill.getCategories()).flatMap(List::stream)
+            .forEach(category -> associated.addAll(Arrays.asList(category.getId(), category.getVersion())));
+        Stream.ofNullable(drill.getSubCategories()).flatMap(List::stream)
+            .forEach(subCategory -> associated.addAll(Arrays.asList(subCategory.getId(), subCategory.getVersion())));
+        Stream.ofNullable(drill.getRelatedDrills()).flatMap(List::stream)
+            .forEach(relatedDrill -> associated.addAll(Arrays.asList(relatedDrill.getId(), relatedDrill.getName())));
+
+        return ResponseEntity.ok()
+            .headers(VersionTag.headers(version, request, associated))
+            .body(drill);
+    }
+
+    /**
+     * Build the normalized response for a list endpoint.
+     * <br><br>
+     * Names of related drills that are not already part of the list are looked up at once.
+     *
+     * @param drills Drills to return.
+     * @return ResponseEntity with the normalized list of drills.
+     */
+    private ResponseEntity<NormalizedDrillListDTO> toNormalizedResponse(List<DrillEntity> drills) {
+        if (drills.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+
+        Set<Long> missingRelatedIds = new HashSet<>();
+        /*
+         * Compiler is generating a warning for each call to drill.getRelatedDrills().
+         * We can safely ignore this because of this first null check here.
+         */
+        for (DrillEntity drill : drills) {
+            if (null != drill.getRelatedDrills()) {
+                missingRelatedIds.addAll(drill.getRelatedDrills());
+            }
+        }
+
+        List<DrillRelatedDTO> relatedDrills = new ArrayList<>();
+        for (DrillEntity drill : drills) {
+            if (missingRelatedIds.remove(drill.getId())) {
+                relatedDrills.add(new DrillRelatedDTO(drill));
+            }
+        }
+        drillService.findAllSummaries(missingRelatedIds).stream()
+            .map(DrillRelatedDTO::new)
+            .forEach(relatedDrills::add);
+
+        return ResponseEntity.ok(new NormalizedDrillListDTO(drills, relatedDrills));
+    }
 }
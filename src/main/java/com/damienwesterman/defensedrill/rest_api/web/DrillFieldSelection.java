@@ -0,0 +1,250 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.service.DrillAssociation;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Selection of {@link DrillResponseDTO} fields requested by a client through the {@code view}
+ * and {@code fields} request parameters.
+ * <br><br>
+ * {@code fields} is a comma separated list of JSON field names, where nested fields are selected
+ * with a dot, such as {@code fields=id,name,categories.name}. {@code view} is a preset selection:
+ * <ul>
+ *  <li>{@code summary} - id and name only.</li>
+ *  <li>{@code standard} - everything except instructions and category descriptions.</li>
+ *  <li>{@code full} - everything, this is the default.</li>
+ * </ul>
+ * If both are given, {@code fields} takes precedence.
+ */
+public class DrillFieldSelection {
+    public static final String VIEW_PARAM = "view";
+    public static final String FIELDS_PARAM = "fields";
+
+    /**
+     * Preset field selections.
+     */
+    public enum View {
+        SUMMARY,
+        STANDARD,
+        FULL
+    }
+
+    /** Every selectable top level field, mapped to its selectable nested fields */
+    private static final Map<String, Set<String>> SELECTABLE_FIELDS = Map.of(
+        "id",               Set.of(),
+        "name",             Set.of(),
+        "categories",       Set.of("id", "name", "description"),
+        "sub_categories",   Set.of("id", "name", "description"),
+        "related_drills",   Set.of("id", "name"),
+        "instructions",     Set.of("description", "steps", "video_id")
+    );
+
+    /** Top level fields that need a drill association to be loaded */
+    private static final Map<String, DrillAssociation> ASSOCIATION_FIELDS = Map.of(
+        "categories",       DrillAssociation.CATEGORIES,
+        "sub_categories",   DrillAssociation.SUB_CATEGORIES,
+        "related_drills",   DrillAssociation.RELATED_DRILLS,
+        "instructions",     DrillAssociation.INSTRUCTIONS
+    );
+
+    private static final DrillFieldSelection FULL_SELECTION = new DrillFieldSelection(null);
+
+    /** Selected top level fields mapped to their selected nested fields, null if everything is selected */
+    @Nullable
+    private final Map<String, Set<String>> selectedFields;
+
+    private DrillFieldSelection(@Nullable Map<String, Set<String>> selectedFields) {
+        this.selectedFields = selectedFields;
+    }
+
+    /**
+     * Build a field selection from the request parameters.
+     *
+     * @param view Name of a {@link View}, case insensitive. May be null.
+     * @param fields Comma separated list of fields. May be null.
+     * @return Field selection.
+     * @throws InvalidRequestParameterException If the view or any of the fields do not exist.
+     */
+    @NonNull
+    public static DrillFieldSelection of(@Nullable String view, @Nullable String fields) {
+        if (null != fields && !fields.isBlank()) {
+            return ofFields(fields);
+        }
+
+        if (null == view || view.isBlank()) {
+            return FULL_SELECTION;
+        }
+
+        View parsedView;
+        try {
+            parsedView = View.valueOf(view.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestParameterException(
+                "Unknown view '" + view + "'. Must be one of summary, standard, full.");
+        }
+
+        switch (parsedView) {
+            case SUMMARY:
+                return ofFields("id,name");
+            case STANDARD:
+                return ofFields("id,name,categories.id,categories.name,"
+                    + "sub_categories.id,sub_categories.name,related_drills");
+            case FULL:
+            default:
+                return FULL_SELECTION;
+        }
+    }
+
+    /**
+     * Parse a comma separated list of fields.
+     *
+     * @param fields Comma separated list of fields.
+     * @return Field selection.
+     */
+    @NonNull
+    private static DrillFieldSelection ofFields(@NonNull String fields) {
+        Map<String, Set<String>> selectedFields = new LinkedHashMap<>();
+
+        for (String field : fields.split(",")) {
+            field = field.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+
+            int dotIndex = field.indexOf('.');
+            String topLevelField = -1 == dotIndex ? field : field.substring(0, dotIndex);
+            Set<String> selectableNestedFields = SELECTABLE_FIELDS.get(topLevelField);
+            if (null == selectableNestedFields) {
+                throw new InvalidRequestParameterException("Unknown field '" + field + "'.");
+            }
+
+            Set<String> selectedNestedFields =
+                selectedFields.computeIfAbsent(topLevelField, key -> new HashSet<>());
+            if (-1 == dotIndex) {
+                selectedNestedFields.addAll(selectableNestedFields);
+            } else {
+                String nestedField = field.substring(dotIndex + 1);
+                if (!selectableNestedFields.contains(nestedField)) {
+                    throw new InvalidRequestParameterException("Unknown field '" + field + "'.");
+                }
+                selectedNestedFields.add(nestedField);
+            }
+        }
+
+        if (selectedFields.isEmpty()) {
+            return FULL_SELECTION;
+        }
+
+        return new DrillFieldSelection(selectedFields);
+    }
+
+    /**
+     * @return true if every field is selected and nothing needs to be removed.
+     */
+    public boolean isFull() {
+        return null == selectedFields;
+    }
+
+    /**
+     * @return The drill associations that must be loaded to populate the selected fields.
+     */
+    @NonNull
+    public Set<DrillAssociation> getAssociations() {
+        if (null == selectedFields) {
+            return EnumSet.allOf(DrillAssociation.class);
+        }
+
+        Set<DrillAssociation> associations = EnumSet.noneOf(DrillAssociation.class);
+        for (String field : selectedFields.keySet()) {
+            DrillAssociation association = ASSOCIATION_FIELDS.get(field);
+            if (null != association) {
+                associations.add(association);
+            }
+        }
+        return associations;
+    }
+
+    /**
+     * Remove every field that was not selected from a serialized drill, or array of drills.
+     *
+     * @param node Serialized {@link DrillResponseDTO} or array of them. Modified in place.
+     * @return The same node, for convenience.
+     */
+    @NonNull
+    public JsonNode prune(@NonNull JsonNode node) {
+        if (null == selectedFields) {
+            return node;
+        }
+
+        if (node.isArray()) {
+            node.forEach(this::pruneDrill);
+        } else {
+            pruneDrill(node);
+        }
+        return node;
+    }
+
+    /**
+     * Remove every field that was not selected from a single serialized drill.
+     *
+     * @param drill Serialized {@link DrillResponseDTO}.
+     */
+    private void pruneDrill(@NonNull JsonNode drill) {
+        if (!(drill instanceof ObjectNode drillObject)) {
+            return;
+        }
+
+        drillObject.retain(selectedFields.keySet());
+        selectedFields.forEach((field, nestedFields) -> {
+            if (nestedFields.equals(SELECTABLE_FIELDS.get(field))) {
+                // Nothing to remove
+                return;
+            }
+
+            for (JsonNode nested : drillObject.path(field)) {
+                if (nested instanceof ObjectNode nestedObject) {
+                    nestedObject.retain(nestedFields);
+                }
+            }
+        });
+    }
+}
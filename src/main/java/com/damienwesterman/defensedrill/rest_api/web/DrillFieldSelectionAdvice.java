@@ -0,0 +1,105 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.List;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Removes unselected fields from {@link DrillController} responses.
+ * <br><br>
+ * {@link DrillController} only loads the associations needed for the requested
+ * {@link DrillFieldSelection}, this is where the fields themselves (including nested fields, such
+ * as {@code categories.name}) are removed before the response is written.
+ */
+@ControllerAdvice(assignableTypes = DrillController.class)
+@RequiredArgsConstructor
+@ServletStack
+public class DrillFieldSelectionAdvice implements ResponseBodyAdvice<Object> {
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    @Nullable
+    public Object beforeBodyWrite(@Nullable Object body, @NonNull MethodParameter returnType,
+            @NonNull MediaType selectedContentType,
+            @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        if (!isDrillResponse(body) || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+
+        HttpServletRequest httpRequest = servletRequest.getServletRequest();
+        // Parameters were already validated by the controller, so this will not throw
+        DrillFieldSelection selection = DrillFieldSelection.of(
+            httpRequest.getParameter(DrillFieldSelection.VIEW_PARAM),
+            httpRequest.getParameter(DrillFieldSelection.FIELDS_PARAM));
+
+        if (selection.isFull()) {
+            return body;
+        }
+
+        return selection.prune(objectMapper.valueToTree(body));
+    }
+
+    /**
+     * @param body Response body.
+     * @return true if the body is a DrillResponseDTO or a list of them.
+     */
+    private boolean isDrillResponse(@Nullable Object body) {
+        if (body instanceof DrillResponseDTO) {
+            return true;
+        }
+
+        return body instanceof List<?> list
+            && !list.isEmpty()
+            && list.get(0) instanceof DrillResponseDTO;
+    }
+}
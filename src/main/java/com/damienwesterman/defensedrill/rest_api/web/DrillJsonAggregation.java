@@ -0,0 +1,136 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonQuery;
+import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes drill list responses with JSON built by PostgreSQL rather than through JPA and Jackson,
+ * for the endpoints listed in {@link JsonAggregationProperties}.
+ * <br><br>
+ * Only used for the full view when JSON is the negotiated format. The JSON is copied straight to
+ * the servlet response, so this must only be called directly from a handler method and never
+ * for a long-polling request.
+ */
+@Component
+@RequiredArgsConstructor
+@ServletStack
+public class DrillJsonAggregation {
+    private static final List<MediaType> PRODUCIBLE_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+        MediaType.APPLICATION_CBOR, MediaType.parseMediaType(WebConfig.APPLICATION_SMILE_VALUE));
+
+    private final JsonAggregationProperties properties;
+    private final DrillService drillService;
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    /**
+     * Whether the current request should be answered by {@link #write(DrillJsonQuery, Object)}.
+     *
+     * @param query Drill list endpoint being handled.
+     * @return true if the endpoint is enabled, the database supports it, and JSON was requested.
+     */
+    public boolean isSelected(@NonNull DrillJsonQuery query) {
+        return properties.getEndpoints().contains(query)
+            && drillService.isJsonAggregationSupported()
+            && isJsonNegotiated();
+    }
+
+    /**
+     * Write the selected drills to the current response.
+     *
+     * @param query Drills to select.
+     * @param value Value for the query, see {@link DrillJsonQuery}.
+     * @return null once the drills have been written, which Spring treats as already handled,
+     *         or a 204 response if there were none.
+     */
+    @Nullable
+    public ResponseEntity<List<DrillResponseDTO>> write(@NonNull DrillJsonQuery query, @Nullable Object value) {
+        HttpServletResponse response = currentRequest().getResponse();
+        boolean written = drillService.writeAllAsJson(query, value, () -> {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            return response.getOutputStream();
+        });
+
+        return written ? null : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Pick the response format the same way Spring does for the drill list endpoints, which
+     * produce JSON, CBOR, and Smile in that order of preference.
+     *
+     * @return true if JSON would be returned.
+     */
+    private boolean isJsonNegotiated() {
+        List<MediaType> requestedMediaTypes;
+        try {
+            requestedMediaTypes = contentNegotiationManager.resolveMediaTypes(
+                new ServletWebRequest(currentRequest().getRequest()));
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            return false;
+        }
+
+        List<MediaType> compatibleMediaTypes = new ArrayList<>();
+        for (MediaType requested : requestedMediaTypes) {
+            for (MediaType producible : PRODUCIBLE_MEDIA_TYPES) {
+                if (requested.isCompatibleWith(producible)) {
+                    compatibleMediaTypes.add(producible.copyQualityValue(requested));
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatibleMediaTypes);
+
+        return !compatibleMediaTypes.isEmpty()
+            && MediaType.APPLICATION_JSON.equalsTypeAndSubtype(compatibleMediaTypes.get(0));
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        return (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+    }
+}
@@ -43,7 +43,11 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.exception.ConcurrencyLimitExceededException;
 import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.exception.PreconditionFailedException;
 import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
 
 import lombok.extern.slf4j.Slf4j;
@@ -53,6 +57,7 @@ import lombok.extern.slf4j.Slf4j;
  */
 @ControllerAdvice
 @Slf4j
+@ServletStack
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     @Override
     @Nullable
@@ -108,6 +113,25 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                     .build());
     }
 
+    @ExceptionHandler(InvalidRequestParameterException.class)
+    public ResponseEntity<ErrorMessageDTO> handleInvalidRequestParameterException(InvalidRequestParameterException irpe) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body(ErrorMessageDTO.builder()
+                    .error("Invalid Parameter")
+                    .message(irpe.getMessage())
+                    .build());
+    }
+
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<ErrorMessageDTO> handleConcurrencyLimitExceededException(ConcurrencyLimitExceededException clee) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(clee.getRetryAfterSeconds()))
+            .body(ErrorMessageDTO.builder()
+                    .error("Service Overloaded")
+                    .message(clee.getMessage())
+                    .build());
+    }
+
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<ErrorMessageDTO> handleNoSuchElementException(NoSuchElementException nsee) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -127,7 +151,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     }
 
     @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
-    public ResponseEntity<ErrorMessageDTO> handleLockingFailureException(ObjectOptimisticLockingFailureException oolfe) {
+    public ResponseEntity<ErrorMessageDTO> handleLockingFailureException(ObjectOptimisticLockingFailureException oolfe,
+            WebRequest request) {
+        if (VersionTag.isConditional(request.getHeader(HttpHeaders.IF_MATCH))) {
+            // The entity no longer matches the If-Match ETag the client sent
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ErrorMessageDTO.builder()
+                        .error("Precondition Failed")
+                        .message("Old data: please refresh and try again")
+                        .build());
+        }
+
+        // Ex. an unconditional write lost the race against another one
         return ResponseEntity.status(HttpStatus.CONFLICT)
             .body(ErrorMessageDTO.builder()
                     .error("Update Conflict")
@@ -135,6 +170,15 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                     .build());
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorMessageDTO> handlePreconditionFailedException(PreconditionFailedException pfe) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+            .body(ErrorMessageDTO.builder()
+                    .error("Precondition Failed")
+                    .message(pfe.getMessage())
+                    .build());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorMessageDTO> handleGenericException(Exception e) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,48 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonQuery;
+
+import lombok.Data;
+
+/**
+ * Configuration of the PostgreSQL JSON aggregation path, bound from rest-api.json-aggregation.*.
+ * <br><br>
+ * No endpoints use it by default, in which case drills are always loaded through JPA.
+ */
+@Data
+@ConfigurationProperties("rest-api.json-aggregation")
+public class JsonAggregationProperties {
+    /** Drill list endpoints whose full JSON is built by the database, ex. all,by_category */
+    private Set<DrillJsonQuery> endpoints = EnumSet.noneOf(DrillJsonQuery.class);
+}
@@ -0,0 +1,222 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReadConsistencyContext;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReplicaMonitor;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parks long-polling requests for the /update endpoints until a relevant write is committed
+ * or their wait time expires.
+ * <br><br>
+ * Parked requests are held as {@link DeferredResult} objects, so they do not occupy a servlet
+ * thread or a database connection while waiting. When a {@link DatabaseChangeEvent} for the
+ * entity type arrives, each waiter re-runs its query on the application task executor.
+ * <br><br>
+ * With read replicas, the re-run must see the write that woke it up, otherwise a lagging replica
+ * answers 204 and the request sleeps through a write that was already committed. So it is only
+ * routed to a replica that has replayed the primary's LSN as of the write, see
+ * {@link ReadConsistencyContext}.
+ */
+@Component
+@ServletStack
+@Slf4j
+public class LongPollRegistry {
+    /** Re-runs without a known LSN, when it could not be read, go to the primary */
+    private static final long PRIMARY_LSN = -1L;
+    private final Map<Class<?>, Set<Waiter<?>>> waiters = new ConcurrentHashMap<>();
+    private final TaskExecutor taskExecutor;
+    private final ReplicaMonitor replicaMonitor;
+    private final long maxWaitSeconds;
+
+    public LongPollRegistry(@Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+            ObjectProvider<ReplicaMonitor> replicaMonitorProvider,
+            @Value("${rest-api.long-poll.max-wait-seconds:60}") long maxWaitSeconds) {
+        this.taskExecutor = taskExecutor;
+        this.replicaMonitor = replicaMonitorProvider.getIfAvailable();
+        this.maxWaitSeconds = maxWaitSeconds;
+    }
+
+    /**
+     * Run the query, and if it finds nothing (204) park the request until a write to the given
+     * entity type is committed or the wait time expires.
+     *
+     * @param <T> Response body type.
+     * @param entityType Entity class whose writes should wake up this request.
+     * @param waitSeconds Maximum time to wait in seconds, capped by the configured maximum.
+     * @param query Query that returns a 204 No Content response when there is nothing new.
+     * @return DeferredResult that is completed with the first non-204 response, or with 204 on timeout.
+     */
+    @NonNull
+    public <T> DeferredResult<ResponseEntity<T>> poll(@NonNull Class<?> entityType, long waitSeconds,
+            @NonNull Supplier<ResponseEntity<T>> query) {
+        long waitMillis = TimeUnit.SECONDS.toMillis(Math.min(waitSeconds, maxWaitSeconds));
+
+        if (0 >= waitMillis) {
+            // A timeout of 0 means "never time out" to the servlet container, so just answer now
+            DeferredResult<ResponseEntity<T>> deferredResult = new DeferredResult<>();
+            deferredResult.setResult(query.get());
+            return deferredResult;
+        }
+
+        DeferredResult<ResponseEntity<T>> deferredResult =
+            new DeferredResult<>(waitMillis, () -> ResponseEntity.noContent().build());
+        Waiter<T> waiter = new Waiter<>(deferredResult, query);
+
+        Set<Waiter<?>> typeWaiters = waiters.computeIfAbsent(entityType, key -> ConcurrentHashMap.newKeySet());
+        typeWaiters.add(waiter);
+        deferredResult.onCompletion(() -> typeWaiters.remove(waiter));
+
+        /*
+         * The waiter must be registered before the first query, otherwise a write that commits
+         * in between the two would never wake this request up.
+         */
+        try {
+            waiter.check();
+        } catch (RuntimeException e) {
+            typeWaiters.remove(waiter);
+            throw e;
+        }
+
+        return deferredResult;
+    }
+
+    /**
+     * Wake up all requests waiting on the written entity type once the write has been committed.
+     *
+     * @param event Database change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatabaseChange(DatabaseChangeEvent event) {
+        Set<Waiter<?>> typeWaiters = waiters.get(event.getEntityType());
+        if (null == typeWaiters || typeWaiters.isEmpty()) {
+            return;
+        }
+
+        Long lsn = currentPrimaryLsn();
+        for (Waiter<?> waiter : typeWaiters) {
+            if (null != lsn) {
+                waiter.minimumLsn.accumulateAndGet(lsn, LongPollRegistry::laterLsn);
+            }
+            // Several writes in quick succession only need to re-run each query once
+            if (waiter.checkScheduled.compareAndSet(false, true)) {
+                taskExecutor.execute(() -> {
+                    waiter.checkScheduled.set(false);
+                    // Any write after this point schedules another re-run with its own LSN
+                    long minimumLsn = waiter.minimumLsn.getAndSet(0);
+                    if (PRIMARY_LSN == minimumLsn) {
+                        ReadConsistencyContext.requirePrimary();
+                    } else if (0 < minimumLsn) {
+                        ReadConsistencyContext.setMinimumLsn(minimumLsn);
+                    }
+                    try {
+                        waiter.check();
+                    } catch (RuntimeException e) {
+                        waiter.deferredResult.setErrorResult(e);
+                    } finally {
+                        ReadConsistencyContext.clear();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @return LSN of the primary now that the write is committed, PRIMARY_LSN if it could not be
+     * read, or null without read replicas.
+     */
+    @Nullable
+    private Long currentPrimaryLsn() {
+        if (null == replicaMonitor) {
+            return null;
+        }
+
+        try {
+            return replicaMonitor.currentPrimaryLsn();
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Could not read the WAL position after a write, re-running long-polls on the primary: {}",
+                e.getMessage());
+            return PRIMARY_LSN;
+        }
+    }
+
+    private static long laterLsn(long current, long lsn) {
+        return PRIMARY_LSN == current || PRIMARY_LSN == lsn ? PRIMARY_LSN : Math.max(current, lsn);
+    }
+
+    /**
+     * Single parked request and the query used to answer it.
+     */
+    @RequiredArgsConstructor
+    private static class Waiter<T> {
+        private final DeferredResult<ResponseEntity<T>> deferredResult;
+        private final Supplier<ResponseEntity<T>> query;
+        private final AtomicBoolean checkScheduled = new AtomicBoolean(false);
+        /** LSN the next re-run must see, 0 if none */
+        private final AtomicLong minimumLsn = new AtomicLong(0);
+
+        /**
+         * Run the query and complete the request if it found anything.
+         */
+        private void check() {
+            if (deferredResult.isSetOrExpired()) {
+                return;
+            }
+
+            ResponseEntity<T> response = query.get();
+            if (!response.getStatusCode().isSameCodeAs(HttpStatus.NO_CONTENT)) {
+                deferredResult.setResult(response);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.net.URI;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * The return preference of a write request, given in its {@value #HEADER} header (RFC 7240).
+ * <br><br>
+ * With return=minimal the client does not want the written entity back, so the response is
+ * a 204 and the representation is never built. Anything else gets the representation. A
+ * preference that was given is echoed back in {@value #APPLIED_HEADER}.
+ */
+/* package-private */ enum ReturnPreference {
+    MINIMAL("return=minimal"),
+    REPRESENTATION("return=representation"),
+    /** No return preference given, behaves like REPRESENTATION. */
+    NONE(null);
+
+    public static final String HEADER = "Prefer";
+    public static final String APPLIED_HEADER = "Preference-Applied";
+
+    @Nullable
+    private final String token;
+
+    ReturnPreference(@Nullable String token) {
+        this.token = token;
+    }
+
+    /**
+     * Parse the {@value #HEADER} header of a request.
+     *
+     * @param prefer Header value, may be null.
+     * @return The return preference asked for, NONE if there is none.
+     */
+    @NonNull
+    public static ReturnPreference of(@Nullable String prefer) {
+        if (null != prefer) {
+            for (String preference : prefer.split("[,;]")) {
+                String normalized = preference.trim().replace(" ", "");
+                if (MINIMAL.token.equalsIgnoreCase(normalized)) {
+                    return MINIMAL;
+                } else if (REPRESENTATION.token.equalsIgnoreCase(normalized)) {
+                    return REPRESENTATION;
+                }
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Build the response of a successful write.
+     *
+     * @param <T> Type of the representation.
+     * @param representation Builds the representation, only called when it is returned.
+     * @return 204 for MINIMAL, 200 with the representation otherwise.
+     */
+    @NonNull
+    public <T> ResponseEntity<T> respond(@NonNull Supplier<T> representation) {
+        return respond(new HttpHeaders(), representation);
+    }
+
+    /**
+     * Build the response of a successful write.
+     *
+     * @param <T> Type of the representation.
+     * @param headers Headers to include either way, such as the ETag.
+     * @param representation Builds the representation, only called when it is returned.
+     * @return 204 for MINIMAL, 200 with the representation otherwise.
+     */
+    @NonNull
+    public <T> ResponseEntity<T> respond(@NonNull HttpHeaders headers, @NonNull Supplier<T> representation) {
+        if (MINIMAL == this) {
+            return ResponseEntity.noContent().headers(applied(headers)).build();
+        }
+
+        return ResponseEntity.ok().headers(applied(headers)).body(representation.get());
+    }
+
+    /**
+     * Build the response of a successful create.
+     *
+     * @param <T> Type of the representation.
+     * @param location Location of the created entity, included either way.
+     * @param headers Headers to include either way, such as the ETag.
+     * @param representation Builds the representation, only called when it is returned.
+     * @return 204 for MINIMAL, 201 with the representation otherwise.
+     */
+    @NonNull
+    public <T> ResponseEntity<T> created(@NonNull URI location, @NonNull HttpHeaders headers,
+            @NonNull Supplier<T> representation) {
+        if (MINIMAL == this) {
+            return ResponseEntity.noContent().location(location).headers(applied(headers)).build();
+        }
+
+        return ResponseEntity.created(location).headers(applied(headers)).body(representation.get());
+    }
+
+    @NonNull
+    private HttpHeaders applied(@NonNull HttpHeaders headers) {
+        if (null != token) {
+            headers.set(APPLIED_HEADER, token);
+        }
+
+        return headers;
+    }
+}
@@ -0,0 +1,114 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.service.DrillSampler;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
+import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.SessionQuotaDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.SessionRequestDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.SessionResponseDTO;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller for generating training sessions.
+ * <br><br>
+ * Sessions are drawn by {@link DrillSampler} from the in-memory drill index, so generating one
+ * does not touch the database.
+ */
+@Tag(
+    name = "Session Controller",
+    description = "Generates training sessions of random Drills."
+)
+@RestController
+@RequestMapping(SessionController.ENDPOINT)
+@RequiredArgsConstructor
+@ServletStack
+public class SessionController {
+    public static final String ENDPOINT = "/session";
+    private final DrillSampler drillSampler;
+    private final IdLists idLists;
+
+    /**
+     * Endpoint to generate a training session.
+     *
+     * @param sessionRequest Quotas and exclusions of the session.
+     * @return ResponseEntity containing the drawn drills of each quota.
+     */
+    @Operation(
+        summary = "Generate a training session.",
+        description = "Draws random drills for each quota in order, without drawing any drill twice or any "
+            + "excluded drill. A quota that matches too few drills is filled as far as possible."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Session was generated and returned."),
+        @ApiResponse(responseCode = "400", description = "Issue with request, check returned error message for details.",
+            content = @Content(schema = @Schema(implementation = ErrorMessageDTO.class)))
+    })
+    @Traffic(TrafficClass.INTERACTIVE_READ)
+    @PostMapping("/generate")
+    public ResponseEntity<SessionResponseDTO> generate(@RequestBody @Valid SessionRequestDTO sessionRequest) {
+        long drillCount = sessionRequest.getQuotas().stream()
+            .mapToLong(SessionQuotaDTO::getCount)
+            .sum();
+        idLists.checkSize((int) Math.min(Integer.MAX_VALUE, drillCount));
+        if (null != sessionRequest.getExcludeIds()) {
+            idLists.checkSize(sessionRequest.getExcludeIds());
+        }
+        sessionRequest.getQuotas().forEach(quota -> {
+            if (null != quota.getCategoryIds()) {
+                idLists.checkSize(quota.getCategoryIds());
+            }
+            if (null != quota.getSubCategoryIds()) {
+                idLists.checkSize(quota.getSubCategoryIds());
+            }
+        });
+
+        List<DrillSampler.Quota> quotas = sessionRequest.getQuotas().stream()
+            .map(SessionQuotaDTO::toQuota)
+            .toList();
+        return ResponseEntity.ok(new SessionResponseDTO(
+            drillSampler.sampleSession(quotas, sessionRequest.getExcludeIds(), sessionRequest.getSeed())));
+    }
+}
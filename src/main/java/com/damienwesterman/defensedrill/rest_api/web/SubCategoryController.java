@@ -29,6 +29,7 @@ package com.damienwesterman.defensedrill.rest_api.web;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
 import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
 
@@ -43,11 +44,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 )
 @RestController
 @RequestMapping(SubCategoryController.ENDPOINT)
+@ServletStack
 public class SubCategoryController extends AbstractCategoryController<SubCategoryEntity, SubCategorySerivce> {
     public final static String ENDPOINT = "/sub_category";
 
-    public SubCategoryController(SubCategorySerivce subCategorySerivce) {
-        super(subCategorySerivce);
+    public SubCategoryController(SubCategorySerivce subCategorySerivce, LongPollRegistry longPollRegistry) {
+        super(subCategorySerivce, longPollRegistry);
     }
 
     @Override
@@ -0,0 +1,74 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.web.method.HandlerMethod;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Classes of traffic that are limited independently of each other, so that one cannot slow
+ * down the others.
+ */
+public enum TrafficClass {
+    /** Cheap, latency sensitive reads, such as looking up a single drill */
+    INTERACTIVE_READ,
+    /** Reads of many entities, such as lists and /update syncs */
+    BULK_READ,
+    /** Anything that modifies the database */
+    WRITE;
+
+    /**
+     * Determine the traffic class of a request.
+     * <br><br>
+     * Uses the {@link Traffic} annotation of the handler method or its class if present,
+     * otherwise GET requests are interactive reads and everything else is a write.
+     *
+     * @param handler Handler chosen for the request.
+     * @param request The request.
+     * @return Traffic class of the request.
+     */
+    @NonNull
+    public static TrafficClass of(@NonNull Object handler, @NonNull HttpServletRequest request) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            Traffic traffic = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), Traffic.class);
+            if (null == traffic) {
+                traffic = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Traffic.class);
+            }
+            if (null != traffic) {
+                return traffic.value();
+            }
+        }
+
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())
+            ? INTERACTIVE_READ
+            : WRITE;
+    }
+}
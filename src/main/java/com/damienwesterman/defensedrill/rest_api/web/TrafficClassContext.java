@@ -0,0 +1,63 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Holds the {@link TrafficClass} of the request being processed by the current thread, so that
+ * the data source can hand out a connection from the matching partition.
+ */
+public final class TrafficClassContext {
+    private static final ThreadLocal<TrafficClass> CURRENT = new ThreadLocal<>();
+
+    private TrafficClassContext() { }
+
+    /**
+     * @return Traffic class of the current thread, null when it is not processing a REST request.
+     */
+    @Nullable
+    public static TrafficClass get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Set the traffic class of the current thread.
+     *
+     * @param trafficClass Traffic class.
+     */
+    public static void set(@NonNull TrafficClass trafficClass) {
+        CURRENT.set(trafficClass);
+    }
+
+    /**
+     * Clear the traffic class of the current thread.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,151 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.exception.PreconditionFailedException;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Conversion between entity versions and the ETag / If-Match headers.
+ * <br><br>
+ * Writes respond with the entity's optimistic locking version as a strong tag, such as "3", and
+ * writes given an If-Match header only succeed if the entity is still at that version. Otherwise
+ * the response is 412 Precondition Failed.
+ * <br><br>
+ * A GET responds with a strong tag that starts with the version, such as "3-1f2e3d4c". The body
+ * of a GET also depends on the response format, the selected fields, and the associated entities,
+ * none of which change the version, so these are folded into the rest of the tag. That way a
+ * changed representation is never answered with 304 Not Modified.
+ */
+/* package-private */ final class VersionTag {
+    /**
+     * Private Constructor.
+     */
+    private VersionTag() { }
+
+    /**
+     * Convert a version into an ETag.
+     *
+     * @param version Version of the entity.
+     * @return Quoted ETag.
+     */
+    @NonNull
+    public static String of(@NonNull Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Headers containing the ETag of a version.
+     *
+     * @param version Version of the entity, may be null.
+     * @return HttpHeaders, empty if there is no version.
+     */
+    @NonNull
+    public static HttpHeaders headers(@Nullable Long version) {
+        HttpHeaders headers = new HttpHeaders();
+        if (null != version) {
+            headers.setETag(of(version));
+        }
+        return headers;
+    }
+
+    /**
+     * Headers containing the ETag of a GET response, which also identifies the variant.
+     *
+     * @param version Version of the entity, may be null.
+     * @param request Request, whose Accept header and query parameters select the variant.
+     * @param dependencies Anything else the body depends on, must have stable hash codes such as
+     *                     numbers, strings, and lists of them.
+     * @return HttpHeaders, empty if there is no version.
+     */
+    @NonNull
+    public static HttpHeaders headers(@Nullable Long version, @NonNull HttpServletRequest request,
+            @NonNull Object... dependencies) {
+        HttpHeaders headers = new HttpHeaders();
+        if (null != version) {
+            int variant = Objects.hash(request.getHeader(HttpHeaders.ACCEPT), request.getQueryString(),
+                Arrays.hashCode(dependencies));
+            headers.setETag("\"" + version + "-" + Integer.toHexString(variant) + "\"");
+        }
+        return headers;
+    }
+
+    /**
+     * Parse the If-Match header of a request.
+     * <br><br>
+     * Only a single ETag is supported, either the tag of a write or the tag of a GET, and only its
+     * version is compared. * matches any version, same as no header. If-Match uses the strong
+     * comparison, so a weak tag never matches.
+     *
+     * @param ifMatch Header value, may be null.
+     * @return Expected version, null if any version is fine.
+     * @throws InvalidRequestParameterException Thrown when the header is not a single version ETag.
+     * @throws PreconditionFailedException Thrown when the header is a weak ETag.
+     */
+    @Nullable
+    public static Long parse(@Nullable String ifMatch) throws InvalidRequestParameterException {
+        if (null == ifMatch || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new PreconditionFailedException("A weak ETag never matches " + HttpHeaders.IF_MATCH);
+        }
+        if (2 <= tag.length() && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        int variantStart = tag.indexOf('-');
+        if (0 < variantStart) {
+            tag = tag.substring(0, variantStart);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestParameterException("Invalid " + HttpHeaders.IF_MATCH + " header: " + ifMatch);
+        }
+    }
+
+    /**
+     * Whether a write with this If-Match header is conditional on the entity's version.
+     *
+     * @param ifMatch Header value, may be null.
+     * @return true unless there is no header or it is *.
+     */
+    public static boolean isConditional(@Nullable String ifMatch) {
+        return null != ifMatch && !"*".equals(ifMatch.trim());
+    }
+}
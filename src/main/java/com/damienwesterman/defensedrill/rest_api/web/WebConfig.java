@@ -0,0 +1,113 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.damienwesterman.defensedrill.rest_api.ServletStack;
+import com.damienwesterman.defensedrill.rest_api.web.dto.NormalizedDrillListDTO;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Spring MVC configuration.
+ * <br><br>
+ * Along with JSON, responses can be negotiated as CBOR (application/cbor) or Smile
+ * (application/x-jackson-smile), and request bodies are accepted in either. These binary formats
+ * are smaller and cheaper to parse for mobile clients.
+ */
+@Configuration
+@EnableConfigurationProperties(JsonAggregationProperties.class)
+@ServletStack
+public class WebConfig implements WebMvcConfigurer {
+    public static final String FORMAT_PARAM = "format";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * Allow response formats to be chosen with the format parameter (ex. format=normalized) as
+     * well as the Accept header, for clients that cannot easily set headers.
+     */
+    @Override
+    public void configureContentNegotiation(@NonNull ContentNegotiationConfigurer configurer) {
+        configurer
+            .favorParameter(true)
+            .parameterName(FORMAT_PARAM)
+            .mediaType("json", MediaType.APPLICATION_JSON)
+            .mediaType("normalized", MediaType.parseMediaType(NormalizedDrillListDTO.MEDIA_TYPE))
+            .mediaType("cbor", MediaType.APPLICATION_CBOR)
+            .mediaType("smile", MediaType.parseMediaType(APPLICATION_SMILE_VALUE));
+    }
+
+    /**
+     * CBOR converter sharing the application's Jackson configuration.
+     * <br><br>
+     * Plain CBOR is written by default. String references (CBOR tag 256) can be turned on with
+     * rest-api.cbor.string-references=true so repeated strings, like category names, are only
+     * written once per response, but only if every client decodes the stringref extension.
+     *
+     * @param builder Jackson builder configured by Spring Boot.
+     * @param stringReferences Whether to write string references.
+     * @return The CBOR converter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder,
+            @Value("${rest-api.cbor.string-references:false}") boolean stringReferences) {
+        CBORFactory factory = CBORFactory.builder()
+            .configure(CBORGenerator.Feature.STRINGREF, stringReferences)
+            .build();
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(factory).build());
+    }
+
+    /**
+     * Smile converter sharing the application's Jackson configuration.
+     * <br><br>
+     * Shared string values are enabled along with the default shared property names, so repeated
+     * short strings, like category names, are written as back-references.
+     *
+     * @param builder Jackson builder configured by Spring Boot.
+     * @return The Smile converter.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory factory = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(factory).build());
+    }
+}
@@ -0,0 +1,78 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import org.springframework.lang.NonNull;
+
+import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * DTO for partial updates of an {@link AbstractCategoryEntity}, as a JSON Merge Patch.
+ * <br><br>
+ * Fields that are left out are not changed. Name and description cannot be removed, so a null
+ * value also leaves them unchanged.
+ * <br><br>
+ * This is an inbound request only.
+ */
+@Schema(
+    name = "CategoryPatch",
+    description = "Fields of a category to change, fields that are left out are not changed."
+)
+@Data
+public class AbstractCategoryPatchDTO {
+    @Schema(
+        description = "Consice category name.",
+        example = "Strikes"
+    )
+    @Size(min = 1, max = 255)
+    private String name;
+
+    @Schema(
+        description = "Detailed category description.",
+        example = "Using your arms and hands to strike your opponent."
+    )
+    @Size(min = 1, max = 511)
+    private String description;
+
+    /**
+     * Apply the changes to an existing category.
+     *
+     * @param abstractCategory AbstractCategoryEntity object to modify.
+     */
+    public void applyTo(@NonNull AbstractCategoryEntity abstractCategory) {
+        if (null != name) {
+            abstractCategory.setName(name);
+        }
+        if (null != description) {
+            abstractCategory.setDescription(description);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO containing the drills, categories, and sub-categories whose names start with a prefix.
+ * <br><br>
+ * Types that were not requested are left out. This is an outbound request only.
+ */
+@Schema(
+    name = "Autocomplete",
+    description = "Names starting with the requested prefix, by type."
+)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteDTO {
+    @Schema(
+        description = "Matching Drills, sorted by name."
+    )
+    private List<Match> drills;
+
+    @Schema(
+        description = "Matching Categories, sorted by name."
+    )
+    private List<Match> categories;
+
+    @Schema(
+        description = "Matching SubCategories, sorted by name."
+    )
+    @JsonProperty("sub_categories")
+    private List<Match> subCategories;
+
+    /**
+     * Name and ID of a single match.
+     */
+    @Schema(
+        name = "AutocompleteMatch",
+        description = "Name and ID of a Drill, Category, or SubCategory."
+    )
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Match {
+        @Schema(
+            description = "Database generated ID.",
+            example = "12345"
+        )
+        private Long id;
+
+        @Schema(
+            description = "Name.",
+            example = "Round Kick"
+        )
+        private String name;
+    }
+}
@@ -0,0 +1,85 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * DTO for a single request within a {@link BatchRequestDTO}.
+ * <br><br>
+ * Used for incoming requests only.
+ */
+@Schema(
+    name = "BatchSubRequest",
+    description = "Single REST request to execute as part of a batch."
+)
+@Data
+public class BatchSubRequestDTO {
+    @Schema(
+        description = "Optional caller chosen ID, echoed back in the matching response.",
+        example = "drill-1"
+    )
+    @Nullable
+    @Size(max = 255)
+    private String id;
+
+    @Schema(
+        description = "HTTP method, defaults to GET.",
+        example = "GET"
+    )
+    @Pattern(regexp = "GET|POST|PUT|PATCH|DELETE", message = "must be one of GET, POST, PUT, PATCH, or DELETE")
+    private String method = "GET";
+
+    @Schema(
+        description = "Path of a drill, category, or sub-category endpoint, with an optional query string.",
+        example = "/drill/id/1?view=standard"
+    )
+    @NotEmpty
+    @Size(max = 2047)
+    private String path;
+
+    @Schema(
+        description = "Optional request headers. The Accept header defaults to application/json."
+    )
+    @Nullable
+    private Map<String, String> headers;
+
+    @Schema(
+        description = "Optional JSON request body."
+    )
+    @Nullable
+    private JsonNode body;
+}
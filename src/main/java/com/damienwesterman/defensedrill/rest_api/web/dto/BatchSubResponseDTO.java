@@ -0,0 +1,78 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for the response to a single {@link BatchSubRequestDTO}.
+ * <br><br>
+ * This is an outbound request only.
+ */
+@Schema(
+    name = "BatchSubResponse",
+    description = "Response to a single sub-request of a batch."
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchSubResponseDTO {
+    @Schema(
+        description = "ID given in the sub-request, if any.",
+        example = "drill-1"
+    )
+    private String id;
+
+    @Schema(
+        description = "HTTP status code of the sub-request.",
+        example = "200"
+    )
+    private int status;
+
+    @Schema(
+        description = "Response headers of the sub-request, ex. Location."
+    )
+    private Map<String, String> headers;
+
+    @Schema(
+        description = "Response body of the sub-request, if any."
+    )
+    private JsonNode body;
+}
@@ -0,0 +1,220 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.lang.NonNull;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for partial updates of a {@link DrillEntity}, as a JSON Merge Patch.
+ * <br><br>
+ * Fields that are left out are not changed. The name cannot be removed, so a null name also
+ * leaves it unchanged, while a null list removes everything in it. Lists that are given replace
+ * the drill's list as a whole.
+ * <br><br>
+ * This is an inbound request only.
+ */
+@Schema(
+    name = "DrillPatch",
+    description = "Fields of a Drill to change, fields that are left out are not changed."
+)
+@Getter
+@NoArgsConstructor
+public class DrillPatchDTO {
+    @Schema(
+        description = "New name of the Drill.",
+        example = "Round Kick"
+    )
+    @Size(min = 1, max = 255)
+    @Setter
+    private String name;
+
+    @Schema(
+        description = "List of Category IDs the Drill belongs to, null to remove all.",
+        example = "[1,2,3,4,5]"
+    )
+    @JsonProperty("categories")
+    private List<Long> categoryIds;
+
+    @Schema(
+        description = "List of SubCategory IDs the Drill belongs to, null to remove all.",
+        example = "[1,2,3,4,5]"
+    )
+    @JsonProperty("sub_categories")
+    private List<Long> subCategoryIds;
+
+    @Schema(
+        description = "List of Drill IDs this Drill mentions, null to remove all.",
+        example = "[6,7,8,9,0]"
+    )
+    @JsonProperty("related_drills")
+    private List<Long> relatedDrills;
+
+    @Schema(
+        description = "List of different instructions to perform this drill, null to remove all."
+    )
+    @Valid
+    private List<InstructionsDTO> instructions;
+
+    /** Distinguish a null list from one that was left out */
+    @JsonIgnore
+    private boolean categoryIdsPresent;
+    @JsonIgnore
+    private boolean subCategoryIdsPresent;
+    @JsonIgnore
+    private boolean relatedDrillsPresent;
+    @JsonIgnore
+    private boolean instructionsPresent;
+
+    @JsonProperty("categories")
+    public void setCategoryIds(List<Long> categoryIds) {
+        this.categoryIds = categoryIds;
+        this.categoryIdsPresent = true;
+    }
+
+    @JsonProperty("sub_categories")
+    public void setSubCategoryIds(List<Long> subCategoryIds) {
+        this.subCategoryIds = subCategoryIds;
+        this.subCategoryIdsPresent = true;
+    }
+
+    @JsonProperty("related_drills")
+    public void setRelatedDrills(List<Long> relatedDrills) {
+        this.relatedDrills = relatedDrills;
+        this.relatedDrillsPresent = true;
+    }
+
+    public void setInstructions(List<InstructionsDTO> instructions) {
+        this.instructions = instructions;
+        this.instructionsPresent = true;
+    }
+
+    /**
+     * Apply the changes to an existing, managed drill.
+     * <br><br>
+     * Only what actually differs is touched, so an unchanged list is never rewritten and
+     * instructions are updated row by row instead of being deleted and inserted again.
+     * <br><br>
+     * <b>NOTE:</b> This does not look up the categories or subCategories, the caller resolves
+     * {@link #getCategoryIds()} and {@link #getSubCategoryIds()} and passes them in.
+     *
+     * @param drill DrillEntity object to modify.
+     * @param categories Categories of {@link #getCategoryIds()}, ignored if they were left out.
+     * @param subCategories SubCategories of {@link #getSubCategoryIds()}, ignored if they were left out.
+     */
+    public void applyTo(@NonNull DrillEntity drill, @NonNull List<CategoryEntity> categories,
+            @NonNull List<SubCategoryEntity> subCategories) {
+        if (null != name) {
+            drill.setName(name);
+        }
+
+        if (categoryIdsPresent && !sameIds(ids(drill.getCategories(), CategoryEntity::getId),
+                ids(categories, CategoryEntity::getId))) {
+            drill.setCategories(new ArrayList<>(categories));
+        }
+        if (subCategoryIdsPresent && !sameIds(ids(drill.getSubCategories(), SubCategoryEntity::getId),
+                ids(subCategories, SubCategoryEntity::getId))) {
+            drill.setSubCategories(new ArrayList<>(subCategories));
+        }
+        if (relatedDrillsPresent) {
+            List<Long> newRelatedDrills = null == relatedDrills ? List.of() : relatedDrills;
+            if (!sameIds(drill.getRelatedDrills(), newRelatedDrills)) {
+                drill.setRelatedDrills(new ArrayList<>(newRelatedDrills));
+            }
+        }
+
+        if (instructionsPresent) {
+            applyInstructionsTo(drill);
+        }
+    }
+
+    /**
+     * Update the drill's instructions in place, they are ordered by number so position i holds
+     * number i. Orphan removal deletes the ones that are left over.
+     *
+     * @param drill DrillEntity object to modify.
+     */
+    private void applyInstructionsTo(@NonNull DrillEntity drill) {
+        List<InstructionsDTO> newInstructions = null == instructions ? List.of() : instructions;
+        if (null == drill.getInstructions()) {
+            drill.setInstructions(new ArrayList<>());
+        }
+        List<InstructionsEntity> existing = drill.getInstructions();
+
+        for (int i = 0; i < newInstructions.size(); i++) {
+            InstructionsDTO instructionsDTO = newInstructions.get(i);
+            InstructionsEntity instructionsEntity;
+            if (i < existing.size()) {
+                instructionsEntity = existing.get(i);
+            } else {
+                instructionsEntity = InstructionsEntity.builder()
+                    .drillId(drill.getId())
+                    .number((long) i)
+                    .build();
+                existing.add(instructionsEntity);
+            }
+
+            // Hibernate only writes the rows whose values actually changed
+            instructionsEntity.setDescription(instructionsDTO.getDescription());
+            instructionsEntity.setStepsFromList(instructionsDTO.getSteps());
+            instructionsEntity.setVideoId(instructionsDTO.getVideoId());
+        }
+
+        while (existing.size() > newInstructions.size()) {
+            existing.remove(existing.size() - 1);
+        }
+    }
+
+    @NonNull
+    private static <T> List<Long> ids(Collection<T> entities, Function<T, Long> getId) {
+        return null == entities ? List.of() : entities.stream().map(getId).toList();
+    }
+
+    private static boolean sameIds(Collection<Long> ids1, Collection<Long> ids2) {
+        List<Long> sorted1 = null == ids1 ? List.of() : ids1.stream().sorted().toList();
+        List<Long> sorted2 = null == ids2 ? List.of() : ids2.stream().sorted().toList();
+        return sorted1.equals(sorted2);
+    }
+}
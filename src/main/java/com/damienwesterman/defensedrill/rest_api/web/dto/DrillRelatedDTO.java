@@ -29,6 +29,7 @@ package com.damienwesterman.defensedrill.rest_api.web.dto;
 import org.springframework.lang.NonNull;
 
 import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -74,4 +75,14 @@ public class DrillRelatedDTO {
         this.id = drill.getId();
         this.name = drill.getName();
     }
+
+    /**
+     * Parameterized constructor using a DrillSummary object.
+     *
+     * @param drill DrillSummary object to represent in a DTO.
+     */
+    public DrillRelatedDTO(@NonNull DrillSummary drill) {
+        this.id = drill.getId();
+        this.name = drill.getName();
+    }
 }
@@ -113,18 +113,8 @@ public class DrillResponseDTO {
     public DrillResponseDTO(@NonNull DrillEntity drill, @Nullable List<DrillEntity> relatedDrills) {
         this.id = drill.getId();
         this.name = drill.getName();
-
-        if (null == drill.getCategories()) {
-            this.categories = new ArrayList<>();
-        } else {
-            this.categories = drill.getCategories();
-        }
-
-        if (null == drill.getSubCategories()) {
-            this.subCategories = new ArrayList<>();
-        } else {
-            this.subCategories = drill.getSubCategories();
-        }
+        this.categories = orEmpty(drill.getCategories());
+        this.subCategories = orEmpty(drill.getSubCategories());
 
         if (null == relatedDrills) {
             this.relatedDrills = new ArrayList<>();
@@ -134,12 +124,34 @@ public class DrillResponseDTO {
                                     .collect(Collectors.toList());
         }
 
+        this.instructions = mapInstructions(drill);
+    }
+
+    /**
+     * Shared with {@link NormalizedDrillDTO} so both formats handle missing lists the same way.
+     *
+     * @param list List from a DrillEntity, may be null.
+     * @return The same list, or a new empty list if it was null.
+     */
+    @NonNull
+    static <T> List<T> orEmpty(@Nullable List<T> list) {
+        return null == list ? new ArrayList<>() : list;
+    }
+
+    /**
+     * Shared with {@link NormalizedDrillDTO} so both formats map instructions the same way.
+     *
+     * @param drill DrillEntity containing the instructions.
+     * @return List of InstructionsDTO objects, empty if the drill has none.
+     */
+    @NonNull
+    static List<InstructionsDTO> mapInstructions(@NonNull DrillEntity drill) {
         if (null == drill.getInstructions()) {
-            this.instructions = new ArrayList<>();
-        } else {
-            this.instructions = drill.getInstructions().stream()
-                                    .map(InstructionsDTO::new)
-                                    .collect(Collectors.toList());
+            return new ArrayList<>();
         }
+
+        return drill.getInstructions().stream()
+                    .map(InstructionsDTO::new)
+                    .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,179 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO containing drill counts by category and sub-category, and instruction coverage.
+ * <br><br>
+ * This DTO should only be outbound, <b><i>NEVER</b></i> inbound requests as it contains no
+ * input validation.
+ */
+@Schema(
+    name = "DrillStats",
+    description = "Drill counts by Category and SubCategory, and Instructions coverage."
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DrillStatsDTO {
+    @Schema(
+        description = "Total number of Drills.",
+        example = "120"
+    )
+    private long drills;
+
+    @Schema(
+        description = "Number of Drills in each Category, including empty Categories."
+    )
+    private List<AssociationCount> categories;
+
+    @Schema(
+        description = "Number of Drills in each SubCategory, including empty SubCategories."
+    )
+    @JsonProperty("sub_categories")
+    private List<AssociationCount> subCategories;
+
+    @Schema(
+        description = "Number of Drills in each Category and SubCategory pair, only pairs with Drills are listed."
+    )
+    private List<MatrixCount> matrix;
+
+    @Schema(
+        description = "Number of Drills without any Category.",
+        example = "3"
+    )
+    @JsonProperty("without_categories")
+    private long withoutCategories;
+
+    @Schema(
+        description = "Number of Drills without any SubCategory.",
+        example = "5"
+    )
+    @JsonProperty("without_sub_categories")
+    private long withoutSubCategories;
+
+    @Schema(
+        description = "Number of Drills with at least one set of Instructions.",
+        example = "100"
+    )
+    @JsonProperty("with_instructions")
+    private long withInstructions;
+
+    @Schema(
+        description = "Number of Drills with at least one Instructions video.",
+        example = "80"
+    )
+    @JsonProperty("with_videos")
+    private long withVideos;
+
+    @Schema(
+        description = "Total number of Instructions.",
+        example = "240"
+    )
+    private long instructions;
+
+    @Schema(
+        description = "Number of Instructions with a video.",
+        example = "150"
+    )
+    @JsonProperty("instructions_with_videos")
+    private long instructionsWithVideos;
+
+    /**
+     * Number of drills in a single category or sub-category.
+     */
+    @Schema(
+        name = "AssociationCount",
+        description = "Number of Drills in a Category or SubCategory."
+    )
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AssociationCount {
+        @Schema(
+            description = "ID of the Category or SubCategory.",
+            example = "12345"
+        )
+        private Long id;
+
+        @Schema(
+            description = "Name of the Category or SubCategory.",
+            example = "Kicks"
+        )
+        private String name;
+
+        @Schema(
+            description = "Number of Drills.",
+            example = "12"
+        )
+        private long drills;
+    }
+
+    /**
+     * Number of drills in both a category and a sub-category.
+     */
+    @Schema(
+        name = "MatrixCount",
+        description = "Number of Drills in both a Category and a SubCategory."
+    )
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MatrixCount {
+        @Schema(
+            description = "ID of the Category.",
+            example = "12345"
+        )
+        @JsonProperty("category_id")
+        private Long categoryId;
+
+        @Schema(
+            description = "ID of the SubCategory.",
+            example = "12345"
+        )
+        @JsonProperty("sub_category_id")
+        private Long subCategoryId;
+
+        @Schema(
+            description = "Number of Drills.",
+            example = "4"
+        )
+        private long drills;
+    }
+}
@@ -0,0 +1,106 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.List;
+
+import org.springframework.lang.NonNull;
+
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for partial updates of a single {@link InstructionsEntity}.
+ * <br><br>
+ * Fields that are left out are not changed. Description and steps cannot be removed, so a null
+ * value also leaves them unchanged, while a null video_id removes the video.
+ * <br><br>
+ * This is an inbound request only.
+ */
+@Schema(
+    name = "InstructionsPatch",
+    description = "Fields of Instructions to change, fields that are left out are not changed."
+)
+@Getter
+@NoArgsConstructor
+public class InstructionsPatchDTO {
+    @Schema(
+        description = "Description of the Instructions.",
+        example = "Pluck then Strike"
+    )
+    @Size(min = 1, max = 511)
+    @Setter
+    private String description;
+
+    @Schema(
+        description = "List of steps. No numbers needed.",
+        example = "[\"Pluck\",\"Strike\"]"
+    )
+    @Size(min = 1)
+    @Setter
+    private List<String> steps;
+
+    @Schema(
+        description = "Jellyfin Item ID, null to remove the video.",
+        example = "abcdefg123456789"
+    )
+    @JsonProperty("video_id")
+    @Size(max = 127)
+    private String videoId;
+
+    /** Distinguishes a null video_id from one that was left out */
+    @JsonIgnore
+    private boolean videoIdPresent;
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+        this.videoIdPresent = true;
+    }
+
+    /**
+     * Apply the changes to existing instructions.
+     *
+     * @param instructions InstructionsEntity object to modify.
+     */
+    public void applyTo(@NonNull InstructionsEntity instructions) {
+        if (null != description) {
+            instructions.setDescription(description);
+        }
+        if (null != steps) {
+            instructions.setStepsFromList(steps);
+        }
+        if (videoIdPresent) {
+            instructions.setVideoId(videoId);
+        }
+    }
+}
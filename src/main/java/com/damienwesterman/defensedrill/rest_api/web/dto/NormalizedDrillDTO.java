@@ -0,0 +1,119 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.lang.NonNull;
+
+import com.damienwesterman.defensedrill.rest_api.entity.AbstractCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for a single drill within a {@link NormalizedDrillListDTO}.
+ * <br><br>
+ * Same as {@link DrillResponseDTO}, except categories, sub-categories, and related drills are
+ * only referenced by their IDs. Their details are found in the dictionaries of the enclosing
+ * NormalizedDrillListDTO.
+ * <br><br>
+ * This DTO should only be outbound, <b><i>NEVER</b></i> inbound requests as it contains no
+ * input validation.
+ */
+@Schema(
+    name = "NormalizedDrill",
+    description = "Drill information referencing categories and related drills by ID."
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NormalizedDrillDTO {
+    @Schema(
+        description = "Database generated ID.",
+        example = "12345"
+    )
+    private Long id;
+
+    @Schema(
+        description = "Name of the Drill.",
+        example = "Round Kick"
+    )
+    private String name;
+
+    @Schema(
+        description = "List of Category IDs the Drill belongs to, see the top level categories."
+    )
+    private List<Long> categories;
+
+    @Schema(
+        description = "List of SubCategory IDs the Drill belongs to, see the top level sub_categories."
+    )
+    @JsonProperty("sub_categories")
+    private List<Long> subCategories;
+
+    @Schema(
+        description = "List of Drill IDs this Drill mentions, see the top level related."
+    )
+    @JsonProperty("related_drills")
+    private List<Long> relatedDrills;
+
+    @Schema(
+        description = "List of Instructional how-tos to perform this Drill."
+    )
+    private List<InstructionsDTO> instructions;
+
+    /**
+     * Parameterized constructor using a DrillEntity object.
+     *
+     * @param drill DrillEntity object to represent in a DTO.
+     * @param relatedDrills Dictionary of known related drills, related drill IDs not in here are
+     *                      left out.
+     */
+    public NormalizedDrillDTO(@NonNull DrillEntity drill, @NonNull Map<Long, DrillRelatedDTO> relatedDrills) {
+        this.id = drill.getId();
+        this.name = drill.getName();
+        this.categories = DrillResponseDTO.orEmpty(drill.getCategories()).stream()
+                            .map(AbstractCategoryEntity::getId)
+                            .collect(Collectors.toList());
+        this.subCategories = DrillResponseDTO.orEmpty(drill.getSubCategories()).stream()
+                            .map(AbstractCategoryEntity::getId)
+                            .collect(Collectors.toList());
+        this.relatedDrills = DrillResponseDTO.orEmpty(drill.getRelatedDrills()).stream()
+                            .filter(relatedDrills::containsKey)
+                            .collect(Collectors.toList());
+        this.instructions = DrillResponseDTO.mapInstructions(drill);
+    }
+}
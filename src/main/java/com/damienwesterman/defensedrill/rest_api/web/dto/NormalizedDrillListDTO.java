@@ -0,0 +1,117 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.NonNull;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Normalized DTO for responses containing a list of {@link DrillEntity} types.
+ * <br><br>
+ * Every category, sub-category, and related drill is included only once in a top level
+ * dictionary keyed by its ID, and each drill only holds the IDs. This avoids repeating the same
+ * category descriptions in every drill of a large list.
+ * <br><br>
+ * This DTO should only be outbound, <b><i>NEVER</b></i> inbound requests as it contains no
+ * input validation.
+ */
+@Schema(
+    name = "NormalizedDrillList",
+    description = "List of Drills with categories, sub-categories, and related drills de-duplicated by ID."
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class NormalizedDrillListDTO {
+    /** Media type to request this format, also selectable with the format=normalized parameter */
+    public static final String MEDIA_TYPE = "application/vnd.defensedrill.normalized+json";
+
+    @Schema(
+        description = "List of Drills."
+    )
+    private List<NormalizedDrillDTO> drills;
+
+    @Schema(
+        description = "Every Category referenced by the Drills, keyed by ID."
+    )
+    private Map<Long, CategoryEntity> categories;
+
+    @Schema(
+        description = "Every SubCategory referenced by the Drills, keyed by ID."
+    )
+    @JsonProperty("sub_categories")
+    private Map<Long, SubCategoryEntity> subCategories;
+
+    @Schema(
+        description = "Every Drill referenced as a related drill, keyed by ID."
+    )
+    private Map<Long, DrillRelatedDTO> related;
+
+    /**
+     * Parameterized constructor building the dictionaries and drills in a single pass.
+     *
+     * @param drills List of DrillEntity objects to represent, order is preserved.
+     * @param relatedDrills Every drill that may be referenced as a related drill.
+     */
+    public NormalizedDrillListDTO(@NonNull List<DrillEntity> drills,
+            @NonNull Collection<DrillRelatedDTO> relatedDrills) {
+        this.drills = new ArrayList<>(drills.size());
+        this.categories = new LinkedHashMap<>();
+        this.subCategories = new LinkedHashMap<>();
+
+        Map<Long, DrillRelatedDTO> knownRelatedDrills = new LinkedHashMap<>();
+        relatedDrills.forEach(relatedDrill -> knownRelatedDrills.put(relatedDrill.getId(), relatedDrill));
+        this.related = new LinkedHashMap<>();
+
+        for (DrillEntity drill : drills) {
+            DrillResponseDTO.orEmpty(drill.getCategories())
+                .forEach(category -> this.categories.putIfAbsent(category.getId(), category));
+            DrillResponseDTO.orEmpty(drill.getSubCategories())
+                .forEach(subCategory -> this.subCategories.putIfAbsent(subCategory.getId(), subCategory));
+
+            NormalizedDrillDTO normalizedDrill = new NormalizedDrillDTO(drill, knownRelatedDrills);
+            normalizedDrill.getRelatedDrills()
+                .forEach(relatedId -> this.related.putIfAbsent(relatedId, knownRelatedDrills.get(relatedId)));
+            this.drills.add(normalizedDrill);
+        }
+    }
+}
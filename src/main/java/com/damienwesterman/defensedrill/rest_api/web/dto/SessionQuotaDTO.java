@@ -0,0 +1,81 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.List;
+
+import com.damienwesterman.defensedrill.rest_api.service.DrillSampler;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * DTO for a single quota within a {@link SessionRequestDTO}.
+ * <br><br>
+ * Used for incoming requests only.
+ */
+@Schema(
+    name = "SessionQuota",
+    description = "Number of drills to draw from the drills matching the filters."
+)
+@Data
+public class SessionQuotaDTO {
+    @Schema(
+        description = "Optional category IDs, drills in any of them match.",
+        example = "[1, 2]"
+    )
+    @Nullable
+    private List<Long> categoryIds;
+
+    @Schema(
+        description = "Optional sub-category IDs, drills in any of them match. "
+            + "Drills must match both filters when both are given.",
+        example = "[3]"
+    )
+    @Nullable
+    private List<Long> subCategoryIds;
+
+    @Schema(
+        description = "Number of drills to draw.",
+        example = "2"
+    )
+    @NotNull
+    @Min(1)
+    private Integer count;
+
+    /**
+     * Convert the DTO into its equivalent {@link DrillSampler.Quota} representation.
+     *
+     * @return Quota object.
+     */
+    public DrillSampler.Quota toQuota() {
+        return new DrillSampler.Quota(count, categoryIds, subCategoryIds);
+    }
+}
@@ -0,0 +1,70 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.annotation.Nullable;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * DTO for generating a training session of random drills.
+ * <br><br>
+ * Used for incoming requests only.
+ */
+@Schema(
+    name = "SessionRequest",
+    description = "Quotas of drills to draw for a training session."
+)
+@Data
+public class SessionRequestDTO {
+    @Schema(
+        description = "Quotas, drawn in the given order. A drill is never drawn for two quotas."
+    )
+    @NotEmpty
+    @Size(max = 100)
+    @Valid
+    private List<SessionQuotaDTO> quotas;
+
+    @Schema(
+        description = "Optional IDs of drills to never draw, ex. the drills of recent sessions.",
+        example = "[1, 2, 3]"
+    )
+    @Nullable
+    private List<Long> excludeIds;
+
+    @Schema(
+        description = "Optional seed, the same seed generates the same session while the drills are unchanged.",
+        example = "12345"
+    )
+    @Nullable
+    private Long seed;
+}
@@ -0,0 +1,56 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.web.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO containing a generated training session, see {@link SessionRequestDTO}.
+ * <br><br>
+ * This is an outbound request only.
+ */
+@Schema(
+    name = "Session",
+    description = "Drills drawn for each quota of a session request."
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionResponseDTO {
+    @Schema(
+        description = "Drawn drills of each quota, in the same order as the quotas. A quota that matches "
+            + "too few drills contains fewer drills than requested."
+    )
+    private List<List<DrillRelatedDTO>> quotas;
+}
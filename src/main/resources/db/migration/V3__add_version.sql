@@ -0,0 +1,15 @@
+-- Migration to add optimistic locking versions to drills, categories, and sub-categories
+ALTER table drills ADD COLUMN version
+    BIGINT
+    NOT NULL
+    DEFAULT 0;
+
+ALTER table categories ADD COLUMN version
+    BIGINT
+    NOT NULL
+    DEFAULT 0;
+
+ALTER table sub_categories ADD COLUMN version
+    BIGINT
+    NOT NULL
+    DEFAULT 0;
@@ -52,16 +52,26 @@ import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
 import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
 import com.damienwesterman.defensedrill.rest_api.repository.InstructionsRepo;
 import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.web.BatchController;
+import com.damienwesterman.defensedrill.rest_api.web.Bulkhead;
+import com.damienwesterman.defensedrill.rest_api.web.BulkheadInterceptor;
 import com.damienwesterman.defensedrill.rest_api.web.CategoryController;
 import com.damienwesterman.defensedrill.rest_api.web.DrillController;
+import com.damienwesterman.defensedrill.rest_api.web.TrafficClass;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchRequestDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchSubRequestDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.BatchSubResponseDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillCreateDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillUpdateDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @SuppressWarnings("null")
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "rest-api.grpc.port=0")
 public class EndToEndTest {
     @Autowired
     TestRestTemplate restTemplate;
@@ -73,6 +83,8 @@ public class EndToEndTest {
     CategoryRepo categoryRepo;
     @Autowired
     SubCategoryRepo subCategoryRepo;
+    @Autowired
+    BulkheadInterceptor bulkheadInterceptor;
 
     DrillEntity drill1;
     CategoryEntity category1;
@@ -418,4 +430,131 @@ public class EndToEndTest {
                 Object.class);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
+
+    @Test
+    public void test_batch_executesSubRequestsInOrder() {
+        category1 = categoryRepo.save(category1);
+
+        BatchSubRequestDTO createDrill = new BatchSubRequestDTO();
+        createDrill.setId("create");
+        createDrill.setMethod("POST");
+        createDrill.setPath(DrillController.ENDPOINT);
+        createDrill.setBody(new ObjectMapper().valueToTree(dtoToSend));
+        BatchSubRequestDTO getDrill = new BatchSubRequestDTO();
+        getDrill.setId("drill");
+        getDrill.setPath(DrillController.ENDPOINT + "/name/" + DRILL_NAME_1.replace(" ", "%20") + "?view=summary");
+        BatchSubRequestDTO getCategory = new BatchSubRequestDTO();
+        getCategory.setPath(CategoryController.ENDPOINT + "/id/" + category1.getId());
+        BatchSubRequestDTO getMissingCategory = new BatchSubRequestDTO();
+        getMissingCategory.setPath(CategoryController.ENDPOINT + "/id/0");
+        BatchRequestDTO batchRequest = new BatchRequestDTO();
+        batchRequest.setRequests(List.of(createDrill, getDrill, getCategory, getMissingCategory));
+
+        ResponseEntity<BatchResponseDTO> response =
+            restTemplate.postForEntity(URI.create(BatchController.ENDPOINT), batchRequest, BatchResponseDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<BatchSubResponseDTO> subResponses = response.getBody().getResponses();
+        assertEquals(4, subResponses.size());
+        assertEquals("create", subResponses.get(0).getId());
+        assertEquals(HttpStatus.CREATED.value(), subResponses.get(0).getStatus());
+        assertTrue(subResponses.get(0).getHeaders().containsKey("Location"));
+        assertEquals("drill", subResponses.get(1).getId());
+        assertEquals(HttpStatus.OK.value(), subResponses.get(1).getStatus());
+        assertEquals(DRILL_NAME_1, subResponses.get(1).getBody().get("name").asText());
+        assertTrue(subResponses.get(1).getBody().path("categories").isMissingNode());
+        assertEquals(CATEGORY_NAME_1, subResponses.get(2).getBody().get("name").asText());
+        assertEquals(HttpStatus.NOT_FOUND.value(), subResponses.get(3).getStatus());
+        assertEquals(1, drillRepo.count());
+    }
+
+    @Test
+    public void test_batch_failingRead_keepsOtherSubResponses() {
+        category1 = categoryRepo.save(category1);
+
+        BatchSubRequestDTO getCategory = new BatchSubRequestDTO();
+        getCategory.setPath(CategoryController.ENDPOINT + "/id/" + category1.getId());
+        BatchSubRequestDTO getInvalidView = new BatchSubRequestDTO();
+        getInvalidView.setPath(DrillController.ENDPOINT + "?view=bogus");
+        BatchRequestDTO batchRequest = new BatchRequestDTO();
+        batchRequest.setRequests(List.of(getCategory, getInvalidView, getCategory));
+
+        ResponseEntity<BatchResponseDTO> response =
+            restTemplate.postForEntity(URI.create(BatchController.ENDPOINT), batchRequest, BatchResponseDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<BatchSubResponseDTO> subResponses = response.getBody().getResponses();
+        assertEquals(3, subResponses.size());
+        assertEquals(HttpStatus.OK.value(), subResponses.get(0).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), subResponses.get(1).getStatus());
+        assertEquals(HttpStatus.OK.value(), subResponses.get(2).getStatus());
+        assertEquals(CATEGORY_NAME_1, subResponses.get(2).getBody().get("name").asText());
+    }
+
+    @Test
+    public void test_batch_withNonBatchablePath_returns400() {
+        BatchSubRequestDTO subRequest = new BatchSubRequestDTO();
+        subRequest.setPath(BatchController.ENDPOINT);
+        BatchRequestDTO batchRequest = new BatchRequestDTO();
+        batchRequest.setRequests(List.of(subRequest));
+
+        ResponseEntity<ErrorMessageDTO> response =
+            restTemplate.postForEntity(URI.create(BatchController.ENDPOINT), batchRequest, ErrorMessageDTO.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid Parameter", response.getBody().getError());
+    }
+
+    @Test
+    public void test_batch_writeSubRequest_takesItsOwnWriteSlot() {
+        // Take every write slot, reads of the batch run in the batch's own bulk read slot
+        Bulkhead writes = bulkheadInterceptor.getBulkhead(TrafficClass.WRITE);
+        int taken = 0;
+        while (writes.tryAcquire()) {
+            taken++;
+        }
+
+        try {
+            BatchSubRequestDTO getMissingCategory = new BatchSubRequestDTO();
+            getMissingCategory.setPath(CategoryController.ENDPOINT + "/id/0");
+            BatchSubRequestDTO createDrill = new BatchSubRequestDTO();
+            createDrill.setMethod("POST");
+            createDrill.setPath(DrillController.ENDPOINT);
+            createDrill.setBody(new ObjectMapper().valueToTree(dtoToSend));
+            BatchRequestDTO batchRequest = new BatchRequestDTO();
+            batchRequest.setRequests(List.of(getMissingCategory, createDrill));
+
+            ResponseEntity<BatchResponseDTO> response = restTemplate.postForEntity(
+                URI.create(BatchController.ENDPOINT), batchRequest, BatchResponseDTO.class);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            List<BatchSubResponseDTO> subResponses = response.getBody().getResponses();
+            assertEquals(HttpStatus.NOT_FOUND.value(), subResponses.get(0).getStatus());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), subResponses.get(1).getStatus());
+            assertEquals(0, drillRepo.count());
+        } finally {
+            for (int i = 0; i < taken; i++) {
+                writes.release();
+            }
+        }
+    }
+
+    @Test
+    public void test_batch_longPollSubRequest_returns400() {
+        BatchSubRequestDTO longPoll = new BatchSubRequestDTO();
+        longPoll.setPath(DrillController.ENDPOINT + "/update?updateTimestamp=0&wait=1000");
+        BatchSubRequestDTO getMissingCategory = new BatchSubRequestDTO();
+        getMissingCategory.setPath(CategoryController.ENDPOINT + "/id/0");
+        BatchRequestDTO batchRequest = new BatchRequestDTO();
+        batchRequest.setRequests(List.of(longPoll, getMissingCategory));
+
+        ResponseEntity<BatchResponseDTO> response =
+            restTemplate.postForEntity(URI.create(BatchController.ENDPOINT), batchRequest, BatchResponseDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<BatchSubResponseDTO> subResponses = response.getBody().getResponses();
+        assertEquals(HttpStatus.BAD_REQUEST.value(), subResponses.get(0).getStatus());
+        assertEquals("Invalid Parameter", subResponses.get(0).getBody().get("error").asText());
+        assertEquals(HttpStatus.NOT_FOUND.value(), subResponses.get(1).getStatus());
+    }
 }
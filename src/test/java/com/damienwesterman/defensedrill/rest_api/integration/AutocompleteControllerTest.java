@@ -0,0 +1,111 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.integration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.damienwesterman.defensedrill.rest_api.service.NameIndex;
+import com.damienwesterman.defensedrill.rest_api.web.AutocompleteController;
+import com.damienwesterman.defensedrill.rest_api.web.dto.AutocompleteDTO;
+
+@WebMvcTest(AutocompleteController.class)
+@AutoConfigureMockMvc
+public class AutocompleteControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    @MockitoBean
+    NameIndex nameIndex;
+
+    @Test
+    public void test_autocompleteEndpoint_get_searchesAllTypesByDefault() throws Exception {
+        when(nameIndex.startingWith(NameIndex.Type.DRILL, "ro", 10))
+            .thenReturn(List.of(new AutocompleteDTO.Match(1L, "Round Kick")));
+        when(nameIndex.startingWith(NameIndex.Type.CATEGORY, "ro", 10)).thenReturn(List.of());
+        when(nameIndex.startingWith(NameIndex.Type.SUB_CATEGORY, "ro", 10))
+            .thenReturn(List.of(new AutocompleteDTO.Match(2L, "Rolling")));
+
+        mockMvc.perform(get(AutocompleteController.ENDPOINT).param("prefix", "ro"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.drills[0].id").value(1))
+            .andExpect(jsonPath("$.drills[0].name").value("Round Kick"))
+            .andExpect(jsonPath("$.categories.length()").value(0))
+            .andExpect(jsonPath("$.sub_categories[0].name").value("Rolling"));
+    }
+
+    @Test
+    public void test_autocompleteEndpoint_get_searchesOnlyRequestedTypes() throws Exception {
+        when(nameIndex.startingWith(NameIndex.Type.SUB_CATEGORY, "j", 3))
+            .thenReturn(List.of(new AutocompleteDTO.Match(2L, "Jabs")));
+
+        mockMvc.perform(get(AutocompleteController.ENDPOINT)
+                .param("prefix", "j")
+                .param("types", "sub_category")
+                .param("limit", "3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.drills").doesNotExist())
+            .andExpect(jsonPath("$.categories").doesNotExist())
+            .andExpect(jsonPath("$.sub_categories[0].id").value(2));
+    }
+
+    @Test
+    public void test_autocompleteEndpoint_get_withUnknownType_returns400() throws Exception {
+        mockMvc.perform(get(AutocompleteController.ENDPOINT)
+                .param("prefix", "j")
+                .param("types", "drill,instructions"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+
+        verify(nameIndex, never()).startingWith(any(), anyString(), anyInt());
+    }
+
+    @Test
+    public void test_autocompleteEndpoint_get_withInvalidLimit_returns400() throws Exception {
+        mockMvc.perform(get(AutocompleteController.ENDPOINT)
+                .param("prefix", "j")
+                .param("limit", "0"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+
+        verify(nameIndex, never()).startingWith(any(), anyString(), anyInt());
+    }
+}
@@ -0,0 +1,222 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.graphql.CatalogGraphQlController;
+import com.damienwesterman.defensedrill.rest_api.graphql.GraphQlConfig;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
+import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
+
+@GraphQlTest(CatalogGraphQlController.class)
+@Import({GraphQlConfig.class, IdLists.class})
+public class CatalogGraphQlControllerTest {
+    @Autowired
+    GraphQlTester graphQlTester;
+    @MockitoBean
+    DrillService drillService;
+    @MockitoBean
+    CategorySerivce categorySerivce;
+    @MockitoBean
+    SubCategorySerivce subCategorySerivce;
+
+    // Control things
+    DrillSummary drill1;
+    DrillSummary drill2;
+    DrillSummary drill3;
+    CategoryEntity category1;
+    InstructionsEntity instructions1;
+
+    final Long ID_1 = 1L;
+    final Long ID_2 = 2L;
+    final Long ID_3 = 3L;
+    final String NAME_1 = "Name 1";
+    final String NAME_2 = "Name 2";
+    final String NAME_3 = "Name 3";
+    final Long TIMESTAMP = 1734000000000L;
+
+    @BeforeEach
+    public void setup() {
+        drill1 = mockDrillSummary(ID_1, NAME_1);
+        drill2 = mockDrillSummary(ID_2, NAME_2);
+        drill3 = mockDrillSummary(ID_3, NAME_3);
+        category1 = CategoryEntity.builder()
+                        .id(11L)
+                        .name("Category 1")
+                        .description("Description 1")
+                        .updateTimestamp(TIMESTAMP)
+                        .build();
+        instructions1 = InstructionsEntity.builder()
+                        .drillId(ID_1)
+                        .number(0L)
+                        .description("Instructions 1")
+                        .steps("Step 1|Step 2")
+                        .build();
+    }
+
+    private DrillSummary mockDrillSummary(Long id, String name) {
+        DrillSummary drillSummary = mock(DrillSummary.class);
+        when(drillSummary.getId()).thenReturn(id);
+        when(drillSummary.getName()).thenReturn(name);
+        when(drillSummary.getUpdateTimestamp()).thenReturn(TIMESTAMP);
+        return drillSummary;
+    }
+
+    @Test
+    public void test_drills_withNestedAssociations_batchesEachAssociationIntoOneCall() {
+        when(drillService.findAllSummaries()).thenReturn(List.of(drill1, drill2));
+        when(drillService.findCategoriesByDrill(Set.of(ID_1, ID_2))).thenReturn(Map.of(ID_1, List.of(category1)));
+        when(drillService.findInstructionsByDrill(Set.of(ID_1, ID_2))).thenReturn(Map.of(ID_1, List.of(instructions1)));
+        when(drillService.findRelatedDrillIdsByDrill(Set.of(ID_1, ID_2)))
+            .thenReturn(Map.of(ID_1, List.of(ID_2, ID_3), ID_2, List.of(ID_1)));
+        when(drillService.findAllSummaries(Set.of(ID_3))).thenReturn(List.of(drill3));
+
+        graphQlTester.document("""
+                {
+                    drills {
+                        id
+                        name
+                        updateTimestamp
+                        categories { name }
+                        instructions { number steps }
+                        relatedDrills { id name }
+                    }
+                }
+                """)
+            .execute()
+            .errors().verify()
+            .path("drills[*].name").entityList(String.class).containsExactly(NAME_1, NAME_2)
+            .path("drills[0].updateTimestamp").entity(Long.class).isEqualTo(TIMESTAMP)
+            .path("drills[0].categories[0].name").entity(String.class).isEqualTo("Category 1")
+            .path("drills[1].categories").entityList(Object.class).hasSize(0)
+            .path("drills[0].instructions[0].steps").entityList(String.class).containsExactly("Step 1", "Step 2")
+            .path("drills[0].relatedDrills[*].name").entityList(String.class).containsExactly(NAME_2, NAME_3)
+            .path("drills[1].relatedDrills[*].name").entityList(String.class).containsExactly(NAME_1);
+
+        verify(drillService, times(1)).findCategoriesByDrill(anyCollection());
+        verify(drillService, times(1)).findInstructionsByDrill(anyCollection());
+        verify(drillService, times(1)).findRelatedDrillIdsByDrill(anyCollection());
+        // Drills 1 and 2 were already loaded by the root query
+        verify(drillService, times(1)).findAllSummaries(anyCollection());
+        verify(drillService, never()).findSubCategoriesByDrill(anyCollection());
+    }
+
+    @Test
+    public void test_drill_byId_returnsDrill() {
+        when(drillService.findSummary(ID_1)).thenReturn(Optional.of(drill1));
+
+        graphQlTester.document("{ drill(id: 1) { id name } }")
+            .execute()
+            .path("drill.id").entity(Long.class).isEqualTo(ID_1)
+            .path("drill.name").entity(String.class).isEqualTo(NAME_1);
+    }
+
+    @Test
+    public void test_drill_nonExistent_returnsNull() {
+        when(drillService.findSummary(NAME_1)).thenReturn(Optional.empty());
+
+        graphQlTester.document("{ drill(name: \"" + NAME_1 + "\") { id } }")
+            .execute()
+            .errors().verify()
+            .path("drill").valueIsNull();
+    }
+
+    @Test
+    public void test_drill_withIdAndName_returnsBadRequest() {
+        graphQlTester.document("{ drill(id: 1, name: \"" + NAME_1 + "\") { id } }")
+            .execute()
+            .errors()
+            .expect(error -> ErrorType.BAD_REQUEST.equals(error.getErrorType()))
+            .verify();
+
+        verify(drillService, never()).findSummary(anyLong());
+    }
+
+    @Test
+    public void test_drills_withTwoFilters_returnsBadRequest() {
+        graphQlTester.document("{ drills(categoryIds: [11], updatedAfter: 5) { id } }")
+            .execute()
+            .errors()
+            .expect(error -> ErrorType.BAD_REQUEST.equals(error.getErrorType()))
+            .verify();
+    }
+
+    @Test
+    public void test_drills_exceedingMaxDepth_isRejectedBeforeFetching() {
+        graphQlTester.document("""
+                {
+                    drills {
+                        relatedDrills { relatedDrills { relatedDrills { relatedDrills {
+                            relatedDrills { relatedDrills { relatedDrills { relatedDrills { id } } } }
+                        } } } }
+                    }
+                }
+                """)
+            .execute()
+            .errors()
+            .satisfy(errors -> assertEquals(1, errors.size()));
+
+        verify(drillService, never()).findAllSummaries();
+    }
+
+    @Test
+    public void test_categories_withIds_returnsCategories() {
+        when(categorySerivce.findAll(List.of(11L))).thenReturn(List.of(category1));
+
+        graphQlTester.document("{ categories(ids: [11]) { id name description updateTimestamp } }")
+            .execute()
+            .path("categories[0].name").entity(String.class).isEqualTo("Category 1")
+            .path("categories[0].updateTimestamp").entity(Long.class).isEqualTo(TIMESTAMP);
+    }
+}
@@ -31,39 +31,63 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.exception.ConcurrencyLimitExceededException;
 import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
 import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
 import com.damienwesterman.defensedrill.rest_api.web.CategoryController;
+import com.damienwesterman.defensedrill.rest_api.web.LongPollRegistry;
+import com.damienwesterman.defensedrill.rest_api.web.WebConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 @WebMvcTest(CategoryController.class)
 @AutoConfigureMockMvc
+@Import(LongPollRegistry.class)
 public class CategoryControllerTest {
     @Autowired
     MockMvc mockMvc;
     @Autowired
     ObjectMapper objectMapper;
+    @Autowired
+    LongPollRegistry longPollRegistry;
     @MockitoBean
     CategorySerivce service;
 
@@ -85,6 +109,16 @@ public class CategoryControllerTest {
                         .build();
     }
 
+    @Test
+    public void test_rootEndpoint_get_overConcurrencyLimit_returnsStatus503WithRetryAfter() throws Exception {
+        when(service.findAll()).thenThrow(new ConcurrencyLimitExceededException("Overloaded", 2));
+
+        mockMvc.perform(get(CategoryController.ENDPOINT))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"))
+            .andExpect(jsonPath("$.error").value("Service Overloaded"));
+    }
+
     @Test
     public void test_rootEndpoint_get_withNoItemsInDB_returnsStatus204() throws Exception {
         when(service.findAll()).thenReturn(List.of());
@@ -119,6 +153,20 @@ public class CategoryControllerTest {
             .andExpect(jsonPath("$[1].description").value(description2));
     }
 
+    @Test
+    public void test_rootEndpoint_get_withSmileAccept_returnsSmile() throws Exception {
+        when(service.findAll()).thenReturn(List.of(category1));
+
+        byte[] body = mockMvc.perform(get(CategoryController.ENDPOINT).accept(WebConfig.APPLICATION_SMILE_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(WebConfig.APPLICATION_SMILE_VALUE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        CategoryEntity[] categories = new SmileMapper().readValue(body, CategoryEntity[].class);
+        assertEquals(NAME_1, categories[0].getName());
+        assertEquals(DESCRIPTION_1, categories[0].getDescription());
+    }
+
     @Test
     public void test_rootEndpoint_post_invalidArgumentWithNoObject() throws Exception {
         mockMvc.perform(post(CategoryController.ENDPOINT))
@@ -240,6 +288,24 @@ public class CategoryControllerTest {
             .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void test_updateEndpoint_getWithWait_completesOnceCategoryIsWritten() throws Exception {
+        when(service.getEntityType()).thenReturn(CategoryEntity.class);
+        when(service.findAll(TIMESTAMP_1)).thenReturn(List.of());
+
+        MvcResult mvcResult = mockMvc.perform(get(CategoryController.ENDPOINT + "/update?updateTimestamp=" + TIMESTAMP_1 + "&wait=30"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        when(service.findAll(TIMESTAMP_1)).thenReturn(List.of(category1));
+        longPollRegistry.onDatabaseChange(new DatabaseChangeEvent(CategoryEntity.class, ChangeType.SAVE, ID_1));
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(ID_1));
+    }
+
     @Test
     public void test_idRootEndpoint_get_succeeds_withExistingIds() throws Exception {
         final Long ID_2 = 2L;
@@ -332,8 +398,7 @@ public class CategoryControllerTest {
     @Test
     public void test_idEndpoint_put_shouldSucceedWithCorrectFieldsAndExistingId() throws Exception {
         // Have to be specific with this, as we cannot control what updateTimestamp will be
-        when(service.save(categoryMatcher())).thenReturn(category1);
-        when(service.find(ID_1)).thenReturn(Optional.of(category1));
+        when(service.replace(categoryMatcher(), isNull())).thenReturn(1L);
 
         mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -341,10 +406,11 @@ public class CategoryControllerTest {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id").value(ID_1))
             .andExpect(jsonPath("$.name").value(NAME_1))
-            .andExpect(jsonPath("$.description").value(DESCRIPTION_1));
+            .andExpect(jsonPath("$.description").value(DESCRIPTION_1))
+            .andExpect(header().string("ETag", "\"1\""));
 
         // Have to be specific with this, as we cannot control what updateTimestamp will be
-        verify(service).save(categoryMatcher());
+        verify(service).replace(categoryMatcher(), isNull());
     }
 
     @Test
@@ -356,8 +422,7 @@ public class CategoryControllerTest {
                                         .description(DESCRIPTION_1)
                                         .build();
         // Have to be specific with this, as we cannot control what updateTimestamp will be
-        when(service.save(categoryMatcher())).thenReturn(category1);
-        when(service.find(ID_1)).thenReturn(Optional.of(category1));
+        when(service.replace(categoryMatcher(), isNull())).thenReturn(1L);
 
         mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -368,13 +433,13 @@ public class CategoryControllerTest {
             .andExpect(jsonPath("$.description").value(DESCRIPTION_1));
 
         // Have to be specific with this, as we cannot control what updateTimestamp will be
-        verify(service, times(1)).save(categoryMatcher());
+        verify(service, times(1)).replace(categoryMatcher(), isNull());
     }
 
     @Test
     public void test_idEndpoint_put_nonExistentIdFails() throws Exception {
-        when(service.save(category1)).thenReturn(category1);
-        when(service.find(ID_1)).thenReturn(Optional.empty());
+        when(service.replace(categoryMatcher(), isNull()))
+            .thenThrow(new NoSuchElementException("Category ID " + ID_1 + " does not exist"));
 
         mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -421,8 +486,7 @@ public class CategoryControllerTest {
     @Test
     public void test_idEndpoint_put_uniqueConstraintViolation_fails() throws Exception {
         // Have to be specific with this, as we cannot control what updateTimestamp will be
-        when(service.save(categoryMatcher())).thenThrow(new DatabaseInsertException("Unique Cosntraint Violation"));
-        when(service.find(ID_1)).thenReturn(Optional.of(category1));
+        when(service.replace(categoryMatcher(), isNull())).thenThrow(new DatabaseInsertException("Unique Cosntraint Violation"));
 
         mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -447,7 +511,16 @@ public class CategoryControllerTest {
         mockMvc.perform(delete(CategoryController.ENDPOINT + "/id/" + ID_1))
             .andExpect(status().isNoContent());
 
-        verify(service, times(1)).delete(ID_1);
+        verify(service, times(1)).delete(ID_1, null);
+    }
+
+    @Test
+    public void test_idEndpoint_delete_withIfMatch_passesExpectedVersion() throws Exception {
+        mockMvc.perform(delete(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .header("If-Match", "\"3\""))
+            .andExpect(status().isNoContent());
+
+        verify(service, times(1)).delete(ID_1, 3L);
     }
 
     @Test
@@ -491,6 +564,166 @@ public class CategoryControllerTest {
             .andExpect(status().isMethodNotAllowed());
     }
 
+    @Test
+    public void test_idEndpoint_patch_appliesOnlyGivenFields() throws Exception {
+        CategoryEntity existing = CategoryEntity.builder()
+                                    .id(ID_1)
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .name(NAME_1)
+                                    .description("Old Description")
+                                    .build();
+        when(service.update(eq(ID_1), isNull(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<CategoryEntity>>getArgument(2).accept(existing);
+            return existing;
+        });
+
+        mockMvc.perform(patch(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"description\": \"" + DESCRIPTION_1 + "\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(NAME_1))
+            .andExpect(jsonPath("$.description").value(DESCRIPTION_1));
+    }
+
+    @Test
+    public void test_idEndpoint_patch_withReturnMinimal_returnsStatus204() throws Exception {
+        when(service.update(eq(ID_1), isNull(), any())).thenReturn(category1);
+
+        mockMvc.perform(patch(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType("application/merge-patch+json")
+                .header("Prefer", "return=minimal")
+                .content("{\"name\": \"" + NAME_1 + "\"}"))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("Preference-Applied", "return=minimal"))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void test_idEndpoint_patch_nonExistentIdFails() throws Exception {
+        when(service.update(eq(ID_1), isNull(), any()))
+            .thenThrow(new NoSuchElementException("Category ID " + ID_1 + " does not exist"));
+
+        mockMvc.perform(patch(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"" + NAME_1 + "\"}"))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error").value("Resource Not Found"));
+    }
+
+    @Test
+    public void test_idEndpoint_patch_emptyNameFails() throws Exception {
+        mockMvc.perform(patch(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"\"}"))
+            .andExpect(status().isBadRequest());
+
+        verify(service, never()).update(any(), any(), any());
+    }
+
+    @Test
+    public void test_idEndpoint_get_returnsETagStartingWithVersion() throws Exception {
+        category1.setVersion(2L);
+        when(service.find(ID_1)).thenReturn(Optional.of(category1));
+
+        String eTag = mockMvc.perform(get(CategoryController.ENDPOINT + "/id/" + ID_1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").doesNotExist())
+            .andReturn().getResponse().getHeader("ETag");
+
+        assertTrue(eTag.startsWith("\"2-"));
+    }
+
+    @Test
+    public void test_idEndpoint_put_withStaleIfMatch_returnsStatus412() throws Exception {
+        when(service.replace(categoryMatcher(), eq(3L)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(CategoryEntity.class, ID_1));
+
+        mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "\"3\"")
+                .content(objectMapper.writeValueAsString(category1)))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.error").value("Precondition Failed"));
+    }
+
+    @Test
+    public void test_idEndpoint_put_withWeakIfMatch_returnsStatus412() throws Exception {
+        mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "W/\"3\"")
+                .content(objectMapper.writeValueAsString(category1)))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.error").value("Precondition Failed"));
+
+        verify(service, never()).replace(any(), any());
+    }
+
+    @Test
+    public void test_idEndpoint_patch_concurrentUpdateWithoutIfMatch_returnsStatus409() throws Exception {
+        when(service.update(eq(ID_1), isNull(), any()))
+            .thenThrow(new ObjectOptimisticLockingFailureException(CategoryEntity.class, ID_1));
+
+        mockMvc.perform(patch(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"New Name\"}"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.error").value("Update Conflict"));
+    }
+
+    @Test
+    public void test_idEndpoint_put_withInvalidIfMatch_returnsStatus400() throws Exception {
+        mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "\"three\"")
+                .content(objectMapper.writeValueAsString(category1)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+
+        verify(service, never()).replace(any(), any());
+    }
+
+    @Test
+    public void test_idEndpoint_patch_withIfMatch_passesExpectedVersion() throws Exception {
+        category1.setVersion(4L);
+        when(service.update(eq(ID_1), eq(3L), any())).thenReturn(category1);
+
+        mockMvc.perform(patch(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "\"3\"")
+                .content("{\"name\": \"" + NAME_1 + "\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    public void test_rootEndpoint_post_withReturnMinimal_returnsStatus204WithLocation() throws Exception {
+        category1.setVersion(0L);
+        when(service.save(categoryMatcher())).thenReturn(category1);
+
+        mockMvc.perform(post(CategoryController.ENDPOINT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("Prefer", "return=minimal")
+                    .content(objectMapper.writeValueAsString(category1)))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("Location", CategoryController.ENDPOINT + "/" + ID_1))
+            .andExpect(header().string("ETag", "\"0\""))
+            .andExpect(header().string("Preference-Applied", "return=minimal"))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void test_idEndpoint_put_withReturnMinimal_returnsStatus204() throws Exception {
+        when(service.replace(categoryMatcher(), isNull())).thenReturn(2L);
+
+        mockMvc.perform(put(CategoryController.ENDPOINT + "/id/" + ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "return=minimal")
+                .content(objectMapper.writeValueAsString(category1)))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("ETag", "\"2\""))
+            .andExpect(content().string(""));
+    }
+
     private CategoryEntity categoryMatcher() {
         return argThat(entity -> {
             return NAME_1.equals(entity.getName())
@@ -29,11 +29,13 @@ package com.damienwesterman.defensedrill.rest_api.integration;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,21 +43,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.TransactionSystemException;
 
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
 import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
 import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
 import com.damienwesterman.defensedrill.rest_api.repository.InstructionsRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.NameSummary;
 import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DrillAssociation;
+import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.web.dto.AbstractCategoryPatchDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillPatchDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsDTO;
 
 import jakarta.validation.ConstraintViolationException;
 
 @SuppressWarnings("null")
-@SpringBootTest
+@SpringBootTest(properties = "rest-api.grpc.port=0")
 public class DefenseDrillRestApiDatabaseTests {
     @Autowired
     private DrillRepo drillRepo;
@@ -66,6 +79,10 @@ public class DefenseDrillRestApiDatabaseTests {
     private SubCategoryRepo subCategoryRepo;
     @Autowired
     private InstructionsRepo instructionsRepo;
+    @Autowired
+    private DrillService drillService;
+    @Autowired
+    private CategorySerivce categorySerivce;
 
     final Long TIMESTAMP_1 = 12345L;
 
@@ -1101,4 +1118,436 @@ public class DefenseDrillRestApiDatabaseTests {
         instructionsRepo.delete(returnedInstructions);
         assertEquals(0, drillRepo.findById(drillId).get().getInstructions().size());
     }
+
+    @Test
+    public void test_drillRepo_summaryAndAssociationQueries_returnOnlyRequestedData() {
+        CategoryEntity category = categoryRepo.save(CategoryEntity.builder()
+                                    .id(null)
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .build());
+        Long relatedDrillId = drillRepo.save(DrillEntity.builder()
+                                .id(null)
+                                .name("Related Drill")
+                                .updateTimestamp(TIMESTAMP_1)
+                                .categories(null)
+                                .subCategories(null)
+                                .relatedDrills(null)
+                                .instructions(null)
+                                .build()).getId();
+        Long drillId = drillRepo.save(DrillEntity.builder()
+                                .id(null)
+                                .name("New Drill")
+                                .updateTimestamp(TIMESTAMP_1)
+                                .categories(new ArrayList<>(List.of(category)))
+                                .subCategories(null)
+                                .relatedDrills(new ArrayList<>(List.of(relatedDrillId)))
+                                .instructions(null)
+                                .build()).getId();
+        instructionsRepo.save(InstructionsEntity.builder()
+                                .drillId(drillId)
+                                .number(0L)
+                                .description("Instructions Description")
+                                .steps("Step1|Step2")
+                                .videoId(null)
+                                .build());
+
+        DrillSummary summary = drillRepo.findById(drillId, DrillSummary.class).get();
+        assertEquals("New Drill", summary.getName());
+        assertEquals(TIMESTAMP_1, summary.getUpdateTimestamp());
+        assertEquals(2, drillRepo.findAllBy(Sort.by("name"), DrillSummary.class).size());
+        assertEquals(1, drillRepo.findDistinctByCategoriesIdIn(
+            List.of(category.getId()), Sort.by("name"), DrillSummary.class).size());
+
+        List<DrillRepo.DrillCategoryRow> categoryRows =
+            drillRepo.findCategoriesByDrillIdIn(List.of(drillId, relatedDrillId));
+        assertEquals(1, categoryRows.size());
+        assertEquals(drillId, categoryRows.get(0).getDrillId());
+        assertEquals("Category Name", categoryRows.get(0).getCategory().getName());
+
+        assertEquals(0, drillRepo.findSubCategoriesByDrillIdIn(List.of(drillId)).size());
+
+        List<DrillRepo.RelatedDrillRow> relatedRows = drillRepo.findRelatedDrillIdsByDrillIdIn(List.of(drillId));
+        assertEquals(1, relatedRows.size());
+        assertEquals(relatedDrillId, relatedRows.get(0).getRelatedDrillId());
+
+        assertEquals(1, instructionsRepo.findByDrillIdIn(List.of(drillId), Sort.by("number")).size());
+    }
+
+    @Test
+    public void test_drillRepo_idQueries_returnJoinTablesOrderedByDrill() {
+        CategoryEntity category = categoryRepo.save(CategoryEntity.builder()
+                                    .id(null)
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .build());
+        List<Long> drillIds = new ArrayList<>();
+        for (String name : List.of("Drill C", "Drill A", "Drill B")) {
+            drillIds.add(drillRepo.save(DrillEntity.builder()
+                                .id(null)
+                                .name(name)
+                                .updateTimestamp(TIMESTAMP_1)
+                                .categories(new ArrayList<>(List.of(category)))
+                                .subCategories(null)
+                                .relatedDrills(null)
+                                .instructions(null)
+                                .build()).getId());
+        }
+
+        List<DrillRepo.DrillIdRow> categoryRows = drillRepo.findAllCategoryIds();
+        assertEquals(drillIds, categoryRows.stream().map(DrillRepo.DrillIdRow::getDrillId).toList());
+        assertEquals(category.getId(), categoryRows.get(0).getAssociatedId());
+        assertEquals(0, drillRepo.findAllSubCategoryIds().size());
+    }
+
+    @Test
+    public void test_drillRepo_countQueries_groupByJoinTables() {
+        CategoryEntity category = categoryRepo.save(CategoryEntity.builder()
+                                    .id(null)
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .build());
+        CategoryEntity emptyCategory = categoryRepo.save(CategoryEntity.builder()
+                                    .id(null)
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .name("Empty Category")
+                                    .description("Category Description")
+                                    .build());
+        SubCategoryEntity subCategory = subCategoryRepo.save(SubCategoryEntity.builder()
+                                    .id(null)
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .name("SubCategory Name")
+                                    .description("SubCategory Description")
+                                    .build());
+        Long drillId = drillRepo.save(DrillEntity.builder()
+                            .id(null)
+                            .name("Drill A")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .categories(new ArrayList<>(List.of(category)))
+                            .subCategories(new ArrayList<>(List.of(subCategory)))
+                            .relatedDrills(null)
+                            .instructions(null)
+                            .build()).getId();
+        drillRepo.save(DrillEntity.builder()
+                            .id(null)
+                            .name("Drill B")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .categories(new ArrayList<>(List.of(category)))
+                            .subCategories(null)
+                            .relatedDrills(null)
+                            .instructions(null)
+                            .build());
+        drillRepo.save(DrillEntity.builder()
+                            .id(null)
+                            .name("Drill C")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .categories(null)
+                            .subCategories(null)
+                            .relatedDrills(null)
+                            .instructions(null)
+                            .build());
+        for (long number = 0; number < 2; number++) {
+            instructionsRepo.save(InstructionsEntity.builder()
+                                    .drillId(drillId)
+                                    .number(number)
+                                    .description("Description")
+                                    .steps("Step 1|Step 2")
+                                    .videoId(0 == number ? "video" : null)
+                                    .build());
+        }
+
+        List<DrillRepo.AssociationCountRow> categoryCounts = drillRepo.countByCategory();
+        assertEquals(List.of(category.getId(), emptyCategory.getId()),
+            categoryCounts.stream().map(DrillRepo.AssociationCountRow::getId).toList());
+        assertEquals("Category Name", categoryCounts.get(0).getName());
+        assertEquals(List.of(2L, 0L),
+            categoryCounts.stream().map(DrillRepo.AssociationCountRow::getDrills).toList());
+        assertEquals(1L, drillRepo.countBySubCategory().get(0).getDrills());
+
+        List<DrillRepo.MatrixCountRow> matrix = drillRepo.countByCategoryAndSubCategory();
+        assertEquals(1, matrix.size());
+        assertEquals(category.getId(), matrix.get(0).getCategoryId());
+        assertEquals(subCategory.getId(), matrix.get(0).getSubCategoryId());
+        assertEquals(1L, matrix.get(0).getDrills());
+
+        DrillRepo.CoverageRow coverage = drillRepo.countCoverage();
+        assertEquals(3L, coverage.getDrills());
+        assertEquals(1L, coverage.getWithoutCategories());
+        assertEquals(2L, coverage.getWithoutSubCategories());
+        assertEquals(1L, coverage.getWithInstructions());
+        assertEquals(1L, coverage.getWithVideos());
+        assertEquals(2L, coverage.getInstructions());
+        assertEquals(1L, coverage.getInstructionsWithVideos());
+    }
+
+    @Test
+    public void test_categoryRepos_nameQueries_returnIdAndName() {
+        CategoryEntity category = categoryRepo.save(CategoryEntity.builder()
+                                    .id(null)
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .build());
+
+        List<NameSummary> categories = categoryRepo.findAllBy(Sort.by("id"), NameSummary.class);
+        assertEquals(1, categories.size());
+        assertEquals(category.getId(), categories.get(0).getId());
+        assertEquals("Category Name", categories.get(0).getName());
+        assertEquals("Category Name",
+            categoryRepo.findById(category.getId(), NameSummary.class).orElseThrow().getName());
+        assertTrue(subCategoryRepo.findById(category.getId(), NameSummary.class).isEmpty());
+    }
+
+    @Test
+    public void test_drillService_instructionsEdits_keepNumbersContiguous() {
+        List<InstructionsEntity> instructions = new ArrayList<>();
+        for (String description : List.of("A", "B", "C", "D")) {
+            instructions.add(InstructionsEntity.builder()
+                                .number((long) instructions.size())
+                                .description(description)
+                                .steps("Step 1|Step 2")
+                                .videoId("video")
+                                .build());
+        }
+        Long drillId = drillService.save(DrillEntity.builder()
+                            .id(null)
+                            .name("Drill Name")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .categories(null)
+                            .subCategories(null)
+                            .relatedDrills(null)
+                            .instructions(instructions)
+                            .build()).getId();
+
+        drillService.moveInstructions(drillId, null, 0L, 2L);
+        assertEquals(List.of("B", "C", "A", "D"), instructionDescriptions(drillId));
+        drillService.moveInstructions(drillId, null, 3L, 0L);
+        assertEquals(List.of("D", "B", "C", "A"), instructionDescriptions(drillId));
+        drillService.deleteInstructions(drillId, null, 1L);
+        assertEquals(List.of("D", "C", "A"), instructionDescriptions(drillId));
+        drillService.saveInstructions(InstructionsEntity.builder()
+                                        .drillId(drillId)
+                                        .number(3L)
+                                        .description("E")
+                                        .steps("Step 1")
+                                        .build(), null);
+        drillService.updateInstructions(drillId, null, 0L, changed -> changed.setVideoId(null));
+        assertEquals(List.of("D", "C", "A", "E"), instructionDescriptions(drillId));
+
+        List<InstructionsEntity> savedInstructions =
+            instructionsRepo.findByDrillIdIn(List.of(drillId), Sort.by("number"));
+        assertEquals(List.of(0L, 1L, 2L, 3L), savedInstructions.stream().map(InstructionsEntity::getNumber).toList());
+        assertNull(savedInstructions.get(0).getVideoId());
+        assertEquals("video", savedInstructions.get(1).getVideoId());
+        assertTrue(TIMESTAMP_1 < drillRepo.findById(drillId).orElseThrow().getUpdateTimestamp());
+        assertThrows(IndexOutOfBoundsException.class, () -> drillService.deleteInstructions(drillId, null, 4L));
+        assertThrows(NoSuchElementException.class, () -> drillService.moveInstructions(drillId + 1, null, 0L, 1L));
+    }
+
+    @Test
+    public void test_drillService_associationEdits_touchOnlyJoinRows() {
+        CategoryEntity category = categoryRepo.save(CategoryEntity.builder()
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .build());
+        SubCategoryEntity subCategory = subCategoryRepo.save(SubCategoryEntity.builder()
+                                    .name("SubCategory Name")
+                                    .description("SubCategory Description")
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .build());
+        Long drillId = drillRepo.save(DrillEntity.builder()
+                            .name("Drill Name")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .build()).getId();
+        Long relatedDrillId = drillRepo.save(DrillEntity.builder()
+                            .name("Related Drill Name")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .build()).getId();
+
+        drillService.addAssociation(drillId, null, DrillAssociation.CATEGORIES, category.getId());
+        drillService.addAssociation(drillId, null, DrillAssociation.CATEGORIES, category.getId());
+        drillService.addAssociation(drillId, null, DrillAssociation.SUB_CATEGORIES, subCategory.getId());
+        drillService.addAssociation(drillId, null, DrillAssociation.RELATED_DRILLS, relatedDrillId);
+        assertEquals(1, drillRepo.findCategoriesByDrillIdIn(List.of(drillId)).size());
+        assertEquals(1, drillRepo.findSubCategoriesByDrillIdIn(List.of(drillId)).size());
+        assertEquals(List.of(relatedDrillId), drillRepo.findRelatedDrillIdsByDrillIdIn(List.of(drillId)).stream()
+            .map(DrillRepo.RelatedDrillRow::getRelatedDrillId)
+            .toList());
+        assertTrue(TIMESTAMP_1 < drillRepo.findById(drillId).orElseThrow().getUpdateTimestamp());
+
+        drillService.removeAssociation(drillId, null, DrillAssociation.CATEGORIES, category.getId());
+        drillService.removeAssociation(drillId, null, DrillAssociation.RELATED_DRILLS, relatedDrillId);
+        assertTrue(drillRepo.findCategoriesByDrillIdIn(List.of(drillId)).isEmpty());
+        assertEquals(1, drillRepo.findSubCategoriesByDrillIdIn(List.of(drillId)).size());
+        assertTrue(drillRepo.findRelatedDrillIdsByDrillIdIn(List.of(drillId)).isEmpty());
+
+        assertThrows(NoSuchElementException.class,
+            () -> drillService.addAssociation(drillId, null, DrillAssociation.CATEGORIES, category.getId() + 100));
+        assertThrows(NoSuchElementException.class,
+            () -> drillService.addAssociation(relatedDrillId + 100, null, DrillAssociation.CATEGORIES,
+                category.getId()));
+        assertEquals(1, drillRepo.findSubCategoriesByDrillIdIn(List.of(drillId)).size());
+    }
+
+    @Test
+    public void test_drillService_patch_changesOnlyGivenFields() {
+        CategoryEntity category = categoryRepo.save(CategoryEntity.builder()
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .build());
+        List<InstructionsEntity> instructions = new ArrayList<>();
+        for (String description : List.of("A", "B", "C")) {
+            instructions.add(InstructionsEntity.builder()
+                                .number((long) instructions.size())
+                                .description(description)
+                                .steps("Step 1|Step 2")
+                                .build());
+        }
+        Long drillId = drillService.save(DrillEntity.builder()
+                            .name("Drill Name")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .categories(new ArrayList<>(List.of(category)))
+                            .instructions(instructions)
+                            .build()).getId();
+        drillService.save(DrillEntity.builder()
+                            .name("Other Drill Name")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .build());
+
+        DrillPatchDTO patch = new DrillPatchDTO();
+        InstructionsDTO changedInstructions = new InstructionsDTO();
+        changedInstructions.setDescription("B2");
+        changedInstructions.setSteps(List.of("Step 1"));
+        InstructionsDTO unchangedInstructions = new InstructionsDTO();
+        unchangedInstructions.setDescription("A");
+        unchangedInstructions.setSteps(List.of("Step 1", "Step 2"));
+        patch.setInstructions(List.of(unchangedInstructions, changedInstructions));
+        patch.setRelatedDrills(List.of(drillId));
+        drillService.update(drillId, null, drill -> patch.applyTo(drill, List.of(), List.of()));
+
+        assertEquals(List.of("A", "B2"), instructionDescriptions(drillId));
+        assertEquals(1, drillRepo.findCategoriesByDrillIdIn(List.of(drillId)).size());
+        assertEquals(1, drillRepo.findRelatedDrillIdsByDrillIdIn(List.of(drillId)).size());
+        assertEquals("Drill Name", drillRepo.findById(drillId).orElseThrow().getName());
+        assertTrue(TIMESTAMP_1 < drillRepo.findById(drillId).orElseThrow().getUpdateTimestamp());
+
+        DrillPatchDTO removeCategories = new DrillPatchDTO();
+        removeCategories.setCategoryIds(null);
+        removeCategories.setName("New Drill Name");
+        drillService.update(drillId, null, drill -> removeCategories.applyTo(drill, List.of(), List.of()));
+        assertTrue(drillRepo.findCategoriesByDrillIdIn(List.of(drillId)).isEmpty());
+        assertEquals("New Drill Name", drillRepo.findById(drillId).orElseThrow().getName());
+        assertEquals(List.of("A", "B2"), instructionDescriptions(drillId));
+
+        DrillPatchDTO duplicateName = new DrillPatchDTO();
+        duplicateName.setName("Other Drill Name");
+        assertThrows(DatabaseInsertException.class,
+            () -> drillService.update(drillId, null, drill -> duplicateName.applyTo(drill, List.of(), List.of())));
+        assertThrows(NoSuchElementException.class,
+            () -> drillService.update(drillId + 100, null, drill -> duplicateName.applyTo(drill, List.of(), List.of())));
+
+        AbstractCategoryPatchDTO categoryPatch = new AbstractCategoryPatchDTO();
+        categoryPatch.setDescription("New Category Description");
+        categorySerivce.update(category.getId(), null, categoryPatch::applyTo);
+        CategoryEntity updatedCategory = categoryRepo.findById(category.getId()).orElseThrow();
+        assertEquals("Category Name", updatedCategory.getName());
+        assertEquals("New Category Description", updatedCategory.getDescription());
+    }
+
+    @Test
+    public void test_versions_incrementOnWriteAndRejectStaleWrites() {
+        CategoryEntity category = categorySerivce.save(CategoryEntity.builder()
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .build());
+        assertEquals(0L, category.getVersion());
+
+        CategoryEntity replacement = CategoryEntity.builder()
+                                        .id(category.getId())
+                                        .name("New Category Name")
+                                        .description("New Category Description")
+                                        .build();
+        assertEquals(1L, categorySerivce.replace(replacement, 0L));
+        assertEquals(2L, categorySerivce.replace(replacement, null));
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> categorySerivce.replace(replacement, 0L));
+        assertThrows(NoSuchElementException.class, () -> categorySerivce.replace(
+            CategoryEntity.builder().id(category.getId() + 100).name("Name").build(), 0L));
+        assertEquals("New Category Name", categoryRepo.findById(category.getId()).orElseThrow().getName());
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> categorySerivce.update(category.getId(), 1L, changed -> changed.setName("Stale Name")));
+
+        DrillEntity drill = drillService.save(DrillEntity.builder()
+                                .name("Drill Name")
+                                .updateTimestamp(TIMESTAMP_1)
+                                .build());
+        Long drillId = drill.getId();
+        assertEquals(0L, drill.getVersion());
+        assertEquals(1L, drillService.update(drillId, 0L, changed -> changed.setName("New Drill Name")).getVersion());
+        drillService.addAssociation(drillId, null, DrillAssociation.CATEGORIES, category.getId());
+        assertEquals(2L, drillRepo.findById(drillId).orElseThrow().getVersion());
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> drillService.update(drillId, 1L, changed -> changed.setName("Stale Name")));
+
+        // Full replacements carry the version the client last saw
+        drill.setName("Stale Drill Name");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> drillService.save(drill));
+        assertEquals("New Drill Name", drillRepo.findById(drillId).orElseThrow().getName());
+    }
+
+    @Test
+    public void test_versions_checkedByReplaceTouchAndDelete() {
+        CategoryEntity category = categorySerivce.save(CategoryEntity.builder()
+                                    .name("Category Name")
+                                    .description("Category Description")
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .build());
+        Long drillId = drillService.save(DrillEntity.builder()
+                            .name("Drill Name")
+                            .updateTimestamp(TIMESTAMP_1)
+                            .build()).getId();
+
+        // Without an expected version the current one is used, so the last write wins
+        DrillEntity replacement = DrillEntity.builder()
+                                    .id(drillId)
+                                    .name("New Drill Name")
+                                    .updateTimestamp(TIMESTAMP_1)
+                                    .build();
+        assertEquals(1L, drillService.replace(replacement, null).getVersion());
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> drillService.replace(
+            DrillEntity.builder().id(drillId).name("Stale Drill Name").updateTimestamp(TIMESTAMP_1).build(), 0L));
+        assertThrows(NoSuchElementException.class, () -> drillService.replace(
+            DrillEntity.builder().id(drillId + 100).name("Name").updateTimestamp(TIMESTAMP_1).build(), null));
+        assertEquals("New Drill Name", drillRepo.findById(drillId).orElseThrow().getName());
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> drillService.addAssociation(drillId, 0L, DrillAssociation.CATEGORIES, category.getId()));
+        assertTrue(drillRepo.findCategoriesByDrillIdIn(List.of(drillId)).isEmpty());
+        drillService.addAssociation(drillId, 1L, DrillAssociation.CATEGORIES, category.getId());
+        assertEquals(2L, drillRepo.findById(drillId).orElseThrow().getVersion());
+        assertThrows(NoSuchElementException.class,
+            () -> drillService.addAssociation(drillId + 100, 0L, DrillAssociation.CATEGORIES, category.getId()));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> categorySerivce.delete(category.getId(), 1L));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> drillService.delete(drillId, 1L));
+        assertTrue(drillRepo.existsById(drillId));
+        drillService.delete(drillId, 2L);
+        assertFalse(drillRepo.existsById(drillId));
+        categorySerivce.delete(category.getId(), 0L);
+        assertFalse(categoryRepo.existsById(category.getId()));
+        // Deleting what is already gone is not a conflict
+        assertDoesNotThrow(() -> drillService.delete(drillId, 2L));
+    }
+
+    private List<String> instructionDescriptions(Long drillId) {
+        return instructionsRepo.findByDrillIdIn(List.of(drillId), Sort.by("number")).stream()
+            .map(InstructionsEntity::getDescription)
+            .toList();
+    }
 }
@@ -27,67 +27,122 @@
 package com.damienwesterman.defensedrill.rest_api.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.util.function.ThrowingSupplier;
 
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonQuery;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
 import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.service.DrillAssociation;
+import com.damienwesterman.defensedrill.rest_api.service.DrillSampler;
 import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.service.DrillStats;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
 import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
 import com.damienwesterman.defensedrill.rest_api.web.DrillController;
+import com.damienwesterman.defensedrill.rest_api.web.DrillJsonAggregation;
+import com.damienwesterman.defensedrill.rest_api.web.LongPollRegistry;
+import com.damienwesterman.defensedrill.rest_api.web.WebConfig;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillCreateDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillStatsDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.DrillUpdateDTO;
 import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.NormalizedDrillListDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 @SuppressWarnings("null")
-@WebMvcTest(DrillController.class)
+@WebMvcTest(value = DrillController.class,
+    properties = "rest-api.json-aggregation.endpoints=all,updated_after")
 @AutoConfigureMockMvc
+@Import({LongPollRegistry.class, DrillJsonAggregation.class, IdLists.class})
 public class DrillControllerTest {
     @Autowired
     MockMvc mockMvc;
     @Autowired
     ObjectMapper objectMapper;
+    @Autowired
+    LongPollRegistry longPollRegistry;
     @MockitoBean
     DrillService drillService;
     @MockitoBean
     CategorySerivce categorySerivce;
     @MockitoBean
     SubCategorySerivce subCategorySerivce;
+    @MockitoBean
+    DrillSampler drillSampler;
+    @MockitoBean
+    DrillStats drillStats;
 
     DrillEntity drill1;
     DrillEntity relatedDrill;
     CategoryEntity category1;
     SubCategoryEntity subCategory1;
     InstructionsEntity instructions1;
+    DrillSummary drillSummary1;
+    DrillSummary relatedDrillSummary;
     DrillCreateDTO dtoToSend;
 
     final Long DRILL_ID_1 = 1L;
@@ -148,6 +203,12 @@ public class DrillControllerTest {
                             .steps(INSTRUCTION_STEPS_1)
                             .videoId(VIDEO_ID_1)
                             .build();
+        drillSummary1 = mock(DrillSummary.class);
+        when(drillSummary1.getId()).thenReturn(DRILL_ID_1);
+        when(drillSummary1.getName()).thenReturn(DRILL_NAME_1);
+        relatedDrillSummary = mock(DrillSummary.class);
+        when(relatedDrillSummary.getId()).thenReturn(RELATED_DRILL_ID);
+        when(relatedDrillSummary.getName()).thenReturn(RELATED_DRILL_NAME);
         dtoToSend = new DrillCreateDTO();
         dtoToSend.setName(DRILL_NAME_1);
     }
@@ -192,6 +253,236 @@ public class DrillControllerTest {
             // Drill at $[1] should be the related drill, don't have to go through it all again
     }
 
+    @Test
+    public void test_rootEndpoint_get_normalizedByParam_listsCategoriesOnce() throws Exception {
+        drill1.getCategories().add(category1);
+        drill1.getSubCategories().add(subCategory1);
+        drill1.getRelatedDrills().add(RELATED_DRILL_ID);
+        drill1.getInstructions().add(instructions1);
+        relatedDrill.getCategories().add(category1);
+        when(drillService.findAll()).thenReturn(List.of(drill1, relatedDrill));
+
+        mockMvc.perform(get(DrillController.ENDPOINT).param("format", "normalized"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.drills.length()").value(2))
+            .andExpect(jsonPath("$.drills[0].id").value(DRILL_ID_1))
+            .andExpect(jsonPath("$.drills[0].categories[0]").value(CATEGORY_ID_1))
+            .andExpect(jsonPath("$.drills[0].sub_categories[0]").value(SUB_CATEGORY_ID_1))
+            .andExpect(jsonPath("$.drills[0].related_drills[0]").value(RELATED_DRILL_ID))
+            .andExpect(jsonPath("$.drills[0].instructions[0].description").value(INSTRUCTIONS_DESCRIPTION_1))
+            .andExpect(jsonPath("$.drills[1].categories[0]").value(CATEGORY_ID_1))
+            .andExpect(jsonPath("$.categories.length()").value(1))
+            .andExpect(jsonPath("$.categories['" + CATEGORY_ID_1 + "'].description").value(CATEGORY_DESCRIPTION_1))
+            .andExpect(jsonPath("$.sub_categories['" + SUB_CATEGORY_ID_1 + "'].name").value(SUB_CATEGORY_NAME_1))
+            .andExpect(jsonPath("$.related['" + RELATED_DRILL_ID + "'].name").value(RELATED_DRILL_NAME));
+
+        // The related drill was already in the list, so no need to look it up
+        verify(drillService, never()).findAll(anyList());
+    }
+
+    @Test
+    public void test_updateEndpoint_get_normalizedByAcceptHeader_looksUpRelatedDrillsOnce() throws Exception {
+        drill1.getRelatedDrills().add(RELATED_DRILL_ID);
+        when(drillService.findAll(TIMESTAMP_1)).thenReturn(List.of(drill1));
+        when(drillService.findAllSummaries(eq(Set.of(RELATED_DRILL_ID))))
+            .thenReturn(List.of(relatedDrillSummary));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/update")
+                .param("updateTimestamp", TIMESTAMP_1.toString())
+                .accept(NormalizedDrillListDTO.MEDIA_TYPE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.drills[0].related_drills[0]").value(RELATED_DRILL_ID))
+            .andExpect(jsonPath("$.related['" + RELATED_DRILL_ID + "'].name").value(RELATED_DRILL_NAME));
+
+        verify(drillService, times(1)).findAllSummaries(eq(Set.of(RELATED_DRILL_ID)));
+    }
+
+    @Test
+    public void test_rootEndpoint_get_normalizedWithNoItemsInDB_returnsStatus204() throws Exception {
+        when(drillService.findAll()).thenReturn(List.of());
+
+        mockMvc.perform(get(DrillController.ENDPOINT).param("format", "normalized"))
+            .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withoutFormat_returnsPlainList() throws Exception {
+        when(drillService.findAll()).thenReturn(List.of(drill1));
+
+        mockMvc.perform(get(DrillController.ENDPOINT).accept(MediaType.ALL))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withWildcardJsonAccept_returnsPlainList() throws Exception {
+        when(drillService.findAll()).thenReturn(List.of(drill1));
+
+        mockMvc.perform(get(DrillController.ENDPOINT).header("Accept", "application/*+json, application/json"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withCborAccept_returnsCbor() throws Exception {
+        drill1.getCategories().add(category1);
+        when(drillService.findAll()).thenReturn(List.of(drill1));
+
+        byte[] body = mockMvc.perform(get(DrillController.ENDPOINT).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        // Plain CBOR by default, no stringref namespace (tag 256) that clients would have to support
+        assertFalse((byte) 0xD9 == body[0] && 0x01 == body[1] && 0x00 == body[2]);
+        DrillResponseDTO[] drills = new CBORMapper().readValue(body, DrillResponseDTO[].class);
+        assertEquals(1, drills.length);
+        assertEquals(DRILL_NAME_1, drills[0].getName());
+        assertEquals(CATEGORY_NAME_1, drills[0].getCategories().get(0).getName());
+    }
+
+    @Test
+    public void test_updateEndpoint_get_withSmileFormat_returnsSmile() throws Exception {
+        when(drillService.findAll(TIMESTAMP_1)).thenReturn(List.of(drill1));
+
+        byte[] body = mockMvc.perform(get(DrillController.ENDPOINT + "/update")
+                .param("updateTimestamp", TIMESTAMP_1.toString())
+                .param("format", "smile"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(WebConfig.APPLICATION_SMILE_VALUE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        DrillResponseDTO[] drills = new SmileMapper().readValue(body, DrillResponseDTO[].class);
+        assertEquals(DRILL_NAME_1, drills[0].getName());
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withJsonAggregation_writesDatabaseJson() throws Exception {
+        String json = "[{\"id\":" + DRILL_ID_1 + ",\"name\":\"" + DRILL_NAME_1 + "\"}]";
+        when(drillService.isJsonAggregationSupported()).thenReturn(true);
+        when(drillService.writeAllAsJson(eq(DrillJsonQuery.ALL), isNull(), any())).thenAnswer(invocation -> {
+            ThrowingSupplier<OutputStream> output = invocation.getArgument(2);
+            output.get().write(json.getBytes(StandardCharsets.UTF_8));
+            return true;
+        });
+
+        mockMvc.perform(get(DrillController.ENDPOINT))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(content().json(json, true));
+
+        verify(drillService, never()).findAll();
+    }
+
+    @Test
+    public void test_updateEndpoint_get_withJsonAggregationAndNoDrills_returns204() throws Exception {
+        when(drillService.isJsonAggregationSupported()).thenReturn(true);
+        when(drillService.writeAllAsJson(eq(DrillJsonQuery.UPDATED_AFTER), eq(TIMESTAMP_1), any()))
+            .thenReturn(false);
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/update")
+                .param("updateTimestamp", TIMESTAMP_1.toString()))
+            .andExpect(status().isNoContent());
+
+        verify(drillService, never()).findAll(TIMESTAMP_1);
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withJsonAggregation_usesJpaForOtherFormatsAndViews() throws Exception {
+        when(drillService.isJsonAggregationSupported()).thenReturn(true);
+        when(drillService.findAll()).thenReturn(List.of(drill1));
+        when(drillService.findAllSummaries()).thenReturn(List.of(drillSummary1));
+
+        mockMvc.perform(get(DrillController.ENDPOINT).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(get(DrillController.ENDPOINT)
+                .accept(MediaType.APPLICATION_CBOR, MediaType.parseMediaType("application/json;q=0.5")))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(get(DrillController.ENDPOINT).param("view", "summary"))
+            .andExpect(status().isOk());
+
+        verify(drillService, never()).writeAllAsJson(any(), any(), any());
+    }
+
+    @Test
+    public void test_idRootEndpoint_get_withJsonAggregationNotEnabled_usesJpa() throws Exception {
+        when(drillService.isJsonAggregationSupported()).thenReturn(true);
+        when(drillService.findAll(List.of(DRILL_ID_1))).thenReturn(List.of(drill1));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/id").param("ids", DRILL_ID_1.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].name").value(DRILL_NAME_1));
+
+        verify(drillService, never()).writeAllAsJson(any(), any(), any());
+    }
+
+    @Test
+    public void test_rootEndpoint_get_summaryView_loadsNoAssociations() throws Exception {
+        when(drillService.findAllSummaries()).thenReturn(List.of(drillSummary1));
+        when(drillService.findAllPartial(List.of(drillSummary1), EnumSet.noneOf(DrillAssociation.class)))
+            .thenReturn(List.of(DrillEntity.builder().id(DRILL_ID_1).name(DRILL_NAME_1).build()));
+
+        mockMvc.perform(get(DrillController.ENDPOINT).param("view", "summary"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(DRILL_ID_1))
+            .andExpect(jsonPath("$[0].name").value(DRILL_NAME_1))
+            .andExpect(jsonPath("$[0].categories").doesNotExist())
+            .andExpect(jsonPath("$[0].sub_categories").doesNotExist())
+            .andExpect(jsonPath("$[0].related_drills").doesNotExist())
+            .andExpect(jsonPath("$[0].instructions").doesNotExist());
+
+        verify(drillService, never()).findAll();
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withFields_returnsOnlySelectedFields() throws Exception {
+        drill1.getCategories().add(category1);
+        drill1.getRelatedDrills().add(RELATED_DRILL_ID);
+        when(drillService.findAllSummaries()).thenReturn(List.of(drillSummary1));
+        when(drillService.findAllPartial(List.of(drillSummary1),
+                EnumSet.of(DrillAssociation.CATEGORIES, DrillAssociation.RELATED_DRILLS)))
+            .thenReturn(List.of(drill1));
+        when(drillService.findAllSummaries(eq(Set.of(RELATED_DRILL_ID))))
+            .thenReturn(List.of(relatedDrillSummary));
+
+        mockMvc.perform(get(DrillController.ENDPOINT).param("fields", "name,categories.name,related_drills"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].id").doesNotExist())
+            .andExpect(jsonPath("$[0].name").value(DRILL_NAME_1))
+            .andExpect(jsonPath("$[0].categories[0].name").value(CATEGORY_NAME_1))
+            .andExpect(jsonPath("$[0].categories[0].id").doesNotExist())
+            .andExpect(jsonPath("$[0].categories[0].description").doesNotExist())
+            .andExpect(jsonPath("$[0].related_drills[0].id").value(RELATED_DRILL_ID))
+            .andExpect(jsonPath("$[0].related_drills[0].name").value(RELATED_DRILL_NAME))
+            .andExpect(jsonPath("$[0].sub_categories").doesNotExist())
+            .andExpect(jsonPath("$[0].instructions").doesNotExist());
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withUnknownView_returns400() throws Exception {
+        mockMvc.perform(get(DrillController.ENDPOINT).param("view", "tiny"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+    }
+
+    @Test
+    public void test_rootEndpoint_get_withUnknownField_returns400() throws Exception {
+        mockMvc.perform(get(DrillController.ENDPOINT).param("fields", "name,categories.color"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+    }
+
+    @Test
+    public void test_idEndpoint_get_summaryView_withNoDrill_returns404() throws Exception {
+        when(drillService.findSummary(DRILL_ID_1)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1).param("view", "summary"))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     public void test_rootEndpoint_post_invalidArgumentWithNoObject() throws Exception {
         mockMvc.perform(post(DrillController.ENDPOINT))
@@ -301,6 +592,48 @@ public class DrillControllerTest {
             .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void test_updateEndpoint_getWithWait_returnsImmediately_withMatchingDrills() throws Exception {
+        when(drillService.findAll(TIMESTAMP_1)).thenReturn(List.of(drill1));
+
+        MvcResult mvcResult = mockMvc.perform(get(DrillController.ENDPOINT + "/update?updateTimestamp=" + TIMESTAMP_1 + "&wait=30"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(DRILL_ID_1));
+    }
+
+    @Test
+    public void test_updateEndpoint_getWithWait_completesOnceDrillIsWritten() throws Exception {
+        when(drillService.findAll(TIMESTAMP_1)).thenReturn(List.of());
+
+        MvcResult mvcResult = mockMvc.perform(get(DrillController.ENDPOINT + "/update?updateTimestamp=" + TIMESTAMP_1 + "&wait=30"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        when(drillService.findAll(TIMESTAMP_1)).thenReturn(List.of(drill1));
+        longPollRegistry.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, DRILL_ID_1));
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].id").value(DRILL_ID_1));
+    }
+
+    @Test
+    public void test_updateEndpoint_getWithZeroWait_returns204_withNoMatchingDrills() throws Exception {
+        when(drillService.findAll(TIMESTAMP_1)).thenReturn(List.of());
+
+        MvcResult mvcResult = mockMvc.perform(get(DrillController.ENDPOINT + "/update?updateTimestamp=" + TIMESTAMP_1 + "&wait=0"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isNoContent());
+    }
+
     @Test
     public void test_nameEndpoint_get_succeedsWithExistingName() throws Exception {
         when(drillService.find(DRILL_NAME_1)).thenReturn(Optional.of(drill1));
@@ -313,6 +646,27 @@ public class DrillControllerTest {
         verify(drillService, times(1)).find(DRILL_NAME_1);
     }
 
+    @Test
+    public void test_nameEndpoint_get_returnsSameETagAndFormatsAsIdEndpoint() throws Exception {
+        drill1.setVersion(7L);
+        when(drillService.find(DRILL_NAME_1)).thenReturn(Optional.of(drill1));
+        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
+
+        String eTag = mockMvc.perform(get(DrillController.ENDPOINT + "/name/" + DRILL_NAME_1)
+                .accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .accept(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string("ETag", eTag));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/name/" + DRILL_NAME_1)
+                .accept(MediaType.APPLICATION_CBOR)
+                .header("If-None-Match", eTag))
+            .andExpect(status().isNotModified());
+    }
+
     @Test
     public void test_nameEndpoint_get_returns404WithNonExistentName() throws Exception {
         when(drillService.find(DRILL_NAME_1)).thenReturn(Optional.empty());
@@ -365,6 +719,21 @@ public class DrillControllerTest {
         assertEquals(CATEGORY_ID_1, relatedDrill.getCategories().get(0).getId());
     }
 
+    @Test
+    public void test_addCategoryEndpoint_patch_acceptsCborBody() throws Exception {
+        List<Long> drillIds = List.of(DRILL_ID_1);
+        when(categorySerivce.find(CATEGORY_ID_1)).thenReturn(Optional.of(category1));
+        when(drillService.findAll(drillIds)).thenReturn(new ArrayList<>(List.of(drill1)));
+
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/add_category/" + CATEGORY_ID_1)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(new CBORMapper().writeValueAsBytes(drillIds)))
+            .andExpect(status().isNoContent());
+
+        verify(drillService, times(1)).findAll(drillIds);
+        assertEquals(CATEGORY_ID_1, drill1.getCategories().get(0).getId());
+    }
+
     @Test
     public void test_addCategoryEndpoint_patch_doesNothingWithEmptyList() throws Exception {
         List<Long> drillIds = List.of();
@@ -447,6 +816,21 @@ public class DrillControllerTest {
             .andExpect(jsonPath("$[1].name").value(DRILL_NAME_2));
     }
 
+    @Test
+    public void test_idRootEndpoint_get_withTooManyIds_returns400() throws Exception {
+        String ids = LongStream.rangeClosed(1, 1001)
+            .mapToObj(String::valueOf)
+            .collect(Collectors.joining(","));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/id")
+                .param("ids", ids)
+                .param("view", "summary"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+
+        verify(drillService, never()).findAllSummaries(anyCollection());
+    }
+
     @Test
     public void test_idRootEndpoint_get_returns204_withNoExistingIds() throws Exception {
         final Long DRILL_ID_2 = 2L;
@@ -458,6 +842,61 @@ public class DrillControllerTest {
             .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void test_randomEndpoint_get_returnsDrillsInDrawnOrder() throws Exception {
+        when(drillSampler.sample(2, List.of(CATEGORY_ID_1), null, null, Map.of(DRILL_ID_1, 2.5), 7L))
+            .thenReturn(List.of(RELATED_DRILL_ID, DRILL_ID_1));
+        // Loaded sorted by name
+        when(drillService.findAll(List.of(RELATED_DRILL_ID, DRILL_ID_1)))
+            .thenReturn(List.of(drill1, relatedDrill));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/random")
+                .param("n", "2")
+                .param("categoryIds", CATEGORY_ID_1.toString())
+                .param("weights", DRILL_ID_1 + ":2.5")
+                .param("seed", "7"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(RELATED_DRILL_ID))
+            .andExpect(jsonPath("$[1].id").value(DRILL_ID_1));
+    }
+
+    @Test
+    public void test_randomEndpoint_get_withNoMatchingDrills_returns204() throws Exception {
+        when(drillSampler.sample(1, null, null, null, null, null)).thenReturn(List.of());
+        when(drillService.findAll(List.of())).thenReturn(List.of());
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/random"))
+            .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void test_randomEndpoint_get_withMalformedWeight_returns400() throws Exception {
+        mockMvc.perform(get(DrillController.ENDPOINT + "/random").param("weights", "heavy"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+
+        verify(drillSampler, never()).sample(anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void test_statsEndpoint_get_returnsStats() throws Exception {
+        when(drillStats.get()).thenReturn(new DrillStatsDTO(3L,
+            List.of(new DrillStatsDTO.AssociationCount(CATEGORY_ID_1, "Category", 2L)),
+            List.of(),
+            List.of(new DrillStatsDTO.MatrixCount(CATEGORY_ID_1, SUB_CATEGORY_ID_1, 1L)),
+            1L, 2L, 1L, 1L, 2L, 1L));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/stats"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.drills").value(3))
+            .andExpect(jsonPath("$.categories[0].id").value(CATEGORY_ID_1))
+            .andExpect(jsonPath("$.categories[0].drills").value(2))
+            .andExpect(jsonPath("$.matrix[0].sub_category_id").value(SUB_CATEGORY_ID_1))
+            .andExpect(jsonPath("$.without_categories").value(1))
+            .andExpect(jsonPath("$.instructions_with_videos").value(1));
+    }
+
     @Test
     public void test_idEndpoint_get_succeedsWithExistingId() throws Exception {
         when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
@@ -470,6 +909,39 @@ public class DrillControllerTest {
         verify(drillService, times(1)).find(DRILL_ID_1);
     }
 
+    @Test
+    public void test_idEndpoint_get_looksUpRelatedDrillNamesWithoutLoadingDrills() throws Exception {
+        drill1.getRelatedDrills().add(RELATED_DRILL_ID);
+        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
+        when(drillService.findAllRelated(eq(Set.of(RELATED_DRILL_ID))))
+            .thenReturn(List.of(new DrillRelatedDTO(RELATED_DRILL_ID, RELATED_DRILL_NAME)));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.related_drills.length()").value(1))
+            .andExpect(jsonPath("$.related_drills[0].id").value(RELATED_DRILL_ID))
+            .andExpect(jsonPath("$.related_drills[0].name").value(RELATED_DRILL_NAME));
+
+        verify(drillService, never()).findAll(anyList());
+    }
+
+    @Test
+    public void test_updateEndpoint_get_looksUpRelatedDrillsOnceForAllDrills() throws Exception {
+        drill1.getRelatedDrills().add(RELATED_DRILL_ID);
+        relatedDrill.getRelatedDrills().add(DRILL_ID_1);
+        when(drillService.findAll(TIMESTAMP_1)).thenReturn(List.of(drill1, relatedDrill));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/update")
+                .param("updateTimestamp", TIMESTAMP_1.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].related_drills[0].name").value(RELATED_DRILL_NAME))
+            .andExpect(jsonPath("$[1].related_drills[0].name").value(DRILL_NAME_1));
+
+        // Both related drills are already part of the list
+        verify(drillService, times(1)).findAllRelated(eq(Set.of()));
+        verify(drillService, never()).findAll(anyList());
+    }
+
     @Test
     public void test_idEndpoint_get_returns404WithNonExistentId() throws Exception {
         when(drillService.find(DRILL_ID_1)).thenReturn(Optional.empty());
@@ -482,7 +954,6 @@ public class DrillControllerTest {
 
     @Test
     public void test_idEndpoint_put_invalidArgumentWithNoObject() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
 
         mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1))
             .andExpect(status().isBadRequest())
@@ -495,7 +966,6 @@ public class DrillControllerTest {
 
     @Test
     public void test_idEndpoint_put_invalidArgumentWithEmptyObject() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
 
         mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -510,7 +980,6 @@ public class DrillControllerTest {
 
     @Test
     public void test_idEndpoint_put_invalidArgumentWithWrongObject() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
 
         mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -525,7 +994,6 @@ public class DrillControllerTest {
 
     @Test
     public void test_idEndpoint_put_shouldSucceedWithCorrectFieldsAndExistingId() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
 
         // Set up drill transfer object
         DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
@@ -548,7 +1016,7 @@ public class DrillControllerTest {
         when(subCategorySerivce.findAll(List.of(SUB_CATEGORY_ID_1))).thenReturn(List.of(subCategory1));
         when(drillService.findAll(List.of(RELATED_DRILL_ID))).thenReturn(List.of(relatedDrill));
         // Have to be specific with this, as we cannot control what updateTimestamp will be
-        when(drillService.save(drillMatcher())).thenReturn(drill1);
+        when(drillService.replace(drillMatcher(), isNull())).thenReturn(drill1);
 
         mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -571,13 +1039,12 @@ public class DrillControllerTest {
             .andExpect(jsonPath("$.instructions").isArray())
             .andExpect(jsonPath("$.instructions.length()").value(1));
 
-        verify(drillService, times(1)).find(DRILL_ID_1);
-        verify(drillService, times(1)).save(drillMatcher());
+        verify(drillService, times(1)).replace(drillMatcher(), isNull());
     }
 
     @Test
     public void test_idEndpoint_put_nonExistentIdFails() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.empty());
+        when(drillService.replace(any(), isNull())).thenThrow(new NoSuchElementException());
         DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
         drillToUpdate.setName(drill1.getName());
 
@@ -585,13 +1052,10 @@ public class DrillControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(drillToUpdate)))
             .andExpect(status().isNotFound());
-
-        verify(drillService, times(0)).save(any());
     }
 
     @Test
     public void test_idEndpoint_put_jakartaCosntraintViolation_fails() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
         dtoToSend.setName("");
 
         mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
@@ -602,7 +1066,7 @@ public class DrillControllerTest {
             .andExpect(jsonPath("$.message").exists())
             .andDo(MockMvcResultHandlers.print());
 
-        verify(drillService, times(0)).save(any());
+        verify(drillService, times(0)).replace(any(), any());
     }
 
     /* DatabaseInsertException occurs for: bad instruction (TransactionSystemException),
@@ -610,8 +1074,7 @@ public class DrillControllerTest {
     */
     @Test
     public void test_idEndpoint_put_databaseInsertViolation_fails() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
-        when(drillService.save(any())).thenThrow(new DatabaseInsertException("Specific Error message"));
+        when(drillService.replace(any(), any())).thenThrow(new DatabaseInsertException("Specific Error message"));
 
         mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -624,7 +1087,6 @@ public class DrillControllerTest {
 
     @Test
     public void test_idEndpoint_put_pipeCharacterInSteps_fails() throws Exception {
-        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
 
         // Set up drill transfer object
         DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
@@ -658,7 +1120,28 @@ public class DrillControllerTest {
         mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1))
             .andExpect(status().isNoContent());
 
-            verify(drillService, times(1)).delete(DRILL_ID_1);
+        verify(drillService, times(1)).delete(DRILL_ID_1, null);
+    }
+
+    @Test
+    public void test_idEndpoint_delete_withIfMatch_passesExpectedVersion() throws Exception {
+        doThrow(new ObjectOptimisticLockingFailureException(DrillEntity.class, DRILL_ID_1))
+            .when(drillService).delete(DRILL_ID_1, 3L);
+
+        mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .header("If-Match", "\"3\""))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.error").value("Precondition Failed"));
+    }
+
+    @Test
+    public void test_idEndpoint_delete_withInvalidIfMatch_returnsStatus400() throws Exception {
+        mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .header("If-Match", "three"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+
+        verify(drillService, never()).delete(any(), any());
     }
 
     @Test
@@ -748,15 +1231,413 @@ public class DrillControllerTest {
     }
 
     @Test
-    public void test_idHowToNumberEndpoint_put_fails() throws Exception {
-        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1))
-            .andExpect(status().isMethodNotAllowed());
+    public void test_idHowToNumberEndpoint_put_savesOnlyThoseInstructions() throws Exception {
+        when(drillService.saveInstructions(argThat(instructions ->
+                DRILL_ID_1.equals(instructions.getDrillId()) && NUMBER_1.equals(instructions.getNumber())
+                    && INSTRUCTION_STEPS_1.equals(instructions.getSteps())), isNull()))
+            .thenReturn(instructions1);
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new InstructionsDTO(instructions1))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.description").value(INSTRUCTIONS_DESCRIPTION_1))
+            .andExpect(jsonPath("$.video_id").value(VIDEO_ID_1));
+
+        verify(drillService, never()).save(any());
     }
 
     @Test
-    public void test_idHowToNumberEndpoint_delete_fails() throws Exception {
+    public void test_idHowToNumberEndpoint_put_withPipeInStep_returns400() throws Exception {
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\": \"Description\", \"steps\": [\"Step|One\"]}"))
+            .andExpect(status().isBadRequest());
+
+        verify(drillService, never()).saveInstructions(any(), isNull());
+    }
+
+    @Test
+    public void test_idHowToNumberEndpoint_put_returns404_forNonExistentDrill() throws Exception {
+        when(drillService.saveInstructions(any(), isNull()))
+            .thenThrow(new NoSuchElementException("Drill ID " + DRILL_ID_1 + " does not exist"));
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new InstructionsDTO(instructions1))))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void test_idHowToNumberEndpoint_patch_appliesOnlyGivenFields() throws Exception {
+        when(drillService.updateInstructions(eq(DRILL_ID_1), isNull(), eq(NUMBER_1), any()))
+            .thenAnswer(invocation -> {
+                invocation.<Consumer<InstructionsEntity>>getArgument(3).accept(instructions1);
+                return instructions1;
+            });
+
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"description\": \"New Description\", \"video_id\": null}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.description").value("New Description"))
+            .andExpect(jsonPath("$.steps.length()").value(3))
+            .andExpect(jsonPath("$.video_id").doesNotExist());
+    }
+
+    @Test
+    public void test_idHowToNumberEndpoint_delete_deletesOnlyThoseInstructions() throws Exception {
         mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1))
-            .andExpect(status().isMethodNotAllowed());
+            .andExpect(status().isNoContent());
+
+        verify(drillService, times(1)).deleteInstructions(DRILL_ID_1, null, NUMBER_1);
+    }
+
+    @Test
+    public void test_idHowToNumberEndpoint_delete_returns404_forNonExistentNumber() throws Exception {
+        doThrow(new IndexOutOfBoundsException("Instructions number " + NUMBER_1 + " does not exist"))
+            .when(drillService).deleteInstructions(DRILL_ID_1, null, NUMBER_1);
+
+        mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error").value("Index Out Of Bounds"));
+    }
+
+    @Test
+    public void test_idHowToNumberMoveEndpoint_post_movesInstructions() throws Exception {
+        mockMvc.perform(post(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1 + "/move")
+                .param("to", "2"))
+            .andExpect(status().isNoContent());
+
+        verify(drillService, times(1)).moveInstructions(DRILL_ID_1, null, NUMBER_1, 2L);
+    }
+
+    @Test
+    public void test_idHowToNumberEndpoint_delete_withIfMatch_passesExpectedVersion() throws Exception {
+        mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1)
+                .header("If-Match", "\"3\""))
+            .andExpect(status().isNoContent());
+
+        verify(drillService, times(1)).deleteInstructions(DRILL_ID_1, 3L, NUMBER_1);
+    }
+
+    @Test
+    public void test_idCategoriesEndpoint_post_addsOnlyThatCategory() throws Exception {
+        mockMvc.perform(post(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/categories/" + CATEGORY_ID_1))
+            .andExpect(status().isNoContent());
+
+        verify(drillService, times(1)).addAssociation(DRILL_ID_1, null, DrillAssociation.CATEGORIES, CATEGORY_ID_1);
+        verify(drillService, never()).save(any());
+    }
+
+    @Test
+    public void test_idCategoriesEndpoint_post_returns404_forNonExistentCategory() throws Exception {
+        doThrow(new NoSuchElementException("Category ID " + CATEGORY_ID_1 + " does not exist"))
+            .when(drillService).addAssociation(DRILL_ID_1, null, DrillAssociation.CATEGORIES, CATEGORY_ID_1);
+
+        mockMvc.perform(post(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/categories/" + CATEGORY_ID_1))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error").value("Resource Not Found"));
+    }
+
+    @Test
+    public void test_idSubCategoriesEndpoint_delete_removesOnlyThatSubCategory() throws Exception {
+        mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1
+                + "/sub_categories/" + SUB_CATEGORY_ID_1))
+            .andExpect(status().isNoContent());
+
+        verify(drillService, times(1))
+            .removeAssociation(DRILL_ID_1, null, DrillAssociation.SUB_CATEGORIES, SUB_CATEGORY_ID_1);
+    }
+
+    @Test
+    public void test_idCategoriesEndpoint_post_withStaleIfMatch_returnsStatus412() throws Exception {
+        doThrow(new ObjectOptimisticLockingFailureException(DrillEntity.class, DRILL_ID_1))
+            .when(drillService).addAssociation(DRILL_ID_1, 3L, DrillAssociation.CATEGORIES, CATEGORY_ID_1);
+
+        mockMvc.perform(post(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/categories/" + CATEGORY_ID_1)
+                .header("If-Match", "\"3\""))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.error").value("Precondition Failed"));
+    }
+
+    @Test
+    public void test_idRelatedDrillsEndpoint_postAndDelete_editOnlyThatRelatedDrill() throws Exception {
+        final Long DRILL_ID_2 = 2L;
+        mockMvc.perform(post(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/related_drills/" + DRILL_ID_2))
+            .andExpect(status().isNoContent());
+        mockMvc.perform(delete(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/related_drills/" + DRILL_ID_2))
+            .andExpect(status().isNoContent());
+
+        verify(drillService, times(1)).addAssociation(DRILL_ID_1, null, DrillAssociation.RELATED_DRILLS, DRILL_ID_2);
+        verify(drillService, times(1)).removeAssociation(DRILL_ID_1, null, DrillAssociation.RELATED_DRILLS, DRILL_ID_2);
+    }
+
+    @Test
+    public void test_idEndpoint_patch_changesOnlyGivenFields() throws Exception {
+        drill1.getCategories().add(category1);
+        drill1.getInstructions().add(instructions1);
+        when(drillService.update(eq(DRILL_ID_1), isNull(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<DrillEntity>>getArgument(2).accept(drill1);
+            return drill1;
+        });
+
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"New Name\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("New Name"))
+            .andExpect(jsonPath("$.categories.length()").value(1))
+            .andExpect(jsonPath("$.instructions.length()").value(1));
+
+        verify(categorySerivce, never()).findAll(anyList());
+        verify(subCategorySerivce, never()).findAll(anyList());
+    }
+
+    @Test
+    public void test_idEndpoint_patch_nullListRemovesEverythingInIt() throws Exception {
+        drill1.getCategories().add(category1);
+        drill1.getSubCategories().add(subCategory1);
+        when(drillService.update(eq(DRILL_ID_1), isNull(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<DrillEntity>>getArgument(2).accept(drill1);
+            return drill1;
+        });
+
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"categories\": null}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(DRILL_NAME_1))
+            .andExpect(jsonPath("$.categories.length()").value(0))
+            .andExpect(jsonPath("$.sub_categories.length()").value(1));
+    }
+
+    @Test
+    public void test_idEndpoint_patch_withReturnMinimal_returnsStatus204() throws Exception {
+        when(categorySerivce.findAll(List.of(CATEGORY_ID_1))).thenReturn(List.of(category1));
+        when(drillService.update(eq(DRILL_ID_1), isNull(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<DrillEntity>>getArgument(2).accept(drill1);
+            return drill1;
+        });
+
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType("application/merge-patch+json")
+                .header("Prefer", "return=minimal")
+                .content("{\"categories\": [" + CATEGORY_ID_1 + "]}"))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("Preference-Applied", "return=minimal"))
+            .andExpect(content().string(""));
+
+        assertEquals(List.of(category1), drill1.getCategories());
+        verify(drillService, never()).findAllRelated(any());
+    }
+
+    @Test
+    public void test_idEndpoint_patch_invalidStepsFail() throws Exception {
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"instructions\": [{\"description\": \"Description\", \"steps\": [\"A|B\"]}]}"))
+            .andExpect(status().isBadRequest());
+
+        verify(drillService, never()).update(any(), any(), any());
+    }
+
+    @Test
+    public void test_idEndpoint_patch_nonExistentIdFails() throws Exception {
+        when(drillService.update(eq(DRILL_ID_1), isNull(), any()))
+            .thenThrow(new NoSuchElementException("Drill ID " + DRILL_ID_1 + " does not exist"));
+
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"New Name\"}"))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error").value("Resource Not Found"));
+    }
+
+    @Test
+    public void test_idEndpoint_get_returnsETagStartingWithVersion() throws Exception {
+        drill1.setVersion(7L);
+        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
+
+        String eTag = mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        assertTrue(eTag.startsWith("\"7-"));
+        mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .header("If-None-Match", eTag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void test_idEndpoint_get_eTagChangesWithAssociatedCategory() throws Exception {
+        drill1.setVersion(7L);
+        category1.setVersion(1L);
+        drill1.getCategories().add(category1);
+        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
+        String eTag = mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1))
+            .andReturn().getResponse().getHeader("ETag");
+
+        // Renaming the category does not change the drill's version
+        category1.setName("Renamed");
+        category1.setVersion(2L);
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .header("If-None-Match", eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.categories[0].name").value("Renamed"));
+    }
+
+    @Test
+    public void test_idEndpoint_get_eTagDiffersByVariant() throws Exception {
+        drill1.setVersion(7L);
+        when(drillService.find(DRILL_ID_1)).thenReturn(Optional.of(drill1));
+
+        String json = mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .accept(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getHeader("ETag");
+        String cbor = mockMvc.perform(get(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .accept(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getHeader("ETag");
+
+        assertNotEquals(json, cbor);
+    }
+
+    @Test
+    public void test_idEndpoint_put_withETagOfGet_savesItsVersion() throws Exception {
+        when(drillService.replace(any(), eq(3L)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(DrillEntity.class, DRILL_ID_1));
+
+        DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
+        drillToUpdate.setName(DRILL_NAME_1);
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "\"3-1f2e3d4c\"")
+                .content(objectMapper.writeValueAsString(drillToUpdate)))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void test_idEndpoint_put_withWeakIfMatch_returnsStatus412() throws Exception {
+        DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
+        drillToUpdate.setName(DRILL_NAME_1);
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "W/\"3-1f2e3d4c\"")
+                .content(objectMapper.writeValueAsString(drillToUpdate)))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.error").value("Precondition Failed"));
+
+        verify(drillService, never()).replace(any(), any());
+    }
+
+    @Test
+    public void test_idEndpoint_put_withIfMatch_savesExpectedVersion() throws Exception {
+        when(drillService.replace(any(), eq(3L)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(DrillEntity.class, DRILL_ID_1));
+
+        DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
+        drillToUpdate.setName(DRILL_NAME_1);
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "\"3\"")
+                .content(objectMapper.writeValueAsString(drillToUpdate)))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.error").value("Precondition Failed"));
+    }
+
+    @Test
+    public void test_idEndpoint_patch_withIfMatch_passesExpectedVersion() throws Exception {
+        drill1.setVersion(4L);
+        when(drillService.update(eq(DRILL_ID_1), eq(3L), any())).thenReturn(drill1);
+
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "\"3\"")
+                .header("Prefer", "return=minimal")
+                .content("{\"name\": \"New Name\"}"))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    public void test_idEndpoint_patch_withInvalidIfMatch_returnsStatus400() throws Exception {
+        mockMvc.perform(patch(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "three")
+                .content("{\"name\": \"New Name\"}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+
+        verify(drillService, never()).update(any(), any(), any());
+    }
+
+    @Test
+    public void test_rootEndpoint_post_withReturnMinimal_returnsStatus204WithLocation() throws Exception {
+        drill1.setVersion(0L);
+        when(drillService.save(drillMatcher())).thenReturn(drill1);
+
+        mockMvc.perform(post(DrillController.ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "return=minimal")
+                .content(objectMapper.writeValueAsString(dtoToSend)))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("Location", DrillController.ENDPOINT + "/" + DRILL_ID_1))
+            .andExpect(header().string("ETag", "\"0\""))
+            .andExpect(header().string("Preference-Applied", "return=minimal"))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void test_idEndpoint_put_withReturnMinimal_skipsRelatedDrillLookup() throws Exception {
+        drill1.setVersion(1L);
+        drill1.getRelatedDrills().add(RELATED_DRILL_ID);
+        when(drillService.replace(drillMatcher(), isNull())).thenReturn(drill1);
+
+        DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
+        drillToUpdate.setName(DRILL_NAME_1);
+        drillToUpdate.setRelatedDrills(List.of(RELATED_DRILL_ID));
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "return=minimal")
+                .content(objectMapper.writeValueAsString(drillToUpdate)))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("ETag", "\"1\""))
+            .andExpect(content().string(""));
+
+        verify(drillService, never()).findAll(List.of(RELATED_DRILL_ID));
+    }
+
+    @Test
+    public void test_idEndpoint_put_withReturnRepresentation_returnsDrill() throws Exception {
+        when(drillService.replace(drillMatcher(), isNull())).thenReturn(drill1);
+
+        DrillUpdateDTO drillToUpdate = new DrillUpdateDTO();
+        drillToUpdate.setName(DRILL_NAME_1);
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "return=representation")
+                .content(objectMapper.writeValueAsString(drillToUpdate)))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Preference-Applied", "return=representation"))
+            .andExpect(jsonPath("$.id").value(DRILL_ID_1));
+    }
+
+    @Test
+    public void test_idHowToNumberEndpoint_put_withReturnMinimal_returnsStatus204() throws Exception {
+        when(drillService.saveInstructions(any(), isNull())).thenReturn(instructions1);
+
+        mockMvc.perform(put(DrillController.ENDPOINT + "/id/" + DRILL_ID_1 + "/how-to/" + NUMBER_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "return=minimal")
+                .content(objectMapper.writeValueAsString(new InstructionsDTO(instructions1))))
+            .andExpect(status().isNoContent())
+            .andExpect(content().string(""));
     }
 
     private DrillEntity drillMatcher() {
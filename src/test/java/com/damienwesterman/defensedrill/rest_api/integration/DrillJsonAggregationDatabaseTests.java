@@ -0,0 +1,251 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonQuery;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.InstructionsRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.web.DrillController;
+import com.damienwesterman.defensedrill.rest_api.web.JsonAggregationProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the drill list endpoints built by PostgreSQL JSON aggregation against the JPA path.
+ * Skipped on any other database.
+ * <br><br>
+ * The responses must be the same JSON. Timings are logged for comparison as they vary by machine.
+ */
+@SuppressWarnings("null")
+@SpringBootTest(properties = "rest-api.grpc.port=0")
+@AutoConfigureMockMvc
+public class DrillJsonAggregationDatabaseTests {
+    private static final Logger log = LoggerFactory.getLogger(DrillJsonAggregationDatabaseTests.class);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JsonAggregationProperties properties;
+    @Autowired
+    private DrillService drillService;
+    @Autowired
+    private DrillRepo drillRepo;
+    @Autowired
+    private CategoryRepo categoryRepo;
+    @Autowired
+    private SubCategoryRepo subCategoryRepo;
+    @Autowired
+    private InstructionsRepo instructionsRepo;
+
+    final int NUM_CATEGORIES = 5;
+    final int NUM_SUB_CATEGORIES = 3;
+    final int NUM_DRILLS = 200;
+    final int WARMUP_ITERATIONS = 3;
+    final int ITERATIONS = 10;
+    final Long TIMESTAMP_1 = 12345L;
+
+    List<CategoryEntity> categories;
+    List<SubCategoryEntity> subCategories;
+    List<DrillEntity> drills;
+
+    @BeforeEach
+    public void setup() {
+        assumeTrue(drillService.isJsonAggregationSupported(), "JSON aggregation requires PostgreSQL");
+
+        drillRepo.deleteAll();
+        categoryRepo.deleteAll();
+        subCategoryRepo.deleteAll();
+        instructionsRepo.deleteAll();
+
+        categories = new ArrayList<>();
+        for (int i = 0; i < NUM_CATEGORIES; i++) {
+            categories.add(categoryRepo.save(CategoryEntity.builder()
+                .updateTimestamp(TIMESTAMP_1)
+                .name("Category " + i)
+                .description("Description of category " + i)
+                .build()));
+        }
+        subCategories = new ArrayList<>();
+        for (int i = 0; i < NUM_SUB_CATEGORIES; i++) {
+            subCategories.add(subCategoryRepo.save(SubCategoryEntity.builder()
+                .updateTimestamp(TIMESTAMP_1)
+                .name("Sub-Category " + i)
+                .description("Description of sub-category " + i)
+                .build()));
+        }
+
+        drills = new ArrayList<>();
+        for (int i = 0; i < NUM_DRILLS; i++) {
+            // Every other drill has two categories, in name order
+            List<CategoryEntity> drillCategories = new ArrayList<>(List.of(categories.get(i % NUM_CATEGORIES)));
+            if (0 == i % 2 && NUM_CATEGORIES - 1 != i % NUM_CATEGORIES) {
+                drillCategories.add(categories.get(i % NUM_CATEGORIES + 1));
+            }
+            drills.add(drillRepo.save(DrillEntity.builder()
+                .updateTimestamp(TIMESTAMP_1 + i)
+                .name(String.format("Drill %03d", i))
+                .categories(drillCategories)
+                .subCategories(0 == i % 3 ? List.of() : List.of(subCategories.get(i % NUM_SUB_CATEGORIES)))
+                .build()));
+        }
+
+        List<InstructionsEntity> instructions = new ArrayList<>();
+        for (int i = 0; i < NUM_DRILLS; i++) {
+            DrillEntity drill = drills.get(i);
+            drill.setRelatedDrills(new ArrayList<>(List.of(drills.get((i + 1) % NUM_DRILLS).getId())));
+            if (0 == i % 4) {
+                drill.getRelatedDrills().add(drills.get((i + 7) % NUM_DRILLS).getId());
+            }
+            drillRepo.save(drill);
+
+            instructions.add(InstructionsEntity.builder()
+                .drillId(drill.getId())
+                .number(0L)
+                .description("Instructions for drill " + i)
+                .steps("Step one|Step \"two\"|Step three")
+                .videoId(0 == i % 2 ? "video" + i : null)
+                .build());
+            instructions.add(InstructionsEntity.builder()
+                .drillId(drill.getId())
+                .number(1L)
+                .description("More instructions for drill " + i)
+                .steps("Only step")
+                .build());
+        }
+        instructionsRepo.saveAll(instructions);
+    }
+
+    @AfterEach
+    public void teardown() {
+        properties.setEndpoints(EnumSet.noneOf(DrillJsonQuery.class));
+    }
+
+    @Test
+    public void test_jsonAggregation_matchesJpa_forEveryEndpoint() throws Exception {
+        assertSameJson(get(DrillController.ENDPOINT));
+        assertSameJson(get(DrillController.ENDPOINT + "/id")
+            .param("ids", drills.get(3).getId() + "," + drills.get(1).getId() + ",-1"));
+        assertSameJson(get(DrillController.ENDPOINT + "/by_category")
+            .param("categoryIds", categories.get(1).getId().toString()));
+        assertSameJson(get(DrillController.ENDPOINT + "/by_sub_category")
+            .param("subCategoryIds", subCategories.get(1).getId() + "," + subCategories.get(2).getId()));
+        assertSameJson(get(DrillController.ENDPOINT + "/update")
+            .param("updateTimestamp", String.valueOf(TIMESTAMP_1 + NUM_DRILLS - 10)));
+    }
+
+    @Test
+    public void test_jsonAggregation_withNoMatchingDrills_returns204() throws Exception {
+        properties.setEndpoints(EnumSet.allOf(DrillJsonQuery.class));
+
+        mockMvc.perform(get(DrillController.ENDPOINT + "/by_category").param("categoryIds", "-1"))
+            .andExpect(status().isNoContent());
+        mockMvc.perform(get(DrillController.ENDPOINT + "/update")
+                .param("updateTimestamp", String.valueOf(TIMESTAMP_1 + NUM_DRILLS)))
+            .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void test_jsonAggregation_benchmarkAgainstJpa() throws Exception {
+        benchmark("JPA", EnumSet.noneOf(DrillJsonQuery.class));
+        benchmark("JSON aggregation", EnumSet.allOf(DrillJsonQuery.class));
+    }
+
+    /**
+     * Request the same endpoint through JPA and through JSON aggregation, and compare the JSON.
+     *
+     * @param request Request to perform.
+     */
+    private void assertSameJson(MockHttpServletRequestBuilder request) throws Exception {
+        properties.setEndpoints(EnumSet.noneOf(DrillJsonQuery.class));
+        String jpaJson = mockMvc.perform(request)
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        properties.setEndpoints(EnumSet.allOf(DrillJsonQuery.class));
+        String aggregatedJson = mockMvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getContentAsString();
+
+        assertEquals(objectMapper.readTree(jpaJson), objectMapper.readTree(aggregatedJson));
+    }
+
+    /**
+     * Request all drills, logging the size and average response time.
+     *
+     * @param name Name to log.
+     * @param endpoints Endpoints to build with JSON aggregation.
+     */
+    private void benchmark(String name, Set<DrillJsonQuery> endpoints) throws Exception {
+        properties.setEndpoints(endpoints);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            mockMvc.perform(get(DrillController.ENDPOINT)).andExpect(status().isOk());
+        }
+
+        int size = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            size = mockMvc.perform(get(DrillController.ENDPOINT))
+                .andReturn().getResponse().getContentAsByteArray().length;
+        }
+        long averageMicros = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+        log.info("GET {} x{} drills with {}: {} bytes, {} us per request", DrillController.ENDPOINT,
+            NUM_DRILLS, name, size, averageMicros);
+    }
+}
@@ -0,0 +1,153 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.integration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.damienwesterman.defensedrill.rest_api.datasource.ReplicaMonitor;
+import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.web.CategoryController;
+import com.damienwesterman.defensedrill.rest_api.web.ConsistencyTokenInterceptor;
+
+/**
+ * Replica routing against a real primary and streaming replica, ex. two local PostgreSQL
+ * instances. Only runs when the replica is given, ex:
+ * <br><br>
+ * mvn test -Dtest=ReplicaRoutingDatabaseTests -Drest-api.replica.urls=jdbc:postgresql://localhost:5433/defense_drill
+ */
+@SpringBootTest(properties = {
+    "rest-api.grpc.port=0",
+    "rest-api.replica.enabled=true",
+    "rest-api.replica.max-lag=1s",
+    "rest-api.replica.check-interval=100ms"
+})
+@AutoConfigureMockMvc
+@EnabledIfSystemProperty(named = "rest-api.replica.urls", matches = ".+")
+public class ReplicaRoutingDatabaseTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ReplicaMonitor replicaMonitor;
+    @Autowired
+    private CategoryRepo categoryRepo;
+
+    private boolean onReplica(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+            new JdbcTemplate(dataSource).queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+    }
+
+    private JdbcTemplate replicaJdbcTemplate() {
+        return new JdbcTemplate(replicaMonitor.getReplicaDataSources().values().iterator().next());
+    }
+
+    private boolean awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        replicaJdbcTemplate().execute("SELECT pg_wal_replay_resume()");
+        categoryRepo.deleteAll();
+        assertTrue(awaitCondition(() -> onReplica(true)), "Replica never came into rotation");
+    }
+
+    @Test
+    public void test_readOnlyTransactions_useReplica_othersUsePrimary() {
+        assertTrue(onReplica(true));
+        assertFalse(onReplica(false));
+    }
+
+    @Test
+    public void test_consistencyToken_readsOwnWrite() throws Exception {
+        MvcResult created = mockMvc.perform(post(CategoryController.ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Replicated\", \"description\": \"Description\"}"))
+            .andExpect(status().isCreated())
+            .andReturn();
+        String token = created.getResponse().getHeader(ConsistencyTokenInterceptor.HEADER);
+        String location = created.getResponse().getHeader("Location");
+        String path = CategoryController.ENDPOINT + "/id/" + location.substring(location.lastIndexOf('/') + 1);
+        assertNotNull(token);
+
+        mockMvc.perform(get(path).header(ConsistencyTokenInterceptor.HEADER, token))
+            .andExpect(status().isOk());
+        mockMvc.perform(get(path).header(ConsistencyTokenInterceptor.HEADER, "not-a-token"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void test_laggingReplica_fallsBackToPrimary() throws Exception {
+        replicaJdbcTemplate().execute("SELECT pg_wal_replay_pause()");
+        try {
+            mockMvc.perform(post(CategoryController.ENDPOINT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\": \"Lagging\", \"description\": \"Description\"}"))
+                .andExpect(status().isCreated());
+
+            assertTrue(awaitCondition(() -> !onReplica(true)), "Lagging replica was never taken out of rotation");
+        } finally {
+            replicaJdbcTemplate().execute("SELECT pg_wal_replay_resume()");
+        }
+
+        assertTrue(awaitCondition(() -> onReplica(true)), "Replica never came back into rotation");
+    }
+}
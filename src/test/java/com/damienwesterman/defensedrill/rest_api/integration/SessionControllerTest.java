@@ -0,0 +1,121 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.integration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.damienwesterman.defensedrill.rest_api.service.DrillSampler;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
+import com.damienwesterman.defensedrill.rest_api.web.SessionController;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
+
+@WebMvcTest(SessionController.class)
+@AutoConfigureMockMvc
+@Import(IdLists.class)
+public class SessionControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    @MockitoBean
+    DrillSampler drillSampler;
+
+    final String GENERATE_ENDPOINT = SessionController.ENDPOINT + "/generate";
+
+    @Test
+    public void test_generateEndpoint_post_returnsDrillsOfEachQuota() throws Exception {
+        List<DrillSampler.Quota> quotas = List.of(
+            new DrillSampler.Quota(2, List.of(1L), null),
+            new DrillSampler.Quota(1, null, List.of(2L)));
+        when(drillSampler.sampleSession(quotas, List.of(5L), 42L)).thenReturn(List.of(
+            List.of(new DrillRelatedDTO(10L, "Jab"), new DrillRelatedDTO(11L, "Cross")),
+            List.of(new DrillRelatedDTO(12L, "Armbar"))));
+
+        mockMvc.perform(post(GENERATE_ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                        "quotas": [
+                            {"categoryIds": [1], "count": 2},
+                            {"subCategoryIds": [2], "count": 1}
+                        ],
+                        "excludeIds": [5],
+                        "seed": 42
+                    }
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.quotas.length()").value(2))
+            .andExpect(jsonPath("$.quotas[0][0].id").value(10))
+            .andExpect(jsonPath("$.quotas[0][1].name").value("Cross"))
+            .andExpect(jsonPath("$.quotas[1][0].name").value("Armbar"));
+    }
+
+    @Test
+    public void test_generateEndpoint_post_withInvalidCount_returns400() throws Exception {
+        mockMvc.perform(post(GENERATE_ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quotas\": [{\"categoryIds\": [1], \"count\": 0}]}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Malformed Argument"));
+
+        verify(drillSampler, never()).sampleSession(anyList(), any(), any());
+    }
+
+    @Test
+    public void test_generateEndpoint_post_withNoQuotas_returns400() throws Exception {
+        mockMvc.perform(post(GENERATE_ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quotas\": []}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Malformed Argument"));
+    }
+
+    @Test
+    public void test_generateEndpoint_post_withTooManyDrills_returns400() throws Exception {
+        mockMvc.perform(post(GENERATE_ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quotas\": [{\"count\": 2147483647}, {\"count\": 2147483647}]}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid Parameter"));
+    }
+}
@@ -0,0 +1,191 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import com.damienwesterman.defensedrill.rest_api.exception.ConcurrencyLimitExceededException;
+import com.damienwesterman.defensedrill.rest_api.web.Bulkhead;
+import com.damienwesterman.defensedrill.rest_api.web.BulkheadInterceptor;
+import com.damienwesterman.defensedrill.rest_api.web.BulkheadProperties;
+import com.damienwesterman.defensedrill.rest_api.web.Traffic;
+import com.damienwesterman.defensedrill.rest_api.web.TrafficClass;
+import com.damienwesterman.defensedrill.rest_api.web.TrafficClassContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BulkheadInterceptorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private BulkheadInterceptor interceptor;
+    private HandlerMethod interactiveHandler;
+    private HandlerMethod bulkHandler;
+    private MockHttpServletResponse response;
+
+    /**
+     * Stand-in controller to build handler methods from.
+     */
+    static class TestController {
+        public void getOne() { }
+
+        @Traffic(TrafficClass.BULK_READ)
+        public void getAll() { }
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        ObjectProvider<MeterRegistry> meterRegistryProvider = beanFactory.getBeanProvider(MeterRegistry.class);
+        // Each partition has a single slot and no queue
+        BulkheadProperties properties = new BulkheadProperties();
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            properties.get(trafficClass).setMaxConcurrent(1);
+            properties.get(trafficClass).setMaxQueue(0);
+        }
+        properties.setRetryAfterSeconds(2);
+        interceptor = new BulkheadInterceptor(meterRegistryProvider, properties);
+
+        TestController controller = new TestController();
+        interactiveHandler = new HandlerMethod(controller, TestController.class.getMethod("getOne"));
+        bulkHandler = new HandlerMethod(controller, TestController.class.getMethod("getAll"));
+        response = new MockHttpServletResponse();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        TrafficClassContext.clear();
+    }
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/drill");
+    }
+
+    @Test
+    public void test_preHandle_setsTrafficClassContext() {
+        assertTrue(interceptor.preHandle(get(), response, bulkHandler));
+
+        assertEquals(TrafficClass.BULK_READ, TrafficClassContext.get());
+        assertEquals(1, interceptor.getBulkhead(TrafficClass.BULK_READ).getInUse());
+    }
+
+    @Test
+    public void test_preHandle_partitionFull_throwsAndCountsRejection() {
+        interceptor.preHandle(get(), response, bulkHandler);
+
+        ConcurrencyLimitExceededException e = assertThrows(ConcurrencyLimitExceededException.class,
+            () -> interceptor.preHandle(get(), response, bulkHandler));
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get(BulkheadInterceptor.REJECTIONS_METRIC)
+            .tag("traffic.class", "bulk_read").counter().count());
+        // A full bulk partition leaves interactive reads untouched
+        assertTrue(interceptor.preHandle(get(), response, interactiveHandler));
+    }
+
+    @Test
+    public void test_afterCompletion_releasesSlotAndClearsContext() {
+        MockHttpServletRequest request = get();
+        interceptor.preHandle(request, response, interactiveHandler);
+
+        interceptor.afterCompletion(request, response, interactiveHandler, null);
+
+        assertNull(TrafficClassContext.get());
+        assertEquals(0, interceptor.getBulkhead(TrafficClass.INTERACTIVE_READ).getInUse());
+    }
+
+    @Test
+    public void test_afterCompletion_restoresTrafficClassOfEnclosingRequest() {
+        // Like a write sub-request dispatched while its /batch holds a bulk read slot
+        TrafficClassContext.set(TrafficClass.BULK_READ);
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/drill/id/1");
+        interceptor.preHandle(request, response, interactiveHandler);
+        assertEquals(TrafficClass.WRITE, TrafficClassContext.get());
+        assertEquals(1, interceptor.getBulkhead(TrafficClass.WRITE).getInUse());
+
+        interceptor.afterCompletion(request, response, interactiveHandler, null);
+
+        assertEquals(TrafficClass.BULK_READ, TrafficClassContext.get());
+        assertEquals(0, interceptor.getBulkhead(TrafficClass.WRITE).getInUse());
+    }
+
+    @Test
+    public void test_afterConcurrentHandlingStarted_releasesSlotOnce() {
+        MockHttpServletRequest request = get();
+        interceptor.preHandle(request, response, bulkHandler);
+
+        interceptor.afterConcurrentHandlingStarted(request, response, bulkHandler);
+        interceptor.afterCompletion(request, response, bulkHandler, null);
+
+        assertNull(TrafficClassContext.get());
+        assertTrue(interceptor.preHandle(get(), response, bulkHandler));
+        assertEquals(1, interceptor.getBulkhead(TrafficClass.BULK_READ).getInUse());
+    }
+
+    @Test
+    public void test_bulkhead_queuedRequestGetsReleasedSlot() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(
+            new BulkheadProperties.Partition(1, 1, Duration.ofSeconds(5), Duration.ZERO));
+        assertTrue(bulkhead.tryAcquire());
+
+        Thread releaser = new Thread(() -> {
+            while (0 == bulkhead.getQueued()) {
+                Thread.onSpinWait();
+            }
+            bulkhead.release();
+        });
+        releaser.start();
+
+        assertTrue(bulkhead.tryAcquire());
+        releaser.join();
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    public void test_bulkhead_queueTimeout_rejects() {
+        Bulkhead bulkhead = new Bulkhead(
+            new BulkheadProperties.Partition(1, 1, Duration.ofMillis(10), Duration.ZERO));
+        assertTrue(bulkhead.tryAcquire());
+
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(0, bulkhead.getQueued());
+    }
+}
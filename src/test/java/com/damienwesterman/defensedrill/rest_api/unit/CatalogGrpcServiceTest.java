@@ -0,0 +1,242 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.grpc.CatalogGrpcService;
+import com.damienwesterman.defensedrill.rest_api.grpc.GrpcChangeFeed;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.CatalogServiceGrpc;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.Drill;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.EntityType;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.GetRequest;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.ListDrillsRequest;
+import com.damienwesterman.defensedrill.rest_api.grpc.proto.WatchChangesRequest;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogGrpcServiceTest {
+    @Mock
+    private DrillService drillService;
+    @Mock
+    private CategorySerivce categorySerivce;
+    @Mock
+    private SubCategorySerivce subCategorySerivce;
+    @Mock
+    private DrillSummary relatedDrillSummary;
+
+    private GrpcChangeFeed changeFeed;
+    private Server server;
+    private ManagedChannel channel;
+    private CatalogServiceGrpc.CatalogServiceBlockingStub stub;
+
+    final Long DRILL_ID = 1L;
+    final Long RELATED_DRILL_ID = 2L;
+    final String DRILL_NAME = "Drill Name";
+    final String RELATED_DRILL_NAME = "Related Drill";
+
+    @BeforeEach
+    public void setup() throws Exception {
+        changeFeed = new GrpcChangeFeed();
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+            .directExecutor()
+            .addService(new CatalogGrpcService(drillService, categorySerivce, subCategorySerivce, changeFeed))
+            .build()
+            .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        stub = CatalogServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    public void teardown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void test_getDrill_byId_returnsDrillWithRelatedDrillNames() {
+        DrillEntity drill = DrillEntity.builder()
+            .id(DRILL_ID)
+            .name(DRILL_NAME)
+            .categories(List.of(CategoryEntity.builder().id(11L).name("Category").description("Desc").build()))
+            .relatedDrills(List.of(RELATED_DRILL_ID))
+            .build();
+        when(drillService.find(DRILL_ID)).thenReturn(Optional.of(drill));
+        when(relatedDrillSummary.getId()).thenReturn(RELATED_DRILL_ID);
+        when(relatedDrillSummary.getName()).thenReturn(RELATED_DRILL_NAME);
+        when(drillService.findAllSummaries(anyCollection())).thenReturn(List.of(relatedDrillSummary));
+
+        Drill response = stub.getDrill(GetRequest.newBuilder().setId(DRILL_ID).build());
+
+        assertEquals(DRILL_ID, response.getId());
+        assertEquals(DRILL_NAME, response.getName());
+        assertEquals("Category", response.getCategories(0).getName());
+        assertEquals(RELATED_DRILL_NAME, response.getRelatedDrills(0).getName());
+        assertEquals(0, response.getInstructionsCount());
+    }
+
+    @Test
+    public void test_getDrill_nonExistent_returnsNotFound() {
+        when(drillService.find(DRILL_NAME)).thenReturn(Optional.empty());
+
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+            () -> stub.getDrill(GetRequest.newBuilder().setName(DRILL_NAME).build()));
+        assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+    }
+
+    @Test
+    public void test_getDrill_withoutKey_returnsInvalidArgument() {
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+            () -> stub.getDrill(GetRequest.getDefaultInstance()));
+        assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+    }
+
+    @Test
+    public void test_listDrills_withTwoFilters_returnsInvalidArgument() {
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+            () -> stub.listDrills(ListDrillsRequest.newBuilder()
+                .setUpdatedAfter(1L)
+                .addCategoryIds(11L)
+                .build()));
+        assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+    }
+
+    @Test
+    public void test_listDrills_byCategory_callsFindAllByCategory() {
+        when(drillService.findAllByCategory(List.of(11L))).thenReturn(new ArrayList<>());
+
+        assertEquals(0, stub.listDrills(ListDrillsRequest.newBuilder().addCategoryIds(11L).build()).getDrillsCount());
+        verify(drillService, times(1)).findAllByCategory(List.of(11L));
+    }
+
+    @Test
+    public void test_watchChanges_streamsOnlyWatchedEntityTypes() {
+        Iterator<ChangeEvent> events = stub.watchChanges(WatchChangesRequest.newBuilder()
+            .addEntityTypes(EntityType.DRILL)
+            .build());
+        // The in-process transport runs on a direct executor, so the watcher is registered by now
+        assertEquals(1, changeFeed.getWatcherCount());
+
+        changeFeed.onDatabaseChange(new DatabaseChangeEvent(CategoryEntity.class,
+            DatabaseChangeEvent.ChangeType.SAVE, 11L));
+        changeFeed.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class,
+            DatabaseChangeEvent.ChangeType.DELETE, DRILL_ID));
+        changeFeed.completeAll();
+
+        assertTrue(events.hasNext());
+        ChangeEvent event = events.next();
+        assertEquals(EntityType.DRILL, event.getEntityType());
+        assertEquals(ChangeType.DELETE, event.getChangeType());
+        assertEquals(DRILL_ID, event.getId());
+        assertFalse(events.hasNext());
+    }
+
+    @Test
+    public void test_changeFeed_holdsLatestChangePerEntityUntilStreamIsReady() {
+        ServerCallStreamObserver<ChangeEvent> observer = mock();
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        changeFeed.watch(observer, Set.of());
+        verify(observer).setOnReadyHandler(onReady.capture());
+
+        when(observer.isReady()).thenReturn(false);
+        changeFeed.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class,
+            DatabaseChangeEvent.ChangeType.SAVE, DRILL_ID));
+        changeFeed.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class,
+            DatabaseChangeEvent.ChangeType.SAVE, RELATED_DRILL_ID));
+        changeFeed.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class,
+            DatabaseChangeEvent.ChangeType.DELETE, DRILL_ID));
+        verify(observer, never()).onNext(any());
+
+        when(observer.isReady()).thenReturn(true);
+        onReady.getValue().run();
+
+        ArgumentCaptor<ChangeEvent> sent = ArgumentCaptor.forClass(ChangeEvent.class);
+        verify(observer, times(2)).onNext(sent.capture());
+        assertEquals(RELATED_DRILL_ID, sent.getAllValues().get(0).getId());
+        assertEquals(DRILL_ID, sent.getAllValues().get(1).getId());
+        assertEquals(ChangeType.DELETE, sent.getAllValues().get(1).getChangeType());
+    }
+
+    @Test
+    public void test_changeFeed_cancelsStreamThatFallsTooFarBehind() {
+        ServerCallStreamObserver<ChangeEvent> observer = mock();
+        changeFeed.watch(observer, Set.of());
+        when(observer.isReady()).thenReturn(false);
+
+        for (long id = 0; id <= GrpcChangeFeed.MAX_PENDING_CHANGES; id++) {
+            changeFeed.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class,
+                DatabaseChangeEvent.ChangeType.SAVE, id));
+        }
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(observer).onError(error.capture());
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(error.getValue()).getCode());
+        assertEquals(0, changeFeed.getWatcherCount());
+        verify(observer, never()).onNext(any());
+    }
+}
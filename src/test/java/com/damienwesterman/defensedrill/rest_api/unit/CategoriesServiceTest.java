@@ -30,13 +30,16 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -44,8 +47,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
@@ -53,8 +58,13 @@ import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertExcepti
 import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
 import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
 import com.damienwesterman.defensedrill.rest_api.service.CategorySerivce;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
+import com.damienwesterman.defensedrill.rest_api.service.SingleFlight;
 import com.damienwesterman.defensedrill.rest_api.service.SubCategorySerivce;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.ConstraintViolationException;
 
 @ExtendWith(MockitoExtension.class)
@@ -64,6 +74,8 @@ public class CategoriesServiceTest {
     @Mock
     private SubCategoryRepo subCategoryRepo;
     @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
     private CategoryEntity categoryEntity;
     @Mock
     private SubCategoryEntity subCategoryEntity;
@@ -73,13 +85,17 @@ public class CategoriesServiceTest {
 
     @BeforeEach
     public void setup() {
-        categorySerivce = new CategorySerivce(categoryRepo);
-        subCategoryService = new SubCategorySerivce(subCategoryRepo);
+        SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(), 1024);
+        categorySerivce = new CategorySerivce(categoryRepo, eventPublisher, singleFlight, new IdLists(1000, 512));
+        subCategoryService = new SubCategorySerivce(subCategoryRepo, eventPublisher, singleFlight,
+            new IdLists(1000, 512));
     }
 
     // Save serves as both a create and update
     @Test
     public void test_save_usesCorrectRepoDependingOnEntityType() {
+        when(categoryRepo.save(categoryEntity)).thenReturn(categoryEntity);
+        when(subCategoryRepo.save(subCategoryEntity)).thenReturn(subCategoryEntity);
         assertDoesNotThrow(() -> categorySerivce.save(categoryEntity));
         verify(categoryRepo, times(1)).save(categoryEntity);
 
@@ -172,10 +188,116 @@ public class CategoriesServiceTest {
 
     @Test
     public void test_delete_callsDeleteById() {
-        categorySerivce.delete(0L);
+        categorySerivce.delete(0L, null);
         verify(categoryRepo, times(1)).deleteById(0L);
 
-        subCategoryService.delete(0L);
+        subCategoryService.delete(0L, null);
         verify(subCategoryRepo, times(1)).deleteById(0L);
     }
+
+    @Test
+    public void test_delete_withStaleVersion_throws() {
+        when(categoryRepo.deleteByIdAndVersion(0L, 3L)).thenReturn(0);
+        when(categoryRepo.existsById(0L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> categorySerivce.delete(0L, 3L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_saveAndDelete_publishEventsWithCorrectEntityType() {
+        when(categoryEntity.getId()).thenReturn(0L);
+        when(categoryRepo.save(categoryEntity)).thenReturn(categoryEntity);
+        assertDoesNotThrow(() -> categorySerivce.save(categoryEntity));
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            CategoryEntity.class.equals(event.getEntityType())
+                && ChangeType.SAVE == event.getChangeType()));
+
+        subCategoryService.delete(0L, null);
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            SubCategoryEntity.class.equals(event.getEntityType())
+                && ChangeType.DELETE == event.getChangeType()));
+    }
+
+    @Test
+    public void test_update_appliesChangesAndFlushesWithCorrectRepo() {
+        CategoryEntity existing = CategoryEntity.builder()
+                                    .id(0L)
+                                    .updateTimestamp(1L)
+                                    .name("Name")
+                                    .description("Old Description")
+                                    .build();
+        when(categoryRepo.findById(0L)).thenReturn(Optional.of(existing));
+        when(categoryRepo.saveAndFlush(existing)).thenReturn(existing);
+
+        CategoryEntity updated = categorySerivce.update(0L, null, changed -> changed.setDescription("New Description"));
+
+        assertEquals("Name", updated.getName());
+        assertEquals("New Description", updated.getDescription());
+        verify(categoryRepo, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            CategoryEntity.class.equals(event.getEntityType())
+                && ChangeType.SAVE == event.getChangeType()
+                && 0L == event.getId()));
+    }
+
+    @Test
+    public void test_update_withNonExistentEntity_throws() {
+        when(subCategoryRepo.findById(0L)).thenReturn(Optional.empty());
+
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class,
+            () -> subCategoryService.update(0L, null, changed -> changed.setName("Name")));
+        assertEquals("SubCategory ID 0 does not exist", exception.getMessage());
+        verify(subCategoryRepo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void test_update_withStaleVersion_throwsWithoutSaving() {
+        when(categoryRepo.findByIdAndVersion(0L, 1L)).thenReturn(Optional.empty());
+        when(categoryRepo.existsById(0L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> categorySerivce.update(0L, 1L, changed -> changed.setName("New Name")));
+        verify(categoryRepo, never()).findById(any());
+        verify(categoryRepo, never()).saveAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_replace_withMatchingVersion_writesOnceWithoutReading() {
+        CategoryEntity category = CategoryEntity.builder()
+                                    .id(0L)
+                                    .name("Name")
+                                    .description("Description")
+                                    .build();
+        when(categoryRepo.updateByIdAndVersion(eq(0L), eq(3L), eq("Name"), eq("Description"), any()))
+            .thenReturn(1);
+
+        assertEquals(4L, categorySerivce.replace(category, 3L));
+        verify(categoryRepo, never()).findById(any());
+        verify(categoryRepo, never()).findVersionById(any());
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            ChangeType.SAVE == event.getChangeType() && 0L == event.getId()));
+    }
+
+    @Test
+    public void test_replace_withStaleVersion_throwsConflict() {
+        CategoryEntity category = CategoryEntity.builder().id(0L).name("Name").build();
+        when(categoryRepo.updateByIdAndVersion(eq(0L), eq(3L), any(), any(), any())).thenReturn(0);
+        when(categoryRepo.existsById(0L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> categorySerivce.replace(category, 3L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_replace_withNonExistentEntity_throwsNotFound() {
+        SubCategoryEntity subCategory = SubCategoryEntity.builder().id(0L).name("Name").build();
+        when(subCategoryRepo.updateById(eq(0L), any(), any(), any())).thenReturn(0);
+
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class,
+            () -> subCategoryService.replace(subCategory, null));
+        assertEquals("SubCategory ID 0 does not exist", exception.getMessage());
+        verify(subCategoryRepo, never()).existsById(any());
+    }
 }
@@ -0,0 +1,131 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import com.damienwesterman.defensedrill.rest_api.exception.ConcurrencyLimitExceededException;
+import com.damienwesterman.defensedrill.rest_api.web.ConcurrencyLimitInterceptor;
+import com.damienwesterman.defensedrill.rest_api.web.Traffic;
+import com.damienwesterman.defensedrill.rest_api.web.TrafficClass;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ConcurrencyLimitInterceptorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitInterceptor interceptor;
+    private HandlerMethod interactiveHandler;
+    private HandlerMethod bulkHandler;
+    private MockHttpServletResponse response;
+
+    /**
+     * Stand-in controller to build handler methods from.
+     */
+    static class TestController {
+        public void getOne() { }
+
+        @Traffic(TrafficClass.BULK_READ)
+        public void getAll() { }
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        ObjectProvider<MeterRegistry> meterRegistryProvider = beanFactory.getBeanProvider(MeterRegistry.class);
+        // Each traffic class may only have a single request in flight
+        interceptor = new ConcurrencyLimitInterceptor(meterRegistryProvider, true, 1, 1, 1, 3);
+
+        TestController controller = new TestController();
+        interactiveHandler = new HandlerMethod(controller, TestController.class.getMethod("getOne"));
+        bulkHandler = new HandlerMethod(controller, TestController.class.getMethod("getAll"));
+        response = new MockHttpServletResponse();
+    }
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/drill");
+    }
+
+    @Test
+    public void test_preHandle_overLimit_throwsAndCountsRejection() {
+        assertTrue(interceptor.preHandle(get(), response, interactiveHandler));
+
+        ConcurrencyLimitExceededException e = assertThrows(ConcurrencyLimitExceededException.class,
+            () -> interceptor.preHandle(get(), response, interactiveHandler));
+        assertEquals(3, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get(ConcurrencyLimitInterceptor.REJECTIONS_METRIC)
+            .tag("traffic.class", "interactive_read").counter().count());
+    }
+
+    @Test
+    public void test_preHandle_trafficClassesAreLimitedSeparately() {
+        assertTrue(interceptor.preHandle(get(), response, interactiveHandler));
+
+        assertTrue(interceptor.preHandle(get(), response, bulkHandler));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("DELETE", "/drill/id/1"),
+            response, interactiveHandler));
+        assertEquals(1, interceptor.getLimiter(TrafficClass.BULK_READ).getInFlight());
+        assertEquals(1, interceptor.getLimiter(TrafficClass.WRITE).getInFlight());
+    }
+
+    @Test
+    public void test_afterCompletion_releasesPermit() {
+        MockHttpServletRequest request = get();
+        interceptor.preHandle(request, response, interactiveHandler);
+
+        interceptor.afterCompletion(request, response, interactiveHandler, null);
+
+        assertEquals(0, interceptor.getLimiter(TrafficClass.INTERACTIVE_READ).getInFlight());
+        assertTrue(interceptor.preHandle(get(), response, interactiveHandler));
+    }
+
+    @Test
+    public void test_afterConcurrentHandlingStarted_releasesPermitOfLongPoll() {
+        MockHttpServletRequest request = get();
+        interceptor.preHandle(request, response, bulkHandler);
+
+        interceptor.afterConcurrentHandlingStarted(request, response, bulkHandler);
+        // Completion of the async dispatch must not release a second time
+        interceptor.afterCompletion(request, response, bulkHandler, null);
+
+        assertEquals(0, interceptor.getLimiter(TrafficClass.BULK_READ).getInFlight());
+        assertEquals(1.0, meterRegistry.get(ConcurrencyLimitInterceptor.LIMIT_METRIC)
+            .tag("traffic.class", "bulk_read").gauge().value());
+    }
+}
@@ -0,0 +1,204 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.service.DrillIndex;
+
+@ExtendWith(MockitoExtension.class)
+public class DrillIndexTest {
+    private static final Long CATEGORY_ID = 10L;
+    private static final Long OTHER_CATEGORY_ID = 11L;
+    private static final Long SUB_CATEGORY_ID = 20L;
+
+    @Mock
+    private DrillRepo repo;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DrillIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new DrillIndex(repo, transactionManager);
+    }
+
+    private void givenDrills() {
+        // Drills 1 to 3, all in the category, only drill 2 in the sub-category
+        List<DrillSummary> drills = List.of(summary(1L), summary(2L), summary(3L));
+        List<DrillRepo.DrillIdRow> categoryRows =
+            List.of(row(1L, CATEGORY_ID), row(2L, CATEGORY_ID), row(3L, CATEGORY_ID));
+        List<DrillRepo.DrillIdRow> subCategoryRows = List.of(row(2L, SUB_CATEGORY_ID));
+        when(repo.findAllBy(Sort.by("id"), DrillSummary.class)).thenReturn(drills);
+        when(repo.findAllCategoryIds()).thenReturn(categoryRows);
+        when(repo.findAllSubCategoryIds()).thenReturn(subCategoryRows);
+    }
+
+    @Test
+    public void test_snapshot_loadsOnce() {
+        givenDrills();
+
+        DrillIndex.Snapshot snapshot = index.snapshot();
+
+        assertSame(snapshot, index.snapshot());
+        assertArrayEquals(new long[] {1, 2, 3}, snapshot.candidates(null, null));
+        assertArrayEquals(new long[] {1, 2, 3}, snapshot.candidates(List.of(CATEGORY_ID), null));
+        assertArrayEquals(new long[] {2}, snapshot.candidates(List.of(CATEGORY_ID), List.of(SUB_CATEGORY_ID)));
+        assertEquals("Drill 2", snapshot.name(2));
+        verify(repo, times(1)).findAllBy(Sort.by("id"), DrillSummary.class);
+    }
+
+    @Test
+    public void test_snapshot_loadsInNewReadWriteTransaction() {
+        givenDrills();
+
+        index.snapshot();
+
+        // Never joins a read-only transaction of the caller, which may read from a replica
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        assertFalse(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    public void test_onDatabaseChange_drillSave_reloadsOnlyThatDrill() {
+        givenDrills();
+        index.snapshot();
+        DrillRepo.DrillCategoryRow categoryRow = mock(DrillRepo.DrillCategoryRow.class);
+        when(categoryRow.getCategory()).thenReturn(CategoryEntity.builder().id(OTHER_CATEGORY_ID).build());
+        DrillSummary newDrill = mock(DrillSummary.class);
+        when(newDrill.getName()).thenReturn("Drill 4");
+        when(repo.findById(4L, DrillSummary.class)).thenReturn(Optional.of(newDrill));
+        when(repo.findCategoriesByDrillIdIn(List.of(4L))).thenReturn(List.of(categoryRow));
+        when(repo.findSubCategoriesByDrillIdIn(List.of(4L))).thenReturn(List.of());
+
+        index.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, 4L));
+
+        DrillIndex.Snapshot snapshot = index.snapshot();
+        assertArrayEquals(new long[] {1, 2, 3, 4}, snapshot.candidates(null, null));
+        assertArrayEquals(new long[] {1, 2, 3}, snapshot.candidates(List.of(CATEGORY_ID), null));
+        assertArrayEquals(new long[] {4}, snapshot.candidates(List.of(OTHER_CATEGORY_ID), null));
+        assertArrayEquals(new long[] {1, 2, 3, 4},
+            snapshot.candidates(List.of(CATEGORY_ID, OTHER_CATEGORY_ID), null));
+        assertEquals("Drill 4", snapshot.name(4));
+        verify(repo, times(1)).findAllBy(Sort.by("id"), DrillSummary.class);
+    }
+
+    @Test
+    public void test_onDatabaseChange_drillDelete_removesDrill() {
+        givenDrills();
+        index.snapshot();
+
+        index.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.DELETE, 2L));
+
+        DrillIndex.Snapshot snapshot = index.snapshot();
+        assertArrayEquals(new long[] {1, 3}, snapshot.candidates(null, null));
+        assertArrayEquals(new long[] {1, 3}, snapshot.candidates(List.of(CATEGORY_ID), null));
+        assertArrayEquals(new long[0], snapshot.candidates(null, List.of(SUB_CATEGORY_ID)));
+        assertNull(snapshot.name(2));
+        verify(repo, never()).findById(2L, DrillSummary.class);
+    }
+
+    @Test
+    public void test_onDatabaseChange_categoryDelete_removesCategory() {
+        givenDrills();
+        index.snapshot();
+
+        index.onDatabaseChange(new DatabaseChangeEvent(CategoryEntity.class, ChangeType.DELETE, CATEGORY_ID));
+        index.onDatabaseChange(new DatabaseChangeEvent(SubCategoryEntity.class, ChangeType.DELETE, SUB_CATEGORY_ID));
+
+        DrillIndex.Snapshot snapshot = index.snapshot();
+        assertArrayEquals(new long[0], snapshot.candidates(List.of(CATEGORY_ID), null));
+        assertArrayEquals(new long[0], snapshot.candidates(null, List.of(SUB_CATEGORY_ID)));
+        assertArrayEquals(new long[] {1, 2, 3}, snapshot.candidates(null, null));
+    }
+
+    @Test
+    public void test_onDatabaseChange_otherChanges_areIgnored() {
+        givenDrills();
+        DrillIndex.Snapshot snapshot = index.snapshot();
+
+        index.onDatabaseChange(new DatabaseChangeEvent(CategoryEntity.class, ChangeType.SAVE, CATEGORY_ID));
+        index.onDatabaseChange(new DatabaseChangeEvent(InstructionsEntity.class, ChangeType.SAVE, 1L));
+
+        assertSame(snapshot, index.snapshot());
+    }
+
+    @Test
+    public void test_onDatabaseChange_beforeLoad_doesNotQuery() {
+        index.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, 1L));
+
+        verifyNoInteractions(repo);
+    }
+
+    private static DrillSummary summary(long id) {
+        DrillSummary summary = mock(DrillSummary.class);
+        when(summary.getId()).thenReturn(id);
+        when(summary.getName()).thenReturn("Drill " + id);
+        return summary;
+    }
+
+    private static DrillRepo.DrillIdRow row(Long drillId, Long associatedId) {
+        DrillRepo.DrillIdRow row = mock(DrillRepo.DrillIdRow.class);
+        when(row.getDrillId()).thenReturn(drillId);
+        when(row.getAssociatedId()).thenReturn(associatedId);
+        return row;
+    }
+}
@@ -0,0 +1,285 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.service.DrillIndex;
+import com.damienwesterman.defensedrill.rest_api.service.DrillSampler;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillRelatedDTO;
+
+@ExtendWith(MockitoExtension.class)
+public class DrillSamplerTest {
+    private static final Logger log = LoggerFactory.getLogger(DrillSamplerTest.class);
+    private static final Long CATEGORY_LOW = 10L;
+    private static final Long CATEGORY_MIDDLE = 11L;
+    private static final Long SUB_CATEGORY_EVEN = 20L;
+
+    @Mock
+    private DrillRepo repo;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DrillSampler sampler;
+
+    @BeforeEach
+    public void setup() {
+        sampler = new DrillSampler(new DrillIndex(repo, transactionManager));
+    }
+
+    private void givenDrills() {
+        // Drills 1 to 100, category low has 1 to 50, category middle 40 to 60
+        when(repo.findAllBy(Sort.by("id"), DrillSummary.class)).thenReturn(LongStream.rangeClosed(1, 100)
+            .mapToObj(DrillSamplerTest::summary)
+            .toList());
+        when(repo.findAllCategoryIds()).thenReturn(LongStream.rangeClosed(1, 60)
+            .boxed()
+            .<DrillRepo.DrillIdRow>mapMulti((drillId, rows) -> {
+                if (50 >= drillId) {
+                    rows.accept(row(drillId, CATEGORY_LOW));
+                }
+                if (40 <= drillId) {
+                    rows.accept(row(drillId, CATEGORY_MIDDLE));
+                }
+            })
+            .toList());
+        when(repo.findAllSubCategoryIds()).thenReturn(LongStream.rangeClosed(1, 100)
+            .filter(drillId -> 0 == drillId % 2)
+            .mapToObj(drillId -> row(drillId, SUB_CATEGORY_EVEN))
+            .toList());
+    }
+
+    @Test
+    public void test_sample_drawsDistinctDrills() {
+        givenDrills();
+        List<Long> drawn = sampler.sample(30, null, null, null, null, null);
+
+        assertEquals(30, drawn.size());
+        assertEquals(30, new HashSet<>(drawn).size());
+        assertTrue(drawn.stream().allMatch(id -> 1 <= id && 100 >= id));
+    }
+
+    @Test
+    public void test_sample_moreThanAvailable_drawsAllMatching() {
+        givenDrills();
+        List<Long> drawn = sampler.sample(500, List.of(CATEGORY_MIDDLE), null, null, null, null);
+
+        assertEquals(LongStream.rangeClosed(40, 60).boxed().toList(), drawn.stream().sorted().toList());
+    }
+
+    @Test
+    public void test_sample_byCategoriesAndSubCategory_drawsOnlyMatchingDrills() {
+        givenDrills();
+        List<Long> drawn = sampler.sample(100, List.of(CATEGORY_LOW, CATEGORY_MIDDLE), List.of(SUB_CATEGORY_EVEN),
+            null, null, null);
+
+        assertEquals(LongStream.rangeClosed(1, 60).filter(id -> 0 == id % 2).boxed().toList(),
+            drawn.stream().sorted().toList());
+    }
+
+    @Test
+    public void test_sample_byUnknownCategory_drawsNothing() {
+        givenDrills();
+        assertTrue(sampler.sample(5, List.of(999L), null, null, null, null).isEmpty());
+    }
+
+    @Test
+    public void test_sample_neverDrawsExcludedDrills() {
+        givenDrills();
+        List<Long> excluded = LongStream.rangeClosed(1, 95).boxed().toList();
+
+        for (int i = 0; i < 20; i++) {
+            List<Long> drawn = sampler.sample(3, null, null, excluded, null, null);
+            assertEquals(3, drawn.size());
+            assertTrue(drawn.stream().allMatch(id -> 95 < id));
+        }
+    }
+
+    @Test
+    public void test_sample_withSameSeed_drawsSameDrills() {
+        givenDrills();
+        Map<Long, Double> weights = Map.of(1L, 5.0, 2L, 0.5);
+
+        assertEquals(sampler.sample(10, null, null, null, null, 42L),
+            sampler.sample(10, null, null, null, null, 42L));
+        assertEquals(sampler.sample(10, null, null, null, weights, 42L),
+            sampler.sample(10, null, null, null, weights, 42L));
+    }
+
+    @Test
+    public void test_sample_weighted_drawsHeavierDrillsMoreOften() {
+        givenDrills();
+        Map<Long, Double> weights = Map.of(1L, 1000.0, 2L, 0.0);
+        int heavyDrawn = 0;
+
+        for (int i = 0; i < 100; i++) {
+            List<Long> drawn = sampler.sample(5, null, null, null, weights, null);
+            assertEquals(5, drawn.size());
+            assertFalse(drawn.contains(2L));
+            if (drawn.contains(1L)) {
+                heavyDrawn++;
+            }
+        }
+        // Drawn in 5% of samples by chance, practically always when weighted
+        assertTrue(90 < heavyDrawn);
+    }
+
+    @Test
+    public void test_sample_invalidArguments_throwsInvalidRequestParameterException() {
+        assertThrows(InvalidRequestParameterException.class,
+            () -> sampler.sample(0, null, null, null, null, null));
+        assertThrows(InvalidRequestParameterException.class,
+            () -> sampler.sample(1, null, null, null, Map.of(1L, -1.0), null));
+        assertThrows(InvalidRequestParameterException.class,
+            () -> sampler.sample(1, null, null, null, Map.of(1L, Double.NaN), null));
+    }
+
+    @Test
+    public void test_sampleSession_fillsEachQuotaWithoutRepeats() {
+        givenDrills();
+        List<Long> excluded = LongStream.rangeClosed(1, 10).boxed().toList();
+
+        List<List<DrillRelatedDTO>> session = sampler.sampleSession(List.of(
+                new DrillSampler.Quota(5, List.of(CATEGORY_LOW), null),
+                new DrillSampler.Quota(3, List.of(CATEGORY_MIDDLE), List.of(SUB_CATEGORY_EVEN)),
+                new DrillSampler.Quota(2, null, null)),
+            excluded, null);
+
+        assertEquals(List.of(5, 3, 2), session.stream().map(List::size).toList());
+        List<Long> drawnIds = session.stream().flatMap(List::stream).map(DrillRelatedDTO::getId).toList();
+        assertEquals(10, new HashSet<>(drawnIds).size());
+        assertTrue(drawnIds.stream().noneMatch(excluded::contains));
+        assertTrue(session.get(0).stream().allMatch(drill -> 50 >= drill.getId()));
+        assertTrue(session.get(1).stream().allMatch(drill -> 40 <= drill.getId() && 0 == drill.getId() % 2));
+        assertTrue(session.stream().flatMap(List::stream)
+            .allMatch(drill -> ("Drill " + drill.getId()).equals(drill.getName())));
+    }
+
+    @Test
+    public void test_sampleSession_quotaWithTooFewDrills_isFilledAsFarAsPossible() {
+        givenDrills();
+
+        List<List<DrillRelatedDTO>> session = sampler.sampleSession(List.of(
+                new DrillSampler.Quota(15, List.of(CATEGORY_MIDDLE), null),
+                new DrillSampler.Quota(15, List.of(CATEGORY_MIDDLE), null)),
+            null, 42L);
+
+        assertEquals(15, session.get(0).size());
+        assertEquals(6, session.get(1).size());
+    }
+
+    @Test
+    public void test_sampleSession_timing() {
+        // 3000 drills, each in 2 of 30 categories, timings are logged for comparison only
+        when(repo.findAllBy(Sort.by("id"), DrillSummary.class)).thenReturn(LongStream.range(0, 3000)
+            .mapToObj(DrillSamplerTest::summary)
+            .toList());
+        when(repo.findAllCategoryIds()).thenReturn(LongStream.range(0, 3000)
+            .boxed()
+            .<DrillRepo.DrillIdRow>mapMulti((drillId, rows) -> {
+                rows.accept(row(drillId, drillId % 30));
+                rows.accept(row(drillId, (drillId + 1) % 30));
+            })
+            .toList());
+        List<DrillSampler.Quota> quotas = List.of(
+            new DrillSampler.Quota(2, List.of(1L), null),
+            new DrillSampler.Quota(2, List.of(2L, 3L), null),
+            new DrillSampler.Quota(1, null, null));
+        List<Long> excluded = LongStream.range(0, 50).boxed().toList();
+
+        final int ITERATIONS = 100_000;
+        // Warm up the JIT first
+        for (int i = 0; i < ITERATIONS; i++) {
+            sampler.sampleSession(quotas, excluded, null);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(3, sampler.sampleSession(quotas, excluded, null).size());
+        }
+        log.info("Session generation: {} ns per session", (System.nanoTime() - start) / ITERATIONS);
+    }
+
+    private static DrillSummary summary(long id) {
+        return new DrillSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return "Drill " + id;
+            }
+
+            @Override
+            public Long getUpdateTimestamp() {
+                return 0L;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 0L;
+            }
+        };
+    }
+
+    private static DrillRepo.DrillIdRow row(Long drillId, Long associatedId) {
+        return new DrillRepo.DrillIdRow() {
+            @Override
+            public Long getDrillId() {
+                return drillId;
+            }
+
+            @Override
+            public Long getAssociatedId() {
+                return associatedId;
+            }
+        };
+    }
+}
@@ -29,32 +29,52 @@ package com.damienwesterman.defensedrill.rest_api.unit;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.TransactionSystemException;
 
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
 import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
 import com.damienwesterman.defensedrill.rest_api.exception.DatabaseInsertException;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillJsonRepo;
 import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillSummary;
+import com.damienwesterman.defensedrill.rest_api.repository.InstructionsRepo;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.service.DrillAssociation;
 import com.damienwesterman.defensedrill.rest_api.service.DrillService;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
+import com.damienwesterman.defensedrill.rest_api.service.SingleFlight;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.ConstraintViolationException;
 
 @ExtendWith(MockitoExtension.class)
@@ -62,27 +82,60 @@ public class DrillServiceTest {
     @Mock
     private DrillRepo repo;
     @Mock
+    private InstructionsRepo instructionsRepo;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
     private DrillEntity drill;
     @Mock
     private InstructionsEntity instructions1;
     @Mock
     private InstructionsEntity instructions2;
+    @Mock
+    private DrillSummary drillSummary;
+    @Mock
+    private DrillRepo.DrillCategoryRow categoryRow;
+    @Mock
+    private CategoryEntity category;
+    @Mock
+    private DrillJsonRepo jsonRepo;
 
     private DrillService service;
 
     @BeforeEach
     public void setup() {
-        service = new DrillService(repo);
+        service = new DrillService(repo, instructionsRepo, eventPublisher,
+            new SingleFlight(new SimpleMeterRegistry(), 1024), jsonRepo, new IdLists(1000, 512));
     }
 
     // Save serves as both a create and update
     @Test
     public void test_save_createWithNoInstructions_callsRepoOnce() {
         when(drill.getInstructions()).thenReturn(List.of());
+        when(repo.save(drill)).thenReturn(drill);
         assertDoesNotThrow(() -> service.save(drill));
         verify(repo, times(1)).save(drill);
     }
 
+    @Test
+    public void test_save_publishesSaveEventOnce() {
+        when(drill.getInstructions()).thenReturn(new ArrayList<>(List.of(instructions1)));
+        when(drill.getId()).thenReturn(0L);
+        when(repo.save(drill)).thenReturn(drill);
+        assertDoesNotThrow(() -> service.save(drill));
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            DrillEntity.class.equals(event.getEntityType())
+                && ChangeType.SAVE == event.getChangeType()
+                && 0L == event.getId()));
+    }
+
+    @Test
+    public void test_save_failedSave_doesNotPublishEvent() {
+        when(repo.save(drill)).thenThrow(new DataIntegrityViolationException("constraint_drills_unique_name"));
+        assertThrows(DatabaseInsertException.class, () -> service.save(drill));
+        verify(eventPublisher, times(0)).publishEvent(any(Object.class));
+    }
+
     @Test
     public void test_save_createWithOneInstructions_callsRepoTwice() {
         List<InstructionsEntity> instructions = new ArrayList<InstructionsEntity>(List.of(instructions1));
@@ -173,9 +226,317 @@ public class DrillServiceTest {
             .findByUpdateTimestampGreaterThan(eq(timestamp), any());
     }
 
+    @Test
+    public void test_findAllRelated_byEmptyIds_doesNotCallRepo() {
+        assertEquals(List.of(), service.findAllRelated(List.of()));
+        verify(repo, never()).findRelatedByIdIn(any());
+    }
+
+    @Test
+    public void test_findAllSummaries_byEmptyIds_doesNotCallRepo() {
+        assertEquals(List.of(), service.findAllSummaries(List.of()));
+        verify(repo, never()).findByIdIn(any(), any(), any());
+    }
+
+    @Test
+    public void test_findAllSummaries_callsRepoWithProjection() {
+        List<DrillSummary> summaries = List.of(drillSummary);
+        when(repo.findAllBy(any(Sort.class), eq(DrillSummary.class))).thenReturn(summaries);
+        assertEquals(summaries, service.findAllSummaries());
+        verify(repo, never()).findAll(any(Sort.class));
+    }
+
+    @Test
+    public void test_findAllPartial_noAssociations_doesNotLoadAssociations() {
+        when(drillSummary.getId()).thenReturn(0L);
+        when(drillSummary.getName()).thenReturn("NAME");
+
+        List<DrillEntity> drills = service.findAllPartial(List.of(drillSummary),
+            EnumSet.noneOf(DrillAssociation.class));
+
+        assertEquals(1, drills.size());
+        assertEquals(0L, drills.get(0).getId());
+        assertEquals("NAME", drills.get(0).getName());
+        assertEquals(null, drills.get(0).getCategories());
+        assertEquals(null, drills.get(0).getInstructions());
+        verify(repo, never()).findCategoriesByDrillIdIn(any());
+        verify(repo, never()).findSubCategoriesByDrillIdIn(any());
+        verify(repo, never()).findRelatedDrillIdsByDrillIdIn(any());
+        verify(instructionsRepo, never()).findByDrillIdIn(any(), any());
+    }
+
+    @Test
+    public void test_findAllPartial_withCategories_loadsOnlyCategoriesInOneQuery() {
+        when(drillSummary.getId()).thenReturn(0L);
+        when(categoryRow.getDrillId()).thenReturn(0L);
+        when(categoryRow.getCategory()).thenReturn(category);
+        when(repo.findCategoriesByDrillIdIn(List.of(0L))).thenReturn(List.of(categoryRow));
+
+        List<DrillEntity> drills = service.findAllPartial(List.of(drillSummary),
+            EnumSet.of(DrillAssociation.CATEGORIES));
+
+        assertEquals(List.of(category), drills.get(0).getCategories());
+        assertEquals(null, drills.get(0).getSubCategories());
+        verify(repo, times(1)).findCategoriesByDrillIdIn(List.of(0L));
+        verify(repo, never()).findSubCategoriesByDrillIdIn(any());
+        verify(instructionsRepo, never()).findByDrillIdIn(any(), any());
+    }
+
+    @Test
+    public void test_findCategoriesByDrill_groupsRowsByDrillId() {
+        when(categoryRow.getDrillId()).thenReturn(0L);
+        when(categoryRow.getCategory()).thenReturn(category);
+        when(repo.findCategoriesByDrillIdIn(List.of(0L, 1L))).thenReturn(List.of(categoryRow));
+
+        Map<Long, List<CategoryEntity>> categories = service.findCategoriesByDrill(List.of(0L, 1L));
+
+        assertEquals(Map.of(0L, List.of(category)), categories);
+        verify(repo, times(1)).findCategoriesByDrillIdIn(List.of(0L, 1L));
+    }
+
+    @Test
+    public void test_findInstructionsByDrill_withNoIds_doesNotQuery() {
+        assertEquals(Map.of(), service.findInstructionsByDrill(List.of()));
+        verify(instructionsRepo, never()).findByDrillIdIn(any(), any());
+    }
+
     @Test
     public void test_delete_callsDeleteById() {
-        service.delete(0L);
+        service.delete(0L, null);
         verify(repo, times(1)).deleteById(0L);
     }
+
+    @Test
+    public void test_delete_publishesDeleteEvent() {
+        service.delete(0L, null);
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            DrillEntity.class.equals(event.getEntityType())
+                && ChangeType.DELETE == event.getChangeType()
+                && 0L == event.getId()));
+    }
+
+    @Test
+    public void test_delete_withStaleVersion_throwsWithoutPublishing() {
+        when(repo.deleteByIdAndVersion(0L, 3L)).thenReturn(0);
+        when(repo.existsById(0L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.delete(0L, 3L));
+        verify(repo, never()).deleteById(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_replace_withoutVersion_writesWithoutReadingFirst() {
+        DrillEntity drill = DrillEntity.builder().id(0L).name("Drill").relatedDrills(List.of(5L)).build();
+        when(repo.updateById(eq(0L), eq("Drill"), any())).thenReturn(1);
+        when(repo.findVersionById(0L)).thenReturn(Optional.of(4L));
+
+        assertDoesNotThrow(() -> service.replace(drill, null));
+        assertEquals(4L, drill.getVersion());
+        verify(repo, times(1)).removeAllRelatedDrills(0L);
+        verify(repo, times(1)).addRelatedDrill(0L, 5L);
+        verify(instructionsRepo, times(1)).deleteByDrillId(0L);
+        verify(repo, never()).findById(any());
+        verify(repo, never()).existsById(any());
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    public void test_replace_withoutVersion_throwsForNonExistentDrill() {
+        DrillEntity drill = DrillEntity.builder().id(0L).name("Drill").build();
+        when(repo.updateById(eq(0L), eq("Drill"), any())).thenReturn(0);
+
+        assertThrows(NoSuchElementException.class, () -> service.replace(drill, null));
+        verify(instructionsRepo, never()).saveAllAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_replace_withStaleVersion_throwsWithoutWritingCollections() {
+        DrillEntity drill = DrillEntity.builder().id(0L).name("Drill").build();
+        when(repo.updateByIdAndVersion(eq(0L), eq(3L), eq("Drill"), any())).thenReturn(0);
+        when(repo.existsById(0L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.replace(drill, 3L));
+        verify(repo, never()).removeAllCategories(any());
+        verify(instructionsRepo, never()).deleteByDrillId(any());
+    }
+
+    @Test
+    public void test_saveInstructions_withNonExistentDrill_throwsWithoutSaving() {
+        InstructionsEntity instructions = InstructionsEntity.builder().drillId(0L).number(0L).build();
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(0);
+
+        assertThrows(NoSuchElementException.class, () -> service.saveInstructions(instructions, null));
+        verify(instructionsRepo, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_saveInstructions_pastNextNumber_throwsWithoutSaving() {
+        InstructionsEntity instructions = InstructionsEntity.builder().drillId(0L).number(3L).build();
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+        when(instructionsRepo.countByDrillId(0L)).thenReturn(2L);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> service.saveInstructions(instructions, null));
+        verify(instructionsRepo, never()).save(any());
+    }
+
+    @Test
+    public void test_saveInstructions_savesOnlyInstructionsAndPublishesDrillSave() {
+        InstructionsEntity instructions = InstructionsEntity.builder().drillId(0L).number(2L).build();
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+        when(instructionsRepo.countByDrillId(0L)).thenReturn(2L);
+        when(instructionsRepo.save(instructions)).thenReturn(instructions);
+
+        assertDoesNotThrow(() -> service.saveInstructions(instructions, null));
+        verify(repo, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            DrillEntity.class.equals(event.getEntityType())
+                && ChangeType.SAVE == event.getChangeType()
+                && 0L == event.getId()));
+    }
+
+    @Test
+    public void test_saveInstructions_withStaleVersion_throwsWithoutSaving() {
+        InstructionsEntity instructions = InstructionsEntity.builder().drillId(0L).number(0L).build();
+        when(repo.updateTimestampByIdAndVersion(eq(0L), eq(3L), any())).thenReturn(0);
+        when(repo.existsById(0L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.saveInstructions(instructions, 3L));
+        verify(repo, never()).updateTimestamp(any(), any());
+        verify(instructionsRepo, never()).save(any());
+    }
+
+    @Test
+    public void test_deleteInstructions_shiftsFollowingInstructionsUp() {
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+        when(instructionsRepo.deleteByDrillIdAndNumber(0L, 1L)).thenReturn(1);
+        when(instructionsRepo.negateNumbers(0L, 2L, Long.MAX_VALUE)).thenReturn(2);
+
+        service.deleteInstructions(0L, null, 1L);
+
+        InOrder inOrder = inOrder(instructionsRepo);
+        inOrder.verify(instructionsRepo).deleteByDrillIdAndNumber(0L, 1L);
+        inOrder.verify(instructionsRepo).negateNumbers(0L, 2L, Long.MAX_VALUE);
+        inOrder.verify(instructionsRepo).restoreNumbers(0L, -1L);
+    }
+
+    @Test
+    public void test_deleteInstructions_withNonExistentNumber_throws() {
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+        when(instructionsRepo.deleteByDrillIdAndNumber(0L, 5L)).thenReturn(0);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> service.deleteInstructions(0L, null, 5L));
+        verify(instructionsRepo, never()).negateNumbers(any(), any(), any());
+    }
+
+    @Test
+    public void test_moveInstructions_shiftsInstructionsInBetween() {
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+        when(instructionsRepo.countByDrillId(0L)).thenReturn(4L);
+        when(instructionsRepo.negateNumbers(0L, 1L, 2L)).thenReturn(2);
+
+        service.moveInstructions(0L, null, 3L, 1L);
+
+        InOrder inOrder = inOrder(instructionsRepo);
+        inOrder.verify(instructionsRepo).renumber(0L, 3L, -1L);
+        inOrder.verify(instructionsRepo).negateNumbers(0L, 1L, 2L);
+        inOrder.verify(instructionsRepo).restoreNumbers(0L, 1L);
+        inOrder.verify(instructionsRepo).renumber(0L, -1L, 1L);
+    }
+
+    @Test
+    public void test_addAssociation_insertsOnlyJoinRowAndPublishesDrillSave() {
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+
+        service.addAssociation(0L, null, DrillAssociation.CATEGORIES, 5L);
+
+        verify(repo, times(1)).addCategory(0L, 5L);
+        verify(repo, never()).save(any());
+        verify(repo, never()).findById(any());
+        verify(eventPublisher, times(1)).publishEvent(argThat((DatabaseChangeEvent event) ->
+            DrillEntity.class.equals(event.getEntityType())
+                && ChangeType.SAVE == event.getChangeType()
+                && 0L == event.getId()));
+    }
+
+    @Test
+    public void test_addAssociation_withNonExistentDrill_throws() {
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(0);
+
+        assertThrows(NoSuchElementException.class,
+            () -> service.addAssociation(0L, null, DrillAssociation.SUB_CATEGORIES, 5L));
+        verify(repo, never()).addSubCategory(any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_addAssociation_withNonExistentAssociatedEntity_throws() {
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+        when(repo.addRelatedDrill(0L, 5L)).thenThrow(DataIntegrityViolationException.class);
+
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class,
+            () -> service.addAssociation(0L, null, DrillAssociation.RELATED_DRILLS, 5L));
+        assertEquals("Drill ID 5 does not exist", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_removeAssociation_deletesOnlyJoinRow() {
+        when(repo.updateTimestamp(eq(0L), any())).thenReturn(1);
+
+        service.removeAssociation(0L, null, DrillAssociation.SUB_CATEGORIES, 5L);
+
+        verify(repo, times(1)).removeSubCategory(0L, 5L);
+        verify(repo, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(DatabaseChangeEvent.class));
+    }
+
+    @Test
+    public void test_update_appliesChangesToManagedDrillAndFlushes() {
+        DrillEntity existing = DrillEntity.builder().id(0L).name("Old Name").updateTimestamp(1L).build();
+        when(repo.findById(0L)).thenReturn(Optional.of(existing));
+        when(repo.saveAndFlush(existing)).thenReturn(existing);
+
+        DrillEntity updated = service.update(0L, null, changed -> changed.setName("New Name"));
+
+        assertEquals("New Name", updated.getName());
+        assertTrue(1L < updated.getUpdateTimestamp());
+        verify(repo, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(DatabaseChangeEvent.class));
+    }
+
+    @Test
+    public void test_update_withNonExistentDrill_throws() {
+        when(repo.findById(0L)).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> service.update(0L, null, changed -> changed.setName("New Name")));
+        verify(repo, never()).saveAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void test_update_givenDuplicateName_throwsDatabaseInsertException() {
+        DrillEntity existing = DrillEntity.builder().id(0L).name("Old Name").updateTimestamp(1L).build();
+        when(repo.findById(0L)).thenReturn(Optional.of(existing));
+        when(repo.saveAndFlush(existing))
+            .thenThrow(new DataIntegrityViolationException("constraint_drills_unique_name"));
+
+        DatabaseInsertException exception = assertThrows(DatabaseInsertException.class,
+            () -> service.update(0L, null, changed -> changed.setName("New Name")));
+        assertEquals("Name already exists.", exception.getMessage());
+    }
+
+    @Test
+    public void test_update_withStaleVersion_throwsWithoutSaving() {
+        when(repo.findByIdAndVersion(0L, 4L)).thenReturn(Optional.empty());
+        when(repo.existsById(0L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> service.update(0L, 4L, changed -> changed.setName("New Name")));
+        verify(repo, never()).findById(any());
+        verify(repo, never()).saveAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
 }
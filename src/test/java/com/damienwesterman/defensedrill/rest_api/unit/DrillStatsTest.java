@@ -0,0 +1,140 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.service.DrillStats;
+import com.damienwesterman.defensedrill.rest_api.service.SingleFlight;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillStatsDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class DrillStatsTest {
+    @Mock
+    private DrillRepo repo;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DrillStats drillStats;
+
+    @BeforeEach
+    public void setup() {
+        drillStats = new DrillStats(repo, new SingleFlight(new SimpleMeterRegistry(), 1024), transactionManager);
+    }
+
+    private DrillRepo.CoverageRow givenStats() {
+        DrillRepo.AssociationCountRow categoryRow = mock(DrillRepo.AssociationCountRow.class);
+        when(categoryRow.getId()).thenReturn(10L);
+        when(categoryRow.getName()).thenReturn("Category");
+        when(categoryRow.getDrills()).thenReturn(2L);
+        DrillRepo.CoverageRow coverage = mock(DrillRepo.CoverageRow.class);
+        when(coverage.getDrills()).thenReturn(3L);
+        when(repo.countCoverage()).thenReturn(coverage);
+        when(repo.countByCategory()).thenReturn(List.of(categoryRow));
+        when(repo.countBySubCategory()).thenReturn(List.of());
+        when(repo.countByCategoryAndSubCategory()).thenReturn(List.of());
+        return coverage;
+    }
+
+    @Test
+    public void test_get_loadsOnceUntilChanged() {
+        givenStats();
+
+        DrillStatsDTO stats = drillStats.get();
+
+        assertSame(stats, drillStats.get());
+        assertEquals(3L, stats.getDrills());
+        assertEquals(10L, stats.getCategories().get(0).getId());
+        assertEquals("Category", stats.getCategories().get(0).getName());
+        assertEquals(2L, stats.getCategories().get(0).getDrills());
+        verify(repo, times(1)).countCoverage();
+    }
+
+    @Test
+    public void test_get_loadsInNewReadWriteTransaction() {
+        givenStats();
+
+        drillStats.get();
+
+        // Never joins a read-only transaction of the caller, which may read from a replica
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        assertFalse(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    public void test_get_reloadsAfterChange() {
+        givenStats();
+        DrillStatsDTO stats = drillStats.get();
+
+        drillStats.onDatabaseChange(new DatabaseChangeEvent(CategoryEntity.class, ChangeType.SAVE, 10L));
+
+        assertNotSame(stats, drillStats.get());
+        verify(repo, times(2)).countCoverage();
+    }
+
+    @Test
+    public void test_get_doesNotCacheLoadRacingWithChange() {
+        DrillRepo.CoverageRow coverage = givenStats();
+        when(repo.countCoverage()).thenAnswer(invocation -> {
+            drillStats.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.DELETE, 1L));
+            return coverage;
+        }).thenReturn(coverage);
+
+        drillStats.get();
+        drillStats.get();
+        drillStats.get();
+
+        // The racing load, and the load after it
+        verify(repo, times(2)).countCoverage();
+    }
+}
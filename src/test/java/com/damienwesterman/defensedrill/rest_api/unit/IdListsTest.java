@@ -0,0 +1,90 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.damienwesterman.defensedrill.rest_api.exception.InvalidRequestParameterException;
+import com.damienwesterman.defensedrill.rest_api.service.IdLists;
+
+public class IdListsTest {
+    private final IdLists idLists = new IdLists(10, 4);
+
+    @Test
+    public void test_query_splitsIntoChunksOfFixedSize() {
+        List<List<Long>> chunks = new ArrayList<>();
+
+        List<Long> result = idLists.query(LongStream.rangeClosed(1, 10).boxed().toList(), chunk -> {
+            chunks.add(chunk);
+            return chunk;
+        });
+
+        assertEquals(List.of(List.of(1L, 2L, 3L, 4L), List.of(5L, 6L, 7L, 8L), List.of(9L, 10L)), chunks);
+        assertEquals(LongStream.rangeClosed(1, 10).boxed().toList(), result);
+    }
+
+    @Test
+    public void test_query_removesDuplicateIds() {
+        List<List<Long>> chunks = new ArrayList<>();
+
+        idLists.query(List.of(3L, 1L, 3L, 1L, 2L), chunk -> {
+            chunks.add(chunk);
+            return chunk;
+        });
+
+        assertEquals(List.of(List.of(3L, 1L, 2L)), chunks);
+    }
+
+    @Test
+    public void test_query_withNoIds_doesNotQuery() {
+        List<Long> result = idLists.query(List.of(), chunk -> {
+            throw new AssertionError("Queried with no IDs");
+        });
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void test_checkSize_allowsMaxSize() {
+        idLists.checkSize(LongStream.rangeClosed(1, 10).boxed().toList());
+    }
+
+    @Test
+    public void test_checkSize_overMaxSize_throwsInvalidRequestParameterException() {
+        List<Long> ids = LongStream.rangeClosed(1, 11).boxed().toList();
+
+        assertThrows(InvalidRequestParameterException.class, () -> idLists.checkSize(ids));
+    }
+}
@@ -0,0 +1,168 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.repository.CategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.DrillRepo;
+import com.damienwesterman.defensedrill.rest_api.repository.NameSummary;
+import com.damienwesterman.defensedrill.rest_api.repository.SubCategoryRepo;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.service.NameIndex;
+import com.damienwesterman.defensedrill.rest_api.web.dto.AutocompleteDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+@ExtendWith(MockitoExtension.class)
+@Slf4j
+public class NameIndexTest {
+    @Mock
+    private DrillRepo drillRepo;
+    @Mock
+    private CategoryRepo categoryRepo;
+    @Mock
+    private SubCategoryRepo subCategoryRepo;
+
+    private NameIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new NameIndex(drillRepo, categoryRepo, subCategoryRepo);
+    }
+
+    private static NameSummary summary(long id, String name) {
+        return new NameSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+
+    private void givenDrills() {
+        List<NameSummary> drills = List.of(summary(1L, "Round Kick"), summary(2L, "rear naked choke"),
+            summary(3L, "Jab"), summary(4L, "Roll"));
+        when(drillRepo.findAllBy(Sort.by("id"), NameSummary.class)).thenReturn(drills);
+    }
+
+    private static List<String> names(List<AutocompleteDTO.Match> matches) {
+        return matches.stream().map(AutocompleteDTO.Match::getName).toList();
+    }
+
+    @Test
+    public void test_startingWith_matchesPrefixIgnoringCaseSortedByName() {
+        givenDrills();
+
+        assertEquals(List.of("rear naked choke", "Roll", "Round Kick"),
+            names(index.startingWith(NameIndex.Type.DRILL, "R", 10)));
+        assertEquals(List.of("Roll", "Round Kick"), names(index.startingWith(NameIndex.Type.DRILL, "ro", 10)));
+        assertEquals(List.of("rear naked choke"), names(index.startingWith(NameIndex.Type.DRILL, "r", 1)));
+        assertEquals(List.of(), names(index.startingWith(NameIndex.Type.DRILL, "rz", 10)));
+        assertEquals(4, index.startingWith(NameIndex.Type.DRILL, "", 10).size());
+        verify(drillRepo, times(1)).findAllBy(Sort.by("id"), NameSummary.class);
+        verifyNoInteractions(categoryRepo, subCategoryRepo);
+    }
+
+    @Test
+    public void test_onDatabaseChange_save_reloadsOnlyThatName() {
+        givenDrills();
+        index.startingWith(NameIndex.Type.DRILL, "", 10);
+        when(drillRepo.findById(3L, NameSummary.class)).thenReturn(Optional.of(summary(3L, "Rolling Jab")));
+
+        index.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, 3L));
+
+        List<AutocompleteDTO.Match> matches = index.startingWith(NameIndex.Type.DRILL, "rol", 10);
+        assertEquals(List.of("Roll", "Rolling Jab"), names(matches));
+        assertEquals(3L, matches.get(1).getId());
+        assertEquals(List.of(), names(index.startingWith(NameIndex.Type.DRILL, "jab", 10)));
+        verify(drillRepo, times(1)).findAllBy(Sort.by("id"), NameSummary.class);
+    }
+
+    @Test
+    public void test_onDatabaseChange_delete_removesName() {
+        List<NameSummary> categories = List.of(summary(10L, "Strikes"), summary(11L, "Submissions"));
+        when(categoryRepo.findAllBy(Sort.by("id"), NameSummary.class)).thenReturn(categories);
+        index.startingWith(NameIndex.Type.CATEGORY, "", 10);
+
+        index.onDatabaseChange(new DatabaseChangeEvent(CategoryEntity.class, ChangeType.DELETE, 10L));
+
+        assertEquals(List.of("Submissions"), names(index.startingWith(NameIndex.Type.CATEGORY, "s", 10)));
+    }
+
+    @Test
+    public void test_onDatabaseChange_beforeLoadOrOtherEntity_doesNothing() {
+        index.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, 1L));
+        index.onDatabaseChange(new DatabaseChangeEvent(InstructionsEntity.class, ChangeType.SAVE, 1L));
+
+        verifyNoInteractions(drillRepo, categoryRepo, subCategoryRepo);
+    }
+
+    @Test
+    public void test_startingWith_timing() {
+        List<NameSummary> drills = new ArrayList<>();
+        for (long id = 0; id < 10_000; id++) {
+            drills.add(summary(id, "Drill " + Long.toString(id * 7919, 36)));
+        }
+        when(drillRepo.findAllBy(Sort.by("id"), NameSummary.class)).thenReturn(drills);
+
+        final int ITERATIONS = 100_000;
+        // Warm up the JIT first
+        for (int i = 0; i < ITERATIONS; i++) {
+            index.startingWith(NameIndex.Type.DRILL, "drill a", 10);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            index.startingWith(NameIndex.Type.DRILL, "drill a", 10);
+        }
+        log.info("Autocomplete lookup: {} ns per lookup", (System.nanoTime() - start) / ITERATIONS);
+        assertEquals(10, index.startingWith(NameIndex.Type.DRILL, "drill a", 10).size());
+    }
+}
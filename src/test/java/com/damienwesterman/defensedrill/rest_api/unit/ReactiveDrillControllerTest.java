@@ -0,0 +1,158 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.reactive.ReactiveDrillController;
+import com.damienwesterman.defensedrill.rest_api.reactive.ReactiveDrillService;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveDrillControllerTest {
+    private static final String ENDPOINT = "/drill";
+
+    @Mock
+    private ReactiveDrillService drillService;
+
+    private WebTestClient client;
+    private DrillResponseDTO drill1;
+    private DrillResponseDTO drill2;
+
+    @BeforeEach
+    public void setup() {
+        client = WebTestClient.bindToController(new ReactiveDrillController(drillService)).build();
+        drill1 = new DrillResponseDTO(DrillEntity.builder()
+            .id(1L)
+            .name("Drill 1")
+            .instructions(List.of(InstructionsEntity.builder()
+                .drillId(1L)
+                .number(0L)
+                .description("Description")
+                .steps("Step 1|Step 2")
+                .build()))
+            .build());
+        drill2 = new DrillResponseDTO(DrillEntity.builder()
+            .id(2L)
+            .name("Drill 2")
+            .build());
+    }
+
+    @Test
+    public void test_getAll_200_streamsAllDrills() {
+        when(drillService.findAll()).thenReturn(Flux.just(drill1, drill2));
+
+        client.get().uri(ENDPOINT)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$[0].name").isEqualTo("Drill 1")
+            .jsonPath("$[1].name").isEqualTo("Drill 2");
+    }
+
+    @Test
+    public void test_getAll_200_ndjson() {
+        when(drillService.findAll()).thenReturn(Flux.just(drill1, drill2));
+
+        client.get().uri(ENDPOINT)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectBodyList(DrillResponseDTO.class).hasSize(2);
+    }
+
+    @Test
+    public void test_getAll_204_whenNoDrills() {
+        when(drillService.findAll()).thenReturn(Flux.empty());
+
+        client.get().uri(ENDPOINT)
+            .exchange()
+            .expectStatus().isNoContent()
+            .expectBody().isEmpty();
+    }
+
+    @Test
+    public void test_getAll_500_whenFirstReadFails() {
+        when(drillService.findAll()).thenReturn(Flux.error(new IllegalStateException("database down")));
+
+        client.get().uri(ENDPOINT)
+            .exchange()
+            .expectStatus().is5xxServerError();
+    }
+
+    @Test
+    public void test_getDrillById_404_whenNotFound() {
+        when(drillService.find(anyLong())).thenReturn(Mono.empty());
+
+        client.get().uri(ENDPOINT + "/id/3")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void test_getInstructionsByDrillId_204_whenNoInstructions() {
+        when(drillService.find(2L)).thenReturn(Mono.just(drill2));
+
+        client.get().uri(ENDPOINT + "/id/2/how-to")
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    @Test
+    public void test_getInstructionDetails_200_andOutOfBounds() {
+        when(drillService.find(1L)).thenReturn(Mono.just(drill1));
+
+        client.get().uri(ENDPOINT + "/id/1/how-to/0")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.description").isEqualTo("Description")
+            .jsonPath("$.steps.length()").isEqualTo(2);
+
+        client.get().uri(ENDPOINT + "/id/1/how-to/1")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+}
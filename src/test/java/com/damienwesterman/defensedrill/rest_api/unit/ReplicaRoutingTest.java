@@ -0,0 +1,276 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.damienwesterman.defensedrill.rest_api.datasource.Lsn;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReadConsistencyContext;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReplicaMonitor;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReplicaRoutingDataSource;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.web.LongPollRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ReplicaRoutingTest {
+    private static final long MAX_LAG_MILLIS = 50;
+
+    private SimpleMeterRegistry meterRegistry;
+    private Connection primaryConnection;
+    private ResultSet primaryResult;
+    private Connection replicaConnection;
+    private ResultSet replicaResult;
+    private DataSource replica;
+    private ReplicaMonitor replicaMonitor;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * Data source whose connections answer every query with the given result set.
+     */
+    private DataSource dataSource(Connection connection, ResultSet resultSet) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        return dataSource;
+    }
+
+    private void primaryAt(String lsn) throws SQLException {
+        when(primaryResult.getString(1)).thenReturn(lsn);
+    }
+
+    private void replicaAt(String lsn) throws SQLException {
+        when(replicaResult.getString(1)).thenReturn(lsn);
+    }
+
+    private double fallbacks(String reason) {
+        return meterRegistry.counter(ReplicaMonitor.FALLBACKS_METRIC, "reason", reason).count();
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        primaryConnection = mock(Connection.class);
+        primaryResult = mock(ResultSet.class);
+        replicaConnection = mock(Connection.class);
+        replicaResult = mock(ResultSet.class);
+        DataSource primary = dataSource(primaryConnection, primaryResult);
+        replica = dataSource(replicaConnection, replicaResult);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica);
+        replicaMonitor = new ReplicaMonitor(primary, replicas, Duration.ofMillis(MAX_LAG_MILLIS), Duration.ofSeconds(1),
+            meterRegistry);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicaMonitor);
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadConsistencyContext.clear();
+        replicaMonitor.close();
+    }
+
+    @Test
+    public void test_lsn_parseAndFormat() {
+        assertEquals(0x16B374D848L, Lsn.parse("16/B374D848"));
+        assertEquals("16/B374D848", Lsn.format(0x16B374D848L));
+        assertEquals("0/0", Lsn.format(0));
+        assertEquals(-1, Lsn.compare(Lsn.parse("0/FFFFFFFF"), Lsn.parse("1/0")));
+        assertThrows(IllegalArgumentException.class, () -> Lsn.parse("16B374D848"));
+        assertThrows(IllegalArgumentException.class, () -> Lsn.parse("16/"));
+        assertThrows(IllegalArgumentException.class, () -> Lsn.parse("16/XYZ"));
+        assertThrows(IllegalArgumentException.class, () -> Lsn.parse("1/100000000"));
+    }
+
+    @Test
+    public void test_readOnlyTransaction_usesHealthyReplica() throws Exception {
+        primaryAt("0/3000060");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void test_readWriteWork_usesPrimary() throws Exception {
+        primaryAt("0/3000060");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void test_replicaNotCheckedYet_fallsBackToPrimary() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(1, fallbacks(ReplicaMonitor.REASON_UNAVAILABLE));
+    }
+
+    @Test
+    public void test_laggingReplica_fallsBackToPrimary_untilCaughtUp() throws Exception {
+        primaryAt("0/4000000");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Only just fell behind
+        assertSame(replicaConnection, routingDataSource.getConnection());
+
+        Thread.sleep(2 * MAX_LAG_MILLIS);
+        replicaMonitor.check();
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertTrue(MAX_LAG_MILLIS / 1000.0 < meterRegistry.get(ReplicaMonitor.LAG_METRIC).gauge().value());
+        assertEquals(0, meterRegistry.get(ReplicaMonitor.HEALTHY_METRIC).gauge().value());
+
+        replicaAt("0/4000000");
+        replicaMonitor.check();
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertEquals(0, meterRegistry.get(ReplicaMonitor.LAG_METRIC).gauge().value());
+    }
+
+    @Test
+    public void test_idlePrimary_replicaIsNotLagging() throws Exception {
+        primaryAt("0/3000060");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+        Thread.sleep(2 * MAX_LAG_MILLIS);
+        replicaMonitor.check();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertEquals(0, meterRegistry.get(ReplicaMonitor.LAG_METRIC).gauge().value());
+    }
+
+    @Test
+    public void test_unreachableReplica_fallsBackToPrimary() throws Exception {
+        primaryAt("0/3000060");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        replicaMonitor.check();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void test_consistencyToken_waitsForReplicaToReplayWrite() throws Exception {
+        primaryAt("0/3000100");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReadConsistencyContext.setMinimumLsn(Lsn.parse("0/3000100"));
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(1, fallbacks(ReplicaMonitor.REASON_READ_YOUR_WRITES));
+
+        ReadConsistencyContext.setMinimumLsn(Lsn.parse("0/3000060"));
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void test_primaryRequired_usesPrimary() throws Exception {
+        primaryAt("0/3000060");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReadConsistencyContext.requirePrimary();
+        ReadConsistencyContext.setMinimumLsn(0);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_longPollRecheck_waitsForReplicaToReplayWrite() throws Exception {
+        primaryAt("0/3000060");
+        replicaAt("0/3000060");
+        replicaMonitor.check();
+        ObjectProvider<ReplicaMonitor> replicaMonitorProvider = mock(ObjectProvider.class);
+        when(replicaMonitorProvider.getIfAvailable()).thenReturn(replicaMonitor);
+        LongPollRegistry longPollRegistry = new LongPollRegistry(Runnable::run, replicaMonitorProvider, 60);
+
+        // Only the primary has the write, the replica is still within its allowed lag
+        DeferredResult<ResponseEntity<Object>> result = longPollRegistry.poll(DrillEntity.class, 30, () -> {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            try {
+                return primaryConnection == routingDataSource.getConnection()
+                    ? ResponseEntity.ok().build() : ResponseEntity.noContent().build();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            }
+        });
+        assertNull(result.getResult());
+
+        primaryAt("0/3000100");
+        longPollRegistry.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, 1L));
+
+        assertEquals(HttpStatus.OK, ((ResponseEntity<?>) result.getResult()).getStatusCode());
+        assertNull(ReadConsistencyContext.getMinimumLsn());
+    }
+}
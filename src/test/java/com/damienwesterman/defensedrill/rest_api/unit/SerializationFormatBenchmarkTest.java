@@ -0,0 +1,199 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.damienwesterman.defensedrill.rest_api.entity.CategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.InstructionsEntity;
+import com.damienwesterman.defensedrill.rest_api.entity.SubCategoryEntity;
+import com.damienwesterman.defensedrill.rest_api.web.WebConfig;
+import com.damienwesterman.defensedrill.rest_api.web.dto.DrillResponseDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.ErrorMessageDTO;
+import com.damienwesterman.defensedrill.rest_api.web.dto.InstructionsDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the size and encode time of JSON, CBOR, and Smile for the DTOs we actually return,
+ * using the same ObjectMappers as the HTTP message converters.
+ * <br><br>
+ * Only the sizes are asserted, timings are logged for comparison as they vary by machine.
+ * Not part of the default test run, use mvn test -Pbenchmarks.
+ */
+@Tag("benchmark")
+public class SerializationFormatBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(SerializationFormatBenchmarkTest.class);
+
+    final int NUM_CATEGORIES = 30;
+    final int NUM_SUB_CATEGORIES = 10;
+    final int NUM_DRILLS = 3000;
+    final int WARMUP_ITERATIONS = 3;
+    final int ITERATIONS = 10;
+
+    Map<String, ObjectMapper> mappers;
+    List<DrillResponseDTO> drills;
+    List<InstructionsDTO> instructions;
+    ErrorMessageDTO errorMessage;
+
+    @BeforeEach
+    public void setup() {
+        WebConfig webConfig = new WebConfig();
+        mappers = new LinkedHashMap<>();
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("cbor", webConfig.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json(), false)
+            .getObjectMapper());
+        mappers.put("cbor+stringref", webConfig.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json(), true)
+            .getObjectMapper());
+        mappers.put("smile", webConfig.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json())
+            .getObjectMapper());
+
+        List<CategoryEntity> categories = new ArrayList<>();
+        for (long i = 0; i < NUM_CATEGORIES; i++) {
+            categories.add(CategoryEntity.builder()
+                .id(i)
+                .name("Category " + i)
+                .description("Description of category " + i + ", which is a fairly long block of "
+                    + "text explaining what kinds of drills belong to the category and why.")
+                .build());
+        }
+        List<SubCategoryEntity> subCategories = new ArrayList<>();
+        for (long i = 0; i < NUM_SUB_CATEGORIES; i++) {
+            subCategories.add(SubCategoryEntity.builder()
+                .id(i)
+                .name("Sub-Category " + i)
+                .description("Description of sub-category " + i + ".")
+                .build());
+        }
+
+        drills = new ArrayList<>();
+        instructions = new ArrayList<>();
+        for (long i = 0; i < NUM_DRILLS; i++) {
+            InstructionsEntity instructionsEntity = InstructionsEntity.builder()
+                .drillId(i)
+                .number(0L)
+                .description("Instructions for drill " + i)
+                .steps("Step one|Step two|Step three")
+                .videoId("video" + i)
+                .build();
+            DrillEntity drill = DrillEntity.builder()
+                .id(i)
+                .name("Drill " + i)
+                .categories(List.of(categories.get((int) (i % NUM_CATEGORIES)),
+                    categories.get((int) ((i + 1) % NUM_CATEGORIES))))
+                .subCategories(List.of(subCategories.get((int) (i % NUM_SUB_CATEGORIES))))
+                .instructions(List.of(instructionsEntity))
+                .build();
+            DrillEntity relatedDrill = DrillEntity.builder()
+                .id((i + 1) % NUM_DRILLS)
+                .name("Drill " + ((i + 1) % NUM_DRILLS))
+                .build();
+            drills.add(new DrillResponseDTO(drill, List.of(relatedDrill)));
+            instructions.add(new InstructionsDTO(instructionsEntity));
+        }
+
+        errorMessage = ErrorMessageDTO.builder()
+            .error("Malformed Argument")
+            .message("Name must not be empty. ")
+            .build();
+    }
+
+    @Test
+    public void test_drillResponseDTO_binaryFormats_smallerThanJson() throws Exception {
+        Map<String, Integer> sizes = benchmark("DrillResponseDTO x" + NUM_DRILLS, drills);
+
+        assertTrue(sizes.get("cbor") < sizes.get("json"));
+        assertTrue(sizes.get("smile") < sizes.get("json"));
+        // Shared strings are what remove the repeated category descriptions
+        assertTrue(sizes.get("cbor+stringref") < sizes.get("cbor"));
+
+        for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet()) {
+            DrillResponseDTO[] decoded = mapper.getValue().readValue(
+                mapper.getValue().writeValueAsBytes(drills), DrillResponseDTO[].class);
+            assertEquals(NUM_DRILLS, decoded.length, mapper.getKey());
+            assertEquals(drills.get(1).getCategories().get(0).getDescription(),
+                decoded[1].getCategories().get(0).getDescription(), mapper.getKey());
+        }
+    }
+
+    @Test
+    public void test_instructionsDTO_binaryFormats_smallerThanJson() throws Exception {
+        Map<String, Integer> sizes = benchmark("InstructionsDTO x" + NUM_DRILLS, instructions);
+
+        assertTrue(sizes.get("cbor") < sizes.get("json"));
+        assertTrue(sizes.get("smile") < sizes.get("json"));
+    }
+
+    @Test
+    public void test_errorMessageDTO_binaryFormats_notLargerThanJson() throws Exception {
+        Map<String, Integer> sizes = benchmark("ErrorMessageDTO", errorMessage);
+
+        assertTrue(sizes.get("cbor") <= sizes.get("json"));
+        assertTrue(sizes.get("smile") <= sizes.get("json"));
+    }
+
+    /**
+     * Encode the value with every format, logging the size and average encode time.
+     *
+     * @param name Name to log.
+     * @param value Value to encode.
+     * @return Map of format name to encoded size in bytes.
+     */
+    private Map<String, Integer> benchmark(String name, Object value) throws Exception {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet()) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                mapper.getValue().writeValueAsBytes(value);
+            }
+
+            int size = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                size = mapper.getValue().writeValueAsBytes(value).length;
+            }
+            long averageMicros = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+            sizes.put(mapper.getKey(), size);
+            log.info("{} as {}: {} bytes ({}% of json), {} us to encode", name, mapper.getKey(), size,
+                100 * size / sizes.get("json"), averageMicros);
+        }
+        return sizes;
+    }
+}
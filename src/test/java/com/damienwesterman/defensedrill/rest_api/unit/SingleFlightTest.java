@@ -0,0 +1,250 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.damienwesterman.defensedrill.rest_api.datasource.Lsn;
+import com.damienwesterman.defensedrill.rest_api.datasource.ReadConsistencyContext;
+import com.damienwesterman.defensedrill.rest_api.entity.DrillEntity;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent;
+import com.damienwesterman.defensedrill.rest_api.service.DatabaseChangeEvent.ChangeType;
+import com.damienwesterman.defensedrill.rest_api.service.SingleFlight;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SingleFlightTest {
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+    private ExecutorService executor;
+    private CountDownLatch releaseQuery;
+    private AtomicInteger queryCount;
+
+    final String OPERATION = "DrillEntity.findAll";
+    final List<String> RESULT = List.of("Drill 1", "Drill 2");
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry, 1024);
+        executor = Executors.newFixedThreadPool(2);
+        releaseQuery = new CountDownLatch(1);
+        queryCount = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void teardown() {
+        releaseQuery.countDown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Query that blocks until released, so that calls can be made while it is in flight.
+     */
+    private <T> Supplier<T> blockingQuery(T result) {
+        return () -> {
+            queryCount.incrementAndGet();
+            try {
+                releaseQuery.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        };
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.counter(SingleFlight.CALLS_METRIC, "operation", OPERATION, "outcome", outcome).count();
+    }
+
+    private void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void test_execute_concurrentIdenticalCalls_shareOneQuery() throws Exception {
+        Future<List<String>> leader = executor.submit(() -> singleFlight.execute(OPERATION, 5L, blockingQuery(RESULT)));
+        awaitCondition(() -> 1 == queryCount.get());
+        Future<List<String>> follower = executor.submit(() -> singleFlight.execute(OPERATION, 5L, blockingQuery(RESULT)));
+        awaitCondition(() -> 1 == count(SingleFlight.OUTCOME_SHARED));
+
+        releaseQuery.countDown();
+
+        assertSame(RESULT, leader.get(5, TimeUnit.SECONDS));
+        assertSame(RESULT, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, queryCount.get());
+        assertEquals(1, count(SingleFlight.OUTCOME_LEADER));
+        assertEquals(1, count(SingleFlight.OUTCOME_SHARED));
+        assertEquals(0, meterRegistry.get(SingleFlight.IN_FLIGHT_METRIC).gauge().value());
+    }
+
+    @Test
+    public void test_execute_differentArguments_runSeparateQueries() throws Exception {
+        Future<List<String>> first = executor.submit(() -> singleFlight.execute(OPERATION, 5L, blockingQuery(RESULT)));
+        awaitCondition(() -> 1 == queryCount.get());
+        Future<List<String>> second = executor.submit(() -> singleFlight.execute(OPERATION, 6L, blockingQuery(RESULT)));
+        awaitCondition(() -> 2 == queryCount.get());
+
+        releaseQuery.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, queryCount.get());
+        assertEquals(2, count(SingleFlight.OUTCOME_LEADER));
+    }
+
+    @Test
+    public void test_execute_failedQuery_throwsForSharedCallersToo() throws Exception {
+        Supplier<List<String>> failingQuery = () -> {
+            blockingQuery(RESULT).get();
+            throw new IllegalStateException("Query failed");
+        };
+        Future<List<String>> leader = executor.submit(() -> singleFlight.execute(OPERATION, null, failingQuery));
+        awaitCondition(() -> 1 == queryCount.get());
+        Future<List<String>> follower = executor.submit(() -> singleFlight.execute(OPERATION, null, failingQuery));
+        awaitCondition(() -> 1 == count(SingleFlight.OUTCOME_SHARED));
+
+        releaseQuery.countDown();
+
+        ExecutionException leaderException = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerException = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals(IllegalStateException.class, leaderException.getCause().getClass());
+        assertEquals(IllegalStateException.class, followerException.getCause().getClass());
+        assertEquals(1, queryCount.get());
+    }
+
+    @Test
+    public void test_execute_afterDatabaseChange_doesNotJoinOlderQuery() throws Exception {
+        Future<List<String>> beforeWrite = executor.submit(() -> singleFlight.execute(OPERATION, null, blockingQuery(RESULT)));
+        awaitCondition(() -> 1 == queryCount.get());
+
+        singleFlight.onDatabaseChange(new DatabaseChangeEvent(DrillEntity.class, ChangeType.SAVE, 1L));
+        Future<List<String>> afterWrite = executor.submit(() -> singleFlight.execute(OPERATION, null, blockingQuery(RESULT)));
+        awaitCondition(() -> 2 == queryCount.get());
+
+        releaseQuery.countDown();
+        beforeWrite.get(5, TimeUnit.SECONDS);
+        afterWrite.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, queryCount.get());
+        assertEquals(0, count(SingleFlight.OUTCOME_SHARED));
+    }
+
+    @Test
+    public void test_execute_withMaxKeysReached_bypasses() {
+        singleFlight = new SingleFlight(meterRegistry, 0);
+        releaseQuery.countDown();
+
+        singleFlight.execute(OPERATION, null, blockingQuery(RESULT));
+
+        assertEquals(1, count(SingleFlight.OUTCOME_BYPASSED));
+        assertEquals(0, count(SingleFlight.OUTCOME_LEADER));
+    }
+
+    @Test
+    public void test_execute_withinTransaction_bypasses() {
+        releaseQuery.countDown();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            singleFlight.execute(OPERATION, null, blockingQuery(RESULT));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(1, count(SingleFlight.OUTCOME_BYPASSED));
+    }
+
+    @Test
+    public void test_execute_withinReadOnlyTransaction_joins() {
+        releaseQuery.countDown();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            singleFlight.execute(OPERATION, null, blockingQuery(RESULT));
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(0, count(SingleFlight.OUTCOME_BYPASSED));
+        assertEquals(1, count(SingleFlight.OUTCOME_LEADER));
+    }
+
+    @Test
+    public void test_execute_withConsistencyToken_doesNotJoinQueryWithout() throws Exception {
+        Future<List<String>> withoutToken = executor.submit(() -> singleFlight.execute(OPERATION, null, blockingQuery(RESULT)));
+        awaitCondition(() -> 1 == queryCount.get());
+        Future<List<String>> withToken = executor.submit(() -> {
+            ReadConsistencyContext.setMinimumLsn(Lsn.parse("0/3000060"));
+            try {
+                return singleFlight.execute(OPERATION, null, blockingQuery(RESULT));
+            } finally {
+                ReadConsistencyContext.clear();
+            }
+        });
+        awaitCondition(() -> 2 == queryCount.get());
+
+        releaseQuery.countDown();
+        withoutToken.get(5, TimeUnit.SECONDS);
+        withToken.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, queryCount.get());
+        assertEquals(0, count(SingleFlight.OUTCOME_SHARED));
+    }
+
+    @Test
+    public void test_executeList_returnsCopyPerCaller() {
+        releaseQuery.countDown();
+
+        List<String> result = singleFlight.executeList(OPERATION, null, blockingQuery(RESULT));
+
+        assertEquals(RESULT, result);
+        assertNotSame(RESULT, result);
+    }
+}
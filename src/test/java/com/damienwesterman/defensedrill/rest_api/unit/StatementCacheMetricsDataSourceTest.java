@@ -0,0 +1,85 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.damienwesterman.defensedrill.rest_api.datasource.StatementCacheMetricsDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class StatementCacheMetricsDataSourceTest {
+    @Mock
+    private DataSource targetDataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StatementCacheMetricsDataSource dataSource;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new StatementCacheMetricsDataSource(targetDataSource, meterRegistry);
+        when(targetDataSource.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void test_prepareStatement_countsRepeatedSqlAsHits() throws Exception {
+        when(connection.prepareStatement("SELECT 1")).thenReturn(preparedStatement);
+
+        assertSame(preparedStatement, dataSource.getConnection().prepareStatement("SELECT 1"));
+        dataSource.getConnection().prepareStatement("SELECT 1");
+        dataSource.getConnection().prepareStatement("SELECT 2");
+
+        assertEquals(1, count("hit"));
+        assertEquals(2, count("miss"));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(StatementCacheMetricsDataSource.STATEMENT_CACHE_METRIC)
+            .tag("result", result)
+            .counter()
+            .count();
+    }
+}
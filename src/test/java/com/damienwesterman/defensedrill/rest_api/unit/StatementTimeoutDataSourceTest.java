@@ -0,0 +1,100 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.damienwesterman.defensedrill.rest_api.datasource.StatementTimeoutDataSource;
+
+@ExtendWith(MockitoExtension.class)
+public class StatementTimeoutDataSourceTest {
+    @Mock
+    private DataSource targetDataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private Statement statement;
+
+    @Test
+    public void test_prepareStatement_setsQueryTimeout() throws Exception {
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT 1")).thenReturn(preparedStatement);
+
+        Connection wrapped = new StatementTimeoutDataSource(targetDataSource, 5).getConnection();
+
+        assertSame(preparedStatement, wrapped.prepareStatement("SELECT 1"));
+        verify(preparedStatement).setQueryTimeout(5);
+    }
+
+    @Test
+    public void test_createStatement_setsQueryTimeout() throws Exception {
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+
+        new StatementTimeoutDataSource(targetDataSource, 30).getConnection().createStatement();
+
+        verify(statement).setQueryTimeout(30);
+    }
+
+    @Test
+    public void test_otherCalls_passThrough() throws Exception {
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        Connection wrapped = new StatementTimeoutDataSource(targetDataSource, 5).getConnection();
+
+        assertTrue(wrapped.getAutoCommit());
+        wrapped.close();
+        verify(connection).close();
+        assertEquals(wrapped, wrapped);
+    }
+
+    @Test
+    public void test_noTimeout_returnsConnectionUnwrapped() throws Exception {
+        when(targetDataSource.getConnection()).thenReturn(connection);
+
+        assertSame(connection, new StatementTimeoutDataSource(targetDataSource, 0).getConnection());
+        verify(connection, never()).createStatement();
+    }
+}
@@ -0,0 +1,116 @@
+/****************************\
+ *      ________________      *
+ *     /  _             \     *
+ *     \   \ |\   _  \  /     *
+ *      \  / | \ / \  \/      *
+ *      /  \ | / | /  /\      *
+ *     /  _/ |/  \__ /  \     *
+ *     \________________/     *
+ *                            *
+ \****************************/
+/*
+ * Copyright 2024 Damien Westerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.damienwesterman.defensedrill.rest_api.unit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares platform and virtual threads for requests that spend most of their time blocked on
+ * the database, like ours do on JDBC, at 1k to 10k concurrent requests.
+ * <br><br>
+ * The platform pool has Tomcat's default of 200 threads, the virtual executor starts one thread
+ * per request. Only completion is asserted, throughput and memory are logged for comparison as
+ * they vary by machine. The virtual thread run is skipped on Java versions before 21. Not part
+ * of the default test run, use mvn test -Pbenchmarks.
+ */
+@Tag("benchmark")
+public class VirtualThreadBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadBenchmarkTest.class);
+
+    final int TOMCAT_MAX_THREADS = 200;
+    final long BLOCKING_MILLIS = 20;
+    final int[] CONCURRENT_REQUESTS = { 1_000, 5_000, 10_000 };
+
+    @Test
+    public void test_platformThreads() throws Exception {
+        for (int concurrentRequests : CONCURRENT_REQUESTS) {
+            run("platform", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), concurrentRequests);
+        }
+    }
+
+    @Test
+    public void test_virtualThreads() throws Exception {
+        Method newVirtualThreadPerTaskExecutor = null;
+        try {
+            // Looked up reflectively so this still compiles for Java 17
+            newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            // Not available before Java 21
+        }
+        assumeTrue(null != newVirtualThreadPerTaskExecutor, "Virtual threads require Java 21 or later");
+
+        for (int concurrentRequests : CONCURRENT_REQUESTS) {
+            run("virtual", (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null), concurrentRequests);
+        }
+    }
+
+    private void run(String threadType, ExecutorService executor, int concurrentRequests) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        threads.resetPeakThreadCount();
+        CountDownLatch completed = new CountDownLatch(concurrentRequests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrentRequests; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(BLOCKING_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.countDown();
+            });
+        }
+        // Sampled while the requests are blocked, when the most memory is in use
+        long heapUsed = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        assertTrue(completed.await(60, TimeUnit.SECONDS));
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        log.info("{} threads, {} concurrent requests: {} requests/s, {} peak threads, {} KiB heap",
+            threadType, concurrentRequests,
+            Math.round(concurrentRequests / (elapsedNanos / 1_000_000_000.0)),
+            threads.getPeakThreadCount(), Math.max(0, heapUsed) / 1024);
+    }
+}